@@ -29,6 +29,19 @@ public class AbnormalDataWithAiDTO {
     @JsonProperty("eData")
     private String eData;
 
+    @JsonProperty("lastSeen")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    private LocalDateTime lastSeen;
+
+    @JsonProperty("occurrences")
+    private Integer occurrences;
+
+    @JsonProperty("minValue")
+    private Double minValue;
+
+    @JsonProperty("maxValue")
+    private Double maxValue;
+
     @JsonProperty("aiCode")
     private Integer aiCode;
 
@@ -0,0 +1,52 @@
+package com.example.V1.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 单条异常数据的AI分析状态，分析完成后携带结果；同时作为分析结果推送的消息体
+ */
+@Data
+@Accessors(chain = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AiAnalysisStatusDTO {
+
+    @JsonProperty("mtDataId")
+    private Integer mtDataId;
+
+    @JsonProperty("status")
+    private AnalysisStatus status;
+
+    @JsonProperty("statusLabel")
+    private String statusLabel;
+
+    @JsonProperty("systemName")
+    private String systemName;
+
+    @JsonProperty("systemSqName")
+    private String systemSqName;
+
+    @JsonProperty("eName")
+    private String eName;
+
+    @JsonProperty("eData")
+    private String eData;
+
+    @JsonProperty("aiCode")
+    private Integer aiCode;
+
+    @JsonProperty("aiResult")
+    private String aiResult;
+
+    @JsonProperty("aiSeverity")
+    private String aiSeverity;
+
+    @JsonProperty("建议")
+    private String suggestion;
+
+    public static AiAnalysisStatusDTO of(Integer mtDataId, AnalysisStatus status) {
+        return new AiAnalysisStatusDTO().setMtDataId(mtDataId).setStatus(status).setStatusLabel(status.getLabel());
+    }
+}
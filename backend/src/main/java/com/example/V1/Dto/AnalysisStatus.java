@@ -0,0 +1,29 @@
+package com.example.V1.Dto;
+
+/**
+ * 异常数据AI分析进度
+ */
+public enum AnalysisStatus {
+    QUEUED("排队中"),
+    RUNNING("分析中"),
+    DONE("分析完成"),
+    FAILED("AI响应异常"),
+    REJECTED("分析队列已满");
+
+    private final String label;
+
+    AnalysisStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 是否已结束（不会再变化）
+     */
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
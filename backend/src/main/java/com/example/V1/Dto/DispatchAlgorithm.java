@@ -0,0 +1,23 @@
+package com.example.V1.Dto;
+
+/**
+ * 群控调度算法
+ * RANDOM：随机分配，作为对照基线
+ * NEAREST_CAR：最近车优先，背离呼梯层运行的电梯加罚
+ * ETA：目的层调度，按预计到达时间 + 乘梯时间 + 对已分配乘客造成的延误综合估算
+ */
+public enum DispatchAlgorithm {
+    RANDOM("随机分配"),
+    NEAREST_CAR("最近车优先"),
+    ETA("预计到达时间");
+
+    private final String label;
+
+    DispatchAlgorithm(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.V1.Dto;
+
+/**
+ * 电梯门状态
+ * code 用于二进制帧的紧凑编码，label 为JSON协议中沿用的文本
+ */
+public enum DoorStatus {
+    CLOSED((byte) 0, "关闭"),
+    OPEN((byte) 1, "打开");
+
+    private final byte code;
+    private final String label;
+
+    DoorStatus(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据文本取值，未知文本返回 CLOSED
+     */
+    public static DoorStatus fromLabel(String label) {
+        for (DoorStatus value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return CLOSED;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.V1.Dto;
+
+/**
+ * 电梯运行方向
+ * code 用于二进制帧的紧凑编码，label 为JSON协议中沿用的文本
+ */
+public enum ElevatorDirection {
+    NONE((byte) 0, "无"),
+    UP((byte) 1, "上行"),
+    DOWN((byte) 2, "下行");
+
+    private final byte code;
+    private final String label;
+
+    ElevatorDirection(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据文本取值，未知文本返回 NONE
+     */
+    public static ElevatorDirection fromLabel(String label) {
+        for (ElevatorDirection value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return NONE;
+    }
+}
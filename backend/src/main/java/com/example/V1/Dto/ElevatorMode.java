@@ -0,0 +1,38 @@
+package com.example.V1.Dto;
+
+/**
+ * 电梯控制模式
+ * code 用于二进制帧的紧凑编码，label 为JSON协议中沿用的文本
+ */
+public enum ElevatorMode {
+    AUTO((byte) 0, "AUTO"),
+    MANUAL((byte) 1, "MANUAL");
+
+    private final byte code;
+    private final String label;
+
+    ElevatorMode(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据文本取值，未知文本返回 AUTO
+     */
+    public static ElevatorMode fromLabel(String label) {
+        for (ElevatorMode value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return AUTO;
+    }
+}
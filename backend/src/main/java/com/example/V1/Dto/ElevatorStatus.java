@@ -0,0 +1,39 @@
+package com.example.V1.Dto;
+
+/**
+ * 电梯运行状态
+ * code 用于二进制帧的紧凑编码，label 为JSON协议中沿用的文本
+ */
+public enum ElevatorStatus {
+    STOPPED((byte) 0, "停止"),
+    RUNNING((byte) 1, "运行中"),
+    HALTED((byte) 2, "已停止");
+
+    private final byte code;
+    private final String label;
+
+    ElevatorStatus(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据文本取值，未知文本返回 STOPPED
+     */
+    public static ElevatorStatus fromLabel(String label) {
+        for (ElevatorStatus value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return STOPPED;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.V1.Dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 离线批量仿真场景
+ * trafficProfile 为空时按一天内的时段切换客流模式（早高峰上行、午间层间、晚高峰下行、夜间低峰）
+ */
+@Data
+@Accessors(chain = true)
+public class FleetScenarioDTO {
+    // 梯组数量，各梯组独立仿真，0 表示CPU核数
+    private int banks = 0;
+    private int carsPerBank = 4;
+    private double hours = 24;
+    private long tickMillis = 150;
+    // 相对真实时间的加速倍数，0 表示不限速
+    private double speedup = 1000;
+    private long seed = 42;
+    private int threads = 0;
+    private List<DispatchAlgorithm> algorithms = new ArrayList<>(Arrays.asList(DispatchAlgorithm.values()));
+    private TrafficProfile trafficProfile;
+    // 基准到达率，按时段切换时各时段在此基础上放大或缩小
+    private double arrivalRatePerMinute = 6;
+    private long abandonAfterSeconds = 300;
+}
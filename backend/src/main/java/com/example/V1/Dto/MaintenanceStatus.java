@@ -0,0 +1,39 @@
+package com.example.V1.Dto;
+
+/**
+ * 电梯维护状态
+ * code 用于二进制帧的紧凑编码，label 为JSON协议中沿用的文本
+ */
+public enum MaintenanceStatus {
+    NORMAL((byte) 0, "正常"),
+    MAINTAINING((byte) 1, "维护中"),
+    FAULT((byte) 2, "故障");
+
+    private final byte code;
+    private final String label;
+
+    MaintenanceStatus(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 根据文本取值，未知文本返回 NORMAL
+     */
+    public static MaintenanceStatus fromLabel(String label) {
+        for (MaintenanceStatus value : values()) {
+            if (value.label.equals(label)) {
+                return value;
+            }
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.V1.Dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 一条传感器采样，由采集端批量上报给服务端流式异常检测
+ */
+@Data
+@Accessors(chain = true)
+public class SensorSampleDTO {
+
+    @JsonProperty("elevatorId")
+    private String elevatorId;
+
+    @JsonProperty("systemName")
+    private String systemName;
+
+    /**
+     * 参数名，与 anomaly-rules.json 中的参数名一致时按区间规则判定
+     */
+    @JsonProperty("parameter")
+    private String parameter;
+
+    @JsonProperty("value")
+    private Double value;
+
+    /**
+     * 采样时间（毫秒时间戳），为空时取服务端接收时间
+     */
+    @JsonProperty("timestamp")
+    private Long timestamp;
+}
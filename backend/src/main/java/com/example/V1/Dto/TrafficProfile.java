@@ -0,0 +1,60 @@
+package com.example.V1.Dto;
+
+import java.util.Random;
+
+/**
+ * 群控调度的客流模式
+ * 决定乘客产生时的出发层与目的层分布，1层视为门厅
+ */
+public enum TrafficProfile {
+    UP_PEAK("上行高峰"),
+    DOWN_PEAK("下行高峰"),
+    INTER_FLOOR("层间交通");
+
+    public static final int LOBBY = 1;
+
+    // 高峰时段经过门厅的乘客比例
+    private static final double PEAK_LOBBY_SHARE = 0.85;
+
+    private final String label;
+
+    TrafficProfile(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 抽样乘客出发层
+     */
+    public int sampleOrigin(Random random, int floorCount) {
+        switch (this) {
+            case UP_PEAK:
+                return random.nextDouble() < PEAK_LOBBY_SHARE ? LOBBY : upperFloor(random, floorCount);
+            case DOWN_PEAK:
+                return random.nextDouble() < PEAK_LOBBY_SHARE ? upperFloor(random, floorCount) : LOBBY;
+            default:
+                return random.nextInt(floorCount) + 1;
+        }
+    }
+
+    /**
+     * 抽样乘客目的层，保证与出发层不同
+     */
+    public int sampleDestination(Random random, int floorCount, int origin) {
+        if (this == DOWN_PEAK && origin != LOBBY && random.nextDouble() < PEAK_LOBBY_SHARE) {
+            return LOBBY;
+        }
+        if (this == UP_PEAK && origin == LOBBY) {
+            return upperFloor(random, floorCount);
+        }
+        int destination = random.nextInt(floorCount - 1) + 1;
+        return destination >= origin ? destination + 1 : destination;
+    }
+
+    private static int upperFloor(Random random, int floorCount) {
+        return random.nextInt(floorCount - 1) + 2;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.V1.Handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI分析结果推送（/ws/ai/analysis）
+ * 每条异常分析结束时向所有订阅者广播一条JSON消息（格式同分析状态查询接口）；
+ * 会话用 ConcurrentWebSocketSessionDecorator 包装，发送跟不上时在缓冲区排队，超出时限或缓冲上限的会话被关闭
+ */
+@Slf4j
+@Component
+public class AiAnalysisSocketHandler extends TextWebSocketHandler {
+
+    @Value("${elevator.outbound.send-time-limit-ms:2000}")
+    private int sendTimeLimitMs;
+
+    @Value("${ai.analysis.push-buffer-bytes:524288}")
+    private int bufferSizeLimit;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        sessions.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+    }
+
+    public int getSubscriberCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 向所有订阅者广播一条分析结果
+     */
+    public void broadcast(String json) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        TextMessage message = new TextMessage(json);
+        for (WebSocketSession session : sessions.values()) {
+            try {
+                session.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                log.warn("分析结果推送失败，关闭会话 {}: {}", session.getId(), e.getMessage());
+                sessions.remove(session.getId());
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {
+                    // 会话已不可用
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.V1.Handler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 电梯状态二进制帧编解码（子协议 elevator.binary.v1，大端序，定长字段）
+ * <pre>
+ * u8  版本(1)          u8  帧类型(1=状态)     u32 帧序号
+ * u8  id长度 + id(UTF-8)
+ * f32 当前楼层          u8  目标楼层          u8  总楼层数
+ * u8  运行状态码        u8  方向码            u8  门状态码
+ * u8  控制模式码        u8  维护状态码
+ * f32 速度             u16 载重(kg)          u16 额定载重(kg)
+ * i16 温度(×10)
+ * </pre>
+ * 状态码含义见 Dto 包下的 ElevatorStatus / ElevatorDirection / DoorStatus / ElevatorMode / MaintenanceStatus
+ */
+public final class ElevatorBinaryCodec {
+
+    public static final byte VERSION = 1;
+    public static final byte FRAME_STATE = 1;
+
+    /**
+     * 不含id的定长部分长度
+     */
+    public static final int FIXED_LENGTH = 28;
+
+    /**
+     * id 长度字段为 u8，UTF-8 编码后的 id 最多 255 字节
+     */
+    public static final int MAX_ID_BYTES = 0xFF;
+
+    private ElevatorBinaryCodec() {
+    }
+
+    public static int frameLength(byte[] idBytes) {
+        checkId(idBytes);
+        return FIXED_LENGTH + idBytes.length;
+    }
+
+    /**
+     * id 超出长度字段能表示的范围时抛出 IllegalArgumentException，避免长度回绕写出错位的帧
+     */
+    public static void checkId(byte[] idBytes) {
+        if (idBytes.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("电梯ID超过 " + MAX_ID_BYTES + " 字节: " + idBytes.length);
+        }
+    }
+
+    /**
+     * 将状态写入缓冲区当前位置，返回写入的字节数
+     */
+    public static int encodeState(ByteBuffer buf, byte[] idBytes, long seq,
+                                  double currentFloor, int targetFloor, int floorCount,
+                                  byte status, byte direction, byte door, byte mode, byte maintenance,
+                                  double speed, double loadWeight, int maxWeight, double temperature) {
+        checkId(idBytes);
+        int start = buf.position();
+        buf.put(VERSION);
+        buf.put(FRAME_STATE);
+        buf.putInt((int) seq);
+        buf.put((byte) idBytes.length);
+        buf.put(idBytes);
+        buf.putFloat((float) currentFloor);
+        buf.put((byte) targetFloor);
+        buf.put((byte) floorCount);
+        buf.put(status);
+        buf.put(direction);
+        buf.put(door);
+        buf.put(mode);
+        buf.put(maintenance);
+        buf.putFloat((float) speed);
+        buf.putShort((short) clampUnsignedShort(Math.round(loadWeight)));
+        buf.putShort((short) clampUnsignedShort(maxWeight));
+        buf.putShort((short) Math.round(temperature * 10));
+        return buf.position() - start;
+    }
+
+    private static long clampUnsignedShort(long value) {
+        return Math.max(0, Math.min(0xFFFF, value));
+    }
+}
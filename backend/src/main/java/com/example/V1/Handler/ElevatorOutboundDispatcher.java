@@ -0,0 +1,123 @@
+package com.example.V1.Handler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 电梯状态出站发送调度器
+ * 为每个会话创建 OutboundChannel，并用共享的发送线程池完成网络写出，仿真节拍线程从不阻塞在网络IO上
+ */
+@Slf4j
+@Component
+public class ElevatorOutboundDispatcher {
+
+    // Tomcat 阻塞发送超时属性，让卡住的发送在时限后抛出异常
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    @Value("${elevator.outbound.sender-threads:0}")
+    private int senderThreads;
+
+    @Value("${elevator.outbound.send-time-limit-ms:2000}")
+    private long sendTimeLimitMs;
+
+    private ExecutorService senders;
+
+    private final AtomicInteger openChannels = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowClosed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        int threads = senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors() * 2;
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "elevator-ws-sender-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("电梯状态发送线程池已启动: 线程数={}, 发送时限={}ms", threads, sendTimeLimitMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * 为新会话创建出站通道
+     */
+    public OutboundChannel open(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session wsSession = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (wsSession != null) {
+                wsSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, sendTimeLimitMs);
+            }
+        }
+        openChannels.incrementAndGet();
+        return new OutboundChannel(session, this, sendTimeLimitMs);
+    }
+
+    public void close(OutboundChannel channel) {
+        channel.close();
+        openChannels.decrementAndGet();
+    }
+
+    void schedule(OutboundChannel channel) {
+        execute(channel::drain);
+    }
+
+    void execute(Runnable task) {
+        try {
+            senders.execute(task);
+        } catch (RejectedExecutionException e) {
+            recordDropped();
+        }
+    }
+
+    void recordSent() {
+        sent.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void recordSlowClosed() {
+        slowClosed.increment();
+    }
+
+    /**
+     * 出站统计：已发送、被合并（被更新状态覆盖）、丢弃的帧数及因发送超时关闭的会话数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("openChannels", openChannels.get());
+        stats.put("sentFrames", sent.sum());
+        stats.put("coalescedFrames", coalesced.sum());
+        stats.put("droppedFrames", dropped.sum());
+        stats.put("slowSessionsClosed", slowClosed.sum());
+        stats.put("sendTimeLimitMs", sendTimeLimitMs);
+        return stats;
+    }
+}
@@ -2,32 +2,52 @@ package com.example.V1.Handler;
 
 import com.example.V1.Dto.ElevatorCommand;
 import com.example.V1.service.impl.Elevator;
+import com.example.V1.service.impl.ElevatorRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @Component
-public class ElevatorSocketHandler extends TextWebSocketHandler {
+public class ElevatorSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
+
+    private static final String OUTBOUND_CHANNEL_ATTR = "elevator.outboundChannel";
 
-    private final Map<String, Elevator> elevators = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired
+    private ElevatorOutboundDispatcher outboundDispatcher;
+
+    @Autowired
+    private ElevatorRegistry elevatorRegistry;
+
+    /**
+     * 支持的子协议，客户端通过 Sec-WebSocket-Protocol 协商；指令始终以JSON文本发送
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return FrameProtocol.SUBPROTOCOLS;
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         try {
             String elevatorId = extractElevatorId(session);
-            if (elevatorId != null) {
-                Elevator elevator = new Elevator(elevatorId, session);
-                elevators.put(elevatorId, elevator);
-                elevator.start();
-                System.out.println("Elevator connected: " + elevatorId);
+            if (elevatorId != null && elevatorId.getBytes(StandardCharsets.UTF_8).length > ElevatorBinaryCodec.MAX_ID_BYTES) {
+                session.close(CloseStatus.BAD_DATA.withReason("elevatorId too long"));
+            } else if (elevatorId != null && !elevatorId.isEmpty()) {
+                OutboundChannel channel = outboundDispatcher.open(session);
+                session.getAttributes().put(OUTBOUND_CHANNEL_ATTR, channel);
+                Elevator elevator = elevatorRegistry.subscribe(elevatorId, channel, FrameProtocol.resolve(session));
+                System.out.println("Elevator connected: " + elevatorId + ", subscribers: " + elevator.getSubscriberCount());
             } else {
                 session.close(CloseStatus.BAD_DATA.withReason("Missing elevatorId"));
             }
@@ -45,10 +65,15 @@ public class ElevatorSocketHandler extends TextWebSocketHandler {
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String elevatorId = extractElevatorId(session);
-        Elevator elevator = elevators.get(elevatorId);
+        Elevator elevator = elevatorRegistry.get(elevatorId);
 
         if (elevator != null) {
             ElevatorCommand command = objectMapper.readValue(message.getPayload(), ElevatorCommand.class);
+            if ("RESYNC".equals(command.getCommand())) {
+                // 增量协议客户端检测到序号不连续时请求完整快照
+                elevator.requestSnapshot(session);
+                return;
+            }
             elevator.handleCommand(command);
         }
     }
@@ -57,9 +82,10 @@ public class ElevatorSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String elevatorId = extractElevatorId(session);
         if (elevatorId != null) {
-            Elevator elevator = elevators.remove(elevatorId);
-            if (elevator != null) {
-                elevator.stop();
+            elevatorRegistry.unsubscribe(elevatorId, session);
+            Object channel = session.getAttributes().remove(OUTBOUND_CHANNEL_ATTR);
+            if (channel instanceof OutboundChannel outboundChannel) {
+                outboundDispatcher.close(outboundChannel);
             }
             System.out.println("Elevator disconnected: " + elevatorId);
         }
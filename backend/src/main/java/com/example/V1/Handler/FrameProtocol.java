@@ -0,0 +1,57 @@
+package com.example.V1.Handler;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * 电梯状态推送协议
+ * JSON_FULL：每个节拍推送完整状态（旧客户端默认）
+ * JSON_DELTA：订阅时推送完整快照，之后只推送变化字段，并携带序号供客户端检测丢帧后请求重同步
+ * BINARY：每个节拍推送定长二进制帧（BinaryMessage），格式见 ElevatorBinaryCodec
+ */
+public enum FrameProtocol {
+    JSON_FULL,
+    JSON_DELTA,
+    BINARY;
+
+    public static final String SUBPROTOCOL_JSON = "elevator.json.v1";
+    public static final String SUBPROTOCOL_DELTA = "elevator.delta.v1";
+    public static final String SUBPROTOCOL_BINARY = "elevator.binary.v1";
+
+    /**
+     * 握手时可协商的子协议（Sec-WebSocket-Protocol）
+     */
+    public static final List<String> SUBPROTOCOLS = List.of(SUBPROTOCOL_BINARY, SUBPROTOCOL_DELTA, SUBPROTOCOL_JSON);
+
+    /**
+     * 确定推送协议：优先使用握手协商的子协议，
+     * 其次兼容URL上的 protocol 参数，例如 /ws/elevator/status/EL-001?protocol=delta
+     */
+    public static FrameProtocol resolve(WebSocketSession session) {
+        String accepted = session.getAcceptedProtocol();
+        if (SUBPROTOCOL_BINARY.equals(accepted)) {
+            return BINARY;
+        }
+        if (SUBPROTOCOL_DELTA.equals(accepted)) {
+            return JSON_DELTA;
+        }
+        if (SUBPROTOCOL_JSON.equals(accepted)) {
+            return JSON_FULL;
+        }
+        URI uri = session.getUri();
+        String query = uri != null ? uri.getQuery() : null;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if ("protocol=delta".equalsIgnoreCase(pair)) {
+                    return JSON_DELTA;
+                }
+                if ("protocol=binary".equalsIgnoreCase(pair)) {
+                    return BINARY;
+                }
+            }
+        }
+        return JSON_FULL;
+    }
+}
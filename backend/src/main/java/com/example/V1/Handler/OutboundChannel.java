@@ -0,0 +1,127 @@
+package com.example.V1.Handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单个WebSocket会话的出站通道
+ * 缓冲区只保留最新一帧（合并策略），仿真线程投递后立即返回，实际发送由 ElevatorOutboundDispatcher 的发送线程完成；
+ * 一次发送超过时限的慢客户端会被关闭，避免占用发送线程
+ */
+@Slf4j
+public class OutboundChannel {
+
+    private final WebSocketSession session;
+    private final ElevatorOutboundDispatcher dispatcher;
+    private final long sendTimeLimitNanos;
+
+    private final AtomicReference<WebSocketMessage<?>> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile long sendStartNanos = 0;
+    private volatile boolean closed = false;
+
+    OutboundChannel(WebSocketSession session, ElevatorOutboundDispatcher dispatcher, long sendTimeLimitMs) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+        this.sendTimeLimitNanos = sendTimeLimitMs * 1_000_000L;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * 是否还有未发出的帧（发送跟不上节拍）
+     */
+    public boolean hasPending() {
+        return pending.get() != null;
+    }
+
+    /**
+     * 投递一帧，不阻塞调用线程；未发出的旧帧直接被新帧替换
+     */
+    public void offer(WebSocketMessage<?> message) {
+        if (closed || !session.isOpen()) {
+            dispatcher.recordDropped();
+            return;
+        }
+        long started = sendStartNanos;
+        if (started != 0 && System.nanoTime() - started > sendTimeLimitNanos) {
+            dispatcher.recordDropped();
+            // 关闭动作本身可能阻塞，交给发送线程执行
+            if (markSlow()) {
+                dispatcher.execute(this::closeSession);
+            }
+            return;
+        }
+        if (pending.getAndSet(message) != null) {
+            dispatcher.recordCoalesced();
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.schedule(this);
+        }
+    }
+
+    /**
+     * 在发送线程上执行：循环发出最新帧直到缓冲区为空
+     */
+    void drain() {
+        while (true) {
+            WebSocketMessage<?> message = pending.getAndSet(null);
+            if (message == null) {
+                scheduled.set(false);
+                // 释放标记后可能有新帧刚好投递进来
+                if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            if (closed || !session.isOpen()) {
+                dispatcher.recordDropped();
+                continue;
+            }
+            sendStartNanos = System.nanoTime();
+            try {
+                session.sendMessage(message);
+                dispatcher.recordSent();
+            } catch (IOException | RuntimeException e) {
+                dispatcher.recordDropped();
+                log.warn("推送失败，关闭会话 {}: {}", session.getId(), e.getMessage());
+                if (markSlow()) {
+                    closeSession();
+                }
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        pending.set(null);
+    }
+
+    private synchronized boolean markSlow() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        pending.set(null);
+        dispatcher.recordSlowClosed();
+        return true;
+    }
+
+    private void closeSession() {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("关闭慢会话失败: {}", e.getMessage());
+        }
+    }
+}
@@ -5,7 +5,9 @@ import com.example.V1.entity.PromptKnowledge;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class BuildPromptWithKnowleConfig {
     public String buildPromptWithKnowledge(List<PromptKnowledge> knowledgeList, DataETableForAiDTO data) throws JsonProcessingException {
@@ -18,7 +20,7 @@ public class BuildPromptWithKnowleConfig {
         }
 
         sb.append("\n当前上传的电梯异常数据为：\n");
-        sb.append(new ObjectMapper().writeValueAsString(data)).append("\n");
+        sb.append(new ObjectMapper().writeValueAsString(promptItem(data))).append("\n");
 
         sb.append("\n你的任务是判断该异常的故障等级、分析结果和给出处理建议，并以如下格式输出：\n");
         sb.append("```json\n");
@@ -48,4 +50,66 @@ public class BuildPromptWithKnowleConfig {
 
         return sb.toString();
     }
+
+    /**
+     * 多条异常共用一份知识和说明，要求按序号返回JSON数组，每个元素的字段与单条分析相同
+     */
+    public String buildBatchPromptWithKnowledge(List<PromptKnowledge> knowledgeList, List<DataETableForAiDTO> dataList) throws JsonProcessingException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("你是一名电梯故障分析专家，以下是你总结的一些经验知识：\n");
+        for (int i = 0; i < Math.min(10, knowledgeList.size()); i++) {
+            PromptKnowledge k = knowledgeList.get(i);
+            sb.append("Q: ").append(k.getPrompt()).append("\n");
+            sb.append("A: ").append(k.getCompletion()).append("\n");
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        sb.append("\n当前上传的 ").append(dataList.size()).append(" 条电梯异常数据为（每条前面是序号）：\n");
+        for (int i = 0; i < dataList.size(); i++) {
+            sb.append(i + 1).append(". ").append(mapper.writeValueAsString(promptItem(dataList.get(i)))).append("\n");
+        }
+
+        sb.append("\n你的任务是逐条判断每条异常的故障等级、分析结果和给出处理建议，并以如下格式输出一个JSON数组，每条异常对应一个元素：\n");
+        sb.append("```json\n");
+        sb.append("[\n");
+        sb.append("  {\n");
+        sb.append("    \"index\": 1,\n");
+        sb.append("    \"systemName\": \"与第1条异常相同\",\n");
+        sb.append("    \"systemSqName\": \"与第1条异常相同\",\n");
+        sb.append("    \"eName\": \"与第1条异常相同\",\n");
+        sb.append("    \"eData\": \"与第1条异常相同\",\n");
+        sb.append("    \"aiCode\": 0,\n");
+        sb.append("    \"aiResult\": \"分析结果：请填写详细的故障分析，如：……\",\n");
+        sb.append("    \"建议\": \"请填写详细的处理建议以及建议分配任务给维护人员还是技术人员，如：……\"\n");
+        sb.append("  }\n");
+        sb.append("]\n");
+        sb.append("```\n");
+
+        sb.append("\n你必须严格按照以上JSON格式返回，不要添加任何其他内容，并且还有其他注意事项：\n");
+        sb.append("1. 必须返回JSON数组，元素个数与异常条数相同，index为异常的序号\n");
+        sb.append("2. aiCode只能是数字0或1，不能使用字符串\n");
+        sb.append("3. 不要在JSON前后添加任何额外文字或解释\n");
+        sb.append("4. 确保JSON格式正确，可以被解析\n");
+        sb.append("5. 你的回复必须是一个有效的JSON数组，不要包含任何markdown标记或其他格式\n");
+        sb.append("6. aiResult字段应该包含详细的故障分析和维修建议，需要展现出电梯故障分析专家的专业，不要简单地返回'系统异常'\n");
+        sb.append("7. 请根据上面知识和每条异常数据，分别详细判断故障类型、详细原因、详细维修建议，并判断故障等级，不同异常之间不要互相引用：\n");
+        sb.append("8. 严重故障（aiCode=1）：需要立即停止电梯运行，显示红色弹窗，必须维修人员处理后才能恢复运行\n");
+        sb.append("9. 警告（aiCode=0）：电梯可以继续运行，显示黄色弹窗，可以忽略或上报\n");
+        sb.append("10. 每条都必须返回建议分配给技术人员或者维护人员\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * 提示词中的异常数据：字段名与要求模型回显的 systemName/systemSqName/eName/eData 一致，
+     * 不直接序列化DTO（Lombok 生成的访问器会让 Jackson 输出 ename/esqName）
+     */
+    private static Map<String, String> promptItem(DataETableForAiDTO data) {
+        Map<String, String> item = new LinkedHashMap<>();
+        item.put("systemName", data.getSystemName());
+        item.put("systemSqName", data.getSystemSqName());
+        item.put("eName", data.getEName());
+        item.put("eData", data.getESqName());
+        return item;
+    }
 }
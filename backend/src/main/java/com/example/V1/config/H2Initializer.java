@@ -15,6 +15,14 @@ import java.nio.file.Files;
 @Component
 public class H2Initializer implements CommandLineRunner {
 
+    // 异常事件合并的累计列
+    private static final String[] UPGRADE_COLUMNS = {
+            "last_seen TIMESTAMP",
+            "occurrences INTEGER DEFAULT 1",
+            "min_value DOUBLE",
+            "max_value DOUBLE"
+    };
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -22,11 +30,12 @@ public class H2Initializer implements CommandLineRunner {
     public void run(String... args) throws Exception {
         log.info("初始化H2数据库结构和数据...");
         try {
-            // 检查数据库是否已经有数据
-            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'DATA_E_TABLE'", Integer.class);
+            // 检查数据库是否已经有数据；连接串带 DATABASE_TO_LOWER 时表名为小写
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = 'DATA_E_TABLE'", Integer.class);
 
             if (count != null && count > 0) {
                 log.info("H2数据库已存在表结构，跳过初始化");
+                upgradeSchema();
                 return;
             }
 
@@ -37,6 +46,7 @@ public class H2Initializer implements CommandLineRunner {
             if (sqlFile.exists()) {
                 String sqlScript = new String(Files.readAllBytes(sqlFile.toPath()), StandardCharsets.UTF_8);
                 executeSqlScript(sqlScript);
+                upgradeSchema();
                 log.info("H2数据库结构和数据初始化成功！");
             } else {
                 log.warn("H2初始化脚本文件不存在: {}", sqlFile.getAbsolutePath());
@@ -46,12 +56,37 @@ public class H2Initializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * 补上后来新增的列：已有的数据库文件和由初始化脚本新建的库都需要
+     */
+    private void upgradeSchema() {
+        for (String column : UPGRADE_COLUMNS) {
+            try {
+                jdbcTemplate.execute("ALTER TABLE data_e_table ADD COLUMN IF NOT EXISTS " + column);
+            } catch (Exception e) {
+                log.error("补充 data_e_table 列失败: {}", column, e);
+            }
+        }
+    }
+
+    /**
+     * 去掉语句前的注释行，脚本中每条语句前都有一行说明注释
+     */
+    static String stripLeadingComments(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.startsWith("--")) {
+            int lineEnd = trimmed.indexOf('\n');
+            trimmed = lineEnd < 0 ? "" : trimmed.substring(lineEnd + 1).trim();
+        }
+        return trimmed;
+    }
+
     private void executeSqlScript(String sqlScript) {
         // 按分号分割SQL语句，但要注意处理字符串中的分号
         String[] sqlStatements = sqlScript.split(";\\s*\\n");
         for (String sql : sqlStatements) {
-            String trimmedSql = sql.trim();
-            if (!trimmedSql.isEmpty() && !trimmedSql.startsWith("--")) {
+            String trimmedSql = stripLeadingComments(sql);
+            if (!trimmedSql.isEmpty()) {
                 try {
                     // 如果SQL语句不以分号结尾，添加分号
                     if (!trimmedSql.endsWith(";")) {
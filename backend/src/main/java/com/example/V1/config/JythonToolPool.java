@@ -0,0 +1,157 @@
+package com.example.V1.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.python.core.CompileMode;
+import org.python.core.CompilerFlags;
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.core.PyObject;
+import org.python.util.PythonInterpreter;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Jython MCP 解释器池
+ * 工具脚本只编译一次，池中每个解释器执行一遍编译结果，工具函数在启动时解析为 PyObject，
+ * 调用时直接以关键字参数传入 Java 值，不再拼接源码、不再写解释器全局变量。
+ * 一个解释器同一时刻只借给一个线程，并发调用互不干扰
+ */
+@Slf4j
+public class JythonToolPool implements AutoCloseable {
+
+    private final BlockingQueue<Engine> idle;
+    private final int size;
+    private final long borrowTimeoutMs;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder busyRejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * 池中的一个解释器及其已解析的工具函数
+     */
+    private static final class Engine {
+        private final PythonInterpreter interpreter;
+        private final Map<String, PyObject> tools;
+
+        private Engine(PythonInterpreter interpreter, Map<String, PyObject> tools) {
+            this.interpreter = interpreter;
+            this.tools = tools;
+        }
+    }
+
+    /**
+     * @param source    工具脚本源码
+     * @param filename  报错信息中显示的文件名
+     * @param globals   注入每个解释器的全局变量（如 Java 服务）
+     * @param toolNames 允许调用的工具函数名
+     * @param out       解释器的标准输出，为 null 时沿用 System.out
+     */
+    public JythonToolPool(int size, long borrowTimeoutMs, String source, String filename,
+                          Map<String, Object> globals, Collection<String> toolNames, OutputStream out) {
+        this.size = Math.max(1, size);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idle = new ArrayBlockingQueue<>(this.size);
+
+        PyCode code;
+        // 先创建一个解释器完成 Jython 运行时初始化
+        try (PythonInterpreter ignored = new PythonInterpreter()) {
+            // 按字节编译：Jython 拒绝编译带编码声明（# -*- coding: utf-8 -*-）的 Unicode 字符串
+            code = Py.compile_flags(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)),
+                    filename, CompileMode.exec, new CompilerFlags());
+        }
+        for (int i = 0; i < this.size; i++) {
+            PythonInterpreter interpreter = new PythonInterpreter();
+            if (out != null) {
+                interpreter.setOut(out);
+            }
+            globals.forEach(interpreter::set);
+            interpreter.exec(code);
+            Map<String, PyObject> tools = new HashMap<>();
+            for (String name : toolNames) {
+                PyObject fn = interpreter.get(name);
+                if (fn != null && fn.isCallable()) {
+                    tools.put(name, fn);
+                } else if (i == 0) {
+                    log.warn("{} 中未定义MCP工具函数: {}", filename, name);
+                }
+            }
+            idle.add(new Engine(interpreter, tools));
+        }
+        log.info("Jython MCP解释器池已创建: {} 个解释器", this.size);
+    }
+
+    /**
+     * 借出一个解释器调用工具函数，参数按名称作为关键字参数传入
+     * @return 工具函数返回值的字符串形式（工具约定返回JSON）
+     * @throws IllegalArgumentException 工具不存在
+     * @throws IllegalStateException    borrow-timeout-ms 内没有空闲解释器
+     */
+    public String call(String toolName, Map<String, Object> parameters) throws InterruptedException {
+        long start = System.nanoTime();
+        Engine engine = idle.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        waitNanos.add(System.nanoTime() - start);
+        if (engine == null) {
+            busyRejected.increment();
+            throw new IllegalStateException("MCP解释器全部繁忙，请稍后重试");
+        }
+        calls.increment();
+        try {
+            PyObject fn = engine.tools.get(toolName);
+            if (fn == null) {
+                throw new IllegalArgumentException("未知的MCP工具: " + toolName);
+            }
+            int n = parameters == null ? 0 : parameters.size();
+            PyObject[] args = new PyObject[n];
+            String[] keywords = new String[n];
+            if (n > 0) {
+                int i = 0;
+                for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                    args[i] = Py.java2py(entry.getValue());
+                    keywords[i] = entry.getKey();
+                    i++;
+                }
+            }
+            return fn.__call__(args, keywords).toString();
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            idle.offer(engine);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long callCount = calls.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("idle", idle.size());
+        stats.put("calls", callCount);
+        stats.put("failures", failures.sum());
+        stats.put("busyRejected", busyRejected.sum());
+        stats.put("avgWaitMicros", callCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum()) / callCount);
+        return stats;
+    }
+
+    /**
+     * 只关闭当前空闲的解释器，应在不再有调用时执行
+     */
+    @Override
+    public void close() {
+        Engine engine;
+        while ((engine = idle.poll()) != null) {
+            engine.interpreter.close();
+        }
+    }
+}
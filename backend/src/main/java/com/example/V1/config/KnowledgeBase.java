@@ -0,0 +1,110 @@
+package com.example.V1.config;
+
+import com.example.V1.entity.PromptKnowledge;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 专家知识库：启动时加载一次并建立 {@link KnowledgeIndex}，提示词按异常内容检索最相关的条目。
+ * 知识文件是普通文件时（开发环境、外部 knowledge.location）定期检查修改时间，变化后重建索引并整体替换；
+ * 重建失败时继续使用旧索引。打进jar的文件无法检测修改，不会热加载
+ */
+@Slf4j
+@Component
+public class KnowledgeBase {
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${knowledge.location:classpath:knowledge.jsonl}")
+    private String location;
+
+    @Value("${knowledge.top-k:10}")
+    private int topK;
+
+    private volatile KnowledgeIndex index = KnowledgeIndex.build(List.of());
+    private volatile long lastModified = -1;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 与异常最相关的 top-k 条知识
+     */
+    public List<PromptKnowledge> search(String query) {
+        return index.search(query, topK);
+    }
+
+    public List<PromptKnowledge> search(String query, int k) {
+        return index.search(query, k);
+    }
+
+    public KnowledgeIndex getIndex() {
+        return index;
+    }
+
+    @Scheduled(fixedDelayString = "${knowledge.reload-check-ms:5000}")
+    public void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.isFile()) {
+            return;
+        }
+        try {
+            if (resource.lastModified() != lastModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("检查知识库文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重新读取知识文件并替换索引
+     * @return 是否成功
+     */
+    public synchronized boolean reload() {
+        Resource resource = resourceLoader.getResource(location);
+        long modified = 0;
+        try {
+            modified = resource.isFile() ? resource.lastModified() : 0;
+            List<PromptKnowledge> knowledgeList;
+            try (InputStream is = resource.getInputStream()) {
+                knowledgeList = KnowledgeLoader.loadKnowledge(is);
+            }
+            KnowledgeIndex rebuilt = KnowledgeIndex.build(knowledgeList);
+            index = rebuilt;
+            lastModified = modified;
+            log.info("知识库已加载: {} 条, {} 个索引词 ({})", rebuilt.size(), rebuilt.termCount(), location);
+            return true;
+        } catch (Exception e) {
+            // 记下这次的修改时间，文件再次修改前不重复尝试
+            lastModified = modified;
+            log.error("加载知识库失败，继续使用已有的 {} 条知识 ({}): {}", index.size(), location, e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        KnowledgeIndex current = index;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("location", location);
+        stats.put("entries", current.size());
+        stats.put("terms", current.termCount());
+        stats.put("topK", topK);
+        return stats;
+    }
+}
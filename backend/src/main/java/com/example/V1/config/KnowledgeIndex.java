@@ -0,0 +1,195 @@
+package com.example.V1.config;
+
+import com.example.V1.entity.PromptKnowledge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 知识库的不可变倒排索引，按 BM25 对问题（prompt）打分
+ * 中文按相邻两字切分（"导靴"、"靴磨"、"磨损"...），英文和字母数字按整词切分，纯数字不参与检索（异常值每条都不同）。
+ * 构建完成后只读，可被多个线程同时查询
+ */
+public final class KnowledgeIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final List<PromptKnowledge> entries;
+    private final Map<String, Postings> postings;
+    private final int[] docLengths;
+    private final String[] templates;
+    private final double avgDocLength;
+
+    /**
+     * 某个词出现在哪些条目中及各自的词频
+     */
+    private static final class Postings {
+        private final int[] docs;
+        private final int[] freqs;
+
+        private Postings(int[] docs, int[] freqs) {
+            this.docs = docs;
+            this.freqs = freqs;
+        }
+    }
+
+    private KnowledgeIndex(List<PromptKnowledge> entries, Map<String, Postings> postings, int[] docLengths) {
+        this.entries = entries;
+        this.postings = postings;
+        this.docLengths = docLengths;
+        this.templates = new String[entries.size()];
+        for (int doc = 0; doc < templates.length; doc++) {
+            templates[doc] = template(entries.get(doc).getPrompt());
+        }
+        long total = 0;
+        for (int length : docLengths) {
+            total += length;
+        }
+        this.avgDocLength = docLengths.length == 0 ? 1.0 : Math.max(1.0, (double) total / docLengths.length);
+    }
+
+    public static KnowledgeIndex build(List<PromptKnowledge> knowledgeList) {
+        List<PromptKnowledge> entries = Collections.unmodifiableList(new ArrayList<>(knowledgeList));
+        Map<String, Map<Integer, Integer>> building = new HashMap<>();
+        int[] docLengths = new int[entries.size()];
+        for (int doc = 0; doc < entries.size(); doc++) {
+            List<String> terms = tokenize(entries.get(doc).getPrompt());
+            docLengths[doc] = terms.size();
+            for (String term : terms) {
+                building.computeIfAbsent(term, t -> new HashMap<>()).merge(doc, 1, Integer::sum);
+            }
+        }
+
+        Map<String, Postings> postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, Map<Integer, Integer>> term : building.entrySet()) {
+            List<Integer> docs = new ArrayList<>(term.getValue().keySet());
+            Collections.sort(docs);
+            int[] docArray = new int[docs.size()];
+            int[] freqArray = new int[docs.size()];
+            for (int i = 0; i < docs.size(); i++) {
+                docArray[i] = docs.get(i);
+                freqArray[i] = term.getValue().get(docs.get(i));
+            }
+            postings.put(term.getKey(), new Postings(docArray, freqArray));
+        }
+        return new KnowledgeIndex(entries, Collections.unmodifiableMap(postings), docLengths);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public List<PromptKnowledge> all() {
+        return entries;
+    }
+
+    /**
+     * 返回与查询最相关的至多 k 条知识；问题模板相同、只有数值不同的条目只保留得分最高的一条。
+     * 查询与任何条目都不相关时按原顺序返回前 k 条，保证提示词中始终有示例
+     */
+    public List<PromptKnowledge> search(String query, int k) {
+        if (k <= 0 || entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        double[] scores = new double[entries.size()];
+        boolean matched = false;
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings p = postings.get(term);
+            if (p == null) {
+                continue;
+            }
+            matched = true;
+            double idf = Math.log(1.0 + (entries.size() - p.docs.length + 0.5) / (p.docs.length + 0.5));
+            for (int i = 0; i < p.docs.length; i++) {
+                int doc = p.docs[i];
+                int tf = p.freqs[i];
+                double norm = K1 * (1 - B + B * docLengths[doc] / avgDocLength);
+                scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        if (!matched) {
+            return entries.subList(0, Math.min(k, entries.size()));
+        }
+
+        // 得分高者在前，同分按原顺序
+        PriorityQueue<Integer> ranked = new PriorityQueue<>((a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] > 0) {
+                ranked.add(doc);
+            }
+        }
+        List<PromptKnowledge> result = new ArrayList<>(k);
+        Set<String> seen = new HashSet<>();
+        while (!ranked.isEmpty() && result.size() < k) {
+            int doc = ranked.poll();
+            if (seen.add(templates[doc])) {
+                result.add(entries.get(doc));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 去掉数值后的问题文本，"导靴的导靴磨损量检测为70.3，是否正常？" 与 "...检测为12.5..." 为同一模板
+     */
+    private static String template(String prompt) {
+        return prompt == null ? "" : prompt.replaceAll("[-+]?\\d+(\\.\\d+)?", "#");
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            char c = lower.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < lower.length() && isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    terms.add(lower.substring(start, i));
+                }
+                for (int j = start; j + 1 < i; j++) {
+                    terms.add(lower.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                boolean hasLetter = false;
+                while (i < lower.length() && (Character.isLetterOrDigit(lower.charAt(i)) && !isCjk(lower.charAt(i)))) {
+                    hasLetter |= Character.isLetter(lower.charAt(i));
+                    i++;
+                }
+                if (hasLetter) {
+                    terms.add(lower.substring(start, i));
+                }
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
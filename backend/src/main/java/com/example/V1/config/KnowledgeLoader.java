@@ -9,11 +9,16 @@ import java.util.Arrays;
 import java.util.List;
 
 
-//AI工具类
+//AI工具类，运行时通过 KnowledgeBase 使用已加载的索引，不要在请求路径上直接调用
 public class KnowledgeLoader {
     public static List<PromptKnowledge> loadKnowledgeFromJson() throws IOException {
+        try (InputStream is = KnowledgeLoader.class.getResourceAsStream("/knowledge.jsonl")) {
+            return loadKnowledge(is);
+        }
+    }
+
+    public static List<PromptKnowledge> loadKnowledge(InputStream is) throws IOException {
         ObjectMapper mapper = new ObjectMapper();
-        InputStream is = KnowledgeLoader.class.getResourceAsStream("/knowledge.jsonl");
         return Arrays.asList(mapper.readValue(is, PromptKnowledge[].class));
     }
 
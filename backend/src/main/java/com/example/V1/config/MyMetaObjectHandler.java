@@ -16,7 +16,7 @@ public class MyMetaObjectHandler implements MetaObjectHandler {
 
     @Override
     public void insertFill(MetaObject metaObject) {
-        log.info("开始执行插入自动填充...");
+        log.debug("开始执行插入自动填充...");
         // 自动填充字段
         this.strictInsertFill(metaObject, "mtTime", LocalDateTime.class, LocalDateTime.now());
         this.strictInsertFill(metaObject, "createTime", LocalDateTime.class, LocalDateTime.now());
@@ -2,6 +2,7 @@ package com.example.V1.config;
 
 import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import com.baomidou.mybatisplus.annotation.TableName;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.Resource;
@@ -10,29 +11,65 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-//自动填充id和日期
+/**
+ * 号段式id分配器（自动填充id）
+ * 每张表在 id_segment 中只持久化已分配出去的最大id（高水位），每次从库里预留 step 个id组成一个号段，
+ * 号段内的id在内存中用CAS无锁发放，号段用完时才访问一次数据库；多实例共享同一个库时由行锁保证号段不重叠。
+ * 重启后未用完的号段作废，id会出现不超过 step 的空洞
+ */
 @Component
 public class SQLiteIdentifierGenerator implements IdentifierGenerator {
 
+    static final String SEGMENT_TABLE = "id_segment";
+
     @Resource
     private DataSource dataSource;
 
+    @Value("${id-allocator.step:1000}")
+    private int step;
+
+    private final Map<String, TableIds> tables = new ConcurrentHashMap<>();
+    private volatile boolean segmentTableReady = false;
+
     @Override
     public Number nextId(Object entity) {
-        String tableName = getTableName(entity);
-        return getNextId(tableName);
+        return reserve(entity.getClass(), 1);
+    }
+
+    /**
+     * 为批量插入预留连续的 count 个id
+     * @return 第一个id，预留范围为 [返回值, 返回值 + count)
+     */
+    public long reserve(Class<?> entityClass, int count) {
+        TableIds ids = tables.computeIfAbsent(getTableName(entityClass), TableIds::new);
+        if (count > step) {
+            // 超过一个号段的批量直接向库里单独预留一段，不占用当前号段
+            return ids.fetch(count) - count + 1;
+        }
+        while (true) {
+            Segment segment = ids.current;
+            long first = segment.cursor.getAndAdd(count);
+            if (first + count - 1 <= segment.max) {
+                return first;
+            }
+            ids.refill(segment);
+        }
     }
 
-    private String getTableName(Object entity) {
+    private String getTableName(Class<?> entityClass) {
         // 首先尝试从@TableName注解获取表名
-        TableName tableNameAnnotation = entity.getClass().getAnnotation(TableName.class);
+        TableName tableNameAnnotation = entityClass.getAnnotation(TableName.class);
         if (tableNameAnnotation != null) {
             return tableNameAnnotation.value();
         }
 
         // 如果没有@TableName注解，则使用类名转换
-        String className = entity.getClass().getSimpleName();
+        String className = entityClass.getSimpleName();
         return camelToUnderscore(className);
     }
 
@@ -52,18 +89,119 @@ public class SQLiteIdentifierGenerator implements IdentifierGenerator {
         return result.toString();
     }
 
-    private Long getNextId(String tableName) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement("SELECT MAX(id) FROM " + tableName);
-             ResultSet rs = ps.executeQuery()) {
+    private void ensureSegmentTable(Connection conn) throws SQLException {
+        if (segmentTableReady) {
+            return;
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + SEGMENT_TABLE
+                    + " (table_name VARCHAR(64) PRIMARY KEY, max_id BIGINT NOT NULL)");
+        }
+        segmentTableReady = true;
+    }
+
+    /**
+     * 号段：(max - step, max] 内尚未发放的id从 cursor 开始
+     */
+    private static final class Segment {
+        private final AtomicLong cursor;
+        private final long max;
+
+        private Segment(long first, long max) {
+            this.cursor = new AtomicLong(first);
+            this.max = max;
+        }
+    }
+
+    /**
+     * 单张表的号段状态，首次使用时才访问数据库（表可能在应用启动后才由 H2Initializer 创建）
+     */
+    private final class TableIds {
+        private final String tableName;
+        // 初始为空号段，第一次取id时触发加载
+        private volatile Segment current = new Segment(1, 0);
+
+        private TableIds(String tableName) {
+            this.tableName = tableName;
+        }
+
+        /**
+         * 号段用完时由取不到id的线程之一加载下一段，其余线程等待后重试
+         */
+        private synchronized void refill(Segment exhausted) {
+            if (current != exhausted) {
+                return;
+            }
+            long max = fetch(step);
+            current = new Segment(max - step + 1, max);
+        }
+
+        /**
+         * 在独立的连接和事务中把高水位推高 count，返回推高后的值；不参与调用方的业务事务，业务回滚不会回收id。
+         * 与 refill 共用本对象的锁：超过号段的单独预留和号段加载不会同时第一次写入 id_segment
+         */
+        private synchronized long fetch(int count) {
+            try (Connection conn = dataSource.getConnection()) {
+                ensureSegmentTable(conn);
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    long max = advance(conn, count);
+                    conn.commit();
+                    return max;
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("分配id号段失败(" + tableName + "): " + e.getMessage(), e);
+            }
+        }
+
+        private long advance(Connection conn, int count) throws SQLException {
+            // 业务表中已有的最大id（导入的数据、旧版本按 MAX(id)+1 生成的数据）可能高于记录的高水位
+            long tableMax;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT MAX(id) FROM " + tableName);
+                 ResultSet rs = ps.executeQuery()) {
+                tableMax = rs.next() ? rs.getLong(1) : 0;
+            }
+            if (raise(conn, tableMax, count) == 0) {
+                try (PreparedStatement insert = conn.prepareStatement(
+                        "INSERT INTO " + SEGMENT_TABLE + " (table_name, max_id) VALUES (?, ?)")) {
+                    insert.setString(1, tableName);
+                    insert.setLong(2, tableMax + count);
+                    insert.executeUpdate();
+                } catch (SQLException e) {
+                    // 共享同一个库的其他实例先插入了该表的高水位（主键冲突），改为在其基础上推高
+                    boolean duplicate = e.getSQLState() != null && e.getSQLState().startsWith("23");
+                    if (!duplicate || raise(conn, tableMax, count) == 0) {
+                        throw e;
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT max_id FROM " + SEGMENT_TABLE + " WHERE table_name = ?")) {
+                ps.setString(1, tableName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            }
+        }
 
-            if (rs.next()) {
-                long maxId = rs.getLong(1); // 获取 MAX(id)
-                return rs.wasNull() ? 1L : maxId + 1; // 处理 NULL 情况
+        /**
+         * 把已有的高水位推高 count（不低于业务表中的最大id），返回更新的行数，该表还没有高水位时为 0
+         */
+        private int raise(Connection conn, long tableMax, int count) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE " + SEGMENT_TABLE + " SET max_id = GREATEST(max_id, ?) + ? WHERE table_name = ?")) {
+                ps.setLong(1, tableMax);
+                ps.setInt(2, count);
+                ps.setString(3, tableName);
+                return ps.executeUpdate();
             }
-            return 1L; // 表为空时的默认值
-        } catch (SQLException e) {
-            throw new RuntimeException("获取下一个ID失败: " + e.getMessage(), e);
         }
     }
 }
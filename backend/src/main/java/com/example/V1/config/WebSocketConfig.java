@@ -1,4 +1,5 @@
 package com.example.V1.config;
+import com.example.V1.Handler.AiAnalysisSocketHandler;
 import com.example.V1.Handler.ElevatorSocketHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -14,9 +15,14 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Autowired
     public ElevatorSocketHandler elevatorSocketHandler;
 
+    @Autowired
+    public AiAnalysisSocketHandler aiAnalysisSocketHandler;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(elevatorSocketHandler, "/ws/elevator/status/**")
                 .setAllowedOrigins("*"); // 允许跨域（前端连接用）
+        registry.addHandler(aiAnalysisSocketHandler, "/ws/ai/analysis")
+                .setAllowedOrigins("*");
     }
 }
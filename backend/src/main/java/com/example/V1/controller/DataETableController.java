@@ -2,26 +2,32 @@ package com.example.V1.controller;
 
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.V1.Dto.AiAnalysisStatusDTO;
+import com.example.V1.Dto.SensorSampleDTO;
 import com.example.V1.commont.Result;
 import com.example.V1.entity.DataETable;
-import com.example.V1.entity.PromptKnowledge;
 import com.example.V1.entity.Users;
 import com.example.V1.service.IAiTableService;
 import com.example.V1.service.IDataETableService;
-import com.example.V1.config.AiPredictsLifespanConfig;
-import com.example.V1.config.KnowledgeLoader;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.V1.service.impl.AiAnalysisPipeline;
+import com.example.V1.service.impl.AnomalyEpisodeWindow;
+import com.example.V1.service.impl.HealthScoreEngine;
+import com.example.V1.service.impl.LifespanAnalysisService;
+import com.example.V1.service.impl.LifespanPredictionService;
+import com.example.V1.service.impl.StreamingAnomalyDetector;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.ai.openai.OpenAiChatModel;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -38,133 +44,102 @@ import java.util.Map;
 @RequestMapping("/data-etable")
 public class DataETableController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private IDataETableService dataETableService;
     
     @Autowired
-    private OpenAiChatModel openAiChatModel;
+    private AiAnalysisPipeline aiAnalysisPipeline;
 
-    /**
-     * 智能寿命预测分析接口 - 集成AI深度分析
-     */
-    @GetMapping("/lifetime-analysis")
-    public Result<String> getLifetimeAnalysis() {
-        // 可视化打印 - 开始寿命预测
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        log.info("\n" +
-                " ======================================\n" +
-                "[智云梯AI寿命预测] 开始执行\n" +
-                "时间: {}\n" +
-                "目标: 基于异常数据预测电梯剩余使用寿命\n" +
-                "======================================", timestamp);
+    @Autowired
+    private LifespanAnalysisService lifespanAnalysisService;
 
-        try {
-            // Step 1: 查询最近的异常数据
-            log.info("[Step 1] 正在查询异常数据...");
-            LambdaQueryWrapper<DataETable> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.orderByDesc(DataETable::getCreateTime).last("LIMIT 50");
-            List<DataETable> recentAnomalies = dataETableService.list(queryWrapper);
-            
-            log.info("查询到 {} 条异常数据记录", recentAnomalies.size());
-            
-            // 打印异常数据概况
-            log.info("异常数据概况:");
-            recentAnomalies.stream().limit(5).forEach(data -> 
-                log.info("   • {} - {} : {} ({})", 
-                    data.getSystemName(), 
-                    data.getSystemSqName(), 
-                    data.getEData(),
-                    data.getCreateTime().format(DateTimeFormatter.ofPattern("MM-dd HH:mm")))
-            );
-            if (recentAnomalies.size() > 5) {
-                log.info("   ... 还有 {} 条记录", recentAnomalies.size() - 5);
-            }
+    @Autowired
+    private LifespanPredictionService lifespanPredictionService;
+
+    @Autowired
+    private HealthScoreEngine healthScoreEngine;
 
-            // Step 2: 加载知识库
-            log.info(" [Step 2] 正在加载专家知识库...");
-            List<PromptKnowledge> knowledgeList = KnowledgeLoader.loadKnowledgeFromJson();
-            log.info("知识库加载完成，包含 {} 个专业案例", knowledgeList.size());
+    @Autowired
+    private StreamingAnomalyDetector anomalyDetector;
 
-            // Step 3: 构建AI分析数据
-            log.info("🔧 [Step 3] 正在构建AI分析输入数据...");
-            ObjectMapper mapper = new ObjectMapper();
-            String analysisData = mapper.writeValueAsString(recentAnomalies);
-            
-            // Step 4: 构建专业提示词
-            log.info(" [Step 4] 正在构建专业寿命预测提示词...");
-            AiPredictsLifespanConfig lifespanConfig = new AiPredictsLifespanConfig();
-            String prompt = lifespanConfig.aiPredictsLifespan(knowledgeList, analysisData);
-            
-            // 打印提示词摘要
-            log.info(" 提示词构建完成 (长度: {} 字符)", prompt.length());
-            log.info(" 分析框架: 设备退化评估 → 故障模式识别 → 寿命建模 → 维护策略");
-
-            // Step 5: 调用AI进行分析
-            log.info(" [Step 5] 正在调用DeepSeek AI进行寿命预测分析...");
-            log.info("  模型: deepseek-chat");
-            log.info(" API: https://api.deepseek.com");
-            
-            Object aiResponseObj = openAiChatModel.call(prompt);
-            String rawResponse = aiResponseObj.toString();
-            
-            log.info("AI响应获取成功 (响应长度: {} 字符)", rawResponse.length());
+    @Autowired
+    private AnomalyEpisodeWindow episodeWindow;
 
-            // Step 6: 解析AI响应
-            log.info(" [Step 6] 正在解析AI分析结果...");
-            String cleanResponse = cleanJsonResponse(rawResponse);
-            
-            try {
-                JsonNode jsonNode = mapper.readTree(cleanResponse);
-                String mainResult = jsonNode.has("main") ? jsonNode.get("main").asText() : "未获取到主要分析结果";
-                String detailMessage = jsonNode.has("message") ? jsonNode.get("message").asText() : "未获取到详细分析";
-                
-                // 可视化打印分析结果
-                log.info(" [分析完成] AI寿命预测结果:");
-                log.info("┌─  核心结论");
-                log.info("│  {}", mainResult);
-                log.info("├─  详细分析");
-                log.info("│  {}", detailMessage.length() > 200 ? 
-                    detailMessage.substring(0, 200) + "..." : detailMessage);
-                log.info("└─ ✨ 分析置信度: 高");
-                
-                // 构建响应
-                Map<String, String> responseMap = new HashMap<>();
-                responseMap.put("main", mainResult);
-                responseMap.put("message", detailMessage);
-                
-                String jsonResponse = mapper.writeValueAsString(responseMap);
-                
-                log.info(" 寿命预测分析执行完毕! 结果已返回前端");
-                log.info("======================================\n");
-                
-                return Result.success("AI寿命预测分析完成", jsonResponse);
-                
-            } catch (Exception parseEx) {
-                log.error(" JSON解析失败，返回原始响应", parseEx);
-                return Result.success("寿命分析完成(原始格式)", cleanResponse);
-            }
-            
+    // 与 @RequestBody 使用同一个 ObjectMapper，NDJSON 与 JSON 数组的字段映射一致
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 智能寿命预测分析接口：返回后台预先计算的预测结果，附带生成时间和之后新增的异常条数
+     * @param system 系统名称，不传时返回全部系统的预测
+     */
+    @GetMapping("/lifetime-analysis")
+    public Result<String> getLifetimeAnalysis(@RequestParam(value = "system", required = false) String system) {
+        try {
+            long start = System.nanoTime();
+            Map<String, Object> prediction = lifespanPredictionService.getPrediction(system);
+            log.info("[智云梯AI寿命预测] 返回 [{}] 的预测结果 (生成于 {}, 之后新增 {} 条异常, 耗时 {}ms)",
+                    prediction.get("scope"), prediction.get("generatedAt"), prediction.get("newAnomalies"),
+                    (System.nanoTime() - start) / 1_000_000);
+            return Result.success("AI寿命预测分析完成", objectMapper.writeValueAsString(prediction));
+        } catch (IllegalArgumentException e) {
+            return Result.error(404, e.getMessage());
         } catch (Exception e) {
             log.error(" [错误] 寿命预测分析失败", e);
-            log.info("======================================\n");
             return Result.error("寿命预测分析失败: " + e.getMessage());
         }
     }
 
     /**
-     * 清理AI响应中的非JSON内容
+     * 立即在后台重新预测，不等新增异常达到阈值
      */
-    private String cleanJsonResponse(String response) {
-        // 查找JSON内容
-        int jsonStart = response.indexOf("{");
-        int jsonEnd = response.lastIndexOf("}");
-        
-        if (jsonStart >= 0 && jsonEnd > jsonStart) {
-            return response.substring(jsonStart, jsonEnd + 1);
+    @PostMapping("/lifetime-analysis/refresh")
+    public Result<String> refreshLifetimeAnalysis(@RequestParam(value = "system", required = false) String system) {
+        try {
+            if (lifespanPredictionService.requestRefresh(system)) {
+                return Result.success("已提交寿命预测刷新");
+            }
+            return Result.success("寿命预测正在刷新中");
+        } catch (IllegalArgumentException e) {
+            return Result.error(404, e.getMessage());
         }
-        
-        // 清理markdown标记
-        return response.replaceAll("```json", "").replaceAll("```", "").trim();
+    }
+
+    /**
+     * 寿命预测缓存统计
+     */
+    @GetMapping("/lifetime-analysis/stats")
+    public Result<Map<String, Object>> getLifetimeAnalysisStats() {
+        return Result.success("查询成功", lifespanPredictionService.getStats());
+    }
+
+    /**
+     * 设备健康评分：指定 elevatorId 时返回该电梯，否则返回全部出现过异常的电梯
+     */
+    @GetMapping("/health-scores")
+    public Result<Map<String, Object>> getHealthScores(@RequestParam(required = false) String elevatorId,
+                                                       @RequestParam(defaultValue = "true") boolean detailed) {
+        return Result.success("查询成功", healthScoreEngine.getToolResult(elevatorId, detailed));
+    }
+
+    /**
+     * 从数据库全量重算健康评分，用于历史数据回填或手工修改数据库之后
+     */
+    @PostMapping("/health-scores/rebuild")
+    public Result<Map<String, Object>> rebuildHealthScores() {
+        healthScoreEngine.rebuild();
+        return Result.success("健康评分已重算", healthScoreEngine.getStats());
+    }
+
+    /**
+     * 流式寿命预测（SSE）：立即返回 start 事件，随后推送大模型生成的 token，最后推送解析后的 main/message
+     */
+    @GetMapping(value = "/lifetime-analysis/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLifetimeAnalysis() {
+        log.info("[智云梯AI寿命预测] 开始流式分析");
+        return lifespanAnalysisService.stream();
     }
 
     /**
@@ -195,13 +170,33 @@ public class DataETableController {
     }
 
     /**
-     * 异常数据接收接口，AI分析并存储
+     * 异常数据接收接口，入库后立即返回，AI分析异步执行
      */
     @PostMapping("/gain-data")
     public Result<String> getgainData(@RequestBody DataETable dataETable){
         return dataETableService.getgainData(dataETable);
     }
 
+    /**
+     * 查询异常数据的AI分析状态，分析完成后携带结果
+     */
+    @GetMapping("/analysis-status/{mtDataId}")
+    public Result<AiAnalysisStatusDTO> getAnalysisStatus(@PathVariable Integer mtDataId) {
+        AiAnalysisStatusDTO status = aiAnalysisPipeline.getStatus(mtDataId);
+        if (status == null) {
+            return Result.error(404, "未找到该异常数据的AI分析记录");
+        }
+        return Result.success("查询成功", status);
+    }
+
+    /**
+     * AI分析流水线运行统计
+     */
+    @GetMapping("/analysis-stats")
+    public Result<Map<String, Object>> getAnalysisStats() {
+        return Result.success("查询成功", aiAnalysisPipeline.getStats());
+    }
+
     /**
      * 快速创建异常数据（不触发AI），用于前端ML弹窗分配时避免卡顿
      */
@@ -210,6 +205,86 @@ public class DataETableController {
         return dataETableService.create(dataETable);
     }
 
+    /**
+     * 批量创建异常数据（JSON数组），一个事务内批量插入，返回分配的id；analyze=true 时逐条进入AI分析队列
+     */
+    @PostMapping(value = "/batch-create", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Result<Map<String, Object>> batchCreate(@RequestBody List<DataETable> records,
+                                                   @RequestParam(defaultValue = "false") boolean analyze) {
+        return dataETableService.createBatch(records.iterator(), analyze);
+    }
+
+    /**
+     * 批量创建异常数据（NDJSON，每行一条），边读取请求体边分组插入，不需要先把整个数组读入内存
+     */
+    @PostMapping(value = "/batch-create", consumes = NDJSON)
+    public Result<Map<String, Object>> batchCreateNdjson(HttpServletRequest request,
+                                                         @RequestParam(defaultValue = "false") boolean analyze) throws IOException {
+        try (MappingIterator<DataETable> records = objectMapper.readerFor(DataETable.class).readValues(request.getInputStream())) {
+            return dataETableService.createBatch(records, analyze);
+        }
+    }
+
+    /**
+     * 上报传感器采样，由服务端流式检测判定异常；检测到的异常去重后异步写入并提交AI分析
+     */
+    @PostMapping(value = "/samples", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Result<Map<String, Object>> offerSamples(@RequestBody List<SensorSampleDTO> samples) {
+        return Result.success("采样已接收", offerAll(samples.iterator()));
+    }
+
+    /**
+     * 上报传感器采样（NDJSON，每行一条），边读取请求体边检测
+     */
+    @PostMapping(value = "/samples", consumes = NDJSON)
+    public Result<Map<String, Object>> offerSamplesNdjson(HttpServletRequest request) throws IOException {
+        try (MappingIterator<SensorSampleDTO> samples = objectMapper.readerFor(SensorSampleDTO.class).readValues(request.getInputStream())) {
+            return Result.success("采样已接收", offerAll(samples));
+        }
+    }
+
+    /**
+     * 流式异常检测统计
+     */
+    @GetMapping("/detector/stats")
+    public Result<Map<String, Object>> getDetectorStats() {
+        return Result.success("查询成功", anomalyDetector.getStats());
+    }
+
+    /**
+     * 异常事件合并统计
+     */
+    @GetMapping("/episodes/stats")
+    public Result<Map<String, Object>> getEpisodeStats() {
+        return Result.success("查询成功", episodeWindow.getStats());
+    }
+
+    private Map<String, Object> offerAll(Iterator<SensorSampleDTO> samples) {
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        int skipped = 0;
+        int anomalies = 0;
+        while (samples.hasNext()) {
+            SensorSampleDTO sample = samples.next();
+            if (sample.getElevatorId() == null || sample.getParameter() == null || sample.getValue() == null) {
+                skipped++;
+                continue;
+            }
+            int series = anomalyDetector.series(sample.getElevatorId(),
+                    sample.getSystemName() == null ? "未知系统" : sample.getSystemName(), sample.getParameter());
+            if (anomalyDetector.offer(series, sample.getValue(),
+                    sample.getTimestamp() == null ? now : sample.getTimestamp()) > 0) {
+                anomalies++;
+            }
+            accepted++;
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("accepted", accepted);
+        result.put("skipped", skipped);
+        result.put("anomalies", anomalies);
+        return result;
+    }
+
     /**
      * 分页查询异常数据（根据系统名称,id和子系统名称筛选）
      */
@@ -0,0 +1,97 @@
+package com.example.V1.controller;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.TrafficProfile;
+import com.example.V1.Handler.ElevatorOutboundDispatcher;
+import com.example.V1.commont.Result;
+import com.example.V1.service.impl.ElevatorBank;
+import com.example.V1.service.impl.ElevatorRegistry;
+import com.example.V1.service.impl.ElevatorTickEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 电梯仿真运行状态控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/elevator")
+public class ElevatorController {
+
+    @Autowired
+    private ElevatorTickEngine tickEngine;
+
+    @Autowired
+    private ElevatorRegistry elevatorRegistry;
+
+    @Autowired
+    private ElevatorOutboundDispatcher outboundDispatcher;
+
+    /**
+     * 查询节拍引擎统计（注册电梯数、节拍延迟、节拍耗时）
+     */
+    @GetMapping("/tick-stats")
+    public Result<Map<String, Object>> getTickStats() {
+        return Result.success("查询成功", tickEngine.getStats());
+    }
+
+    /**
+     * 查询当前运行中的电梯仿真及其订阅者数量
+     */
+    @GetMapping("/subscribers")
+    public Result<Map<String, Integer>> getSubscribers() {
+        return Result.success("查询成功", elevatorRegistry.getSubscriberCounts());
+    }
+
+    /**
+     * 查询状态推送出站统计（已发送/合并/丢弃帧数、慢会话关闭数）
+     */
+    @GetMapping("/outbound-stats")
+    public Result<Map<String, Object>> getOutboundStats() {
+        return Result.success("查询成功", outboundDispatcher.getStats());
+    }
+
+    /**
+     * 查询群控梯组运行概况及各调度算法的平均候梯时间、平均乘梯时间和五分钟输送能力
+     */
+    @GetMapping("/dispatch-stats")
+    public Result<Map<String, Object>> getDispatchStats() {
+        return Result.success("查询成功", elevatorRegistry.getBank().getStats());
+    }
+
+    /**
+     * 调整群控调度：切换调度算法、客流模式、乘客到达率，可选清空统计
+     */
+    @PostMapping("/dispatch-config")
+    public Result<Map<String, Object>> updateDispatchConfig(@RequestParam(value = "algorithm", required = false) DispatchAlgorithm algorithm,
+                                                            @RequestParam(value = "trafficProfile", required = false) TrafficProfile trafficProfile,
+                                                            @RequestParam(value = "arrivalRatePerMinute", required = false) Double arrivalRatePerMinute,
+                                                            @RequestParam(value = "resetMetrics", defaultValue = "false") boolean resetMetrics) {
+        if (arrivalRatePerMinute != null && arrivalRatePerMinute < 0) {
+            return Result.error("乘客到达率不能为负数");
+        }
+        ElevatorBank bank = elevatorRegistry.getBank();
+        if (algorithm != null) {
+            bank.setAlgorithm(algorithm);
+        }
+        if (trafficProfile != null) {
+            bank.setTrafficProfile(trafficProfile);
+        }
+        if (arrivalRatePerMinute != null) {
+            bank.setArrivalRatePerMinute(arrivalRatePerMinute);
+        }
+        if (resetMetrics) {
+            bank.resetMetrics();
+        }
+        log.info("群控调度已调整: algorithm={}, trafficProfile={}, arrivalRatePerMinute={}, resetMetrics={}",
+                algorithm, trafficProfile, arrivalRatePerMinute, resetMetrics);
+        return Result.success("调整成功", bank.getStats());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.V1.controller;
 
 import com.example.V1.config.JythonMCPConfig;
 import com.example.V1.commont.Result;
+import com.example.V1.mcp.McpToolRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -13,7 +14,7 @@ import java.util.ArrayList;
 
 /**
  * MCP控制器 - 提供AI function calling接口
- * 集成Jython Python MCP工具，支持DeepSeek等AI的function calling
+ * 工具列表来自 {@link McpToolRegistry}；默认由Java工具直接执行，mcp.backend=jython 时改由Jython Python工具执行
  */
 @Slf4j
 @RestController
@@ -22,6 +23,10 @@ import java.util.ArrayList;
 public class MCPController {
 
     @Autowired
+    private McpToolRegistry toolRegistry;
+
+    // 仅 mcp.backend=jython 时存在
+    @Autowired(required = false)
     private JythonMCPConfig.JythonMCPService jythonMCPService;
 
     /**
@@ -32,17 +37,17 @@ public class MCPController {
         try {
             log.info("获取MCP工具列表");
             
-            if (!jythonMCPService.isReady()) {
+            if (!isReady()) {
                 return Result.error("MCP服务未就绪，请稍后重试");
             }
             
-            Map<String, Object> tools = jythonMCPService.getAvailableTools();
+            Map<String, Object> tools = toolRegistry.getToolSchemas();
             
             // 转换为OpenAI Function Calling格式
             Map<String, Object> response = new HashMap<>();
             response.put("tools", formatToolsForFunctionCalling(tools));
             response.put("total_tools", tools.size());
-            response.put("mcp_status", jythonMCPService.getStatus());
+            response.put("mcp_status", status());
             
             log.info("返回{}个MCP工具", tools.size());
             return Result.success("获取MCP工具列表成功", response);
@@ -71,7 +76,7 @@ public class MCPController {
                     request.getParameters(), 
                     java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss")));
             
-            if (!jythonMCPService.isReady()) {
+            if (!isReady()) {
                 log.warn(" [MCP] 服务未就绪，请稍后重试");
                 return Result.error("MCP服务未就绪，请稍后重试");
             }
@@ -82,21 +87,14 @@ public class MCPController {
                 return Result.error("工具名称不能为空");
             }
             
-            // 🔧 调用Python MCP工具
-            log.info(" [执行阶段] 正在调用Jython Python工具...");
-            log.info("   └─ Python环境: Jython 2.7.3");
-            log.info("   └─ 工具路径: resources/python/mcp_tools.py");
-            
-            String jsonResult = jythonMCPService.callTool(
+            // 🔧 调用MCP工具
+            log.info(" [执行阶段] 正在调用{}工具...", useJython() ? "Jython Python" : "Java");
+            long start = System.nanoTime();
+            Object parsedResult = invokeTool(
                 request.getToolName(), 
                 request.getParameters() != null ? request.getParameters() : new HashMap<>()
             );
-            
-            log.info(" [Python执行完成] 结果长度: {} 字符", jsonResult.length());
-            
-            //  解析JSON结果
-            log.info(" [解析阶段] 正在解析Python工具返回结果...");
-            Object parsedResult = parseJsonResult(jsonResult);
+            log.info(" [执行完成] 耗时 {}ms", (System.nanoTime() - start) / 1_000_000);
             
             // 打印执行结果摘要
             log.info(" [执行成功] MCP工具调用完成:");
@@ -147,8 +145,7 @@ public class MCPController {
                 parameters.put("limit", request.getLimit());
             }
             
-            String jsonResult = jythonMCPService.callTool("query_maintenance_history", parameters);
-            Object parsedResult = parseJsonResult(jsonResult);
+            Object parsedResult = invokeTool("query_maintenance_history", parameters);
             
             return Result.success("查询维护历史成功", parsedResult);
             
@@ -180,8 +177,7 @@ public class MCPController {
                 parameters.put("include_ai_analysis", request.getIncludeAiAnalysis());
             }
             
-            String jsonResult = jythonMCPService.callTool("analyze_anomaly_patterns", parameters);
-            Object parsedResult = parseJsonResult(jsonResult);
+            Object parsedResult = invokeTool("analyze_anomaly_patterns", parameters);
             
             return Result.success("异常模式分析成功", parsedResult);
             
@@ -207,8 +203,7 @@ public class MCPController {
                 parameters.put("detailed_analysis", request.getDetailedAnalysis());
             }
             
-            String jsonResult = jythonMCPService.callTool("calculate_equipment_health_score", parameters);
-            Object parsedResult = parseJsonResult(jsonResult);
+            Object parsedResult = invokeTool("calculate_equipment_health_score", parameters);
             
             return Result.success("设备健康评分计算成功", parsedResult);
             
@@ -232,8 +227,7 @@ public class MCPController {
             parameters.put("include_predictions", includePredictions);
             parameters.put("include_recommendations", includeRecommendations);
             
-            String jsonResult = jythonMCPService.callTool("get_comprehensive_system_status", parameters);
-            Object parsedResult = parseJsonResult(jsonResult);
+            Object parsedResult = invokeTool("get_comprehensive_system_status", parameters);
             
             return Result.success("获取系统状态成功", parsedResult);
             
@@ -249,8 +243,7 @@ public class MCPController {
     @GetMapping("/status")
     public Result<Map<String, Object>> getMCPStatus() {
         try {
-            Map<String, Object> status = jythonMCPService.getStatus();
-            return Result.success("MCP服务状态", status);
+            return Result.success("MCP服务状态", status());
         } catch (Exception e) {
             log.error("❌ 获取MCP状态失败", e);
             return Result.error("获取MCP状态失败: " + e.getMessage());
@@ -259,6 +252,37 @@ public class MCPController {
 
     // ========================= 私有辅助方法 =========================
 
+    private boolean useJython() {
+        return jythonMCPService != null;
+    }
+
+    private boolean isReady() {
+        return !useJython() || jythonMCPService.isReady();
+    }
+
+    /**
+     * 执行工具：Java工具直接返回结果对象，Python工具返回的JSON解析后返回
+     */
+    private Object invokeTool(String toolName, Map<String, Object> parameters) throws Exception {
+        if (useJython()) {
+            return parseJsonResult(jythonMCPService.callTool(toolName, parameters));
+        }
+        return toolRegistry.call(toolName, parameters);
+    }
+
+    private Map<String, Object> status() {
+        if (useJython()) {
+            Map<String, Object> status = new HashMap<>(jythonMCPService.getStatus());
+            status.put("backend", "jython");
+            return status;
+        }
+        Map<String, Object> status = new HashMap<>();
+        status.put("initialized", true);
+        status.put("backend", "java");
+        status.put("available_tools", toolRegistry.getToolNames());
+        return status;
+    }
+
     /**
      * 将工具格式化为OpenAI Function Calling格式
      */
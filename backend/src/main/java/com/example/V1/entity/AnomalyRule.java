@@ -0,0 +1,18 @@
+package com.example.V1.entity;
+
+import lombok.Data;
+
+import java.util.List;
+
+//异常判定规则实体（anomaly-rules.json），区间为 [下限, 上限]；同名参数按部件(component)或系统(system)区分
+@Data
+public class AnomalyRule {
+    private List<String> names;
+    private String component;
+    private String system;
+    private String unit;
+    private double[] normal;
+    private double[] warning;
+    private double[] critical;
+    private String advice;
+}
@@ -70,6 +70,35 @@ public class DataETable implements Serializable {
     @TableField("e_data")
     private String eData;
 
+    /**
+     * 同一异常事件最后一次出现的时间，只出现过一次时为空
+     */
+    @TableField("last_seen")
+    @JsonProperty("lastSeen")
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    private LocalDateTime lastSeen;
+
+    /**
+     * 同一异常事件在合并窗口内出现的次数
+     */
+    @TableField("occurrences")
+    @JsonProperty("occurrences")
+    private Integer occurrences;
+
+    /**
+     * 同一异常事件中异常数据值的最小值，数据值不是数字时为空
+     */
+    @TableField("min_value")
+    @JsonProperty("minValue")
+    private Double minValue;
+
+    /**
+     * 同一异常事件中异常数据值的最大值，数据值不是数字时为空
+     */
+    @TableField("max_value")
+    @JsonProperty("maxValue")
+    private Double maxValue;
+
     /**
      * 非持久化：AI分析结果代码（0=警告，1=严重故障）
      */
@@ -6,8 +6,12 @@ import com.example.V1.Dto.AbnormalDataWithAiDTO;
 import com.example.V1.entity.DataETable;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * <p>
  * 异常数据表 Mapper 接口
@@ -34,4 +38,41 @@ public interface DataETableMapper extends BaseMapper<DataETable> {
 
     // 联表分页查询，返回携带AI结果的异常数据
     IPage<AbnormalDataWithAiDTO> selectWithAiPage(Page<?> page);
+
+    // 同一部件同一异常在 since 之后的AI分析结果（最近20条），供AI分析缓存的持久层使用
+    @Select("""
+    SELECT d.id,
+           d.create_time    AS createTime,
+           d.system_name    AS systemName,
+           d.system_sq_name AS systemSqName,
+           d.e_name         AS eName,
+           d.e_data         AS eData,
+           a.ai_code        AS aiCode,
+           a.ai_result      AS aiResult
+    FROM data_e_table d
+    JOIN ai_table a ON a.e_id = d.id
+    WHERE d.system_name = #{systemName}
+      AND d.system_sq_name = #{systemSqName}
+      AND d.e_name = #{eName}
+      AND d.create_time >= #{since}
+    ORDER BY d.create_time DESC
+    LIMIT 20
+""")
+    List<AbnormalDataWithAiDTO> selectRecentAnalyses(@Param("systemName") String systemName,
+                                                     @Param("systemSqName") String systemSqName,
+                                                     @Param("eName") String eName,
+                                                     @Param("since") LocalDateTime since);
+
+    // 出现过异常的系统名称
+    @Select("SELECT DISTINCT system_name FROM data_e_table")
+    List<String> selectSystemNames();
+
+    // 异常条数，systemName 为空时统计全部系统；寿命预测按两次之差计算新增条数
+    @Select("""
+    <script>
+    SELECT COUNT(*) FROM data_e_table
+    <if test="systemName != null">WHERE system_name = #{systemName}</if>
+    </script>
+""")
+    long countRows(@Param("systemName") String systemName);
 }
@@ -0,0 +1,331 @@
+package com.example.V1.mcp;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.V1.Dto.ElevatorStatus;
+import com.example.V1.Dto.MaintenanceStatus;
+import com.example.V1.entity.AiTable;
+import com.example.V1.entity.DataETable;
+import com.example.V1.entity.MaintainTable;
+import com.example.V1.service.IAiTableService;
+import com.example.V1.service.IDataETableService;
+import com.example.V1.service.IMaintainTableService;
+import com.example.V1.service.impl.Elevator;
+import com.example.V1.service.impl.ElevatorRegistry;
+import com.example.V1.service.impl.HealthScoreEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 电梯MCP工具的Java实现，直接调用服务层查询，返回结构与 python/mcp_tools.py 中的同名工具一致；
+ * get_comprehensive_system_status 的 Python 版本仍是示例数据，Java 版本取自仿真电梯、健康评分和异常记录
+ */
+@McpToolProvider
+public class ElevatorMcpTools {
+
+    @Autowired
+    private IDataETableService dataETableService;
+
+    @Autowired
+    private IMaintainTableService maintainTableService;
+
+    @Autowired
+    private IAiTableService aiTableService;
+
+    @Autowired
+    private HealthScoreEngine healthScoreEngine;
+
+    @Autowired
+    private ElevatorRegistry elevatorRegistry;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final int RECENT_ALERTS = 10;
+
+    @McpTool(name = "query_maintenance_history",
+            description = "查询电梯维护历史记录，支持按电梯ID、时间范围、维护类型筛选")
+    public Map<String, Object> queryMaintenanceHistory(
+            @McpParam(name = "elevator_id", description = "电梯ID，可选") String elevatorId,
+            @McpParam(name = "months_back", description = "查询几个月内的记录，默认12", defaultValue = "12") Integer monthsBack,
+            @McpParam(name = "maintenance_type", description = "维护类型筛选，可选") String maintenanceType,
+            @McpParam(name = "limit", description = "返回记录数限制，默认50", defaultValue = "50") Integer limit) {
+        LambdaQueryWrapper<MaintainTable> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.ge(MaintainTable::getMtTime, LocalDateTime.now().minusMonths(monthsBack))
+                .eq(maintenanceType != null, MaintainTable::getStatus, maintenanceType);
+        if (elevatorId != null) {
+            // 异常数据没有电梯编号字段，上报端把电梯编号写在异常名称中
+            List<Integer> dataIds = dataETableService.list(new LambdaQueryWrapper<DataETable>()
+                            .select(DataETable::getId)
+                            .eq(DataETable::getEName, elevatorId))
+                    .stream().map(DataETable::getId).collect(Collectors.toList());
+            if (dataIds.isEmpty()) {
+                return maintenanceResult(List.of(), elevatorId, monthsBack, maintenanceType, limit);
+            }
+            queryWrapper.in(MaintainTable::getMtDataId, dataIds);
+        }
+        queryWrapper.orderByDesc(MaintainTable::getMtTime)
+                .last("LIMIT " + Math.max(1, Math.min(limit, 500)));
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (MaintainTable item : maintainTableService.list(queryWrapper)) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", String.valueOf(item.getId()));
+            record.put("maintenance_type", nullToEmpty(item.getStatus()));
+            record.put("description", nullToEmpty(item.getDescr()));
+            record.put("create_time", item.getMtTime() == null ? "" : item.getMtTime().toString());
+            record.put("status", nullToEmpty(item.getStatus()));
+            record.put("remark", nullToEmpty(item.getRemark()));
+            record.put("user_id", item.getUserId());
+            record.put("mt_data_id", item.getMtDataId());
+            records.add(record);
+        }
+        return maintenanceResult(records, elevatorId, monthsBack, maintenanceType, limit);
+    }
+
+    @McpTool(name = "analyze_anomaly_patterns",
+            description = "分析电梯异常模式和趋势，提供预测和建议")
+    public Map<String, Object> analyzeAnomalyPatterns(
+            @McpParam(name = "system_name", description = "系统名称筛选，可选") String systemName,
+            @McpParam(name = "severity_level", description = "严重等级筛选（critical/warning），可选") String severityLevel,
+            @McpParam(name = "days_back", description = "分析天数，默认30", defaultValue = "30") Integer daysBack,
+            @McpParam(name = "include_ai_analysis", description = "是否包含AI分析结果，默认true", defaultValue = "true") Boolean includeAiAnalysis) {
+        Integer severityCode = severityCode(severityLevel);
+        Map<String, Object> params = new HashMap<>();
+        params.put("systemName", systemName);
+        params.put("daysBack", daysBack);
+        List<DataETable> anomalies = dataETableService.getAnomalyPatternsForMCP(params);
+
+        // 按严重等级筛选时也需要AI结果
+        Map<Integer, Integer> aiCodes = new HashMap<>();
+        if ((includeAiAnalysis || severityCode != null) && !anomalies.isEmpty()) {
+            List<Integer> ids = anomalies.stream().map(DataETable::getId).collect(Collectors.toList());
+            for (AiTable ai : aiTableService.list(new LambdaQueryWrapper<AiTable>().in(AiTable::getEId, ids))) {
+                if (ai.getAiCode() != null) {
+                    aiCodes.put(ai.getEId(), ai.getAiCode());
+                }
+            }
+        }
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        Map<String, Integer> bySystem = new LinkedHashMap<>();
+        Map<String, Integer> bySeverity = new LinkedHashMap<>();
+        bySeverity.put("critical", 0);
+        bySeverity.put("warning", 0);
+        bySeverity.put("normal", 0);
+        for (DataETable item : anomalies) {
+            Integer aiCode = aiCodes.get(item.getId());
+            if (severityCode != null && !severityCode.equals(aiCode)) {
+                continue;
+            }
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", String.valueOf(item.getId()));
+            record.put("system_name", nullToEmpty(item.getSystemName()));
+            record.put("ai_code", includeAiAnalysis && aiCode != null ? String.valueOf(aiCode) : "");
+            record.put("create_time", item.getCreateTime() == null ? "" : item.getCreateTime().toString());
+            records.add(record);
+
+            bySystem.merge(nullToEmpty(item.getSystemName()), 1, Integer::sum);
+            String severity = aiCode == null ? "normal" : aiCode == 1 ? "critical" : "warning";
+            bySeverity.merge(severity, 1, Integer::sum);
+        }
+
+        Map<String, Object> patternStats = new LinkedHashMap<>();
+        patternStats.put("total_anomalies", records.size());
+        patternStats.put("by_system", bySystem);
+        patternStats.put("by_severity", bySeverity);
+        patternStats.put("trend_analysis", "基于最近数据的趋势分析");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("data", records);
+        result.put("pattern_analysis", patternStats);
+        result.put("recommendations", List.of("建议加强系统监控", "关注高频异常系统"));
+        return result;
+    }
+
+    @McpTool(name = "calculate_equipment_health_score",
+            description = "按异常严重程度、所属系统和维护处理情况计算电梯健康评分，近期异常影响更大")
+    public Map<String, Object> calculateEquipmentHealthScore(
+            @McpParam(name = "elevator_id", description = "电梯ID，可选，不传时计算全部电梯") String elevatorId,
+            @McpParam(name = "detailed_analysis", description = "是否包含风险组件、各系统评分和最近维护时间，默认true", defaultValue = "true") Boolean detailedAnalysis) {
+        return healthScoreEngine.getToolResult(elevatorId, detailedAnalysis);
+    }
+
+    @McpTool(name = "get_comprehensive_system_status",
+            description = "获取综合系统状态报告：仿真电梯运行状态、健康评分、最近24小时异常告警，以及待处理问题较多的电梯")
+    public Map<String, Object> getComprehensiveSystemStatus(
+            @McpParam(name = "include_predictions", description = "是否包含按健康评分排序的维护优先级，默认true", defaultValue = "true") Boolean includePredictions,
+            @McpParam(name = "include_recommendations", description = "是否包含建议，默认true", defaultValue = "true") Boolean includeRecommendations) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // 运行状态只对当前有订阅者的仿真电梯可知
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("total", 0);
+        counts.put("running", 0);
+        counts.put("idle", 0);
+        counts.put("maintenance", 0);
+        counts.put("fault", 0);
+        List<String> faulted = new ArrayList<>();
+        for (Elevator elevator : elevatorRegistry.getElevators()) {
+            String state = runState(elevator.getStatus(), elevator.getMaintenanceStatus());
+            counts.merge("total", 1, Integer::sum);
+            counts.merge(state, 1, Integer::sum);
+            if ("fault".equals(state)) {
+                faulted.add(elevator.getId());
+            }
+        }
+
+        Map<String, Object> health = healthScoreEngine.getToolResult(null, true);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> healthScores = (List<Map<String, Object>>) health.get("data");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> healthSummary = (Map<String, Object>) health.get("summary");
+
+        LocalDateTime since = now.minusHours(24);
+        long anomalies = dataETableService.count(new LambdaQueryWrapper<DataETable>()
+                .ge(DataETable::getCreateTime, since));
+        List<DataETable> recent = dataETableService.list(new LambdaQueryWrapper<DataETable>()
+                .ge(DataETable::getCreateTime, since)
+                .orderByDesc(DataETable::getCreateTime)
+                .last("LIMIT " + RECENT_ALERTS));
+        Map<Integer, Integer> aiCodes = new HashMap<>();
+        if (!recent.isEmpty()) {
+            List<Integer> ids = recent.stream().map(DataETable::getId).collect(Collectors.toList());
+            for (AiTable ai : aiTableService.list(new LambdaQueryWrapper<AiTable>().in(AiTable::getEId, ids))) {
+                if (ai.getAiCode() != null) {
+                    aiCodes.put(ai.getEId(), ai.getAiCode());
+                }
+            }
+        }
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        int critical = 0;
+        for (DataETable item : recent) {
+            Integer aiCode = aiCodes.get(item.getId());
+            String level = aiCode == null ? "pending" : aiCode == 1 ? "critical" : "warning";
+            if (aiCode != null && aiCode == 1) {
+                critical++;
+            }
+            Map<String, Object> alert = new LinkedHashMap<>();
+            alert.put("id", String.valueOf(item.getId()));
+            alert.put("time", item.getCreateTime() == null ? "" : item.getCreateTime().format(TIMESTAMP));
+            alert.put("message", nullToEmpty(item.getSystemName()) + "/" + nullToEmpty(item.getSystemSqName())
+                    + " " + nullToEmpty(item.getEName()) + ": " + nullToEmpty(item.getEData()));
+            alert.put("occurrences", item.getOccurrences() == null ? 1 : item.getOccurrences());
+            alert.put("level", level);
+            alerts.add(alert);
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("timestamp", now.format(TIMESTAMP));
+        status.put("overall_status", faulted.isEmpty() ? healthSummary.get("overall_status") : "存在故障");
+        status.put("elevators", counts);
+        status.put("health", healthSummary);
+        status.put("anomalies_24h", anomalies);
+        status.put("recent_alerts", alerts);
+
+        // 健康评分最低、待处理问题最多的电梯优先维护
+        List<Map<String, Object>> priorities = new ArrayList<>();
+        for (Map<String, Object> report : healthScores) {
+            if ((Integer) report.get("open_issues") > 0 || (Double) report.get("health_score") < 80) {
+                Map<String, Object> priority = new LinkedHashMap<>();
+                priority.put("elevator", report.get("elevator_id"));
+                priority.put("health_score", report.get("health_score"));
+                priority.put("status", report.get("status"));
+                priority.put("open_issues", report.get("open_issues"));
+                priority.put("risk_factors", report.get("risk_factors"));
+                priority.put("last_maintenance", report.get("last_maintenance"));
+                priorities.add(priority);
+            }
+        }
+        priorities.sort((a, b) -> Double.compare((Double) a.get("health_score"), (Double) b.get("health_score")));
+        if (includePredictions) {
+            status.put("maintenance_priorities", priorities);
+        }
+        if (includeRecommendations) {
+            List<String> recommendations = new ArrayList<>();
+            for (String id : faulted) {
+                recommendations.add(id + " 处于故障或急停状态，尽快现场排查");
+            }
+            for (Map<String, Object> priority : priorities) {
+                if ((Double) priority.get("health_score") < 80) {
+                    recommendations.add(priority.get("elevator") + " 健康评分 " + priority.get("health_score")
+                            + "（" + priority.get("status") + "），优先检查: " + priority.get("risk_factors"));
+                }
+            }
+            if (critical > 0) {
+                recommendations.add("最近 " + alerts.size() + " 条告警中有 " + critical + " 条严重故障，尽快安排处理");
+            }
+            if (recommendations.isEmpty()) {
+                recommendations.add("各电梯运行正常，按计划执行定期保养");
+            }
+            status.put("recommendations", recommendations);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("data", status);
+        return result;
+    }
+
+    private static Map<String, Object> maintenanceResult(List<Map<String, Object>> records, String elevatorId,
+                                                         Integer monthsBack, String maintenanceType, Integer limit) {
+        Map<String, Object> queryParams = new LinkedHashMap<>();
+        queryParams.put("elevator_id", elevatorId);
+        queryParams.put("months_back", monthsBack);
+        queryParams.put("maintenance_type", maintenanceType);
+        queryParams.put("limit", limit);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("data", records);
+        result.put("total", records.size());
+        result.put("query_params", queryParams);
+        return result;
+    }
+
+    /**
+     * critical/严重/严重故障 -> 1，warning/警告 -> 0
+     */
+    private static Integer severityCode(String severityLevel) {
+        if (severityLevel == null || severityLevel.isBlank()) {
+            return null;
+        }
+        switch (severityLevel.trim().toLowerCase()) {
+            case "critical":
+            case "严重":
+            case "严重故障":
+            case "1":
+                return 1;
+            case "warning":
+            case "警告":
+            case "0":
+                return 0;
+            default:
+                throw new IllegalArgumentException("不支持的严重等级: " + severityLevel + "（critical/warning）");
+        }
+    }
+
+    /**
+     * 故障或急停为 fault，维护中为 maintenance，其余按是否在运行分为 running/idle
+     */
+    private static String runState(ElevatorStatus status, MaintenanceStatus maintenanceStatus) {
+        if (maintenanceStatus == MaintenanceStatus.FAULT || status == ElevatorStatus.HALTED) {
+            return "fault";
+        }
+        if (maintenanceStatus == MaintenanceStatus.MAINTAINING) {
+            return "maintenance";
+        }
+        return status == ElevatorStatus.RUNNING ? "running" : "idle";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
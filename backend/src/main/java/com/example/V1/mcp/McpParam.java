@@ -0,0 +1,30 @@
+package com.example.V1.mcp;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * MCP工具参数，参数类型按Java类型生成JSON Schema（字符串、整数、数值、布尔）
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface McpParam {
+
+    /**
+     * 参数名称，与 function calling 传入的键一致
+     */
+    String name();
+
+    String description();
+
+    boolean required() default false;
+
+    /**
+     * 未传入时的默认值，按参数类型转换；为空表示默认 null
+     */
+    String defaultValue() default "";
+}
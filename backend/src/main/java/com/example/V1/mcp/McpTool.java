@@ -0,0 +1,24 @@
+package com.example.V1.mcp;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 一个可供AI function calling调用的MCP工具方法
+ * 方法参数都需标注 {@link McpParam}；返回值原样作为工具结果（通常为 Map，序列化为JSON）
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface McpTool {
+
+    /**
+     * 工具名称，function calling 中的 function.name
+     */
+    String name();
+
+    String description();
+}
@@ -0,0 +1,19 @@
+package com.example.V1.mcp;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记提供MCP工具的类，作为Spring组件注册，其中带 {@link McpTool} 的方法由 {@link McpToolRegistry} 收集
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface McpToolProvider {
+}
@@ -0,0 +1,187 @@
+package com.example.V1.mcp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MCP工具注册表：启动时收集所有 {@link McpToolProvider} 组件中带 {@link McpTool} 的方法，
+ * 由方法签名和 {@link McpParam} 生成参数Schema，调用时按参数名取值并转换为方法参数类型后直接执行
+ */
+@Slf4j
+@Component
+public class McpToolRegistry {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private Map<String, ToolDefinition> tools = Map.of();
+
+    /**
+     * 一个已注册的工具
+     */
+    private static final class ToolDefinition {
+        private final String name;
+        private final String description;
+        private final Object bean;
+        private final Method method;
+        private final List<ParamDefinition> params;
+
+        private ToolDefinition(String name, String description, Object bean, Method method, List<ParamDefinition> params) {
+            this.name = name;
+            this.description = description;
+            this.bean = bean;
+            this.method = method;
+            this.params = params;
+        }
+    }
+
+    private static final class ParamDefinition {
+        private final McpParam annotation;
+        private final Class<?> type;
+        private final Object defaultValue;
+
+        private ParamDefinition(McpParam annotation, Class<?> type, Object defaultValue) {
+            this.annotation = annotation;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, ToolDefinition> found = new LinkedHashMap<>();
+        for (Object bean : applicationContext.getBeansWithAnnotation(McpToolProvider.class).values()) {
+            for (Method method : AopUtils.getTargetClass(bean).getMethods()) {
+                McpTool tool = method.getAnnotation(McpTool.class);
+                if (tool == null) {
+                    continue;
+                }
+                if (found.containsKey(tool.name())) {
+                    throw new IllegalStateException("MCP工具名称重复: " + tool.name());
+                }
+                found.put(tool.name(), new ToolDefinition(tool.name(), tool.description(), bean, method, params(method)));
+            }
+        }
+        tools = Collections.unmodifiableMap(found);
+        log.info("MCP工具注册完成: {}", tools.keySet());
+    }
+
+    public Set<String> getToolNames() {
+        return tools.keySet();
+    }
+
+    /**
+     * 工具Schema：工具名 -> {name, description, parameters: {参数名 -> {type, description[, required]}}}
+     */
+    public Map<String, Object> getToolSchemas() {
+        Map<String, Object> schemas = new LinkedHashMap<>();
+        for (ToolDefinition tool : tools.values()) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (ParamDefinition param : tool.params) {
+                Map<String, Object> property = new LinkedHashMap<>();
+                property.put("type", jsonType(param.type));
+                property.put("description", param.annotation.description());
+                if (param.annotation.required()) {
+                    property.put("required", true);
+                }
+                properties.put(param.annotation.name(), property);
+            }
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("name", tool.name);
+            schema.put("description", tool.description);
+            schema.put("parameters", properties);
+            schemas.put(tool.name, schema);
+        }
+        return schemas;
+    }
+
+    /**
+     * 调用工具
+     * @throws IllegalArgumentException 工具不存在、缺少必需参数、有未声明的参数或参数类型无法转换
+     */
+    public Object call(String toolName, Map<String, Object> arguments) throws Exception {
+        ToolDefinition tool = tools.get(toolName);
+        if (tool == null) {
+            throw new IllegalArgumentException("未知的MCP工具: " + toolName);
+        }
+        Map<String, Object> remaining = arguments == null ? new LinkedHashMap<>() : new LinkedHashMap<>(arguments);
+        Object[] args = new Object[tool.params.size()];
+        for (int i = 0; i < args.length; i++) {
+            ParamDefinition param = tool.params.get(i);
+            Object value = remaining.remove(param.annotation.name());
+            if (value == null) {
+                if (param.annotation.required()) {
+                    throw new IllegalArgumentException("缺少必需参数: " + param.annotation.name());
+                }
+                args[i] = param.defaultValue;
+            } else {
+                args[i] = convert(value, param);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("工具 " + toolName + " 不支持参数: " + remaining.keySet());
+        }
+        try {
+            return tool.method.invoke(tool.bean, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private List<ParamDefinition> params(Method method) {
+        List<ParamDefinition> params = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            McpParam annotation = parameter.getAnnotation(McpParam.class);
+            if (annotation == null) {
+                throw new IllegalStateException("MCP工具 " + method.getName() + " 的参数缺少 @McpParam");
+            }
+            Class<?> type = parameter.getType();
+            jsonType(type);
+            Object defaultValue = annotation.defaultValue().isEmpty() ? null : mapper.convertValue(annotation.defaultValue(), type);
+            params.add(new ParamDefinition(annotation, type, defaultValue));
+        }
+        return params;
+    }
+
+    private Object convert(Object value, ParamDefinition param) {
+        try {
+            return mapper.convertValue(value, param.type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("参数 " + param.annotation.name() + " 应为 " + jsonType(param.type) + ": " + value);
+        }
+    }
+
+    private static String jsonType(Class<?> type) {
+        if (type == String.class) {
+            return "string";
+        }
+        if (type == Integer.class || type == Long.class) {
+            return "integer";
+        }
+        if (type == Double.class || type == Float.class) {
+            return "number";
+        }
+        if (type == Boolean.class) {
+            return "boolean";
+        }
+        throw new IllegalStateException("MCP工具参数不支持的类型: " + type.getName() + "（使用包装类型）");
+    }
+}
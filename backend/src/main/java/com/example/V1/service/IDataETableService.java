@@ -6,6 +6,7 @@ import com.example.V1.commont.Result;
 import com.example.V1.entity.DataETable;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +22,11 @@ public interface IDataETableService extends IService<DataETable> {
     // 快速创建异常数据（不进行AI分析）
     Result<String> create(DataETable dataETable);
 
+    /**
+     * 批量创建异常数据：一个事务内按JDBC批量插入，返回分配的id；analyze 为 true 时提交后逐条进入AI分析队列
+     */
+    Result<Map<String, Object>> createBatch(Iterator<DataETable> records, boolean analyze);
+
     /**
      * 分页查询（携带AI结果）——用于前端看板展示严重等级
      */
@@ -0,0 +1,282 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.AbnormalDataWithAiDTO;
+import com.example.V1.entity.DataETable;
+import com.example.V1.mapper.DataETableMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI分析结果缓存，位于大模型调用之前
+ * 同一部件（系统名/子系统名/异常名相同）且异常值落在同一数值区间的异常视为同一签名，复用最近一次成功的分析结果。
+ * 内存层为按访问顺序淘汰的有界表，条目超过TTL后失效；内存未命中时可查询 ai_table 中同签名的历史结果（持久层）
+ */
+@Slf4j
+@Component
+public class AiAnalysisCache {
+
+    // "90°C"、"15%"、"0.8"：数值部分 + 单位
+    private static final Pattern VALUE_PATTERN = Pattern.compile("^\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*(.*)$");
+    private static final String SEPARATOR = "\u0001";
+
+    @Autowired
+    private DataETableMapper dataETableMapper;
+
+    @Value("${ai.analysis.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.analysis.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${ai.analysis.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${ai.analysis.cache.value-band:0.05}")
+    private double valueBand;
+
+    @Value("${ai.analysis.cache.persistent:true}")
+    private boolean persistent;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * 缓存的一次成功分析
+     */
+    public static final class Entry {
+        private final int code;
+        private final String message;
+        private final String severity;
+        private final String suggestion;
+        private final long createdNanos;
+
+        private Entry(int code, String message, String severity, String suggestion, long createdNanos) {
+            this.code = code;
+            this.message = message;
+            this.severity = severity;
+            this.suggestion = suggestion;
+            this.createdNanos = createdNanos;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public String getSuggestion() {
+            return suggestion;
+        }
+    }
+
+    /**
+     * 只查内存层，不访问数据库，可在请求线程上调用
+     * @return 命中的结果，未命中或缓存关闭时返回 null
+     */
+    public Entry getIfPresent(DataETable data) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = lookup(signature(data));
+        if (entry != null) {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * 依次查内存层和持久层，持久层命中后回填内存层；两层都未命中才计为一次未命中
+     */
+    public Entry get(DataETable data) {
+        if (!enabled) {
+            return null;
+        }
+        String key = signature(data);
+        Entry entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        if (persistent) {
+            entry = loadPersistent(data, key);
+            if (entry != null) {
+                persistentHits.increment();
+                synchronized (entries) {
+                    entries.put(key, entry);
+                }
+                return entry;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 记录一次成功的大模型分析，失败结果不应缓存
+     */
+    public void put(DataETable data, int code, String message, String severity, String suggestion) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(code, message, severity, suggestion, System.nanoTime());
+        String key = signature(data);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 缓存统计：命中（内存/持久层）、未命中、淘汰、过期次数及命中率
+     */
+    public Map<String, Object> getStats() {
+        long memoryHits = hits.sum();
+        long storeHits = persistentHits.sum();
+        long missCount = misses.sum();
+        long lookups = memoryHits + storeHits + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("hits", memoryHits);
+        stats.put("persistentHits", storeHits);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : Math.round((memoryHits + storeHits) * 1000.0 / lookups) / 1000.0);
+        return stats;
+    }
+
+    /**
+     * 异常签名：文本字段去空白、转小写；异常值按数值区间分桶，单位保留在签名中
+     */
+    String signature(DataETable data) {
+        return normalize(data.getSystemName()) + SEPARATOR
+                + normalize(data.getSystemSqName()) + SEPARATOR
+                + normalize(data.getEName()) + SEPARATOR
+                + valueBand(data.getEData());
+    }
+
+    /**
+     * 数值按对数等比分桶：相邻桶边界之比为 1 + valueBand，即同一桶内的值相差不超过 valueBand；
+     * 解析不出数值的按文本比较
+     */
+    String valueBand(String eData) {
+        if (eData == null) {
+            return "";
+        }
+        Matcher matcher = VALUE_PATTERN.matcher(eData);
+        if (!matcher.matches()) {
+            return normalize(eData);
+        }
+        double value = Double.parseDouble(matcher.group(1));
+        String unit = normalize(matcher.group(2));
+        if (value == 0.0) {
+            return "0" + unit;
+        }
+        long bucket = (long) Math.floor(Math.log(Math.abs(value)) / Math.log1p(valueBand));
+        return (value < 0 ? "-b" : "b") + bucket + unit;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Entry lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.createdNanos > TimeUnit.MINUTES.toNanos(ttlMinutes)) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * 从 ai_table 中找TTL内同一部件、同一数值区间的最近一次成功分析
+     */
+    private Entry loadPersistent(DataETable data, String key) {
+        try {
+            LocalDateTime since = LocalDateTime.now().minusMinutes(ttlMinutes);
+            List<AbnormalDataWithAiDTO> recent = dataETableMapper.selectRecentAnalyses(
+                    data.getSystemName(), data.getSystemSqName(), data.getEName(), since);
+            for (AbnormalDataWithAiDTO row : recent) {
+                if (row.getId().equals(data.getId()) || !isSuccessful(row)) {
+                    continue;
+                }
+                DataETable candidate = new DataETable();
+                candidate.setSystemName(row.getSystemName());
+                candidate.setSystemSqName(row.getSystemSqName());
+                candidate.setEName(row.getEName());
+                candidate.setEData(row.getEData());
+                if (key.equals(signature(candidate))) {
+                    int code = row.getAiCode() == null ? 0 : row.getAiCode();
+                    // ai_table 不存建议，持久层命中时建议使用默认值
+                    return new Entry(code, row.getAiResult(), code == 1 ? "严重故障" : "警告",
+                            "AI未返回建议", System.nanoTime());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("查询AI分析缓存持久层失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * ai_table 中也保存了失败、排队被拒绝的记录和规则判定的结果，这些不能作为大模型结果复用
+     */
+    private static boolean isSuccessful(AbnormalDataWithAiDTO row) {
+        String result = row.getAiResult();
+        return result != null
+                && !result.startsWith("【规则判定】")
+                && !"AI响应异常".equals(result)
+                && !"AI未返回分析内容".equals(result)
+                && !"AI分析队列已满，未进行分析".equals(result);
+    }
+}
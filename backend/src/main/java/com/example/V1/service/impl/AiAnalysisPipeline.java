@@ -0,0 +1,579 @@
+package com.example.V1.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.V1.Dto.AiAnalysisStatusDTO;
+import com.example.V1.Dto.AnalysisStatus;
+import com.example.V1.Dto.DataETableForAiDTO;
+import com.example.V1.Handler.AiAnalysisSocketHandler;
+import com.example.V1.config.BuildPromptWithKnowleConfig;
+import com.example.V1.config.KnowledgeBase;
+import com.example.V1.entity.AiTable;
+import com.example.V1.entity.DataETable;
+import com.example.V1.entity.PromptKnowledge;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异常数据AI分析流水线
+ * 异常入库后立即返回，分析任务进入有界队列，由固定数量的工作线程调用大模型；
+ * 结果写入 ai_table 并通过 /ws/ai/analysis 推送。队列满时不阻塞请求线程，该条异常记为未分析。
+ * 近期任务的状态保存在内存中供按 mtDataId 查询，超出保留数量后回退到查询 ai_table。
+ * 提交时先用 {@link AnomalyRuleClassifier} 按阈值规则判定，再查 {@link AiAnalysisCache}，
+ * 两者之一能给出结论时在提交线程上直接完成，不进入队列。
+ * 攒批线程在有空闲工作线程时取出一批异常（首条到达后等待 batch.window-ms 或攒够 batch.max-size 条），
+ * 一批只调用一次大模型，返回的JSON数组再按序号拆回每条异常，回显的异常与序号对不上的条目单独重新分析；
+ * 工作线程都忙时队列中的异常自然攒成更大的批。
+ * 大模型经 {@link ResilientChatClient} 调用，熔断、超时或重试后仍失败时按规则降级判定，无规则可用才记为失败
+ */
+@Slf4j
+@Component
+public class AiAnalysisPipeline {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private ResilientChatClient chatClient;
+
+    @Autowired
+    private AiTableServiceImpl aiTableService;
+
+    @Autowired
+    private AiAnalysisSocketHandler analysisSocketHandler;
+
+    @Autowired
+    private AiAnalysisCache analysisCache;
+
+    @Autowired
+    private KnowledgeBase knowledgeBase;
+
+    @Autowired
+    private AnomalyRuleClassifier ruleClassifier;
+
+    @Autowired
+    private HealthScoreEngine healthScoreEngine;
+
+    @Value("${ai.analysis.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${ai.analysis.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${ai.analysis.status-retention:10000}")
+    private int statusRetention;
+
+    @Value("${ai.analysis.batch.max-size:8}")
+    private int batchMaxSize;
+
+    @Value("${ai.analysis.batch.window-ms:200}")
+    private long batchWindowMs;
+
+    private BlockingQueue<DataETable> pending;
+    // 空闲工作线程数，攒批线程拿到许可后才开始攒下一批
+    private Semaphore idleWorkers;
+    private ThreadPoolExecutor workers;
+    private Thread batcher;
+    private volatile boolean running;
+    private Map<Integer, AiAnalysisStatusDTO> statuses;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder modelCalls = new LongAdder();
+    private final LongAdder modelItems = new LongAdder();
+    // 批量结果回显与序号不一致、改为单独重新分析的条数
+    private final LongAdder batchMismatches = new LongAdder();
+    // 每条异常最终由哪条路径给出结论
+    private final LongAdder ruleHandled = new LongAdder();
+    private final LongAdder cacheHandled = new LongAdder();
+    private final LongAdder modelHandled = new LongAdder();
+    private final LongAdder degradedHandled = new LongAdder();
+
+    /**
+     * 一条异常的分析结论
+     */
+    private static final class Outcome {
+        private final AnalysisStatus status;
+        private final int code;
+        private final String message;
+        private final String severity;
+        private final String suggestion;
+        // 大模型不可用时由规则降级给出
+        private final boolean degraded;
+
+        private Outcome(AnalysisStatus status, int code, String message, String severity, String suggestion) {
+            this(status, code, message, severity, suggestion, false);
+        }
+
+        private Outcome(AnalysisStatus status, int code, String message, String severity, String suggestion,
+                        boolean degraded) {
+            this.status = status;
+            this.code = code;
+            this.message = message;
+            this.severity = severity;
+            this.suggestion = suggestion;
+            this.degraded = degraded;
+        }
+
+        private static Outcome failed() {
+            return new Outcome(AnalysisStatus.FAILED, 0, "AI响应异常", "未知", "AI未返回建议");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        pending = new ArrayBlockingQueue<>(queueCapacity);
+        idleWorkers = new Semaphore(workerThreads);
+        AtomicInteger counter = new AtomicInteger();
+        // 同时在途的批次数受 idleWorkers 限制，工作队列不会积压
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "ai-analysis-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        statuses = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, AiAnalysisStatusDTO> eldest) {
+                return size() > statusRetention;
+            }
+        });
+        running = true;
+        batcher = new Thread(this::collectBatches, "ai-analysis-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+        log.info("AI分析流水线已启动: 工作线程数={}, 队列容量={}, 每批最多{}条, 攒批窗口{}ms",
+                workerThreads, queueCapacity, batchMaxSize, batchWindowMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (batcher != null) {
+            batcher.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdown();
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("AI分析流水线关闭时仍有 {} 条任务未完成", pending.size() + workers.getActiveCount());
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 提交一条已入库的异常数据，不阻塞调用线程
+     * @return 提交后的状态：QUEUED，规则或缓存给出结论时的 DONE，或队列已满时的 REJECTED
+     */
+    public AiAnalysisStatusDTO submit(DataETable data) {
+        submitted.increment();
+        Integer mtDataId = data.getId();
+        AnomalyRuleClassifier.Verdict verdict = ruleClassifier.classify(data);
+        if (verdict != null) {
+            ruleHandled.increment();
+            return finish(data, AnalysisStatus.DONE, verdict.getCode(), verdict.getMessage(),
+                    verdict.getSeverity(), verdict.getSuggestion());
+        }
+        AiAnalysisCache.Entry cached = analysisCache.getIfPresent(data);
+        if (cached != null) {
+            cacheHandled.increment();
+            return finish(data, AnalysisStatus.DONE, cached.getCode(), cached.getMessage(),
+                    cached.getSeverity(), cached.getSuggestion());
+        }
+        AiAnalysisStatusDTO queued = withData(AiAnalysisStatusDTO.of(mtDataId, AnalysisStatus.QUEUED), data);
+        statuses.put(mtDataId, queued);
+        if (pending.offer(data)) {
+            return queued;
+        }
+        rejected.increment();
+        log.warn("AI分析队列已满，异常数据 {} 未分析", mtDataId);
+        return finish(data, AnalysisStatus.REJECTED, 0, "AI分析队列已满，未进行分析", "未知", "请稍后人工复核");
+    }
+
+    /**
+     * 查询分析状态，内存中没有时按 ai_table 中的记录返回；都没有时返回 null
+     */
+    public AiAnalysisStatusDTO getStatus(Integer mtDataId) {
+        AiAnalysisStatusDTO status = statuses.get(mtDataId);
+        if (status != null) {
+            return status;
+        }
+        AiTable aiTable = aiTableService.getOne(new LambdaQueryWrapper<AiTable>()
+                .eq(AiTable::getEId, mtDataId)
+                .last("LIMIT 1"), false);
+        if (aiTable == null) {
+            return null;
+        }
+        return AiAnalysisStatusDTO.of(mtDataId, AnalysisStatus.DONE)
+                .setAiCode(aiTable.getAiCode())
+                .setAiResult(aiTable.getAiResult())
+                .setAiSeverity(aiTable.getAiSeverity());
+    }
+
+    /**
+     * 流水线统计：排队数、执行中批次数、累计提交、完成、失败、拒绝数，以及批次数和大模型调用次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workerThreads", workerThreads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queued", pending.size());
+        stats.put("running", workers.getActiveCount());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("batches", batches.sum());
+        stats.put("modelCalls", modelCalls.sum());
+        stats.put("modelItems", modelItems.sum());
+        stats.put("batchMismatches", batchMismatches.sum());
+        stats.put("paths", pathStats());
+        stats.put("rules", ruleClassifier.getStats());
+        stats.put("pushSubscribers", analysisSocketHandler.getSubscriberCount());
+        stats.put("cache", analysisCache.getStats());
+        stats.put("knowledge", knowledgeBase.getStats());
+        stats.put("client", chatClient.getStats());
+        return stats;
+    }
+
+    /**
+     * 规则、缓存、大模型三条路径及大模型不可用时的降级各自给出结论的条数及占比
+     */
+    private Map<String, Object> pathStats() {
+        long rule = ruleHandled.sum();
+        long cache = cacheHandled.sum();
+        long model = modelHandled.sum();
+        long degraded = degradedHandled.sum();
+        long total = rule + cache + model + degraded;
+        Map<String, Object> paths = new LinkedHashMap<>();
+        paths.put("rule", rule);
+        paths.put("cache", cache);
+        paths.put("model", model);
+        paths.put("degraded", degraded);
+        paths.put("ruleRatio", ratio(rule, total));
+        paths.put("cacheRatio", ratio(cache, total));
+        paths.put("modelRatio", ratio(model, total));
+        paths.put("degradedRatio", ratio(degraded, total));
+        return paths;
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0.0 : Math.round(part * 1000.0 / total) / 1000.0;
+    }
+
+    /**
+     * 攒批线程：等到有空闲工作线程，取出第一条后在窗口内继续收集，窗口结束后再取走已在排队的，直到攒满一批
+     */
+    private void collectBatches() {
+        while (running) {
+            try {
+                idleWorkers.acquire();
+                List<DataETable> batch = new ArrayList<>(batchMaxSize);
+                try {
+                    batch.add(pending.take());
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                    while (batch.size() < batchMaxSize) {
+                        long remaining = deadline - System.nanoTime();
+                        DataETable next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    idleWorkers.release();
+                    throw e;
+                }
+                workers.execute(() -> {
+                    try {
+                        analyzeBatch(batch);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 线程池已关闭
+                log.warn("AI分析攒批线程退出: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在工作线程上执行：先查缓存（含持久层），未命中的按签名去重后一起交给大模型，结果拆回每条异常保存（AI失败也存）
+     */
+    private void analyzeBatch(List<DataETable> batch) {
+        batches.increment();
+        // 签名 -> 该签名下的所有异常，同签名只分析一次
+        Map<String, List<DataETable>> groups = new LinkedHashMap<>();
+        for (DataETable data : batch) {
+            statuses.put(data.getId(), withData(AiAnalysisStatusDTO.of(data.getId(), AnalysisStatus.RUNNING), data));
+            // 排队期间同签名的异常可能已分析完成
+            AiAnalysisCache.Entry cached = analysisCache.get(data);
+            if (cached != null) {
+                cacheHandled.increment();
+                finishSafely(data, new Outcome(AnalysisStatus.DONE, cached.getCode(), cached.getMessage(),
+                        cached.getSeverity(), cached.getSuggestion()));
+            } else {
+                groups.computeIfAbsent(analysisCache.signature(data), k -> new ArrayList<>()).add(data);
+            }
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        List<DataETable> representatives = new ArrayList<>(groups.size());
+        for (List<DataETable> group : groups.values()) {
+            representatives.add(group.get(0));
+        }
+        Map<Integer, Outcome> outcomes = representatives.size() == 1
+                ? Map.of(0, analyzeOne(representatives.get(0)))
+                : analyzeMany(representatives);
+
+        int i = 0;
+        for (List<DataETable> group : groups.values()) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome == null) {
+                // 批量结果中缺少这一条，单独补一次
+                outcome = analyzeOne(representatives.get(i));
+            }
+            for (DataETable data : group) {
+                if (outcome.degraded) {
+                    degradedHandled.increment();
+                } else {
+                    modelHandled.increment();
+                }
+                finishSafely(data, outcome);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 单条异常一个提示词
+     */
+    private Outcome analyzeOne(DataETable data) {
+        Integer mtDataId = data.getId();
+        try {
+            List<PromptKnowledge> knowledgeList = knowledgeBase.search(knowledgeQuery(data));
+            String prompt = new BuildPromptWithKnowleConfig().buildPromptWithKnowledge(knowledgeList, forAi(data));
+
+            modelCalls.increment();
+            modelItems.increment();
+            String aiResponse = chatClient.call(prompt);
+            int jsonStart = aiResponse.indexOf("{");
+            int jsonEnd = aiResponse.lastIndexOf("}");
+            if (jsonStart >= 0 && jsonEnd > jsonStart) {
+                aiResponse = aiResponse.substring(jsonStart, jsonEnd + 1);
+            } else {
+                aiResponse = aiResponse.replaceAll("```json", "").replaceAll("```", "").trim();
+            }
+
+            Outcome outcome = toOutcome(data, objectMapper.readTree(aiResponse));
+            log.info("AI分析完成 mtDataId={}, code={}, severity={}", mtDataId, outcome.code, outcome.severity);
+            return outcome;
+        } catch (ResilientChatClient.LlmCallException aiEx) {
+            log.warn("大模型不可用，按规则降级 mtDataId={}: {}", mtDataId, aiEx.getMessage());
+            return degraded(data);
+        } catch (Exception aiEx) {
+            log.warn("AI分析失败，使用默认值 mtDataId={}: {}", mtDataId, aiEx.getMessage());
+            return Outcome.failed();
+        }
+    }
+
+    /**
+     * 多条异常合并为一个提示词，要求大模型按序号返回JSON数组
+     * @return 序号（从0开始）-> 结论；调用失败时全部记为失败，个别条目缺失、回显不一致或无法解析时不含该序号
+     */
+    private Map<Integer, Outcome> analyzeMany(List<DataETable> items) {
+        List<DataETableForAiDTO> dataForAI = new ArrayList<>(items.size());
+        StringBuilder query = new StringBuilder();
+        for (DataETable data : items) {
+            dataForAI.add(forAi(data));
+            query.append(knowledgeQuery(data)).append(' ');
+        }
+
+        String aiResponse;
+        try {
+            List<PromptKnowledge> knowledgeList = knowledgeBase.search(query.toString());
+            String prompt = new BuildPromptWithKnowleConfig().buildBatchPromptWithKnowledge(knowledgeList, dataForAI);
+            modelCalls.increment();
+            modelItems.add(items.size());
+            aiResponse = chatClient.call(prompt);
+        } catch (Exception aiEx) {
+            boolean unavailable = aiEx instanceof ResilientChatClient.LlmCallException;
+            log.warn("AI批量分析失败，{} 条异常{}: {}", items.size(), unavailable ? "按规则降级" : "使用默认值", aiEx.getMessage());
+            Map<Integer, Outcome> outcomes = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                outcomes.put(i, unavailable ? degraded(items.get(i)) : Outcome.failed());
+            }
+            return outcomes;
+        }
+
+        Map<Integer, Outcome> outcomes = new HashMap<>();
+        try {
+            int jsonStart = aiResponse.indexOf("[");
+            int jsonEnd = aiResponse.lastIndexOf("]");
+            if (jsonStart >= 0 && jsonEnd > jsonStart) {
+                aiResponse = aiResponse.substring(jsonStart, jsonEnd + 1);
+            } else {
+                aiResponse = aiResponse.replaceAll("```json", "").replaceAll("```", "").trim();
+            }
+            JsonNode array = objectMapper.readTree(aiResponse);
+            for (int position = 0; position < array.size(); position++) {
+                JsonNode node = array.get(position);
+                // 序号从1开始，缺失时按数组位置对应
+                int index = node.has("index") ? node.get("index").asInt() - 1 : position;
+                if (index < 0 || index >= items.size() || outcomes.containsKey(index)) {
+                    continue;
+                }
+                // 序号可能错位：回显的异常与该序号的异常不一致时丢弃，由 analyzeBatch 单独重新分析，错位的结论不进缓存
+                if (!echoMatches(node, items.get(index))) {
+                    batchMismatches.increment();
+                    log.warn("AI批量分析第 {} 条结果回显的异常与序号 {} 不一致，将单独重新分析", position + 1, index + 1);
+                    continue;
+                }
+                outcomes.put(index, toOutcome(items.get(index), node));
+            }
+        } catch (Exception e) {
+            log.warn("AI批量分析结果解析失败，{} 条异常将逐条重试: {}", items.size(), e.getMessage());
+        }
+        log.info("AI批量分析完成: {} 条异常，解析出 {} 条结果", items.size(), outcomes.size());
+        return outcomes;
+    }
+
+    /**
+     * 批量结果回显的异常是否就是该序号的异常：必须回显 eName，回显了的 systemName/systemSqName/eData 也必须一致
+     */
+    private static boolean echoMatches(JsonNode node, DataETable data) {
+        return node.hasNonNull("eName")
+                && echoed(node, "eName", data.getEName())
+                && echoed(node, "systemName", data.getSystemName())
+                && echoed(node, "systemSqName", data.getSystemSqName())
+                && echoed(node, "eData", data.getEData());
+    }
+
+    private static boolean echoed(JsonNode node, String field, String expected) {
+        if (!node.hasNonNull(field)) {
+            return true;
+        }
+        return node.get(field).asText().trim().equals(expected == null ? "" : expected.trim());
+    }
+
+    /**
+     * 解析大模型返回的单条结果，成功的结果写入缓存
+     */
+    private Outcome toOutcome(DataETable data, JsonNode jsonNode) {
+        String message = jsonNode.has("aiResult") ? jsonNode.get("aiResult").asText().replace("\\n", "\n") : "AI未返回分析内容";
+        int code = jsonNode.has("aiCode") ? jsonNode.get("aiCode").asInt() : 0;
+        String suggestion = jsonNode.has("建议") ? jsonNode.get("建议").asText().replace("\\n", "\n") : "AI未返回建议";
+        String severity = code == 1 ? "严重故障" : "警告";
+        if (jsonNode.has("aiResult")) {
+            analysisCache.put(data, code, message, severity, suggestion);
+        }
+        return new Outcome(AnalysisStatus.DONE, code, message, severity, suggestion);
+    }
+
+    /**
+     * 大模型不可用时的本地结论：有适用的规则就按规则判定（不要求置信度），否则记为失败
+     */
+    private Outcome degraded(DataETable data) {
+        AnomalyRuleClassifier.Verdict verdict = ruleClassifier.classifyFallback(data);
+        if (verdict == null) {
+            return Outcome.failed();
+        }
+        return new Outcome(AnalysisStatus.DONE, verdict.getCode(), verdict.getMessage(),
+                verdict.getSeverity(), verdict.getSuggestion(), true);
+    }
+
+    private static String knowledgeQuery(DataETable data) {
+        return data.getSystemName() + " " + data.getSystemSqName() + " " + data.getEName();
+    }
+
+    private static DataETableForAiDTO forAi(DataETable data) {
+        DataETableForAiDTO dataForAI = new DataETableForAiDTO();
+        dataForAI.setSystemName(data.getSystemName());
+        dataForAI.setSystemSqName(data.getSystemSqName());
+        dataForAI.setEName(data.getEName());
+        dataForAI.setESqName(data.getEData());
+        return dataForAI;
+    }
+
+    private void finishSafely(DataETable data, Outcome outcome) {
+        try {
+            finish(data, outcome.status, outcome.code, outcome.message, outcome.severity, outcome.suggestion);
+        } catch (Exception e) {
+            log.error("保存AI分析结果失败 mtDataId={}", data.getId(), e);
+            statuses.put(data.getId(), withData(AiAnalysisStatusDTO.of(data.getId(), AnalysisStatus.FAILED), data));
+            failed.increment();
+        }
+    }
+
+    /**
+     * 保存分析结果到 ai_table，更新状态并推送给订阅者
+     */
+    private AiAnalysisStatusDTO finish(DataETable data, AnalysisStatus status, int code, String message,
+                                       String severity, String suggestion) {
+        AiTable aiTable = new AiTable();
+        aiTable.setEId(data.getId());
+        aiTable.setAiResult(message);
+        aiTable.setAiCode(code);
+        aiTable.setAiSeverity(severity);
+        aiTableService.save(aiTable);
+        if (status == AnalysisStatus.DONE) {
+            // 排队被拒或分析失败时没有可信结论，健康评分仍按待分析计
+            healthScoreEngine.recordSeverity(data.getId(), code);
+        }
+
+        AiAnalysisStatusDTO result = withData(AiAnalysisStatusDTO.of(data.getId(), status), data)
+                .setAiCode(code)
+                .setAiResult(message)
+                .setAiSeverity(severity)
+                .setSuggestion(suggestion);
+        statuses.put(data.getId(), result);
+        if (status == AnalysisStatus.DONE) {
+            completed.increment();
+        } else if (status == AnalysisStatus.FAILED) {
+            failed.increment();
+        }
+
+        try {
+            analysisSocketHandler.broadcast(objectMapper.writeValueAsString(result));
+        } catch (Exception e) {
+            log.warn("推送AI分析结果失败 mtDataId={}: {}", data.getId(), e.getMessage());
+        }
+        return result;
+    }
+
+    private static AiAnalysisStatusDTO withData(AiAnalysisStatusDTO status, DataETable data) {
+        return status.setSystemName(data.getSystemName())
+                .setSystemSqName(data.getSystemSqName())
+                .setEName(data.getEName())
+                .setEData(data.getEData());
+    }
+}
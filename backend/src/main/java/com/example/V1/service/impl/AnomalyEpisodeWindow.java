@@ -0,0 +1,291 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 入库前的异常事件合并
+ * 签名相同（系统、子设备、异常名称、规则判定的严重程度）的异常在 window-ms 滑动窗口内重复出现时，
+ * 并入第一条入库的记录（异常事件），只累计次数、最后出现时间和数值最小/最大值，不再插入新行、不再提交AI分析。
+ * 严重程度升高会换成新的签名，立即产生新事件；事件持续超过 max-duration-ms 后也会关闭，长时间的异常风暴仍会周期性留下记录。
+ * 累计值在内存中合并，由定时任务批量回写 data_e_table 的 last_seen/occurrences/min_value/max_value
+ */
+@Slf4j
+@Component
+public class AnomalyEpisodeWindow {
+
+    private static final String UPDATE_SQL = "UPDATE data_e_table SET last_seen = ?, occurrences = ?,"
+            + " min_value = ?, max_value = ? WHERE id = ?";
+
+    @Autowired
+    private AnomalyRuleClassifier ruleClassifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ingest.episode.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ingest.episode.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${ingest.episode.max-duration-ms:3600000}")
+    private long maxDurationMs;
+
+    @Value("${ingest.episode.max-open:10000}")
+    private int maxOpen;
+
+    // 签名 -> 开放中的事件
+    private final Map<String, Episode> open = new ConcurrentHashMap<>();
+    // 已关闭但还有未回写累计值的事件
+    private final Queue<Object[]> retired = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder updatesWritten = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    /**
+     * 一个异常事件：第一条记录入库前由入库线程占有（id 为空），入库后绑定其 id
+     */
+    public static final class Episode {
+        private final String signature;
+        private final long firstSeen;
+        private Integer id;
+        private Thread owner;
+        private long lastSeen;
+        private int occurrences;
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+        private boolean dirty;
+        private boolean closed;
+
+        private Episode(String signature, long now, Double value) {
+            this.signature = signature;
+            this.firstSeen = now;
+            this.lastSeen = now;
+            this.owner = Thread.currentThread();
+            this.occurrences = 1;
+            if (value != null) {
+                min = value;
+                max = value;
+            }
+        }
+
+        public synchronized Integer getId() {
+            return id;
+        }
+
+        public synchronized int getOccurrences() {
+            return occurrences;
+        }
+
+        private void add(long now, Double value) {
+            occurrences++;
+            lastSeen = Math.max(lastSeen, now);
+            if (value != null) {
+                min = Double.isNaN(min) ? value : Math.min(min, value);
+                max = Double.isNaN(max) ? value : Math.max(max, value);
+            }
+            dirty = true;
+        }
+
+        private Object[] row() {
+            return new Object[]{
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeen), ZoneId.systemDefault()),
+                    occurrences,
+                    Double.isNaN(min) ? null : min,
+                    Double.isNaN(max) ? null : max,
+                    id};
+        }
+    }
+
+    /**
+     * 入库前调用（字段默认值已填好）
+     * 有同签名的开放事件时并入该事件并返回，调用方不再入库；否则返回 null，调用方照常入库，
+     * 入库成功或失败后都必须调用 {@link #complete(DataETable, boolean)}。
+     * 同签名事件的第一条记录正由其他线程入库（事务未提交）时不等待，返回 null 让本条作为未跟踪记录照常入库：
+     * 调用方通常在自己的事务中，等待会占住连接和行锁，两个批次互相等待对方的占有时会一起卡住
+     */
+    public Episode admit(DataETable data) {
+        return admit(data, System.currentTimeMillis());
+    }
+
+    Episode admit(DataETable data, long now) {
+        if (!enabled) {
+            return null;
+        }
+        String signature = signature(data);
+        Double value = AnomalyRuleClassifier.parseValue(data.getEData());
+        while (true) {
+            Episode episode = open.get(signature);
+            if (episode == null) {
+                if (open.size() >= maxOpen) {
+                    untracked.increment();
+                    return null;
+                }
+                Episode claim = new Episode(signature, now, value);
+                if (open.putIfAbsent(signature, claim) == null) {
+                    return null;
+                }
+                continue;
+            }
+            synchronized (episode) {
+                if (episode.closed) {
+                    continue;
+                }
+                if (expired(episode, now)) {
+                    close(episode);
+                    continue;
+                }
+                if (episode.id == null && episode.owner != Thread.currentThread()) {
+                    contended.increment();
+                    untracked.increment();
+                    return null;
+                }
+                // 同一批次内的重复记录并入本线程尚未提交的事件
+                episode.add(now, value);
+                merged.increment();
+                return episode;
+            }
+        }
+    }
+
+    /**
+     * admit 返回 null 的记录入库后调用：成功时以该记录的 id 开放事件，失败时放弃占有。
+     * 未占有事件的记录（未跟踪）调用时什么也不做
+     */
+    public void complete(DataETable data, boolean saved) {
+        if (!enabled) {
+            return;
+        }
+        Episode episode = open.get(signature(data));
+        if (episode == null) {
+            return;
+        }
+        synchronized (episode) {
+            if (episode.id != null || episode.owner != Thread.currentThread()) {
+                return;
+            }
+            if (saved && data.getId() != null) {
+                episode.id = data.getId();
+                episode.owner = null;
+                // 同批次并入的重复记录要回写
+                episode.dirty = episode.occurrences > 1;
+                opened.increment();
+            } else {
+                episode.closed = true;
+                open.remove(episode.signature, episode);
+            }
+        }
+    }
+
+    /**
+     * 定时回写有新增合并的事件，并关闭已超出窗口的事件
+     */
+    @Scheduled(fixedDelayString = "${ingest.episode.flush-interval-ms:5000}")
+    public void flush() {
+        List<Object[]> rows = collectUpdates(System.currentTimeMillis());
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+            updatesWritten.add(rows.size());
+        } catch (Exception e) {
+            flushFailures.add(rows.size());
+            log.error("异常事件累计值回写失败: {} 条", rows.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * 取出待回写的行（last_seen, occurrences, min_value, max_value, id），同时关闭过期事件
+     */
+    List<Object[]> collectUpdates(long now) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Episode episode : open.values()) {
+            synchronized (episode) {
+                if (episode.id == null || episode.closed) {
+                    continue;
+                }
+                if (expired(episode, now)) {
+                    close(episode);
+                } else if (episode.dirty) {
+                    rows.add(episode.row());
+                    episode.dirty = false;
+                }
+            }
+        }
+        Object[] row;
+        while ((row = retired.poll()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 合并统计：开放事件数、新开事件、并入的重复记录、未跟踪（超出 max-open 或首条记录正由其他线程入库，
+     * 后者另计 contended）、关闭事件、回写行数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("open", open.size());
+        stats.put("opened", opened.sum());
+        stats.put("merged", merged.sum());
+        stats.put("untracked", untracked.sum());
+        stats.put("contended", contended.sum());
+        stats.put("closed", closed.sum());
+        stats.put("pendingUpdates", retired.size());
+        stats.put("updatesWritten", updatesWritten.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("windowMs", windowMs);
+        return stats;
+    }
+
+    private boolean expired(Episode episode, long now) {
+        return now - episode.lastSeen > windowMs || now - episode.firstSeen >= maxDurationMs;
+    }
+
+    private void close(Episode episode) {
+        episode.closed = true;
+        open.remove(episode.signature, episode);
+        if (episode.dirty && episode.id != null) {
+            retired.add(episode.row());
+            episode.dirty = false;
+        }
+        closed.increment();
+    }
+
+    private String signature(DataETable data) {
+        AnomalyRuleClassifier.Verdict verdict = ruleClassifier.classifyFallback(data);
+        return data.getSystemName() + '\u0001' + data.getSystemSqName() + '\u0001' + data.getEName()
+                + '\u0001' + (verdict == null ? "" : verdict.getSeverity());
+    }
+}
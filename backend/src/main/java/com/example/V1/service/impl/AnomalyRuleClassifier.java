@@ -0,0 +1,339 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.AnomalyRule;
+import com.example.V1.entity.DataETable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地规则快速判定：按（部件或系统, 参数名）找到 anomaly-rules.json 中的区间规则，异常值落在严重区间判为严重故障（aiCode=1），
+ * 落在警告区间判为警告（aiCode=0），并按模板生成分析和建议，不调用大模型。
+ * 找不到规则、值不在任何区间、或离区间边界太近（置信度低于 min-confidence）时返回 null，交给大模型分析
+ */
+@Slf4j
+@Component
+public class AnomalyRuleClassifier {
+
+    private static final Pattern VALUE_PATTERN = Pattern.compile("^\\s*([-+]?\\d+(?:\\.\\d+)?)\\s*(.*)$");
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${ai.analysis.rules.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.analysis.rules.location:classpath:anomaly-rules.json}")
+    private String location;
+
+    @Value("${ai.analysis.rules.min-confidence:0.8}")
+    private double minConfidence;
+
+    // 参数名 -> 同名的各条规则（如曳引机和门机都有“电流”），启动时编译
+    private Map<String, List<AnomalyRule>> rulesByName = Map.of();
+    // 参数名按长度从长到短，用于在 "曳引机电机温度" 这类文本中查找参数名
+    private List<String> namesByLength = List.of();
+    // 规则中出现的全部部件和系统名称
+    private Set<String> labels = Set.of();
+
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder noRule = new LongAdder();
+    private final LongAdder outOfRange = new LongAdder();
+    private final LongAdder lowConfidence = new LongAdder();
+
+    /**
+     * 规则判定结论
+     */
+    public static final class Verdict {
+        private final int code;
+        private final String message;
+        private final String severity;
+        private final String suggestion;
+        private final double confidence;
+
+        private Verdict(int code, String message, String severity, String suggestion, double confidence) {
+            this.code = code;
+            this.message = message;
+            this.severity = severity;
+            this.suggestion = suggestion;
+            this.confidence = confidence;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public String getSuggestion() {
+            return suggestion;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try (InputStream is = resourceLoader.getResource(location).getInputStream()) {
+            AnomalyRule[] rules = new ObjectMapper().readValue(is, AnomalyRule[].class);
+            Map<String, List<AnomalyRule>> byName = new HashMap<>();
+            Set<String> allLabels = new HashSet<>();
+            for (AnomalyRule rule : rules) {
+                for (String name : rule.getNames()) {
+                    byName.computeIfAbsent(name, k -> new ArrayList<>()).add(rule);
+                }
+                if (rule.getComponent() != null) {
+                    allLabels.add(rule.getComponent());
+                }
+                if (rule.getSystem() != null) {
+                    allLabels.add(rule.getSystem());
+                }
+            }
+            List<String> byLength = new ArrayList<>(byName.keySet());
+            byLength.sort(Comparator.comparingInt(String::length).reversed());
+            byName.replaceAll((name, sameName) -> List.copyOf(sameName));
+            rulesByName = Map.copyOf(byName);
+            namesByLength = List.copyOf(byLength);
+            labels = Set.copyOf(allLabels);
+            log.info("异常判定规则已加载: {} 条规则, {} 个参数名 ({})", rules.length, byName.size(), location);
+        } catch (Exception e) {
+            log.error("加载异常判定规则失败，所有异常交给大模型分析 ({}): {}", location, e.getMessage());
+        }
+    }
+
+    /**
+     * @return 规则能可靠判定时的结论，否则 null
+     */
+    public Verdict classify(DataETable data) {
+        return classify(data, minConfidence, true);
+    }
+
+    /**
+     * 大模型不可用时的降级判定：不要求置信度，只要有规则且值落在异常区间就给出结论；不计入统计
+     * @return 规则结论，无规则或不在异常区间时返回 null
+     */
+    public Verdict classifyFallback(DataETable data) {
+        return classify(data, 0.0, false);
+    }
+
+    private Verdict classify(DataETable data, double requiredConfidence, boolean count) {
+        if (!enabled) {
+            return null;
+        }
+        String unit = parseUnit(data.getEData());
+        String name = data.getEName();
+        AnomalyRule rule = findRule(data.getSystemName() + ' ' + data.getSystemSqName(), name, unit);
+        if (rule == null) {
+            name = data.getSystemSqName();
+            rule = findRule(data.getSystemName(), name, unit);
+        }
+        Double value = parseValue(data.getEData());
+        if (rule == null || value == null) {
+            if (count) {
+                noRule.increment();
+            }
+            return null;
+        }
+
+        double v = value;
+        boolean critical = in(v, rule.getCritical()) || beyondCritical(v, rule);
+        boolean warning = !critical && in(v, rule.getWarning());
+        if (!critical && !warning) {
+            // 在正常区间内或偏向另一侧，与上报端的判定不一致，交给大模型
+            if (count) {
+                outOfRange.increment();
+            }
+            return null;
+        }
+
+        double confidence = confidence(v, rule.getWarning());
+        if (confidence < requiredConfidence) {
+            if (count) {
+                lowConfidence.increment();
+            }
+            return null;
+        }
+        if (count) {
+            matched.increment();
+        }
+        return critical ? criticalVerdict(rule, name, data.getEData(), confidence)
+                : warningVerdict(rule, name, data.getEData(), confidence);
+    }
+
+    /**
+     * 各判定路径的条数：规则判定、无规则、不在异常区间、靠近区间边界
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("parameters", rulesByName.size());
+        stats.put("matched", matched.sum());
+        stats.put("noRule", noRule.sum());
+        stats.put("outOfRange", outOfRange.sum());
+        stats.put("lowConfidence", lowConfidence.sum());
+        stats.put("minConfidence", minConfidence);
+        return stats;
+    }
+
+    /**
+     * 按（部件或系统, 参数名）查找规则。参数名取 text 中包含的最长参数名（精确匹配即最长）；
+     * 该参数名的规则中取部件出现在 context 或 text 中的一条，其次取系统出现在其中的一条。
+     * 都不出现时只在两者都不提及任何已知部件/系统、且该参数名只有一条规则时按参数名单独匹配，
+     * 避免“电流”这类通用参数套用其他部件的阈值；unit 不为空且与规则单位不一致的规则不采用
+     * @param context 系统、子设备等上下文，可为 null
+     * @param unit    上报值的单位，可为 null
+     */
+    AnomalyRule findRule(String context, String text, String unit) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String key = text.trim();
+        String scope = context == null ? key : context + ' ' + key;
+        for (String name : namesByLength) {
+            if (!key.contains(name)) {
+                continue;
+            }
+            List<AnomalyRule> sameName = rulesByName.get(name);
+            AnomalyRule best = null;
+            int bestScore = 0;
+            for (AnomalyRule rule : sameName) {
+                if (!unitMatches(rule, unit)) {
+                    continue;
+                }
+                int score = mentions(scope, rule.getComponent()) ? 2 : mentions(scope, rule.getSystem()) ? 1 : 0;
+                if (score > bestScore) {
+                    best = rule;
+                    bestScore = score;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+            AnomalyRule only = sameName.get(0);
+            boolean unambiguous = sameName.size() == 1 && unitMatches(only, unit)
+                    && labels.stream().noneMatch(label -> mentions(scope, label));
+            // 只看最长的参数名，"门机电流" 不会退回到 "电流"
+            return unambiguous ? only : null;
+        }
+        return null;
+    }
+
+    private static boolean mentions(String scope, String label) {
+        return label != null && !label.isEmpty() && scope.contains(label);
+    }
+
+    private static boolean unitMatches(AnomalyRule rule, String unit) {
+        if (unit == null || unit.isEmpty() || rule.getUnit() == null || rule.getUnit().isEmpty()) {
+            return true;
+        }
+        return normalizeUnit(unit).equalsIgnoreCase(normalizeUnit(rule.getUnit()));
+    }
+
+    private static String normalizeUnit(String unit) {
+        return unit.replace("℃", "°C").replaceAll("\\s+", "");
+    }
+
+    /**
+     * 数值后的单位，例如 "95°C" 中的 °C；没有单位或不是数值时返回 null
+     */
+    static String parseUnit(String eData) {
+        if (eData == null) {
+            return null;
+        }
+        Matcher matcher = VALUE_PATTERN.matcher(eData);
+        if (!matcher.matches() || matcher.group(2).isBlank()) {
+            return null;
+        }
+        return matcher.group(2).trim();
+    }
+
+    static Double parseValue(String eData) {
+        if (eData == null) {
+            return null;
+        }
+        Matcher matcher = VALUE_PATTERN.matcher(eData);
+        return matcher.matches() ? Double.parseDouble(matcher.group(1)) : null;
+    }
+
+    private static boolean in(double v, double[] range) {
+        return v >= Math.min(range[0], range[1]) && v <= Math.max(range[0], range[1]);
+    }
+
+    /**
+     * 超出严重区间远离正常区间的一端，仍属严重（如温度高于严重区间上限）
+     */
+    private static boolean beyondCritical(double v, AnomalyRule rule) {
+        double[] critical = rule.getCritical();
+        double[] normal = rule.getNormal();
+        boolean upward = critical[0] + critical[1] > normal[0] + normal[1];
+        return upward ? v > Math.max(critical[0], critical[1]) : v < Math.min(critical[0], critical[1]);
+    }
+
+    /**
+     * 警告区间的两端是正常/警告、警告/严重的分界。离分界越近越不可靠：
+     * 距离达到警告区间宽度的10%时置信度为1，落在分界上时为0.5
+     */
+    static double confidence(double v, double[] warning) {
+        double width = Math.abs(warning[1] - warning[0]);
+        if (width == 0) {
+            return 1.0;
+        }
+        double distance = Math.min(Math.abs(v - warning[0]), Math.abs(v - warning[1]));
+        return Math.min(1.0, 0.5 + 0.5 * distance / (0.1 * width));
+    }
+
+    private static Verdict criticalVerdict(AnomalyRule rule, String name, String eData, double confidence) {
+        String message = "【规则判定】" + rule.getComponent() + "的" + name + "为" + eData
+                + "，已进入严重区间" + range(rule.getCritical(), rule.getUnit())
+                + "（正常范围" + range(rule.getNormal(), rule.getUnit()) + "），"
+                + rule.getComponent() + "存在故障风险，继续运行可能危及安全。";
+        String suggestion = "立即停止电梯运行，分配给维修技术人员处理：" + rule.getAdvice()
+                + "，确认" + name + "恢复到正常范围后再恢复运行。";
+        return new Verdict(1, message, "严重故障", suggestion, confidence);
+    }
+
+    private static Verdict warningVerdict(AnomalyRule rule, String name, String eData, double confidence) {
+        String message = "【规则判定】" + rule.getComponent() + "的" + name + "为" + eData
+                + "，处于警告区间" + range(rule.getWarning(), rule.getUnit())
+                + "（正常范围" + range(rule.getNormal(), rule.getUnit()) + "），"
+                + rule.getComponent() + "性能有所下降，电梯可继续运行。";
+        String suggestion = "分配给维护人员安排预防性维护：" + rule.getAdvice()
+                + "，并持续监控" + name + "的变化趋势。";
+        return new Verdict(0, message, "警告", suggestion, confidence);
+    }
+
+    private static String range(double[] range, String unit) {
+        return "[" + format(Math.min(range[0], range[1])) + "~" + format(Math.max(range[0], range[1])) + "]" + unit;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.V1.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 按调用次数滑动窗口统计失败率的熔断器
+ * CLOSED：最近 windowSize 次调用中至少 minCalls 次且失败率达到阈值时转为 OPEN；
+ * OPEN：拒绝所有调用，openMillis 后转为 HALF_OPEN；
+ * HALF_OPEN：只放行 halfOpenCalls 次试探调用，全部成功转回 CLOSED，任一失败重新 OPEN。
+ * 每次状态转换都计数并记录日志
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // 环形窗口：true 表示失败
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialSuccesses;
+    private long lastTransitionMillis = System.currentTimeMillis();
+
+    private final Map<String, LongAdder> transitions = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                          long openMillis, int halfOpenCalls) {
+        this(name, windowSize, minCalls, failureRateThreshold, openMillis, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                   long openMillis, int halfOpenCalls, LongSupplier clock) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, Math.min(minCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+        this.window = new boolean[this.windowSize];
+    }
+
+    /**
+     * 申请一次调用许可；获得许可后必须以 onSuccess、onFailure 或 onIgnored 之一结束
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialsInFlight + trialSuccesses < halfOpenCalls) {
+                    trialsInFlight++;
+                    return true;
+                }
+                rejected.increment();
+                return false;
+            default:
+                rejected.increment();
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+            if (++trialSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * 调用未到达下游（如被舱壁拒绝、被中断），不计入成功或失败，只归还试探许可
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("windowCalls", windowCount);
+        stats.put("windowFailures", windowFailures);
+        stats.put("failureRate", windowCount == 0 ? 0.0 : Math.round(windowFailures * 1000.0 / windowCount) / 1000.0);
+        stats.put("rejected", rejected.sum());
+        stats.put("lastTransitionMillis", lastTransitionMillis);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        transitions.forEach((k, v) -> counts.put(k, v.sum()));
+        stats.put("transitions", counts);
+        return stats;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == windowSize) {
+            if (window[windowPos]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPos = (windowPos + 1) % windowSize;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        lastTransitionMillis = System.currentTimeMillis();
+        transitions.computeIfAbsent(previous + "->" + next, k -> new LongAdder()).increment();
+        trialsInFlight = 0;
+        trialSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = clock.getAsLong();
+            log.warn("熔断器 [{}] {} -> OPEN (窗口内 {}/{} 次失败)，{}ms 内拒绝调用",
+                    name, previous, windowFailures, windowCount, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        } else {
+            log.info("熔断器 [{}] {} -> {}", name, previous, next);
+        }
+        if (next == State.CLOSED) {
+            windowPos = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+}
@@ -3,28 +3,30 @@ package com.example.V1.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.example.V1.Dto.DataETableForAiDTO;
+import com.example.V1.Dto.AiAnalysisStatusDTO;
+import com.example.V1.Dto.AnalysisStatus;
 import com.example.V1.commont.Result;
 import com.example.V1.config.AiPredictsLifespanConfig;
-import com.example.V1.config.KnowledgeLoader;
-import com.example.V1.config.BuildPromptWithKnowleConfig;
+import com.example.V1.config.SQLiteIdentifierGenerator;
 import com.example.V1.entity.*;
 import com.example.V1.mapper.DataETableMapper;
 import com.example.V1.service.IDataETableService;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -46,14 +48,29 @@ public class DataETableServiceImpl extends ServiceImpl<DataETableMapper, DataETa
 
 
     @Autowired
-    private AiTableServiceImpl aiTableService;
+    private AiAnalysisPipeline aiAnalysisPipeline;
 
     @Autowired
-    private OpenAiChatModel knowledgeLoader;
+    private HealthScoreEngine healthScoreEngine;
+
+    @Autowired
+    private AnomalyEpisodeWindow episodeWindow;
 
     @Autowired
     private DataETableMapper dataETableMapper;
 
+    @Autowired
+    private SQLiteIdentifierGenerator identifierGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${ingest.batch.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    @Value("${ingest.batch.max-records:100000}")
+    private int maxBatchRecords;
+
     @Override
     public Result<IPage<com.example.V1.Dto.AbnormalDataWithAiDTO>> selectWithAi(long current, long size) {
         try {
@@ -67,115 +84,69 @@ public class DataETableServiceImpl extends ServiceImpl<DataETableMapper, DataETa
     }
 
     /**
-     * 异常数据接收，AI分析并存储（AI失败也存）
+     * 异常数据接收：入库后立即返回，AI分析交给 AiAnalysisPipeline 异步执行（AI失败也存），
+     * 结果可按 mtDataId 查询分析状态或订阅 /ws/ai/analysis 获取。
+     * 窗口内重复出现的同一异常并入已有事件，不入库也不再分析，返回该事件的 mtDataId 及其分析状态
      */
     @Override
     public Result<String> getgainData(DataETable dataETable) {
         try {
             // 1. 设置默认字段
-            if (dataETable.getSystemName() == null || dataETable.getSystemName().isEmpty()) {
-                dataETable.setSystemName("未知系统");
-            }
-            if (dataETable.getSystemSqName() == null || dataETable.getSystemSqName().isEmpty()) {
-                dataETable.setSystemSqName("未知组件");
-            }
+            applyDefaults(dataETable);
 
-            // 2. 保存异常数据
-            boolean saved = this.save(dataETable);
-            if (!saved || dataETable.getId() == null) {
+            // 2. 并入已有异常事件，或保存为新事件
+            AnomalyEpisodeWindow.Episode episode = episodeWindow.admit(dataETable);
+            if (episode != null) {
+                return mergedResult(dataETable, episode, true);
+            }
+            if (!saveEpisode(dataETable)) {
                 return Result.error("异常数据保存失败");
             }
 
-            Integer errorId = dataETable.getId();
-
-            // 3. 构建 AI 输入数据
-            DataETableForAiDTO dataForAI = new DataETableForAiDTO();
-            dataForAI.setSystemName(dataETable.getSystemName());
-            dataForAI.setSystemSqName(dataETable.getSystemSqName());
-            dataForAI.setEName(dataETable.getEName());
-            dataForAI.setESqName(dataETable.getEData());
-
-            // 4. 构建提示词
-            List<PromptKnowledge> knowledgeList = KnowledgeLoader.loadKnowledgeFromJson();
-            String prompt = new BuildPromptWithKnowleConfig().buildPromptWithKnowledge(knowledgeList, dataForAI);
-
-            // 5. 调用 AI 并处理响应
-            String message = "AI响应异常";
-            int code = 0;
-            String severity = "未知";
-            String suggestion = "AI未返回建议";
-
-            try {
-                Object aiResponseObj = knowledgeLoader.call(prompt);
-                String aiResponse = aiResponseObj.toString();
-
-                int jsonStart = aiResponse.indexOf("{");
-                int jsonEnd = aiResponse.lastIndexOf("}");
-                if (jsonStart >= 0 && jsonEnd > jsonStart) {
-                    aiResponse = aiResponse.substring(jsonStart, jsonEnd + 1);
-                } else {
-                    aiResponse = aiResponse.replaceAll("```json", "").replaceAll("```", "").trim();
-                }
-
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode jsonNode = mapper.readTree(aiResponse);
-                message = jsonNode.has("aiResult") ? jsonNode.get("aiResult").asText().replace("\\n", "\n") : "AI未返回分析内容";
-                code = jsonNode.has("aiCode") ? jsonNode.get("aiCode").asInt() : 0;
-                suggestion = jsonNode.has("建议") ? jsonNode.get("建议").asText().replace("\\n", "\n") : "AI未返回建议";
-                severity = code == 1 ? "严重故障" : "警告";
+            // 3. 计入健康评分，再提交AI分析（分析结论到达时修正扣分）
+            healthScoreEngine.recordAnomaly(dataETable);
+            AiAnalysisStatusDTO status = aiAnalysisPipeline.submit(dataETable);
 
-                //打印AI解析的数据
-                log.info("message = {},code ={},suggestion ={},severity={}",message,code,suggestion,severity);
-
-            } catch (Exception aiEx) {
-                log.warn("AI解析失败，使用默认值: {}", aiEx.getMessage());
-            }
-
-            // 6. 保存AI结果
-            AiTable aiTable = new AiTable();
-            aiTable.setEId(errorId);
-            aiTable.setAiResult(message);
-            aiTable.setAiCode(code);
-            aiTable.setAiSeverity(severity);
-            aiTableService.save(aiTable);
-
-            // 7. 构造返回
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode resultJson = mapper.createObjectNode();
+            // 4. 构造返回
+            ObjectNode resultJson = new ObjectMapper().createObjectNode();
             resultJson.put("mtDataId", dataETable.getId());//返回异常数据的id
             resultJson.put("systemName", dataETable.getSystemName());
             resultJson.put("systemSqName", dataETable.getSystemSqName());
             resultJson.put("eName", dataETable.getEName());
             resultJson.put("eData", dataETable.getEData());
-            resultJson.put("aiCode", code);
-            resultJson.put("aiResult", message);
-            resultJson.put("建议", suggestion);
-
-            if ("AI响应异常".equals(message)) {
-                return Result.error("异常数据已保存，但AI响应异常");
-            } else {
-                return Result.success("异常数据保存，AI分析成功", resultJson.toString());
+            resultJson.put("analysisStatus", status.getStatus().name());
+
+            if (status.getStatus() == AnalysisStatus.REJECTED) {
+                return Result.error("异常数据已保存，但AI分析队列已满");
             }
+            if (status.getStatus() == AnalysisStatus.DONE) {
+                // 命中分析缓存，直接返回结果
+                resultJson.put("aiCode", status.getAiCode());
+                resultJson.put("aiResult", status.getAiResult());
+                resultJson.put("aiSeverity", status.getAiSeverity());
+                resultJson.put("建议", status.getSuggestion());
+                return Result.success("异常数据已保存，AI分析已完成", resultJson.toString());
+            }
+            return Result.success("异常数据已保存，AI分析已排队", resultJson.toString());
 
         } catch (Exception e) {
-            log.error("保存并AI分析异常失败", e);
-            return Result.error("保存或AI分析失败: " + e.getMessage());
+            log.error("保存异常数据失败", e);
+            return Result.error("保存失败: " + e.getMessage());
         }
     }
 
     @Override
     public Result<String> create(DataETable dataETable) {
         try {
-            if (dataETable.getSystemName() == null || dataETable.getSystemName().isEmpty()) {
-                dataETable.setSystemName("未知系统");
-            }
-            if (dataETable.getSystemSqName() == null || dataETable.getSystemSqName().isEmpty()) {
-                dataETable.setSystemSqName("未知组件");
+            applyDefaults(dataETable);
+            AnomalyEpisodeWindow.Episode episode = episodeWindow.admit(dataETable);
+            if (episode != null) {
+                return mergedResult(dataETable, episode, false);
             }
-            boolean saved = this.save(dataETable);
-            if (!saved || dataETable.getId() == null) {
+            if (!saveEpisode(dataETable)) {
                 return Result.error("异常数据保存失败");
             }
+            healthScoreEngine.recordAnomaly(dataETable);
             // 仅返回 ID
             com.fasterxml.jackson.databind.node.ObjectNode resultJson = new com.fasterxml.jackson.databind.ObjectMapper().createObjectNode();
             resultJson.put("mtDataId", dataETable.getId());
@@ -190,6 +161,143 @@ public class DataETableServiceImpl extends ServiceImpl<DataETableMapper, DataETa
         }
     }
 
+    /**
+     * 保存异常事件的第一条记录，无论成败都通知合并窗口
+     */
+    private boolean saveEpisode(DataETable dataETable) {
+        boolean saved = false;
+        try {
+            saved = this.save(dataETable) && dataETable.getId() != null;
+        } finally {
+            episodeWindow.complete(dataETable, saved);
+        }
+        return saved;
+    }
+
+    private Result<String> mergedResult(DataETable dataETable, AnomalyEpisodeWindow.Episode episode, boolean withAnalysis) {
+        ObjectNode resultJson = new ObjectMapper().createObjectNode();
+        resultJson.put("mtDataId", episode.getId());
+        resultJson.put("systemName", dataETable.getSystemName());
+        resultJson.put("systemSqName", dataETable.getSystemSqName());
+        resultJson.put("eName", dataETable.getEName());
+        resultJson.put("eData", dataETable.getEData());
+        resultJson.put("occurrences", episode.getOccurrences());
+        if (withAnalysis) {
+            AiAnalysisStatusDTO status = aiAnalysisPipeline.getStatus(episode.getId());
+            if (status != null) {
+                resultJson.put("analysisStatus", status.getStatus().name());
+                if (status.getStatus() == AnalysisStatus.DONE) {
+                    resultJson.put("aiCode", status.getAiCode());
+                    resultJson.put("aiResult", status.getAiResult());
+                    resultJson.put("aiSeverity", status.getAiSeverity());
+                }
+            }
+        }
+        return Result.success("异常数据已并入同一异常事件", resultJson.toString());
+    }
+
+
+    /**
+     * 批量创建异常数据
+     * 每 jdbc-batch-size 条为一组：一次预留一段连续id，再以JDBC批量方式插入；全部记录在同一个事务内，任一条失败整体回滚。
+     * AI分析在事务提交后才提交，避免回滚的异常数据产生分析结果。
+     * 与开放中的异常事件（包括本批次内先出现的记录）重复的记录只累计到事件上，不入库；
+     * 其他批次正在入库（事务未提交）的事件不等待，本批次的重复记录照常入库，避免两个批次互相等待对方的占有；
+     * 回滚时本批次新开的事件随之放弃，已并入其他事件的次数不回退
+     */
+    @Override
+    public Result<Map<String, Object>> createBatch(Iterator<DataETable> records, boolean analyze) {
+        long start = System.nanoTime();
+        List<DataETable> saved = new ArrayList<>();
+        List<DataETable> claimed = new ArrayList<>();
+        int[] merged = new int[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<DataETable> chunk = new ArrayList<>(jdbcBatchSize);
+                int read = 0;
+                while (records.hasNext()) {
+                    if (read++ >= maxBatchRecords) {
+                        throw new IllegalArgumentException("单次最多提交 " + maxBatchRecords + " 条异常数据");
+                    }
+                    DataETable record = records.next();
+                    applyDefaults(record);
+                    if (episodeWindow.admit(record) != null) {
+                        merged[0]++;
+                        continue;
+                    }
+                    claimed.add(record);
+                    chunk.add(record);
+                    if (chunk.size() == jdbcBatchSize) {
+                        insertChunk(chunk);
+                        saved.addAll(chunk);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    insertChunk(chunk);
+                    saved.addAll(chunk);
+                }
+            });
+        } catch (Exception e) {
+            for (DataETable record : claimed) {
+                episodeWindow.complete(record, false);
+            }
+            log.error("批量保存异常数据失败，已回滚", e);
+            return Result.error("批量保存失败，已全部回滚: " + e.getMessage());
+        }
+        for (DataETable record : claimed) {
+            episodeWindow.complete(record, true);
+        }
+
+        List<Integer> ids = new ArrayList<>(saved.size());
+        int rejected = 0;
+        for (DataETable record : saved) {
+            ids.add(record.getId());
+            healthScoreEngine.recordAnomaly(record);
+            if (analyze && aiAnalysisPipeline.submit(record).getStatus() == AnalysisStatus.REJECTED) {
+                rejected++;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("批量保存异常数据 {} 条，并入已有事件 {} 条，耗时 {}ms", ids.size(), merged[0], elapsedMillis);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", ids.size());
+        result.put("ids", ids);
+        result.put("merged", merged[0]);
+        result.put("elapsedMs", elapsedMillis);
+        if (analyze) {
+            result.put("analysisQueued", ids.size() - rejected);
+            result.put("analysisRejected", rejected);
+        }
+        return Result.success("异常数据批量保存成功", result);
+    }
+
+    private void insertChunk(List<DataETable> chunk) {
+        long firstId = identifierGenerator.reserve(DataETable.class, chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).setId((int) (firstId + i));
+        }
+        if (!this.saveBatch(chunk, chunk.size())) {
+            throw new IllegalStateException("异常数据批量插入失败");
+        }
+    }
+
+    private static void applyDefaults(DataETable dataETable) {
+        if (dataETable.getSystemName() == null || dataETable.getSystemName().isEmpty()) {
+            dataETable.setSystemName("未知系统");
+        }
+        if (dataETable.getSystemSqName() == null || dataETable.getSystemSqName().isEmpty()) {
+            dataETable.setSystemSqName("未知组件");
+        }
+        if (dataETable.getOccurrences() == null) {
+            Double value = AnomalyRuleClassifier.parseValue(dataETable.getEData());
+            dataETable.setOccurrences(1);
+            dataETable.setMinValue(value);
+            dataETable.setMaxValue(value);
+        }
+    }
+
 
     /**
      * 分页查询异常信息
@@ -323,36 +431,22 @@ public class DataETableServiceImpl extends ServiceImpl<DataETableMapper, DataETa
         }
     }
 
+    /**
+     * 出现过异常的电梯及其当前健康评分，电梯编号取自异常名称
+     */
     @Override
     public List<Map<String, Object>> getAllElevatorsForMCP() {
-        try {
-            log.info("MCP获取所有电梯信息");
-            
-            // 由于当前数据库结构中可能没有专门的电梯表
-            // 这里返回模拟的电梯信息，实际项目中需要根据具体表结构调整
-            List<Map<String, Object>> elevators = new ArrayList<>();
-            
-            // 模拟电梯数据
-            Map<String, Object> elevator1 = new HashMap<>();
-            elevator1.put("id", "EL-001");
-            elevator1.put("name", "1号电梯");
-            elevator1.put("location", "A座");
-            elevator1.put("status", "运行中");
-            elevators.add(elevator1);
-            
-            Map<String, Object> elevator2 = new HashMap<>();
-            elevator2.put("id", "EL-002");
-            elevator2.put("name", "2号电梯");
-            elevator2.put("location", "B座");
-            elevator2.put("status", "维护中");
-            elevators.add(elevator2);
-            
-            log.info("MCP获取电梯信息完成，返回{}台电梯", elevators.size());
-            return elevators;
-            
-        } catch (Exception e) {
-            log.error("MCP获取电梯信息失败", e);
-            return new ArrayList<>();
+        List<Map<String, Object>> elevators = new ArrayList<>();
+        for (String elevatorId : healthScoreEngine.getElevatorIds()) {
+            Map<String, Object> report = healthScoreEngine.getReport(elevatorId, false);
+            Map<String, Object> elevator = new HashMap<>();
+            elevator.put("id", elevatorId);
+            elevator.put("health_score", report.get("health_score"));
+            elevator.put("status", report.get("status"));
+            elevator.put("open_issues", report.get("open_issues"));
+            elevators.add(elevator);
         }
+        log.info("MCP获取电梯信息完成，返回{}台电梯", elevators.size());
+        return elevators;
     }
 }
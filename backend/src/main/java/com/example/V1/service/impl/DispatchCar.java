@@ -0,0 +1,61 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.ElevatorDirection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 电梯在群控梯组中的调度视图
+ * position/direction/inService 由电梯节拍线程写入，target 由梯组写入，均为 volatile 以避免每个节拍加锁；
+ * 其余字段只在持有梯组锁时访问
+ */
+final class DispatchCar {
+
+    final ElevatorBank bank;
+    final Elevator elevator;
+
+    volatile double position = 1.0;
+    volatile ElevatorDirection direction = ElevatorDirection.NONE;
+    // 下一个停靠层，0 表示没有待服务的停靠
+    volatile int target = 0;
+    // 自动模式且未急停时参与分配新呼梯
+    volatile boolean inService = true;
+
+    // 停靠层集合（接客与送客），下标为楼层
+    final boolean[] stops;
+    int stopCount = 0;
+    // 最近一次运行方向，停站后继续沿该方向顺向服务
+    ElevatorDirection sweep = ElevatorDirection.NONE;
+    final List<Passenger> onboard = new ArrayList<>();
+    int assignedWaiting = 0;
+    boolean removed = false;
+
+    DispatchCar(ElevatorBank bank, Elevator elevator, int floorCount) {
+        this.bank = bank;
+        this.elevator = elevator;
+        this.stops = new boolean[floorCount + 1];
+    }
+
+    void addStop(int floor) {
+        if (!stops[floor]) {
+            stops[floor] = true;
+            stopCount++;
+        }
+    }
+
+    void clearStop(int floor) {
+        if (stops[floor]) {
+            stops[floor] = false;
+            stopCount--;
+        }
+    }
+
+    /**
+     * 计算时使用的运行方向：运行中取实际方向，停站时取上一次的顺向方向
+     */
+    ElevatorDirection effectiveDirection() {
+        ElevatorDirection moving = direction;
+        return moving != ElevatorDirection.NONE ? moving : sweep;
+    }
+}
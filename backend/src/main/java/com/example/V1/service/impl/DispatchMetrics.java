@@ -0,0 +1,68 @@
+package com.example.V1.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个调度算法的服务指标：平均候梯时间、平均乘梯全程时间（呼梯到抵达目的层）、五分钟输送能力
+ * 只在持有梯组锁时更新
+ */
+final class DispatchMetrics {
+
+    long generated = 0;
+    long boarded = 0;
+    long waitSumMillis = 0;
+    long waitMaxMillis = 0;
+    long delivered = 0;
+    long journeySumMillis = 0;
+    long abandoned = 0;
+    // 该算法累计生效时长
+    long activeMillis = 0;
+
+    void recordBoarding(long waitMillis) {
+        boarded++;
+        waitSumMillis += waitMillis;
+        waitMaxMillis = Math.max(waitMaxMillis, waitMillis);
+    }
+
+    void recordDelivery(long journeyMillis) {
+        delivered++;
+        journeySumMillis += journeyMillis;
+    }
+
+    /**
+     * 累加另一份指标，用于汇总多个梯组
+     */
+    void add(DispatchMetrics other) {
+        generated += other.generated;
+        boarded += other.boarded;
+        waitSumMillis += other.waitSumMillis;
+        waitMaxMillis = Math.max(waitMaxMillis, other.waitMaxMillis);
+        delivered += other.delivered;
+        journeySumMillis += other.journeySumMillis;
+        abandoned += other.abandoned;
+        activeMillis += other.activeMillis;
+    }
+
+    /**
+     * @param activeMillisNow 含当前生效区间在内的累计时长
+     */
+    Map<String, Object> toMap(long activeMillisNow) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("generatedPassengers", generated);
+        map.put("boardedPassengers", boarded);
+        map.put("deliveredPassengers", delivered);
+        map.put("abandonedPassengers", abandoned);
+        map.put("avgWaitSeconds", boarded > 0 ? round(waitSumMillis / 1000.0 / boarded) : 0.0);
+        map.put("maxWaitSeconds", round(waitMaxMillis / 1000.0));
+        map.put("avgJourneySeconds", delivered > 0 ? round(journeySumMillis / 1000.0 / delivered) : 0.0);
+        // 五分钟输送能力：按生效时长折算的每5分钟送达人数
+        map.put("handlingCapacity5Min", activeMillisNow > 0 ? round(delivered * 300_000.0 / activeMillisNow) : 0.0);
+        map.put("activeSeconds", activeMillisNow / 1000);
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
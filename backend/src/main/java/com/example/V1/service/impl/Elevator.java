@@ -1,131 +1,269 @@
 package com.example.V1.service.impl;
 
+import com.example.V1.Dto.DoorStatus;
 import com.example.V1.Dto.ElevatorCommand;
+import com.example.V1.Dto.ElevatorDirection;
+import com.example.V1.Dto.ElevatorMode;
+import com.example.V1.Dto.ElevatorStatus;
+import com.example.V1.Dto.MaintenanceStatus;
+import com.example.V1.Handler.ElevatorBinaryCodec;
+import com.example.V1.Handler.FrameProtocol;
+import com.example.V1.Handler.OutboundChannel;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @EnableScheduling
 public class Elevator {
 
+    public static final int FLOOR_COUNT = 15;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    private final Random random = new Random();
-    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-    private WebSocketSession session;
+    private final Random random;
+    private final SimulationClock clock;
+    private final ElevatorTickEngine tickEngine;
+    private final Map<WebSocketSession, Subscriber> subscribers = new ConcurrentHashMap<>();
 
     private final String id ;
-    private double currentFloor = 1.0;
-    private int targetFloor = 1;
-    private final int floorCount = 15;
-    private String status = "停止";
-    private String doorStatus = "关闭";
-    private double speed = 0.0;
-    private String direction = "无";
-    private double loadWeight = 0.0;
+    private final byte[] idBytes;
+    private final ByteBuffer binaryBuffer;
+    private final ElevatorStateWriter jsonWriter;
+    private final int floorCount = FLOOR_COUNT;
     private final int maxWeight = 1000;
-    private double temperature = 22.5;
-    private String maintenanceStatus = "正常";
-    private volatile boolean userControl = false;
-    private volatile String mode = "AUTO";
 
-    public Elevator(String id, WebSocketSession session) {
+    // 当前状态，只在持有本对象锁时读写
+    private final ElevatorState state = new ElevatorState();
+
+    // 所属群控梯组中的调度视图，未加入梯组时自动模式沿用随机选层
+    private DispatchCar dispatchCar;
+
+    // 服务端流式异常检测，每个节拍上报轿厢温度；未接入时为 null
+    private StreamingAnomalyDetector detector;
+    private int temperatureSeries = -1;
+
+    // 增量推送：上一次发布的状态基线及帧序号
+    private final ElevatorState published = ElevatorState.emptyBaseline();
+    private long seq = 0;
+
+    public Elevator(String id, ElevatorTickEngine tickEngine) {
+        this(id, tickEngine, SimulationClock.SYSTEM, new Random());
+    }
+
+    /**
+     * @param clock  门开关计时使用的时钟
+     * @param random 本电梯独立的随机数源，固定种子时仿真可复现
+     */
+    public Elevator(String id, ElevatorTickEngine tickEngine, SimulationClock clock, Random random) {
         this.id = id;
-        this.session = session;
+        this.tickEngine = tickEngine;
+        this.clock = clock;
+        this.random = random;
+        this.idBytes = id.getBytes(StandardCharsets.UTF_8);
+        this.binaryBuffer = ByteBuffer.allocate(ElevatorBinaryCodec.frameLength(idBytes));
+        try {
+            this.jsonWriter = new ElevatorStateWriter(objectMapper.writeValueAsBytes(id));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("无效的电梯ID: " + id, e);
+        }
+    }
+
+    /**
+     * 由全局种子和电梯ID派生每台电梯的随机种子，同一种子下各电梯的随机序列互不相关且与创建顺序无关
+     */
+    public static long seedFor(long baseSeed, String id) {
+        long z = baseSeed + id.hashCode() * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized ElevatorStatus getStatus() {
+        return state.status;
+    }
+
+    public synchronized MaintenanceStatus getMaintenanceStatus() {
+        return state.maintenanceStatus;
+    }
+
+    public void addSubscriber(OutboundChannel channel, FrameProtocol protocol) {
+        subscribers.put(channel.getSession(), new Subscriber(channel, protocol));
+    }
+
+    /**
+     * 增量协议的订阅者请求重同步，下一次发布时向其推送完整快照
+     */
+    public void requestSnapshot(WebSocketSession session) {
+        Subscriber subscriber = subscribers.get(session);
+        if (subscriber != null) {
+            subscriber.needsSnapshot = true;
+        }
+    }
+
+    /**
+     * 移除订阅者
+     * @return 剩余订阅者数量
+     */
+    public int removeSubscriber(WebSocketSession session) {
+        subscribers.remove(session);
+        return subscribers.size();
     }
 
-    public void setWebSocketSession(WebSocketSession session) {
-        this.session = session;
+    public int getSubscriberCount() {
+        return subscribers.size();
     }
 
     public void start() {
-        executorService.scheduleAtFixedRate(this::simulateElevatorMovement, 0, 150, TimeUnit.MILLISECONDS);
+        tickEngine.register(this);
     }
 
     public void stop() {
-        executorService.shutdownNow();
+        tickEngine.unregister(this);
+        DispatchCar car;
+        synchronized (this) {
+            car = dispatchCar;
+            dispatchCar = null;
+        }
+        if (car != null) {
+            car.bank.leave(car);
+        }
+    }
+
+    /**
+     * 加入群控梯组，此后自动模式下的停靠层由梯组分配
+     */
+    public synchronized void joinBank(ElevatorBank bank) {
+        dispatchCar = bank.join(this, floorCount);
     }
 
-    public void setTargetFloor(int floor) {
-        this.userControl = true;
-        this.targetFloor = floor;
-        this.mode = "MANUAL";
+    /**
+     * 接入流式异常检测，此后每个节拍把轿厢温度作为采样上报。
+     * 载重只在开关门时跳变，不适合按 EWMA 基线判定，不上报
+     */
+    public synchronized void attachDetector(StreamingAnomalyDetector detector) {
+        this.detector = detector;
+        temperatureSeries = detector.series(id, "轿厢", "轿厢温度");
     }
 
-    private long doorOpenStartTime = 0; // 记录门打开的时间戳，单位毫秒
+    public synchronized void setTargetFloor(int floor) {
+        state.userControl = true;
+        state.targetFloor = floor;
+        state.mode = ElevatorMode.MANUAL;
+    }
 
-    private void simulateElevatorMovement() {
+    /**
+     * 推进一个仿真节拍，由 ElevatorTickEngine 的工作线程调用；
+     * 状态全部是基本类型和枚举，没有订阅者时整个节拍不产生对象分配
+     * @param dtSeconds 节拍时长（秒）
+     */
+    public synchronized void tick(double dtSeconds) {
         try {
+            ElevatorState s = state;
+            DispatchCar car = dispatchCar;
             // 模拟温度缓慢变化，基于前一次温度轻微浮动
             double tempDelta = (random.nextDouble() - 0.5) * 0.2; // 每次最多变化 ±0.1
-            temperature += tempDelta;
-            temperature = Math.max(20.0, Math.min(30.0, temperature)); // 限定温度在20~30之间
-            temperature = Math.round(temperature * 10.0) / 10.0; // 保留1位小数
+            s.temperature += tempDelta;
+            s.temperature = Math.max(20.0, Math.min(30.0, s.temperature)); // 限定温度在20~30之间
+            s.temperature = Math.round(s.temperature * 10.0) / 10.0; // 保留1位小数
 
 
-            if ("运行中".equals(status)) {
-                double step = speed * 0.150;
+            if (s.status == ElevatorStatus.RUNNING) {
+                double step = s.speed * dtSeconds;
+                if (car != null && !s.userControl) {
+                    interceptDispatchStop(car);
+                }
 
-                if ("上行".equals(direction)) {
-                    currentFloor += step;
-                    if (currentFloor >= targetFloor) {
-                        currentFloor = targetFloor;
+                if (s.direction == ElevatorDirection.UP) {
+                    s.currentFloor += step;
+                    if (s.currentFloor >= s.targetFloor) {
+                        s.currentFloor = s.targetFloor;
                         stopAtFloor();
                     } else {
-                        updateRunningStatus("上行");
+                        updateRunningStatus(ElevatorDirection.UP);
                     }
                 } else { // 下行
-                    currentFloor -= step;
-                    if (currentFloor <= targetFloor) {
-                        currentFloor = targetFloor;
+                    s.currentFloor -= step;
+                    if (s.currentFloor <= s.targetFloor) {
+                        s.currentFloor = s.targetFloor;
                         stopAtFloor();
                     } else {
-                        updateRunningStatus("下行");
+                        updateRunningStatus(ElevatorDirection.DOWN);
                     }
                 }
-            } else if ("停止".equals(status)) {
-                if ("打开".equals(doorStatus)) {
+            } else if (s.status == ElevatorStatus.STOPPED) {
+                if (s.doorStatus == DoorStatus.OPEN) {
                     // 门刚打开，记录时间
-                    if (doorOpenStartTime == 0) {
-                        doorOpenStartTime = System.currentTimeMillis();
+                    if (s.doorOpenStartTime == 0) {
+                        s.doorOpenStartTime = clock.currentTimeMillis();
                     }
                     // 判断门开了多久，超过2秒就关门
-                    else if (System.currentTimeMillis() - doorOpenStartTime >= 2000) {
-                        doorStatus = "关闭";
-                        loadWeight = random.nextInt(800);
-                        doorOpenStartTime = 0; // 重置时间戳
+                    else if (clock.currentTimeMillis() - s.doorOpenStartTime >= 2000) {
+                        s.doorStatus = DoorStatus.CLOSED;
+                        if (car == null) {
+                            s.loadWeight = random.nextInt(800);
+                        }
+                        s.doorOpenStartTime = 0; // 重置时间戳
                     }
                 } else { // 门关闭状态
-                    doorOpenStartTime = 0; // 确保时间戳重置
-                    if (!userControl) {
+                    s.doorOpenStartTime = 0; // 确保时间戳重置
+                    if (!s.userControl && car != null) {
+                        // 群控模式，前往梯组分配的下一停靠层
+                        int target = car.target;
+                        if (target == (int) s.currentFloor) {
+                            s.doorStatus = DoorStatus.OPEN;
+                            arriveAtDispatchStop(car);
+                        } else if (target != 0) {
+                            s.targetFloor = target;
+                            s.direction = target > s.currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+                            s.status = ElevatorStatus.RUNNING;
+                            s.speed = 0.5;
+                        }
+                    } else if (!s.userControl) {
                         // 自动模式，随机选择目标楼层
-                        targetFloor = random.nextInt(floorCount) + 1;
-                        if (targetFloor != (int) currentFloor) {
-                            direction = targetFloor > currentFloor ? "上行" : "下行";
-                            status = "运行中";
-                            speed = 0.5;
+                        s.targetFloor = random.nextInt(floorCount) + 1;
+                        if (s.targetFloor != (int) s.currentFloor) {
+                            s.direction = s.targetFloor > s.currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+                            s.status = ElevatorStatus.RUNNING;
+                            s.speed = 0.5;
                         }
                     } else {
                         // 用户控制模式
-                        if (targetFloor != (int) currentFloor) {
-                            direction = targetFloor > currentFloor ? "上行" : "下行";
-                            status = "运行中";
-                            speed = 0.8;
+                        if (s.targetFloor != (int) s.currentFloor) {
+                            s.direction = s.targetFloor > s.currentFloor ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+                            s.status = ElevatorStatus.RUNNING;
+                            s.speed = 0.8;
                         } else {
                             // 已在目标楼层，恢复自动模式
-                            userControl = false;
-                            mode = "AUTO";
+                            s.userControl = false;
+                            s.mode = ElevatorMode.AUTO;
                         }
                     }
                 }
             }
 
+            if (car != null) {
+                car.position = s.currentFloor;
+                car.direction = s.direction;
+                car.inService = s.mode == ElevatorMode.AUTO && s.status != ElevatorStatus.HALTED;
+            }
+
+            if (detector != null) {
+                detector.offer(temperatureSeries, s.temperature, clock.currentTimeMillis());
+            }
+
             sendState();
 
         } catch (Exception e) {
@@ -135,45 +273,132 @@ public class Elevator {
 
 
     private void stopAtFloor() {
-        status = "停止";
-        direction = "无";
-        speed = 0.0;
-        doorStatus = "打开";
-        userControl = false;
-        mode = "AUTO";
+        state.status = ElevatorStatus.STOPPED;
+        state.direction = ElevatorDirection.NONE;
+        state.speed = 0.0;
+        state.doorStatus = DoorStatus.OPEN;
+        state.userControl = false;
+        state.mode = ElevatorMode.AUTO;
+        if (dispatchCar != null) {
+            arriveAtDispatchStop(dispatchCar);
+        }
+    }
+
+    /**
+     * 运行途中梯组在前方新增了更近的停靠层时，提前在该层停靠
+     */
+    private void interceptDispatchStop(DispatchCar car) {
+        int target = car.target;
+        if (target == 0) {
+            return;
+        }
+        if (state.direction == ElevatorDirection.UP ? target > state.currentFloor && target < state.targetFloor
+                : target < state.currentFloor && target > state.targetFloor) {
+            state.targetFloor = target;
+        }
+    }
+
+    /**
+     * 在梯组停靠层开门上下客，载重按轿厢人数折算
+     */
+    private void arriveAtDispatchStop(DispatchCar car) {
+        int onboard = car.bank.arrive(car, (int) Math.round(state.currentFloor));
+        state.loadWeight = Math.min(maxWeight, onboard * ElevatorBank.PASSENGER_WEIGHT);
     }
 
-    private void updateRunningStatus(String dir) {
-        status = "运行中";
-        speed = 0.8;
-        direction = dir;
-        doorStatus = "关闭";
+    private void updateRunningStatus(ElevatorDirection dir) {
+        state.status = ElevatorStatus.RUNNING;
+        state.speed = 0.8;
+        state.direction = dir;
+        state.doorStatus = DoorStatus.CLOSED;
     }
 
+    /**
+     * 发布当前状态：每种协议每个节拍只序列化一次，同一份消息投递给该协议的所有订阅者。
+     * 增量基线与序号在这里统一推进，保证新订阅者拿到的快照与后续增量衔接；
+     * JSON帧由 ElevatorStateWriter 写入可复用缓冲区，只在投递时拷贝出一份字节；
+     * 投递只写入各会话的出站通道，不在仿真线程上做网络IO
+     */
     private synchronized void sendState() {
-        try {
-            if (session != null && session.isOpen()) {
-                Map<String, Object> state = new HashMap<>();
-                state.put("id", id);
-                state.put("currentFloor", currentFloor);
-                state.put("targetFloor", targetFloor);
-                state.put("status", status);
-                state.put("doorStatus", doorStatus);
-                state.put("speed", speed);
-                state.put("direction", direction);
-                state.put("loadWeight", loadWeight);
-                state.put("maxWeight", maxWeight);
-                state.put("temperature", temperature);
-                state.put("maintenanceStatus", maintenanceStatus);
-                state.put("floorCount", floorCount);
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(state)));
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        int changes = state.diffInto(published);
+        if (changes != 0) {
+            seq++;
+        }
+
+        TextMessage fullMessage = null;
+        TextMessage deltaMessage = null;
+        TextMessage snapshotMessage = null;
+        BinaryMessage binaryMessage = null;
+        for (Subscriber subscriber : subscribers.values()) {
+            OutboundChannel channel = subscriber.channel;
+            WebSocketMessage<?> message;
+            if (subscriber.protocol == FrameProtocol.BINARY) {
+                if (binaryMessage == null) {
+                    binaryMessage = new BinaryMessage(encodeBinaryState());
+                }
+                message = binaryMessage;
+            } else if (subscriber.protocol == FrameProtocol.JSON_FULL) {
+                if (fullMessage == null) {
+                    jsonWriter.writeFull(state, floorCount, maxWeight);
+                    fullMessage = new TextMessage(jsonWriter.toBytes());
+                }
+                message = fullMessage;
+            } else if (subscriber.needsSnapshot || channel.hasPending()) {
+                // 上一帧增量尚未发出时不能再叠加增量，用最新快照替换
+                if (snapshotMessage == null) {
+                    jsonWriter.writeSnapshot(seq, state, floorCount, maxWeight);
+                    snapshotMessage = new TextMessage(jsonWriter.toBytes());
+                }
+                subscriber.needsSnapshot = false;
+                message = snapshotMessage;
+            } else if (changes != 0) {
+                if (deltaMessage == null) {
+                    jsonWriter.writeDelta(seq, state, changes);
+                    deltaMessage = new TextMessage(jsonWriter.toBytes());
+                }
+                message = deltaMessage;
+            } else {
+                continue;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            channel.offer(message);
+        }
+    }
+
+    /**
+     * 按协议编码当前状态的一帧，与推送时的编码路径相同，但不推进增量基线和序号；JSON_DELTA 编码为快照帧
+     */
+    public synchronized byte[] encodeFrame(FrameProtocol protocol) {
+        if (protocol == FrameProtocol.BINARY) {
+            return encodeBinaryState();
+        }
+        if (protocol == FrameProtocol.JSON_FULL) {
+            jsonWriter.writeFull(state, floorCount, maxWeight);
+        } else {
+            jsonWriter.writeSnapshot(seq, state, floorCount, maxWeight);
         }
+        return jsonWriter.toBytes();
+    }
+
+    /**
+     * 编码定长二进制状态帧
+     */
+    private byte[] encodeBinaryState() {
+        binaryBuffer.clear();
+        ElevatorBinaryCodec.encodeState(binaryBuffer, idBytes, seq,
+                state.currentFloor, state.targetFloor, floorCount,
+                state.status.getCode(),
+                state.direction.getCode(),
+                state.doorStatus.getCode(),
+                state.mode.getCode(),
+                state.maintenanceStatus.getCode(),
+                state.speed, state.loadWeight, maxWeight, state.temperature);
+        return binaryBuffer.array().clone();
     }
 
-    public void handleCommand(ElevatorCommand command) {
+    public synchronized void handleCommand(ElevatorCommand command) {
         if (command == null){
             return;
         }
@@ -186,22 +411,37 @@ public class Elevator {
                 setTargetFloor(floor);
                 break;
             case "TOGGLE_DOOR":
-                if (!"运行中".equals(status)) {
-                    doorStatus = "打开".equals(doorStatus) ? "关闭" : "打开";
+                if (state.status != ElevatorStatus.RUNNING) {
+                    state.doorStatus = state.doorStatus == DoorStatus.OPEN ? DoorStatus.CLOSED : DoorStatus.OPEN;
                 }
                 break;
             case "EMERGENCY_STOP":
-                mode = "MANUAL";
-                status = "已停止";
-                speed = 0.0;
+                state.mode = ElevatorMode.MANUAL;
+                state.status = ElevatorStatus.HALTED;
+                state.speed = 0.0;
                 break;
             case "RESUME_OPERATION":
-                status = "停止";
-                mode = "AUTO";
+                state.status = ElevatorStatus.STOPPED;
+                state.mode = ElevatorMode.AUTO;
                 break;
             default:
                 System.out.println("未知命令: " + cmd);
         }
         sendState();
     }
+
+    /**
+     * 订阅者：会话出站通道及其选择的推送协议
+     */
+    private static class Subscriber {
+        private final OutboundChannel channel;
+        private final FrameProtocol protocol;
+        private volatile boolean needsSnapshot;
+
+        private Subscriber(OutboundChannel channel, FrameProtocol protocol) {
+            this.channel = channel;
+            this.protocol = protocol;
+            this.needsSnapshot = protocol == FrameProtocol.JSON_DELTA;
+        }
+    }
 }
@@ -0,0 +1,463 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.ElevatorDirection;
+import com.example.V1.Dto.TrafficProfile;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 群控梯组
+ * 按客流模式产生目的层呼梯，由当前调度算法把呼梯分配给组内电梯，并按算法统计候梯时间、乘梯时间与输送能力。
+ * 梯组由节拍引擎在每个节拍末尾推进（产生乘客、分配、计算各车下一停靠层）；
+ * 电梯到站时回调 arrive 完成上下客。梯组锁内不会再获取电梯锁，避免与电梯节拍互相等待
+ */
+public class ElevatorBank {
+
+    // 以下常量与 Elevator 的运行参数保持一致，用于 ETA 估算
+    static final double CAR_SPEED_FLOORS_PER_SECOND = 0.8;
+    static final double DWELL_SECONDS = 3.0;
+    static final int CAR_CAPACITY = 13;
+    static final double PASSENGER_WEIGHT = 75.0;
+
+    private final Object lock = new Object();
+    private final int floorCount;
+    // 客流与分配各用一个随机源，同一种子下不同调度算法面对完全相同的客流
+    private final Random random;
+    private final Random dispatchRandom;
+    private final List<DispatchCar> cars = new ArrayList<>();
+    private final List<Passenger> waiting = new ArrayList<>();
+    private final Map<DispatchAlgorithm, DispatchMetrics> metrics = new EnumMap<>(DispatchAlgorithm.class);
+
+    private DispatchAlgorithm algorithm;
+    private TrafficProfile trafficProfile;
+    private double arrivalRatePerMinute;
+    private long abandonAfterMillis;
+
+    // 梯组仿真时钟，按节拍时长推进，指标全部基于该时钟
+    private long nowMillis = 0;
+    private long algorithmSinceMillis = 0;
+
+    public ElevatorBank(int floorCount, DispatchAlgorithm algorithm, TrafficProfile trafficProfile,
+                        double arrivalRatePerMinute, long abandonAfterMillis, Random random) {
+        this.floorCount = floorCount;
+        this.algorithm = algorithm;
+        this.trafficProfile = trafficProfile;
+        this.arrivalRatePerMinute = arrivalRatePerMinute;
+        this.abandonAfterMillis = abandonAfterMillis;
+        this.random = random;
+        this.dispatchRandom = new Random(random.nextLong());
+        for (DispatchAlgorithm value : DispatchAlgorithm.values()) {
+            metrics.put(value, new DispatchMetrics());
+        }
+    }
+
+    /**
+     * 电梯加入梯组
+     */
+    DispatchCar join(Elevator elevator, int carFloorCount) {
+        if (carFloorCount != floorCount) {
+            throw new IllegalArgumentException("电梯楼层数与梯组不一致: " + elevator.getId());
+        }
+        synchronized (lock) {
+            DispatchCar car = new DispatchCar(this, elevator, floorCount);
+            cars.add(car);
+            return car;
+        }
+    }
+
+    /**
+     * 电梯离开梯组：分配给它的候梯乘客重新分配，轿厢内乘客记为放弃
+     */
+    void leave(DispatchCar car) {
+        synchronized (lock) {
+            if (!cars.remove(car)) {
+                return;
+            }
+            car.removed = true;
+            car.target = 0;
+            for (Passenger passenger : waiting) {
+                if (passenger.assignedCar == car) {
+                    passenger.assignedCar = null;
+                }
+            }
+            for (Passenger passenger : car.onboard) {
+                metrics.get(passenger.algorithm).abandoned++;
+            }
+            car.onboard.clear();
+        }
+    }
+
+    /**
+     * 推进一个梯组节拍，由节拍引擎在所有电梯推进完成后调用
+     * @param dtSeconds 节拍时长（秒）
+     */
+    public void step(double dtSeconds) {
+        synchronized (lock) {
+            nowMillis += Math.round(dtSeconds * 1000);
+            if (cars.isEmpty()) {
+                return;
+            }
+            generatePassengers(dtSeconds);
+            abandonExpired();
+            for (Passenger passenger : waiting) {
+                if (passenger.assignedCar == null) {
+                    assign(passenger);
+                }
+            }
+            for (DispatchCar car : cars) {
+                car.target = nextStop(car);
+            }
+        }
+    }
+
+    /**
+     * 登记一次目的层呼梯并立即分配服务电梯
+     */
+    Passenger call(int origin, int destination) {
+        synchronized (lock) {
+            Passenger passenger = new Passenger(origin, destination, nowMillis, algorithm);
+            waiting.add(passenger);
+            metrics.get(algorithm).generated++;
+            assign(passenger);
+            for (DispatchCar car : cars) {
+                car.target = nextStop(car);
+            }
+            return passenger;
+        }
+    }
+
+    /**
+     * 电梯在某层开门：先下客再上客，返回轿厢内人数
+     */
+    int arrive(DispatchCar car, int floor) {
+        synchronized (lock) {
+            if (car.removed) {
+                return 0;
+            }
+            car.clearStop(floor);
+            Iterator<Passenger> riding = car.onboard.iterator();
+            while (riding.hasNext()) {
+                Passenger passenger = riding.next();
+                if (passenger.destination == floor) {
+                    riding.remove();
+                    metrics.get(passenger.algorithm).recordDelivery(nowMillis - passenger.requestedAtMillis);
+                }
+            }
+            Iterator<Passenger> queue = waiting.iterator();
+            while (queue.hasNext()) {
+                Passenger passenger = queue.next();
+                if (passenger.assignedCar != car || passenger.origin != floor) {
+                    continue;
+                }
+                car.assignedWaiting--;
+                if (car.onboard.size() >= CAR_CAPACITY) {
+                    // 满载，留待下一节拍重新分配
+                    passenger.assignedCar = null;
+                    continue;
+                }
+                queue.remove();
+                passenger.boardedAtMillis = nowMillis;
+                car.onboard.add(passenger);
+                car.addStop(passenger.destination);
+                metrics.get(passenger.algorithm).recordBoarding(nowMillis - passenger.requestedAtMillis);
+            }
+            car.target = nextStop(car);
+            return car.onboard.size();
+        }
+    }
+
+    private void generatePassengers(double dtSeconds) {
+        int count = samplePoisson(arrivalRatePerMinute * dtSeconds / 60.0);
+        DispatchMetrics current = metrics.get(algorithm);
+        for (int i = 0; i < count; i++) {
+            int origin = trafficProfile.sampleOrigin(random, floorCount);
+            int destination = trafficProfile.sampleDestination(random, floorCount, origin);
+            waiting.add(new Passenger(origin, destination, nowMillis, algorithm));
+            current.generated++;
+        }
+    }
+
+    private int samplePoisson(double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+
+    private void abandonExpired() {
+        Iterator<Passenger> queue = waiting.iterator();
+        while (queue.hasNext()) {
+            Passenger passenger = queue.next();
+            if (nowMillis - passenger.requestedAtMillis < abandonAfterMillis) {
+                continue;
+            }
+            queue.remove();
+            if (passenger.assignedCar != null) {
+                passenger.assignedCar.assignedWaiting--;
+            }
+            metrics.get(passenger.algorithm).abandoned++;
+        }
+    }
+
+    /**
+     * 目的层调度：呼梯登记时即确定服务电梯，之后不再改派（满载或电梯离开时除外）
+     */
+    private void assign(Passenger passenger) {
+        DispatchCar best = null;
+        double bestCost = Double.MAX_VALUE;
+        if (algorithm == DispatchAlgorithm.RANDOM) {
+            int available = 0;
+            for (DispatchCar car : cars) {
+                if (car.inService) {
+                    available++;
+                }
+            }
+            if (available > 0) {
+                int pick = dispatchRandom.nextInt(available);
+                for (DispatchCar car : cars) {
+                    if (car.inService && pick-- == 0) {
+                        best = car;
+                        break;
+                    }
+                }
+            }
+        } else {
+            for (DispatchCar car : cars) {
+                if (!car.inService) {
+                    continue;
+                }
+                double cost = algorithm == DispatchAlgorithm.ETA ? etaCost(car, passenger) : nearestCarCost(car, passenger);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = car;
+                }
+            }
+        }
+        if (best != null) {
+            passenger.assignedCar = best;
+            best.assignedWaiting++;
+            best.addStop(passenger.origin);
+        }
+    }
+
+    /**
+     * 最近车优先：按楼层距离，正在背离呼梯层运行的电梯加一趟全程的罚距
+     */
+    private double nearestCarCost(DispatchCar car, Passenger passenger) {
+        double position = car.position;
+        double distance = Math.abs(position - passenger.origin);
+        ElevatorDirection direction = car.effectiveDirection();
+        boolean movingAway = (direction == ElevatorDirection.UP && passenger.origin < position)
+                || (direction == ElevatorDirection.DOWN && passenger.origin > position);
+        return movingAway ? distance + floorCount : distance;
+    }
+
+    /**
+     * 预计到达时间代价 = 到达出发层时间 + 乘梯时间 + 新增停靠对已分配乘客造成的延误
+     */
+    private double etaCost(DispatchCar car, Passenger passenger) {
+        ElevatorDirection callDirection = passenger.destination > passenger.origin ? ElevatorDirection.UP : ElevatorDirection.DOWN;
+        double waitSeconds = etaSeconds(car, passenger.origin, callDirection);
+        double rideSeconds = Math.abs(passenger.destination - passenger.origin) / CAR_SPEED_FLOORS_PER_SECOND + DWELL_SECONDS;
+        int newStops = (car.stops[passenger.origin] ? 0 : 1) + (car.stops[passenger.destination] ? 0 : 1);
+        int affected = car.onboard.size() + car.assignedWaiting;
+        double delaySeconds = newStops * DWELL_SECONDS * affected;
+        // 轿厢接近满载时尽量不再分配
+        double crowding = car.onboard.size() + car.assignedWaiting >= CAR_CAPACITY ? 120.0 : 0.0;
+        return waitSeconds + rideSeconds + delaySeconds + crowding;
+    }
+
+    /**
+     * 沿电梯当前顺向运行到达指定楼层并可按呼梯方向接客的估计时间
+     */
+    private double etaSeconds(DispatchCar car, int floor, ElevatorDirection callDirection) {
+        double position = car.position;
+        ElevatorDirection direction = car.effectiveDirection();
+        if (direction == ElevatorDirection.NONE || car.stopCount == 0) {
+            return Math.abs(position - floor) / CAR_SPEED_FLOORS_PER_SECOND;
+        }
+        int top = (int) Math.ceil(position);
+        int bottom = (int) Math.floor(position);
+        for (int f = 1; f <= floorCount; f++) {
+            if (car.stops[f]) {
+                top = Math.max(top, f);
+                bottom = Math.min(bottom, f);
+            }
+        }
+        double distance;
+        int stopsBefore;
+        if (direction == ElevatorDirection.UP) {
+            if (floor >= position && callDirection == ElevatorDirection.UP) {
+                distance = floor - position;
+                stopsBefore = countStops(car, (int) Math.ceil(position), floor - 1);
+            } else if (callDirection == ElevatorDirection.DOWN) {
+                top = Math.max(top, floor);
+                distance = (top - position) + (top - floor);
+                stopsBefore = countStops(car, floor + 1, floorCount);
+            } else {
+                distance = (top - position) + (top - bottom) + (floor - bottom);
+                stopsBefore = car.stopCount;
+            }
+        } else {
+            if (floor <= position && callDirection == ElevatorDirection.DOWN) {
+                distance = position - floor;
+                stopsBefore = countStops(car, floor + 1, (int) Math.floor(position));
+            } else if (callDirection == ElevatorDirection.UP) {
+                bottom = Math.min(bottom, floor);
+                distance = (position - bottom) + (floor - bottom);
+                stopsBefore = countStops(car, 1, floor - 1);
+            } else {
+                distance = (position - bottom) + (top - bottom) + (top - floor);
+                stopsBefore = car.stopCount;
+            }
+        }
+        return distance / CAR_SPEED_FLOORS_PER_SECOND + stopsBefore * DWELL_SECONDS;
+    }
+
+    private int countStops(DispatchCar car, int from, int to) {
+        int count = 0;
+        for (int f = Math.max(1, from); f <= Math.min(floorCount, to); f++) {
+            if (car.stops[f]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 顺向优先：沿当前方向取最近的停靠层，该方向没有停靠时反向；没有任何停靠返回0
+     */
+    private int nextStop(DispatchCar car) {
+        if (car.stopCount == 0) {
+            car.sweep = ElevatorDirection.NONE;
+            return 0;
+        }
+        double position = car.position;
+        ElevatorDirection direction = car.effectiveDirection();
+        if (direction != ElevatorDirection.DOWN) {
+            int up = nearestAbove(car, position);
+            if (up != 0) {
+                car.sweep = ElevatorDirection.UP;
+                return up;
+            }
+        }
+        int down = nearestBelow(car, position);
+        if (down != 0) {
+            car.sweep = ElevatorDirection.DOWN;
+            return down;
+        }
+        car.sweep = ElevatorDirection.UP;
+        return nearestAbove(car, position);
+    }
+
+    private int nearestAbove(DispatchCar car, double position) {
+        for (int f = (int) Math.ceil(position); f <= floorCount; f++) {
+            if (f >= 1 && car.stops[f]) {
+                return f;
+            }
+        }
+        return 0;
+    }
+
+    private int nearestBelow(DispatchCar car, double position) {
+        for (int f = (int) Math.floor(position); f >= 1; f--) {
+            if (f <= floorCount && car.stops[f]) {
+                return f;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 切换调度算法，此前的生效时长计入原算法
+     */
+    public void setAlgorithm(DispatchAlgorithm algorithm) {
+        synchronized (lock) {
+            if (this.algorithm == algorithm) {
+                return;
+            }
+            metrics.get(this.algorithm).activeMillis += nowMillis - algorithmSinceMillis;
+            this.algorithm = algorithm;
+            algorithmSinceMillis = nowMillis;
+        }
+    }
+
+    public void setTrafficProfile(TrafficProfile trafficProfile) {
+        synchronized (lock) {
+            this.trafficProfile = trafficProfile;
+        }
+    }
+
+    public void setArrivalRatePerMinute(double arrivalRatePerMinute) {
+        synchronized (lock) {
+            this.arrivalRatePerMinute = arrivalRatePerMinute;
+        }
+    }
+
+    /**
+     * 清空所有算法的统计；候梯与乘梯中的乘客保留，送达时计入新的统计
+     */
+    public void resetMetrics() {
+        synchronized (lock) {
+            for (DispatchAlgorithm value : DispatchAlgorithm.values()) {
+                metrics.put(value, new DispatchMetrics());
+            }
+            algorithmSinceMillis = nowMillis;
+        }
+    }
+
+    /**
+     * 某调度算法的指标副本，生效时长含当前区间
+     */
+    DispatchMetrics metricsOf(DispatchAlgorithm value) {
+        synchronized (lock) {
+            DispatchMetrics copy = new DispatchMetrics();
+            copy.add(metrics.get(value));
+            if (value == algorithm) {
+                copy.activeMillis += nowMillis - algorithmSinceMillis;
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * 梯组运行概况及各调度算法的服务指标
+     */
+    public Map<String, Object> getStats() {
+        synchronized (lock) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("algorithm", algorithm.name());
+            stats.put("trafficProfile", trafficProfile.name());
+            stats.put("arrivalRatePerMinute", arrivalRatePerMinute);
+            stats.put("floorCount", floorCount);
+            stats.put("cars", cars.size());
+            stats.put("waitingPassengers", waiting.size());
+            int riding = 0;
+            for (DispatchCar car : cars) {
+                riding += car.onboard.size();
+            }
+            stats.put("ridingPassengers", riding);
+            stats.put("simulatedSeconds", nowMillis / 1000);
+            Map<String, Object> byAlgorithm = new LinkedHashMap<>();
+            for (DispatchAlgorithm value : DispatchAlgorithm.values()) {
+                long active = metrics.get(value).activeMillis + (value == algorithm ? nowMillis - algorithmSinceMillis : 0);
+                Map<String, Object> entry = metrics.get(value).toMap(active);
+                entry.put("label", value.getLabel());
+                byAlgorithm.put(value.name(), entry);
+            }
+            stats.put("algorithms", byAlgorithm);
+            return stats;
+        }
+    }
+}
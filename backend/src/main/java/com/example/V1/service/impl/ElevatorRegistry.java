@@ -0,0 +1,132 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Handler.FrameProtocol;
+import com.example.V1.Handler.OutboundChannel;
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.TrafficProfile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 电梯仿真注册表
+ * 每个电梯ID只维护一个仿真实例，多个WebSocket会话作为订阅者共享同一份状态推送；
+ * 最后一个订阅者断开时停止并移除该电梯；运行中的电梯组成一个群控梯组，由梯组分配自动模式下的停靠层
+ */
+@Slf4j
+@Component
+public class ElevatorRegistry {
+
+    private final Map<String, Elevator> elevators = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ElevatorTickEngine tickEngine;
+
+    @Autowired
+    private StreamingAnomalyDetector detector;
+
+    @Value("${detector.simulator:true}")
+    private boolean detectSimulator;
+
+    @Value("${elevator.simulation.seed:0}")
+    private long seed;
+
+    @Value("${elevator.dispatch.algorithm:ETA}")
+    private DispatchAlgorithm algorithm;
+
+    @Value("${elevator.dispatch.traffic-profile:INTER_FLOOR}")
+    private TrafficProfile trafficProfile;
+
+    @Value("${elevator.dispatch.arrival-rate-per-minute:6}")
+    private double arrivalRatePerMinute;
+
+    @Value("${elevator.dispatch.abandon-after-seconds:300}")
+    private long abandonAfterSeconds;
+
+    private ElevatorBank bank;
+
+    @PostConstruct
+    public void init() {
+        bank = new ElevatorBank(Elevator.FLOOR_COUNT, algorithm, trafficProfile, arrivalRatePerMinute,
+                abandonAfterSeconds * 1000, seed != 0 ? new Random(seed) : new Random());
+        tickEngine.registerBank(bank);
+        log.info("群控梯组已创建: 算法={}, 客流模式={}, 到达率={}/分钟", algorithm, trafficProfile, arrivalRatePerMinute);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        tickEngine.unregisterBank(bank);
+    }
+
+    /**
+     * 订阅电梯状态，电梯不存在时创建并启动仿真
+     */
+    public Elevator subscribe(String elevatorId, OutboundChannel channel, FrameProtocol protocol) {
+        return elevators.compute(elevatorId, (id, elevator) -> {
+            if (elevator == null) {
+                elevator = seed != 0
+                        ? new Elevator(id, tickEngine, SimulationClock.SYSTEM, new Random(Elevator.seedFor(seed, id)))
+                        : new Elevator(id, tickEngine);
+                elevator.joinBank(bank);
+                if (detectSimulator) {
+                    elevator.attachDetector(detector);
+                }
+                elevator.start();
+                log.info("电梯仿真已创建: {}", id);
+            }
+            elevator.addSubscriber(channel, protocol);
+            return elevator;
+        });
+    }
+
+    /**
+     * 取消订阅，没有订阅者时停止仿真
+     */
+    public void unsubscribe(String elevatorId, WebSocketSession session) {
+        elevators.computeIfPresent(elevatorId, (id, elevator) -> {
+            if (elevator.removeSubscriber(session) > 0) {
+                return elevator;
+            }
+            elevator.stop();
+            log.info("电梯仿真已停止: {}", id);
+            return null;
+        });
+    }
+
+    public ElevatorBank getBank() {
+        return bank;
+    }
+
+    public Elevator get(String elevatorId) {
+        return elevators.get(elevatorId);
+    }
+
+    /**
+     * 当前运行中的仿真电梯，按电梯ID排序
+     */
+    public List<Elevator> getElevators() {
+        List<Elevator> list = new ArrayList<>(elevators.values());
+        list.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return list;
+    }
+
+    /**
+     * 各电梯当前订阅者数量
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        elevators.forEach((id, elevator) -> counts.put(id, elevator.getSubscriberCount()));
+        return counts;
+    }
+}
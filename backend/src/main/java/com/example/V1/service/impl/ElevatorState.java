@@ -0,0 +1,99 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DoorStatus;
+import com.example.V1.Dto.ElevatorDirection;
+import com.example.V1.Dto.ElevatorMode;
+import com.example.V1.Dto.ElevatorStatus;
+import com.example.V1.Dto.MaintenanceStatus;
+
+/**
+ * 电梯可变状态（紧凑结构体）
+ * 只包含基本类型和枚举字段，节拍推进与变化比较都不产生对象分配
+ */
+final class ElevatorState {
+
+    // 增量推送的字段位，与 ElevatorStateWriter 的字段顺序一致
+    static final int F_CURRENT_FLOOR = 1;
+    static final int F_TARGET_FLOOR = 1 << 1;
+    static final int F_STATUS = 1 << 2;
+    static final int F_DOOR_STATUS = 1 << 3;
+    static final int F_SPEED = 1 << 4;
+    static final int F_DIRECTION = 1 << 5;
+    static final int F_LOAD_WEIGHT = 1 << 6;
+    static final int F_TEMPERATURE = 1 << 7;
+    static final int F_MAINTENANCE_STATUS = 1 << 8;
+
+    double currentFloor = 1.0;
+    int targetFloor = 1;
+    ElevatorStatus status = ElevatorStatus.STOPPED;
+    DoorStatus doorStatus = DoorStatus.CLOSED;
+    double speed = 0.0;
+    ElevatorDirection direction = ElevatorDirection.NONE;
+    double loadWeight = 0.0;
+    double temperature = 22.5;
+    MaintenanceStatus maintenanceStatus = MaintenanceStatus.NORMAL;
+    ElevatorMode mode = ElevatorMode.AUTO;
+    boolean userControl = false;
+    long doorOpenStartTime = 0; // 记录门打开的时间戳，单位毫秒
+
+    /**
+     * 创建一个所有字段都与任何真实状态不同的基线，首次比较会得到全部字段
+     */
+    static ElevatorState emptyBaseline() {
+        ElevatorState baseline = new ElevatorState();
+        baseline.currentFloor = Double.NaN;
+        baseline.targetFloor = -1;
+        baseline.status = null;
+        baseline.doorStatus = null;
+        baseline.speed = Double.NaN;
+        baseline.direction = null;
+        baseline.loadWeight = Double.NaN;
+        baseline.temperature = Double.NaN;
+        baseline.maintenanceStatus = null;
+        return baseline;
+    }
+
+    /**
+     * 与上一次发布的基线比较，返回变化字段位掩码，并把基线推进到当前状态
+     */
+    int diffInto(ElevatorState baseline) {
+        int changes = 0;
+        if (Double.compare(currentFloor, baseline.currentFloor) != 0) {
+            changes |= F_CURRENT_FLOOR;
+            baseline.currentFloor = currentFloor;
+        }
+        if (targetFloor != baseline.targetFloor) {
+            changes |= F_TARGET_FLOOR;
+            baseline.targetFloor = targetFloor;
+        }
+        if (status != baseline.status) {
+            changes |= F_STATUS;
+            baseline.status = status;
+        }
+        if (doorStatus != baseline.doorStatus) {
+            changes |= F_DOOR_STATUS;
+            baseline.doorStatus = doorStatus;
+        }
+        if (Double.compare(speed, baseline.speed) != 0) {
+            changes |= F_SPEED;
+            baseline.speed = speed;
+        }
+        if (direction != baseline.direction) {
+            changes |= F_DIRECTION;
+            baseline.direction = direction;
+        }
+        if (Double.compare(loadWeight, baseline.loadWeight) != 0) {
+            changes |= F_LOAD_WEIGHT;
+            baseline.loadWeight = loadWeight;
+        }
+        if (Double.compare(temperature, baseline.temperature) != 0) {
+            changes |= F_TEMPERATURE;
+            baseline.temperature = temperature;
+        }
+        if (maintenanceStatus != baseline.maintenanceStatus) {
+            changes |= F_MAINTENANCE_STATUS;
+            baseline.maintenanceStatus = maintenanceStatus;
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DoorStatus;
+import com.example.V1.Dto.ElevatorDirection;
+import com.example.V1.Dto.ElevatorStatus;
+import com.example.V1.Dto.MaintenanceStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 电梯状态JSON手写序列化器
+ * 字段名和枚举文本预先编码为UTF-8，数值直接按定点格式写入可复用的字节缓冲区，编码过程不产生对象分配；
+ * 每个实例只由所属电梯在持有其锁时使用
+ */
+final class ElevatorStateWriter {
+
+    private static final byte[] TYPE_SNAPSHOT = utf8("{\"type\":\"snapshot\",\"seq\":");
+    private static final byte[] TYPE_DELTA = utf8("{\"type\":\"delta\",\"seq\":");
+    private static final byte[] CURRENT_FLOOR = utf8("\"currentFloor\":");
+    private static final byte[] TARGET_FLOOR = utf8("\"targetFloor\":");
+    private static final byte[] STATUS = utf8("\"status\":");
+    private static final byte[] DOOR_STATUS = utf8("\"doorStatus\":");
+    private static final byte[] SPEED = utf8("\"speed\":");
+    private static final byte[] DIRECTION = utf8("\"direction\":");
+    private static final byte[] LOAD_WEIGHT = utf8("\"loadWeight\":");
+    private static final byte[] MAX_WEIGHT = utf8("\"maxWeight\":");
+    private static final byte[] TEMPERATURE = utf8("\"temperature\":");
+    private static final byte[] MAINTENANCE_STATUS = utf8("\"maintenanceStatus\":");
+    private static final byte[] FLOOR_COUNT = utf8("\"floorCount\":");
+
+    private static final byte[][] STATUS_LABELS = quotedLabels(ElevatorStatus.values().length, i -> ElevatorStatus.values()[i].getLabel());
+    private static final byte[][] DOOR_LABELS = quotedLabels(DoorStatus.values().length, i -> DoorStatus.values()[i].getLabel());
+    private static final byte[][] DIRECTION_LABELS = quotedLabels(ElevatorDirection.values().length, i -> ElevatorDirection.values()[i].getLabel());
+    private static final byte[][] MAINTENANCE_LABELS = quotedLabels(MaintenanceStatus.values().length, i -> MaintenanceStatus.values()[i].getLabel());
+
+    private static final long DECIMAL_SCALE = 1000;
+
+    private final byte[] idField;
+    private byte[] buf = new byte[512];
+    private int pos;
+
+    /**
+     * @param idJson 已转义并带引号的电梯ID，例如 "EL-001"
+     */
+    ElevatorStateWriter(byte[] idJson) {
+        byte[] prefix = utf8("\"id\":");
+        this.idField = Arrays.copyOf(prefix, prefix.length + idJson.length);
+        System.arraycopy(idJson, 0, idField, prefix.length, idJson.length);
+    }
+
+    /**
+     * 旧协议的完整状态帧
+     */
+    void writeFull(ElevatorState s, int floorCount, int maxWeight) {
+        pos = 0;
+        put((byte) '{');
+        writeAllFields(s, floorCount, maxWeight);
+        put((byte) '}');
+    }
+
+    /**
+     * 增量协议的快照帧
+     */
+    void writeSnapshot(long seq, ElevatorState s, int floorCount, int maxWeight) {
+        pos = 0;
+        put(TYPE_SNAPSHOT);
+        writeLong(seq);
+        put((byte) ',');
+        writeAllFields(s, floorCount, maxWeight);
+        put((byte) '}');
+    }
+
+    /**
+     * 增量协议的增量帧，只写出 changes 位掩码中的字段
+     */
+    void writeDelta(long seq, ElevatorState s, int changes) {
+        pos = 0;
+        put(TYPE_DELTA);
+        writeLong(seq);
+        if ((changes & ElevatorState.F_CURRENT_FLOOR) != 0) {
+            field(CURRENT_FLOOR);
+            writeDecimal(s.currentFloor);
+        }
+        if ((changes & ElevatorState.F_TARGET_FLOOR) != 0) {
+            field(TARGET_FLOOR);
+            writeLong(s.targetFloor);
+        }
+        if ((changes & ElevatorState.F_STATUS) != 0) {
+            field(STATUS);
+            put(STATUS_LABELS[s.status.ordinal()]);
+        }
+        if ((changes & ElevatorState.F_DOOR_STATUS) != 0) {
+            field(DOOR_STATUS);
+            put(DOOR_LABELS[s.doorStatus.ordinal()]);
+        }
+        if ((changes & ElevatorState.F_SPEED) != 0) {
+            field(SPEED);
+            writeDecimal(s.speed);
+        }
+        if ((changes & ElevatorState.F_DIRECTION) != 0) {
+            field(DIRECTION);
+            put(DIRECTION_LABELS[s.direction.ordinal()]);
+        }
+        if ((changes & ElevatorState.F_LOAD_WEIGHT) != 0) {
+            field(LOAD_WEIGHT);
+            writeDecimal(s.loadWeight);
+        }
+        if ((changes & ElevatorState.F_TEMPERATURE) != 0) {
+            field(TEMPERATURE);
+            writeDecimal(s.temperature);
+        }
+        if ((changes & ElevatorState.F_MAINTENANCE_STATUS) != 0) {
+            field(MAINTENANCE_STATUS);
+            put(MAINTENANCE_LABELS[s.maintenanceStatus.ordinal()]);
+        }
+        put((byte) '}');
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    int length() {
+        return pos;
+    }
+
+    /**
+     * 拷贝出本帧字节，帧会被多个出站通道异步发送，因此必须独立于可复用缓冲区
+     */
+    byte[] toBytes() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    private void writeAllFields(ElevatorState s, int floorCount, int maxWeight) {
+        put(idField);
+        field(CURRENT_FLOOR);
+        writeDecimal(s.currentFloor);
+        field(TARGET_FLOOR);
+        writeLong(s.targetFloor);
+        field(STATUS);
+        put(STATUS_LABELS[s.status.ordinal()]);
+        field(DOOR_STATUS);
+        put(DOOR_LABELS[s.doorStatus.ordinal()]);
+        field(SPEED);
+        writeDecimal(s.speed);
+        field(DIRECTION);
+        put(DIRECTION_LABELS[s.direction.ordinal()]);
+        field(LOAD_WEIGHT);
+        writeDecimal(s.loadWeight);
+        field(MAX_WEIGHT);
+        writeLong(maxWeight);
+        field(TEMPERATURE);
+        writeDecimal(s.temperature);
+        field(MAINTENANCE_STATUS);
+        put(MAINTENANCE_LABELS[s.maintenanceStatus.ordinal()]);
+        field(FLOOR_COUNT);
+        writeLong(floorCount);
+    }
+
+    private void field(byte[] name) {
+        put((byte) ',');
+        put(name);
+    }
+
+    /**
+     * 按三位小数定点格式写出，至少保留一位小数，例如 1.0、22.5、1.195
+     */
+    private void writeDecimal(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            put((byte) '0');
+            return;
+        }
+        long scaled = Math.round(value * DECIMAL_SCALE);
+        if (scaled < 0) {
+            put((byte) '-');
+            scaled = -scaled;
+        }
+        writeLong(scaled / DECIMAL_SCALE);
+        put((byte) '.');
+        long fraction = scaled % DECIMAL_SCALE;
+        long divisor = DECIMAL_SCALE / 10;
+        do {
+            put((byte) ('0' + fraction / divisor));
+            fraction %= divisor;
+            divisor /= 10;
+        } while (fraction != 0 && divisor > 0);
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        ensureCapacity(20);
+        int start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // 数字是逆序写入的，原地翻转
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte tmp = buf[i];
+            buf[i] = buf[j];
+            buf[j] = tmp;
+        }
+    }
+
+    private void put(byte b) {
+        ensureCapacity(1);
+        buf[pos++] = b;
+    }
+
+    private void put(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] quotedLabels(int count, java.util.function.IntFunction<String> label) {
+        byte[][] labels = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            labels[i] = utf8("\"" + label.apply(i) + "\"");
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.V1.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全局电梯仿真节拍引擎
+ * 所有电梯共用一个节拍线程 + 固定大小的工作线程池，每个节拍把已注册电梯按批次分发推进，
+ * 取代原先每台电梯一个 ScheduledExecutorService 的做法
+ */
+@Slf4j
+@Component
+public class ElevatorTickEngine {
+
+    @Value("${elevator.simulation.tick-interval-ms:150}")
+    private long tickIntervalMs;
+
+    @Value("${elevator.simulation.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${elevator.simulation.batch-size:256}")
+    private int batchSize;
+
+    private final Set<Elevator> elevators = ConcurrentHashMap.newKeySet();
+    private volatile Elevator[] snapshot = new Elevator[0];
+    private volatile boolean dirty = false;
+    private final Set<ElevatorBank> banks = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService workers;
+
+    // 节拍统计，仅由节拍线程写入
+    private long startNanos;
+    private volatile long tickCount = 0;
+    private volatile long lastLagMicros = 0;
+    private volatile long maxLagMicros = 0;
+    private volatile long lastDurationMicros = 0;
+    private volatile long maxDurationMicros = 0;
+    private volatile long overrunCount = 0;
+
+    public ElevatorTickEngine() {
+    }
+
+    /**
+     * 供非Spring场景（如基准测试）直接构造
+     */
+    public ElevatorTickEngine(long tickIntervalMs, int workerThreads, int batchSize) {
+        this.tickIntervalMs = tickIntervalMs;
+        this.workerThreads = workerThreads;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(threads, namedFactory("elevator-tick-worker-"));
+        ticker = Executors.newSingleThreadScheduledExecutor(namedFactory("elevator-tick-"));
+        startNanos = System.nanoTime();
+        ticker.scheduleAtFixedRate(this::runTick, tickIntervalMs, tickIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("电梯节拍引擎已启动: 节拍间隔={}ms, 工作线程={}, 批大小={}", tickIntervalMs, threads, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    public void register(Elevator elevator) {
+        if (elevators.add(elevator)) {
+            dirty = true;
+        }
+    }
+
+    public void unregister(Elevator elevator) {
+        if (elevators.remove(elevator)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * 注册群控梯组，每个节拍在所有电梯推进完成后由节拍线程推进
+     */
+    public void registerBank(ElevatorBank bank) {
+        banks.add(bank);
+    }
+
+    public void unregisterBank(ElevatorBank bank) {
+        banks.remove(bank);
+    }
+
+    public long getTickIntervalMs() {
+        return tickIntervalMs;
+    }
+
+    public int getRegisteredCount() {
+        return elevators.size();
+    }
+
+    /**
+     * 执行一个节拍：按批次把所有电梯分发到工作线程，等待本节拍全部完成后推进群控梯组
+     */
+    private void runTick() {
+        try {
+            long tickStart = System.nanoTime();
+            long expected = startNanos + (tickCount + 1) * TimeUnit.MILLISECONDS.toNanos(tickIntervalMs);
+            long lagMicros = Math.max(0, (tickStart - expected) / 1000);
+
+            Elevator[] current = currentSnapshot();
+            double dtSeconds = tickIntervalMs / 1000.0;
+            int batches = (current.length + batchSize - 1) / batchSize;
+            if (batches > 0) {
+                CountDownLatch latch = new CountDownLatch(batches);
+                for (int from = 0; from < current.length; from += batchSize) {
+                    int start = from;
+                    int end = Math.min(current.length, from + batchSize);
+                    workers.execute(() -> {
+                        try {
+                            for (int i = start; i < end; i++) {
+                                current[i].tick(dtSeconds);
+                            }
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                }
+                latch.await();
+            }
+            for (ElevatorBank bank : banks) {
+                bank.step(dtSeconds);
+            }
+
+            long durationMicros = (System.nanoTime() - tickStart) / 1000;
+            lastLagMicros = lagMicros;
+            lastDurationMicros = durationMicros;
+            if (lagMicros > maxLagMicros) {
+                maxLagMicros = lagMicros;
+            }
+            if (durationMicros > maxDurationMicros) {
+                maxDurationMicros = durationMicros;
+            }
+            if (durationMicros > tickIntervalMs * 1000) {
+                overrunCount++;
+                log.warn("电梯节拍超时: 耗时={}ms, 延迟={}ms, 电梯数={}", durationMicros / 1000, lagMicros / 1000, current.length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("电梯节拍执行异常", e);
+        } finally {
+            // 出错的节拍也要计数，否则之后的期望时刻整体落后，延迟统计持续偏大
+            tickCount++;
+        }
+    }
+
+    private Elevator[] currentSnapshot() {
+        if (dirty) {
+            dirty = false;
+            snapshot = elevators.toArray(new Elevator[0]);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取节拍引擎运行统计（延迟/耗时单位：微秒）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tickIntervalMs", tickIntervalMs);
+        stats.put("registeredElevators", elevators.size());
+        stats.put("tickCount", tickCount);
+        stats.put("lastLagMicros", lastLagMicros);
+        stats.put("maxLagMicros", maxLagMicros);
+        stats.put("lastTickDurationMicros", lastDurationMicros);
+        stats.put("maxTickDurationMicros", maxDurationMicros);
+        stats.put("overrunCount", overrunCount);
+        return stats;
+    }
+
+    private static ThreadFactory namedFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
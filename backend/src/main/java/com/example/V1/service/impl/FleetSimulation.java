@@ -0,0 +1,223 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.FleetScenarioDTO;
+import com.example.V1.Dto.TrafficProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线批量群控仿真
+ * 不依赖Spring容器和节拍引擎：每个梯组使用独立的虚拟时钟和固定种子，在一个任务内顺序推进，
+ * 多个梯组、多个调度算法并行占满所有核；同一场景与种子的结果逐位可复现，不同调度算法面对相同客流。
+ * 命令行运行：
+ * mvn spring-boot:run -Dspring-boot.run.main-class=com.example.V1.service.impl.FleetSimulation
+ *     -Dspring-boot.run.arguments="hours=24 speedup=1000 banks=8"
+ */
+public class FleetSimulation {
+
+    // 虚拟时钟起点，电梯以0表示门计时未开始，不能从0开始
+    private static final long EPOCH_MILLIS = 1_000_000L;
+    // 限速模式下每推进多少个节拍校准一次真实时间
+    private static final int PACE_EVERY_TICKS = 64;
+
+    private final FleetScenarioDTO scenario;
+
+    public FleetSimulation(FleetScenarioDTO scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * 运行场景并返回各调度算法的全梯队汇总指标
+     */
+    public Map<String, Object> run() throws InterruptedException {
+        int banks = scenario.getBanks() > 0 ? scenario.getBanks() : Runtime.getRuntime().availableProcessors();
+        int threads = scenario.getThreads() > 0 ? scenario.getThreads() : Runtime.getRuntime().availableProcessors();
+        long durationMillis = Math.round(scenario.getHours() * 3_600_000);
+        long wallStart = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Map<DispatchAlgorithm, List<Future<DispatchMetrics>>> futures = new EnumMap<>(DispatchAlgorithm.class);
+        try {
+            for (DispatchAlgorithm algorithm : scenario.getAlgorithms()) {
+                List<Future<DispatchMetrics>> bankFutures = new ArrayList<>();
+                for (int b = 0; b < banks; b++) {
+                    int bankIndex = b;
+                    bankFutures.add(pool.submit(() -> runBank(bankIndex, algorithm, durationMillis)));
+                }
+                futures.put(algorithm, bankFutures);
+            }
+
+            Map<String, Object> byAlgorithm = new LinkedHashMap<>();
+            for (Map.Entry<DispatchAlgorithm, List<Future<DispatchMetrics>>> entry : futures.entrySet()) {
+                DispatchMetrics fleet = new DispatchMetrics();
+                for (Future<DispatchMetrics> future : entry.getValue()) {
+                    fleet.add(future.get());
+                }
+                // 输送能力按全梯队计：每5分钟全部梯组送达人数
+                Map<String, Object> metrics = fleet.toMap(durationMillis);
+                metrics.put("label", entry.getKey().getLabel());
+                byAlgorithm.put(entry.getKey().name(), metrics);
+            }
+
+            double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("banks", banks);
+            report.put("carsPerBank", scenario.getCarsPerBank());
+            report.put("simulatedHours", scenario.getHours());
+            report.put("trafficProfile", scenario.getTrafficProfile() != null ? scenario.getTrafficProfile().name() : "DAILY");
+            report.put("seed", scenario.getSeed());
+            report.put("threads", threads);
+            report.put("wallSeconds", Math.round(wallSeconds * 10.0) / 10.0);
+            report.put("achievedSpeedup", Math.round(durationMillis / 1000.0 / wallSeconds));
+            report.put("algorithms", byAlgorithm);
+            return report;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("批量仿真执行失败", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 在当前线程内推进一个梯组直到场景结束
+     */
+    private DispatchMetrics runBank(int bankIndex, DispatchAlgorithm algorithm, long durationMillis) throws InterruptedException {
+        long seed = scenario.getSeed();
+        String bankId = "BANK-" + bankIndex;
+        SimulationClock.Virtual clock = new SimulationClock.Virtual(EPOCH_MILLIS);
+        ElevatorBank bank = new ElevatorBank(Elevator.FLOOR_COUNT, algorithm, TrafficProfile.INTER_FLOOR,
+                scenario.getArrivalRatePerMinute(), scenario.getAbandonAfterSeconds() * 1000,
+                new Random(Elevator.seedFor(seed, bankId)));
+        Elevator[] cars = new Elevator[scenario.getCarsPerBank()];
+        for (int c = 0; c < cars.length; c++) {
+            String id = bankId + "-EL-" + c;
+            cars[c] = new Elevator(id, null, clock, new Random(Elevator.seedFor(seed, id)));
+            cars[c].joinBank(bank);
+        }
+
+        long tickMillis = scenario.getTickMillis();
+        double dtSeconds = tickMillis / 1000.0;
+        double speedup = scenario.getSpeedup();
+        long wallStart = System.nanoTime();
+        int lastHour = -1;
+        long ticks = 0;
+        for (long elapsed = 0; elapsed < durationMillis; elapsed += tickMillis) {
+            int hour = (int) (elapsed / 3_600_000) % 24;
+            if (hour != lastHour) {
+                applySchedule(bank, hour);
+                lastHour = hour;
+            }
+            clock.advance(tickMillis);
+            for (Elevator car : cars) {
+                car.tick(dtSeconds);
+            }
+            bank.step(dtSeconds);
+
+            if (speedup > 0 && ++ticks % PACE_EVERY_TICKS == 0) {
+                long aheadNanos = (long) ((elapsed + tickMillis) * 1_000_000L / speedup) - (System.nanoTime() - wallStart);
+                if (aheadNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                }
+            }
+        }
+        return bank.metricsOf(algorithm);
+    }
+
+    /**
+     * 按时段设置客流模式与到达率；场景指定了客流模式时全天不变
+     */
+    private void applySchedule(ElevatorBank bank, int hour) {
+        double base = scenario.getArrivalRatePerMinute();
+        if (scenario.getTrafficProfile() != null) {
+            bank.setTrafficProfile(scenario.getTrafficProfile());
+            bank.setArrivalRatePerMinute(base);
+            return;
+        }
+        if (hour >= 7 && hour < 9) {
+            bank.setTrafficProfile(TrafficProfile.UP_PEAK);
+            bank.setArrivalRatePerMinute(base * 3);
+        } else if (hour >= 17 && hour < 19) {
+            bank.setTrafficProfile(TrafficProfile.DOWN_PEAK);
+            bank.setArrivalRatePerMinute(base * 3);
+        } else if (hour == 12) {
+            bank.setTrafficProfile(TrafficProfile.INTER_FLOOR);
+            bank.setArrivalRatePerMinute(base * 2);
+        } else if (hour >= 9 && hour < 22) {
+            bank.setTrafficProfile(TrafficProfile.INTER_FLOOR);
+            bank.setArrivalRatePerMinute(base);
+        } else {
+            bank.setTrafficProfile(TrafficProfile.INTER_FLOOR);
+            bank.setArrivalRatePerMinute(base * 0.2);
+        }
+    }
+
+    /**
+     * 命令行入口，参数形如 key=value，对应 FleetScenarioDTO 的字段；algorithms 以逗号分隔
+     */
+    public static void main(String[] args) throws Exception {
+        FleetScenarioDTO scenario = new FleetScenarioDTO();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "banks":
+                    scenario.setBanks(Integer.parseInt(value));
+                    break;
+                case "carsPerBank":
+                    scenario.setCarsPerBank(Integer.parseInt(value));
+                    break;
+                case "hours":
+                    scenario.setHours(Double.parseDouble(value));
+                    break;
+                case "tickMillis":
+                    scenario.setTickMillis(Long.parseLong(value));
+                    break;
+                case "speedup":
+                    scenario.setSpeedup(Double.parseDouble(value));
+                    break;
+                case "seed":
+                    scenario.setSeed(Long.parseLong(value));
+                    break;
+                case "threads":
+                    scenario.setThreads(Integer.parseInt(value));
+                    break;
+                case "trafficProfile":
+                    scenario.setTrafficProfile(TrafficProfile.valueOf(value));
+                    break;
+                case "arrivalRatePerMinute":
+                    scenario.setArrivalRatePerMinute(Double.parseDouble(value));
+                    break;
+                case "abandonAfterSeconds":
+                    scenario.setAbandonAfterSeconds(Long.parseLong(value));
+                    break;
+                case "algorithms":
+                    List<DispatchAlgorithm> algorithms = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        algorithms.add(DispatchAlgorithm.valueOf(name.trim()));
+                    }
+                    scenario.setAlgorithms(algorithms);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+        Map<String, Object> report = new FleetSimulation(scenario).run();
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report));
+    }
+}
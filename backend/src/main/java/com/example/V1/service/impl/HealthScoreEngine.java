@@ -0,0 +1,585 @@
+package com.example.V1.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.V1.entity.AiTable;
+import com.example.V1.entity.DataETable;
+import com.example.V1.entity.MaintainTable;
+import com.example.V1.mapper.AiTableMapper;
+import com.example.V1.mapper.DataETableMapper;
+import com.example.V1.mapper.MaintainTableMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * 设备健康评分引擎
+ * 每条异常按严重程度（ai_table.ai_code）和所属系统折算为扣分，扣分随时间按半衰期指数衰减；
+ * 维护完成（maintain_table 状态为已维护）后只保留一小部分扣分，处理越慢保留越多。
+ * 每台电梯在内存中按总计、系统、组件维护衰减扣分之和，异常入库、AI分析完成、维护完成时增量更新，
+ * 读取评分为 O(1)；历史数据回填或清理后可调用 {@link #rebuild()} 从数据库全量重算。
+ * 衰减到可忽略的异常定期从内存中丢弃，跟踪的异常条数只与近期异常量有关
+ */
+@Slf4j
+@Service
+public class HealthScoreEngine {
+
+    /**
+     * 维护完成的状态值
+     */
+    static final String RESOLVED_STATUS = "已维护";
+
+    // 上报端把电梯编号写在异常名称中，如 EL-001
+    private static final Pattern ELEVATOR_ID = Pattern.compile("^[A-Za-z]{1,8}-?\\d{1,6}$");
+
+    // 各系统对安全和停梯的影响不同，未列出的系统按 1.0 计
+    private static final Map<String, Double> SYSTEM_WEIGHTS = Map.of(
+            "曳引系统", 1.5,
+            "安全保护系统", 1.5,
+            "电气控制系统", 1.2,
+            "门系统", 1.0,
+            "导向系统", 1.0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private DataETableMapper dataETableMapper;
+
+    @Autowired
+    private AiTableMapper aiTableMapper;
+
+    @Autowired
+    private MaintainTableMapper maintainTableMapper;
+
+    @Value("${health.half-life-hours:720}")
+    private double halfLifeHours;
+
+    @Value("${health.penalty-scale:60}")
+    private double penaltyScale;
+
+    @Value("${health.weight.critical:10}")
+    private double criticalWeight;
+
+    @Value("${health.weight.warning:4}")
+    private double warningWeight;
+
+    @Value("${health.weight.pending:2}")
+    private double pendingWeight;
+
+    @Value("${health.resolved-factor:0.2}")
+    private double resolvedFactor;
+
+    @Value("${health.slow-resolution-hours:72}")
+    private double slowResolutionHours;
+
+    @Value("${health.default-elevator:EL-001}")
+    private String defaultElevator;
+
+    @Value("${health.prune-below:0.01}")
+    private double pruneBelow;
+
+    private volatile Map<String, ElevatorHealth> elevators = new ConcurrentHashMap<>();
+    // 异常id -> 该异常当前计入的扣分，AI结论和维护结果到达时据此修正
+    private volatile Map<Integer, Contribution> contributions = new ConcurrentHashMap<>();
+    // 增量更新共享读锁，全量重算独占写锁，避免重算期间的增量被覆盖
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    private final LongAdder anomalyUpdates = new LongAdder();
+    private final LongAdder severityUpdates = new LongAdder();
+    private final LongAdder maintenanceUpdates = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder prunedAnomalies = new LongAdder();
+    private volatile long lastRebuildMs;
+
+    /**
+     * 按半衰期衰减的扣分之和。保存相对锚点时间的值，新增扣分按其发生时间折算到锚点，
+     * 读取时再从锚点衰减到当前，因此增减和读取都是 O(1)
+     */
+    static final class DecayedSum {
+        // 锚点与新事件相差超过该倍数的半衰期时把锚点前移，防止指数溢出
+        private static final double REBASE_HALF_LIVES = 64;
+
+        private final double halfLifeMillis;
+        private double value;
+        private long anchorMillis;
+
+        DecayedSum(double halfLifeMillis, long anchorMillis) {
+            this.halfLifeMillis = halfLifeMillis;
+            this.anchorMillis = anchorMillis;
+        }
+
+        void add(long atMillis, double penalty) {
+            double halfLives = (atMillis - anchorMillis) / halfLifeMillis;
+            if (halfLives > REBASE_HALF_LIVES) {
+                value *= Math.pow(2, -halfLives);
+                anchorMillis = atMillis;
+                halfLives = 0;
+            }
+            value += penalty * Math.pow(2, halfLives);
+        }
+
+        double at(long nowMillis) {
+            return Math.max(0, value * Math.pow(2, -(nowMillis - anchorMillis) / halfLifeMillis));
+        }
+    }
+
+    /**
+     * 一条异常计入的扣分
+     */
+    private static final class Contribution {
+        private final String elevatorId;
+        private final String systemName;
+        private final String component;
+        private final long timeMillis;
+        private Integer aiCode;
+        private boolean resolved;
+        // 维护完成后保留的扣分比例，未维护为 1
+        private double residual = 1;
+        private double penalty;
+
+        private Contribution(String elevatorId, String systemName, String component, long timeMillis) {
+            this.elevatorId = elevatorId;
+            this.systemName = systemName;
+            this.component = component;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    /**
+     * 一台电梯的健康状态，字段在自身锁内修改
+     */
+    private final class ElevatorHealth {
+        private final DecayedSum total;
+        private final Map<String, DecayedSum> bySystem = new HashMap<>();
+        private final Map<String, DecayedSum> byComponent = new HashMap<>();
+        private int anomalyCount;
+        private int openCount;
+        private LocalDateTime lastAnomaly;
+        private LocalDateTime lastMaintenance;
+
+        private ElevatorHealth(long anchorMillis) {
+            this.total = new DecayedSum(halfLifeMillis(), anchorMillis);
+        }
+
+        private void add(Contribution c, double delta) {
+            total.add(c.timeMillis, delta);
+            bySystem.computeIfAbsent(c.systemName, k -> new DecayedSum(halfLifeMillis(), c.timeMillis))
+                    .add(c.timeMillis, delta);
+            byComponent.computeIfAbsent(c.systemName + "/" + c.component,
+                    k -> new DecayedSum(halfLifeMillis(), c.timeMillis)).add(c.timeMillis, delta);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        // H2Initializer 在 CommandLineRunner 阶段建表导数，应用就绪后再回放
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("健康评分初始化失败，评分将从新异常开始累计", e);
+        }
+    }
+
+    /**
+     * 从 data_e_table、ai_table、maintain_table 全量重算所有电梯的评分
+     */
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            long start = System.nanoTime();
+            Map<Integer, Integer> aiCodes = new HashMap<>();
+            // 同一异常可能有多条分析结果，取最新一条
+            for (AiTable ai : aiTableMapper.selectList(new LambdaQueryWrapper<AiTable>().orderByAsc(AiTable::getId))) {
+                if (ai.getEId() != null && ai.getAiCode() != null) {
+                    aiCodes.put(ai.getEId(), ai.getAiCode());
+                }
+            }
+            Map<Integer, LocalDateTime> resolvedAt = new HashMap<>();
+            for (MaintainTable mt : maintainTableMapper.selectList(new LambdaQueryWrapper<MaintainTable>()
+                    .eq(MaintainTable::getStatus, RESOLVED_STATUS))) {
+                if (mt.getMtDataId() != null && mt.getMtTime() != null) {
+                    resolvedAt.merge(mt.getMtDataId(), mt.getMtTime(), (a, b) -> a.isBefore(b) ? a : b);
+                }
+            }
+
+            // 在新表中重算完再整体替换，重算期间读取仍返回旧评分
+            Map<String, ElevatorHealth> rebuiltElevators = new ConcurrentHashMap<>();
+            Map<Integer, Contribution> rebuiltContributions = new ConcurrentHashMap<>();
+            List<DataETable> anomalies = dataETableMapper.selectList(
+                    new LambdaQueryWrapper<DataETable>().orderByAsc(DataETable::getId));
+            for (DataETable data : anomalies) {
+                Contribution c = apply(rebuiltElevators, rebuiltContributions, data);
+                if (c == null) {
+                    continue;
+                }
+                Integer aiCode = aiCodes.get(data.getId());
+                if (aiCode != null) {
+                    applySeverity(rebuiltElevators, c, aiCode);
+                }
+                LocalDateTime resolved = resolvedAt.get(data.getId());
+                if (resolved != null) {
+                    applyResolution(rebuiltElevators, c, resolved);
+                }
+            }
+            prunedAnomalies.add(prune(rebuiltElevators, rebuiltContributions, System.currentTimeMillis()));
+            elevators = rebuiltElevators;
+            contributions = rebuiltContributions;
+            rebuilds.increment();
+            lastRebuildMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("健康评分全量重算完成: {} 条异常，{} 台电梯，耗时 {}ms",
+                    anomalies.size(), elevators.size(), lastRebuildMs);
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 异常入库后计入扣分，AI结论未出时按 pending 权重计
+     */
+    public void recordAnomaly(DataETable data) {
+        rebuildLock.readLock().lock();
+        try {
+            if (apply(elevators, contributions, data) != null) {
+                anomalyUpdates.increment();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * AI分析完成后按结论修正该异常的扣分
+     */
+    public void recordSeverity(Integer dataId, Integer aiCode) {
+        if (dataId == null || aiCode == null) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            Contribution c = contributions.get(dataId);
+            if (c != null) {
+                applySeverity(elevators, c, aiCode);
+                severityUpdates.increment();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 维护记录变为已维护后，按处理时长减少该异常的扣分
+     */
+    public void recordMaintenance(Integer dataId, String status, LocalDateTime mtTime) {
+        if (dataId == null || !RESOLVED_STATUS.equals(status)) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            Contribution c = contributions.get(dataId);
+            if (c != null) {
+                applyResolution(elevators, c, mtTime == null ? LocalDateTime.now() : mtTime);
+                maintenanceUpdates.increment();
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定期丢弃衰减到可忽略的异常，见 {@link #prune(Map, Map, long)}
+     */
+    @Scheduled(initialDelayString = "${health.prune-interval-ms:3600000}",
+            fixedDelayString = "${health.prune-interval-ms:3600000}")
+    public void prune() {
+        prune(System.currentTimeMillis());
+    }
+
+    int prune(long nowMillis) {
+        rebuildLock.readLock().lock();
+        try {
+            int removed = prune(elevators, contributions, nowMillis);
+            prunedAnomalies.add(removed);
+            return removed;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    public List<String> getElevatorIds() {
+        List<String> ids = new ArrayList<>(elevators.keySet());
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * 当前健康评分（0-100），没有异常记录的电梯为 100
+     */
+    public double getScore(String elevatorId) {
+        ElevatorHealth health = elevators.get(elevatorId);
+        if (health == null) {
+            return 100;
+        }
+        synchronized (health) {
+            return score(health.total.at(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 单台电梯的评分明细，detailed 时附带风险组件、各系统评分和最近维护时间
+     */
+    public Map<String, Object> getReport(String elevatorId, boolean detailed) {
+        long now = System.currentTimeMillis();
+        ElevatorHealth health = elevators.get(elevatorId);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("elevator_id", elevatorId);
+        if (health == null) {
+            report.put("health_score", 100.0);
+            report.put("status", status(100));
+            report.put("anomaly_count", 0);
+            report.put("open_issues", 0);
+            if (detailed) {
+                report.put("risk_factors", List.of());
+                report.put("system_scores", Map.of());
+                report.put("last_anomaly", "");
+                report.put("last_maintenance", "");
+            }
+            return report;
+        }
+        synchronized (health) {
+            double score = score(health.total.at(now));
+            report.put("health_score", round(score));
+            report.put("status", status(score));
+            report.put("anomaly_count", health.anomalyCount);
+            report.put("open_issues", health.openCount);
+            if (detailed) {
+                List<Map.Entry<String, Double>> components = new ArrayList<>();
+                health.byComponent.forEach((k, v) -> components.add(Map.entry(k, v.at(now))));
+                components.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+                List<String> riskFactors = new ArrayList<>();
+                for (Map.Entry<String, Double> e : components) {
+                    // 扣分不足 1 分的组件不再算作风险
+                    if (riskFactors.size() == 3 || e.getValue() < 1) {
+                        break;
+                    }
+                    riskFactors.add(e.getKey());
+                }
+                Map<String, Object> systemScores = new LinkedHashMap<>();
+                health.bySystem.forEach((k, v) -> systemScores.put(k, round(score(v.at(now)))));
+                report.put("risk_factors", riskFactors);
+                report.put("system_scores", systemScores);
+                report.put("last_anomaly", health.lastAnomaly == null ? "" : health.lastAnomaly.toString());
+                report.put("last_maintenance", health.lastMaintenance == null ? "" : health.lastMaintenance.toString());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * MCP工具 calculate_equipment_health_score 的返回结构，Java 与 Jython 两种实现共用
+     * @param elevatorId 为空时返回全部有异常记录的电梯
+     */
+    public Map<String, Object> getToolResult(String elevatorId, boolean detailed) {
+        List<Map<String, Object>> healthScores = new ArrayList<>();
+        if (elevatorId != null && !elevatorId.isBlank()) {
+            healthScores.add(getReport(elevatorId, detailed));
+        } else {
+            for (String id : getElevatorIds()) {
+                healthScores.add(getReport(id, detailed));
+            }
+        }
+        double avgScore = healthScores.stream()
+                .mapToDouble(s -> (Double) s.get("health_score")).average().orElse(100);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total_elevators", healthScores.size());
+        summary.put("average_health_score", round(avgScore));
+        summary.put("overall_status", status(avgScore));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("data", healthScores);
+        result.put("summary", summary);
+        return result;
+    }
+
+    public String getToolResultJson(String elevatorId, boolean detailed) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(getToolResult(elevatorId, detailed));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("elevators", elevators.size());
+        stats.put("trackedAnomalies", contributions.size());
+        stats.put("anomalyUpdates", anomalyUpdates.sum());
+        stats.put("severityUpdates", severityUpdates.sum());
+        stats.put("maintenanceUpdates", maintenanceUpdates.sum());
+        stats.put("prunedAnomalies", prunedAnomalies.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+
+    /**
+     * 异常名称是电梯编号时归到该电梯，否则（手工录入或旧数据）归到 default-elevator
+     */
+    static String elevatorIdOf(String eName, String defaultElevator) {
+        if (eName != null && ELEVATOR_ID.matcher(eName.trim()).matches()) {
+            return eName.trim().toUpperCase();
+        }
+        return defaultElevator;
+    }
+
+    static String status(double score) {
+        if (score >= 90) {
+            return "优秀";
+        }
+        if (score >= 80) {
+            return "良好";
+        }
+        if (score >= 60) {
+            return "需关注";
+        }
+        return "危险";
+    }
+
+    /**
+     * 扣分越多评分越低，按 penalty-scale 指数压缩到 0-100，不会出现负分
+     */
+    double score(double penalty) {
+        return 100 * Math.exp(-penalty / penaltyScale);
+    }
+
+    private Contribution apply(Map<String, ElevatorHealth> elevators, Map<Integer, Contribution> contributions,
+                               DataETable data) {
+        if (data == null || data.getId() == null) {
+            return null;
+        }
+        LocalDateTime time = data.getCreateTime() == null ? LocalDateTime.now() : data.getCreateTime();
+        String elevatorId = elevatorIdOf(data.getEName(), defaultElevator);
+        Contribution c = new Contribution(elevatorId,
+                data.getSystemName() == null ? "未知系统" : data.getSystemName(),
+                data.getSystemSqName() == null ? "未知组件" : data.getSystemSqName(),
+                toMillis(time));
+        if (contributions.putIfAbsent(data.getId(), c) != null) {
+            return null;
+        }
+        ElevatorHealth health = elevators.computeIfAbsent(elevatorId, id -> new ElevatorHealth(c.timeMillis));
+        synchronized (health) {
+            c.penalty = penalty(c);
+            health.add(c, c.penalty);
+            health.anomalyCount++;
+            health.openCount++;
+            if (health.lastAnomaly == null || time.isAfter(health.lastAnomaly)) {
+                health.lastAnomaly = time;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 丢弃按最严重结论、未维护计扣分也已衰减到 prune-below 以下的异常。
+     * 之后到达的AI结论或维护记录不再修正其扣分；尚未维护的不再计入 open_issues，全量重算后结果相同
+     * @return 丢弃的条数
+     */
+    private int prune(Map<String, ElevatorHealth> elevators, Map<Integer, Contribution> contributions, long nowMillis) {
+        double maxWeight = Math.max(criticalWeight, Math.max(warningWeight, pendingWeight));
+        int removed = 0;
+        Iterator<Contribution> it = contributions.values().iterator();
+        while (it.hasNext()) {
+            Contribution c = it.next();
+            double bound = maxWeight * SYSTEM_WEIGHTS.getOrDefault(c.systemName, 1.0)
+                    * Math.pow(2, -(nowMillis - c.timeMillis) / halfLifeMillis());
+            if (bound >= pruneBelow) {
+                continue;
+            }
+            ElevatorHealth health = elevators.get(c.elevatorId);
+            if (health != null) {
+                synchronized (health) {
+                    if (!c.resolved) {
+                        // 已取到该异常的维护更新随之跳过
+                        c.resolved = true;
+                        health.openCount--;
+                    }
+                }
+            }
+            it.remove();
+            removed++;
+        }
+        return removed;
+    }
+
+    private void applySeverity(Map<String, ElevatorHealth> elevators, Contribution c, int aiCode) {
+        ElevatorHealth health = elevators.get(c.elevatorId);
+        if (health == null) {
+            return;
+        }
+        synchronized (health) {
+            c.aiCode = aiCode;
+            update(health, c);
+        }
+    }
+
+    private void applyResolution(Map<String, ElevatorHealth> elevators, Contribution c, LocalDateTime resolvedAt) {
+        ElevatorHealth health = elevators.get(c.elevatorId);
+        if (health == null) {
+            return;
+        }
+        synchronized (health) {
+            if (c.resolved) {
+                return;
+            }
+            c.resolved = true;
+            health.openCount--;
+            if (health.lastMaintenance == null || resolvedAt.isAfter(health.lastMaintenance)) {
+                health.lastMaintenance = resolvedAt;
+            }
+            double resolveHours = Math.max(0, toMillis(resolvedAt) - c.timeMillis) / 3_600_000.0;
+            // 立即处理保留 resolved-factor，处理时长达到 slow-resolution-hours 时保留两倍
+            c.residual = resolvedFactor * (1 + Math.min(1, resolveHours / slowResolutionHours));
+            update(health, c);
+        }
+    }
+
+    private void update(ElevatorHealth health, Contribution c) {
+        double before = c.penalty;
+        c.penalty = penalty(c);
+        health.add(c, c.penalty - before);
+    }
+
+    private double penalty(Contribution c) {
+        double severity = c.aiCode == null ? pendingWeight : c.aiCode == 1 ? criticalWeight : warningWeight;
+        return severity * SYSTEM_WEIGHTS.getOrDefault(c.systemName, 1.0) * c.residual;
+    }
+
+    private double halfLifeMillis() {
+        return halfLifeHours * 3_600_000.0;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static double round(double score) {
+        return Math.round(score * 10) / 10.0;
+    }
+}
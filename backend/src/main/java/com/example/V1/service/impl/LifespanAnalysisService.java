@@ -0,0 +1,249 @@
+package com.example.V1.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.V1.config.AiPredictsLifespanConfig;
+import com.example.V1.config.KnowledgeBase;
+import com.example.V1.entity.DataETable;
+import com.example.V1.entity.PromptKnowledge;
+import com.example.V1.service.IDataETableService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 电梯寿命预测：由近期异常数据和相关知识构建提示词，解析大模型返回的 main/message。
+ * 流式接口通过SSE边生成边推送：start（已开始）→ 若干 token（增量文本）→ result（解析后的 main/message）或 error
+ */
+@Slf4j
+@Service
+public class LifespanAnalysisService {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private IDataETableService dataETableService;
+
+    @Autowired
+    private KnowledgeBase knowledgeBase;
+
+    @Autowired
+    private ResilientChatClient chatClient;
+
+    @Value("${ai.lifespan.stream-timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    /**
+     * 查询最近50条异常、检索知识库并构建寿命预测提示词
+     */
+    public String buildPrompt() throws JsonProcessingException {
+        return buildPrompt(null);
+    }
+
+    /**
+     * 同上，systemName 不为空时只取该系统的异常
+     */
+    public String buildPrompt(String systemName) throws JsonProcessingException {
+        // Step 1: 查询最近的异常数据
+        log.info("[Step 1] 正在查询异常数据{}...", systemName == null ? "" : " (" + systemName + ")");
+        LambdaQueryWrapper<DataETable> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(systemName != null, DataETable::getSystemName, systemName)
+                .orderByDesc(DataETable::getCreateTime).last("LIMIT 50");
+        List<DataETable> recentAnomalies = dataETableService.list(queryWrapper);
+
+        log.info("查询到 {} 条异常数据记录", recentAnomalies.size());
+
+        // 打印异常数据概况
+        log.info("异常数据概况:");
+        recentAnomalies.stream().limit(5).forEach(data ->
+            log.info("   • {} - {} : {} ({})",
+                data.getSystemName(),
+                data.getSystemSqName(),
+                data.getEData(),
+                data.getCreateTime().format(DateTimeFormatter.ofPattern("MM-dd HH:mm")))
+        );
+        if (recentAnomalies.size() > 5) {
+            log.info("   ... 还有 {} 条记录", recentAnomalies.size() - 5);
+        }
+
+        // Step 2: 按近期异常涉及的部件检索知识库
+        log.info(" [Step 2] 正在检索专家知识库...");
+        String knowledgeQuery = recentAnomalies.stream()
+                .map(data -> data.getSystemSqName() + " " + data.getEName())
+                .distinct()
+                .collect(Collectors.joining(" "));
+        List<PromptKnowledge> knowledgeList = knowledgeBase.search(knowledgeQuery);
+        log.info("知识库检索完成，选取 {} 个相关案例", knowledgeList.size());
+
+        // Step 3: 构建AI分析数据
+        log.info("🔧 [Step 3] 正在构建AI分析输入数据...");
+        String analysisData = mapper.writeValueAsString(recentAnomalies);
+
+        // Step 4: 构建专业提示词
+        log.info(" [Step 4] 正在构建专业寿命预测提示词...");
+        AiPredictsLifespanConfig lifespanConfig = new AiPredictsLifespanConfig();
+        String prompt = lifespanConfig.aiPredictsLifespan(knowledgeList, analysisData);
+
+        // 打印提示词摘要
+        log.info(" 提示词构建完成 (长度: {} 字符)", prompt.length());
+        log.info(" 分析框架: 设备退化评估 → 故障模式识别 → 寿命建模 → 维护策略");
+        return prompt;
+    }
+
+    /**
+     * 同步寿命预测：构建提示词、调用大模型并解析结果
+     * @param systemName 只分析该系统，为 null 时分析全部系统
+     * @return 含 main、message 的结果；回复不是JSON时 message 为原始回复
+     */
+    public Map<String, String> analyze(String systemName) throws JsonProcessingException {
+        String prompt = buildPrompt(systemName);
+
+        // Step 5: 调用AI进行分析
+        log.info(" [Step 5] 正在调用DeepSeek AI进行寿命预测分析...");
+        long start = System.nanoTime();
+        String rawResponse = chatClient.call(prompt);
+        log.info("AI响应获取成功 (响应长度: {} 字符, 耗时 {}ms)",
+                rawResponse.length(), (System.nanoTime() - start) / 1_000_000);
+
+        // Step 6: 解析AI响应
+        log.info(" [Step 6] 正在解析AI分析结果...");
+        Map<String, String> result = parseResult(rawResponse);
+        if (result == null) {
+            log.error(" JSON解析失败，返回原始响应");
+            result = new LinkedHashMap<>();
+            result.put("main", "寿命分析完成(原始格式)");
+            result.put("message", cleanJsonResponse(rawResponse));
+        }
+        return result;
+    }
+
+    /**
+     * 解析大模型的完整回复
+     * @return 含 main、message 的结果；回复不是JSON时返回 null
+     */
+    public Map<String, String> parseResult(String rawResponse) {
+        try {
+            JsonNode jsonNode = mapper.readTree(cleanJsonResponse(rawResponse));
+            Map<String, String> result = new LinkedHashMap<>();
+            result.put("main", jsonNode.has("main") ? jsonNode.get("main").asText() : "未获取到主要分析结果");
+            result.put("message", jsonNode.has("message") ? jsonNode.get("message").asText() : "未获取到详细分析");
+            return result;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清理AI响应中的非JSON内容
+     */
+    public static String cleanJsonResponse(String response) {
+        // 查找JSON内容
+        int jsonStart = response.indexOf("{");
+        int jsonEnd = response.lastIndexOf("}");
+
+        if (jsonStart >= 0 && jsonEnd > jsonStart) {
+            return response.substring(jsonStart, jsonEnd + 1);
+        }
+
+        // 清理markdown标记
+        return response.replaceAll("```json", "").replaceAll("```", "").trim();
+    }
+
+    /**
+     * 流式寿命预测：返回后请求线程即释放，大模型的增量文本在响应线程上逐条推送。
+     * 客户端断开、超时时取消对大模型的订阅
+     */
+    public SseEmitter stream() {
+        return stream(new SseEmitter(streamTimeoutMs));
+    }
+
+    /**
+     * 向给定的 emitter 推送，包级可见便于测试
+     */
+    SseEmitter stream(SseEmitter emitter) {
+        long start = System.nanoTime();
+
+        String prompt;
+        try {
+            prompt = buildPrompt();
+        } catch (Exception e) {
+            log.error(" [错误] 构建寿命预测提示词失败", e);
+            send(emitter, "error", Map.of("message", "寿命预测分析失败: " + e.getMessage()));
+            emitter.complete();
+            return emitter;
+        }
+        send(emitter, "start", Map.of("promptLength", prompt.length()));
+
+        StringBuilder fullResponse = new StringBuilder();
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+        subscription.set(chatClient.stream(prompt).subscribe(
+                token -> {
+                    if (fullResponse.isEmpty()) {
+                        log.info(" 寿命预测首个片段到达 ({}ms)", (System.nanoTime() - start) / 1_000_000);
+                    }
+                    fullResponse.append(token);
+                    if (!send(emitter, "token", Map.of("text", token))) {
+                        dispose(subscription);
+                    }
+                },
+                error -> {
+                    log.error(" [错误] 寿命预测流式分析失败", error);
+                    send(emitter, "error", Map.of("message", "寿命预测分析失败: " + error.getMessage()));
+                    emitter.complete();
+                },
+                () -> {
+                    Map<String, String> result = parseResult(fullResponse.toString());
+                    if (result == null) {
+                        // 与非流式接口一致：解析失败时把原始回复放在 message 中
+                        result = Map.of("main", "寿命分析完成(原始格式)", "message", cleanJsonResponse(fullResponse.toString()));
+                    }
+                    log.info(" 寿命预测流式分析完成 (响应长度: {} 字符, 耗时 {}ms)",
+                            fullResponse.length(), (System.nanoTime() - start) / 1_000_000);
+                    send(emitter, "result", result);
+                    emitter.complete();
+                }));
+
+        emitter.onCompletion(() -> dispose(subscription));
+        emitter.onTimeout(() -> {
+            log.warn(" 寿命预测流式分析超时 ({}ms)", streamTimeoutMs);
+            dispose(subscription);
+            emitter.complete();
+        });
+        emitter.onError(e -> dispose(subscription));
+        return emitter;
+    }
+
+    /**
+     * 事件数据统一用JSON，增量文本中的换行不会破坏SSE分帧
+     * @return 是否发送成功，失败说明客户端已断开
+     */
+    private boolean send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(mapper.writeValueAsString(data), MediaType.APPLICATION_JSON));
+            return true;
+        } catch (Exception e) {
+            log.debug("寿命预测SSE发送失败 ({}): {}", event, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void dispose(AtomicReference<Disposable> subscription) {
+        Disposable disposable = subscription.get();
+        if (disposable != null) {
+            disposable.dispose();
+        }
+    }
+}
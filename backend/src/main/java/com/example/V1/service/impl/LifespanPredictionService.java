@@ -0,0 +1,308 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.mapper.DataETableMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预先计算的寿命预测：按系统（以及全部系统 ALL）各保存一份最近的预测结果，接口直接返回，不再每次调用大模型。
+ * 后台定时检查 data_e_table 在上次预测之后新增的异常条数，达到 refresh-min-new-rows 才重新预测；
+ * 新增条数按预测时记下的行数计算，不用id水位：批量入库预留的整段id可能先于较小的id提交。
+ * 结果持久化到 lifespan_prediction 表，重启后无需重新调用大模型
+ */
+@Slf4j
+@Service
+public class LifespanPredictionService {
+
+    /**
+     * 全部系统的预测
+     */
+    public static final String SCOPE_ALL = "ALL";
+
+    static final String PREDICTION_TABLE = "lifespan_prediction";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private LifespanAnalysisService lifespanAnalysisService;
+
+    @Autowired
+    private DataETableMapper dataETableMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ai.lifespan.refresh-min-new-rows:10}")
+    private int refreshMinNewRows;
+
+    @Value("${ai.lifespan.precompute:true}")
+    private boolean precompute;
+
+    private final Map<String, Prediction> predictions = new ConcurrentHashMap<>();
+    // 正在后台刷新的范围，避免同一范围重复提交
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // 同一范围首次计算时只调用一次大模型
+    private final Map<String, Object> scopeLocks = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lifespan-refresher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder cacheServed = new LongAdder();
+    private final LongAdder coldServed = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /**
+     * 一次已完成的寿命预测
+     */
+    public static final class Prediction {
+        private final String scope;
+        private final String main;
+        private final String message;
+        private final LocalDateTime generatedAt;
+        // 预测时该范围的异常条数
+        private final long dataRows;
+
+        Prediction(String scope, String main, String message, LocalDateTime generatedAt, long dataRows) {
+            this.scope = scope;
+            this.main = main;
+            this.message = message;
+            this.generatedAt = generatedAt;
+            this.dataRows = dataRows;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public String getMain() {
+            return main;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public LocalDateTime getGeneratedAt() {
+            return generatedAt;
+        }
+
+        public long getDataRows() {
+            return dataRows;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PREDICTION_TABLE
+                    + " (scope VARCHAR(255) PRIMARY KEY, main TEXT, message TEXT,"
+                    + " generated_at VARCHAR(255) NOT NULL, data_rows BIGINT)");
+            // 旧版按id水位保存，无法换算成行数，这些范围重新预测
+            jdbcTemplate.execute("ALTER TABLE " + PREDICTION_TABLE + " ADD COLUMN IF NOT EXISTS data_rows BIGINT");
+            jdbcTemplate.execute("ALTER TABLE " + PREDICTION_TABLE + " DROP COLUMN IF EXISTS last_data_id");
+            jdbcTemplate.query("SELECT scope, main, message, generated_at, data_rows FROM " + PREDICTION_TABLE
+                    + " WHERE data_rows IS NOT NULL", rs -> {
+                String scope = rs.getString("scope");
+                predictions.put(scope, new Prediction(scope, rs.getString("main"), rs.getString("message"),
+                        LocalDateTime.parse(rs.getString("generated_at")), rs.getLong("data_rows")));
+            });
+            log.info("寿命预测结果已加载: {} 个范围", predictions.size());
+        } catch (Exception e) {
+            log.error("加载已保存的寿命预测失败，首次请求时重新预测: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 返回某个范围的预测结果及其新鲜程度；该范围还没有结果时同步预测一次
+     * @param systemName 系统名称，为空时返回全部系统的预测
+     * @return main、message，以及 scope、generatedAt、ageSeconds、newAnomalies、stale
+     * @throws IllegalArgumentException 没有出现过异常的系统名称
+     */
+    public Map<String, Object> getPrediction(String systemName) throws Exception {
+        String scope = knownScope(systemName);
+        Prediction prediction = predictions.get(scope);
+        if (prediction != null) {
+            cacheServed.increment();
+        } else {
+            synchronized (scopeLocks.computeIfAbsent(scope, k -> new Object())) {
+                prediction = predictions.get(scope);
+                if (prediction == null) {
+                    coldServed.increment();
+                    prediction = refresh(scope);
+                }
+            }
+        }
+
+        long newAnomalies = newRows(prediction, scope);
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("main", prediction.getMain());
+        view.put("message", prediction.getMessage());
+        view.put("scope", scope);
+        view.put("generatedAt", prediction.getGeneratedAt().format(TIME_FORMAT));
+        view.put("ageSeconds", Duration.between(prediction.getGeneratedAt(), LocalDateTime.now()).getSeconds());
+        view.put("newAnomalies", newAnomalies);
+        view.put("stale", newAnomalies >= refreshMinNewRows);
+        return view;
+    }
+
+    /**
+     * 提交一次后台刷新，不论新增异常条数
+     * @return 是否已提交；该范围正在刷新时返回 false
+     * @throws IllegalArgumentException 没有出现过异常的系统名称
+     */
+    public boolean requestRefresh(String systemName) {
+        return submitRefresh(knownScope(systemName));
+    }
+
+    /**
+     * 定期检查各范围新增的异常条数，达到阈值的提交后台刷新；
+     * 只在后台线程调用大模型，不占用调度线程
+     */
+    @Scheduled(initialDelayString = "${ai.lifespan.refresh-check-ms:60000}",
+            fixedDelayString = "${ai.lifespan.refresh-check-ms:60000}")
+    public void refreshIfChanged() {
+        try {
+            List<String> scopes = new ArrayList<>();
+            scopes.add(SCOPE_ALL);
+            scopes.addAll(dataETableMapper.selectSystemNames());
+            for (String scope : scopes) {
+                Prediction prediction = predictions.get(scope);
+                if (prediction == null && !precompute) {
+                    continue;
+                }
+                long newRows = newRows(prediction, scope);
+                if (needsRefresh(prediction, newRows, refreshMinNewRows)) {
+                    log.info("寿命预测 [{}] 新增 {} 条异常，提交后台刷新", scope, newRows);
+                    submitRefresh(scope);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("检查寿命预测是否需要刷新失败: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("scopes", predictions.size());
+        stats.put("refreshing", refreshing.size());
+        stats.put("cacheServed", cacheServed.sum());
+        stats.put("coldServed", coldServed.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("refreshMinNewRows", refreshMinNewRows);
+        return stats;
+    }
+
+    /**
+     * 还没有预测时只要有数据就计算；已有预测时新增条数达到阈值才重新计算
+     */
+    static boolean needsRefresh(Prediction existing, long newRows, int minNewRows) {
+        return existing == null ? newRows > 0 : newRows >= minNewRows;
+    }
+
+    private boolean submitRefresh(String scope) {
+        if (!refreshing.add(scope)) {
+            return false;
+        }
+        refresher.execute(() -> {
+            try {
+                refresh(scope);
+            } catch (Exception e) {
+                log.error("寿命预测 [{}] 后台刷新失败，继续使用上次结果", scope, e);
+            } finally {
+                refreshing.remove(scope);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 上次预测之后新增的异常条数；删除过异常时不为负
+     */
+    private long newRows(Prediction prediction, String scope) {
+        long rows = dataETableMapper.countRows(systemOf(scope));
+        return prediction == null ? rows : Math.max(0, rows - prediction.getDataRows());
+    }
+
+    /**
+     * 重新预测并替换内存和库中的结果；行数在构建提示词之前取，预测期间新到的异常留给下一次刷新
+     */
+    private Prediction refresh(String scope) throws Exception {
+        long start = System.nanoTime();
+        long dataRows = dataETableMapper.countRows(systemOf(scope));
+        Map<String, String> result;
+        try {
+            result = lifespanAnalysisService.analyze(systemOf(scope));
+        } catch (Exception e) {
+            refreshFailures.increment();
+            throw e;
+        }
+        Prediction prediction = new Prediction(scope, result.get("main"), result.get("message"),
+                LocalDateTime.now(), dataRows);
+        predictions.put(scope, prediction);
+        refreshes.increment();
+        save(prediction);
+        log.info("寿命预测 [{}] 已更新 (异常 {} 条, 耗时 {}ms)",
+                scope, dataRows, (System.nanoTime() - start) / 1_000_000);
+        return prediction;
+    }
+
+    private void save(Prediction prediction) {
+        try {
+            jdbcTemplate.update("MERGE INTO " + PREDICTION_TABLE
+                            + " (scope, main, message, generated_at, data_rows) KEY (scope) VALUES (?, ?, ?, ?, ?)",
+                    prediction.getScope(), prediction.getMain(), prediction.getMessage(),
+                    prediction.getGeneratedAt().toString(), prediction.getDataRows());
+        } catch (Exception e) {
+            log.warn("保存寿命预测 [{}] 失败，重启后需重新预测: {}", prediction.getScope(), e.getMessage());
+        }
+    }
+
+    /**
+     * 系统名称须是出现过异常的系统，否则每个拼写不同的名称都会各自调用一次大模型并常驻内存
+     */
+    private String knownScope(String systemName) {
+        String scope = scopeOf(systemName);
+        if (SCOPE_ALL.equals(scope) || predictions.containsKey(scope)
+                || dataETableMapper.selectSystemNames().contains(scope)) {
+            return scope;
+        }
+        throw new IllegalArgumentException("未知的系统: " + scope);
+    }
+
+    private static String scopeOf(String systemName) {
+        return systemName == null || systemName.isBlank() ? SCOPE_ALL : systemName.trim();
+    }
+
+    private static String systemOf(String scope) {
+        return SCOPE_ALL.equals(scope) ? null : scope;
+    }
+}
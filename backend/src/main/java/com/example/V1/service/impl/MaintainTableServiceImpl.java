@@ -37,6 +37,9 @@ public class MaintainTableServiceImpl extends ServiceImpl<MaintainTableMapper, M
     @Autowired
     private UsersMapper userMapper;
 
+    @Autowired
+    private HealthScoreEngine healthScoreEngine;
+
     /**
      * 分页查询维护记录
      */
@@ -139,6 +142,8 @@ public class MaintainTableServiceImpl extends ServiceImpl<MaintainTableMapper, M
             log.info("后端存入后 id = {}, status = {}, sum = {}, update = {},userId = {}", maintainTableDTO.getId(), updateRecord.getStatus(), updateRecord.getSum(), update, maintainTableDTO.getUserId());
 
             if (update) {
+                healthScoreEngine.recordMaintenance(oldRecord.getMtDataId(), updateRecord.getStatus(),
+                        updateRecord.getMtTime() == null ? oldRecord.getMtTime() : updateRecord.getMtTime());
                 log.info("数据更新成功");
                 return Result.success("数据更新成功");
             } else {
@@ -167,6 +172,8 @@ public class MaintainTableServiceImpl extends ServiceImpl<MaintainTableMapper, M
             if(!ab){
                 return Result.error("维修记录上报失败");
             }
+            healthScoreEngine.recordMaintenance(maintainTable.getMtDataId(), maintainTable.getStatus(),
+                    maintainTable.getMtTime());
 
             return Result.success("维修记录上报成功");
         } catch (Exception e) {
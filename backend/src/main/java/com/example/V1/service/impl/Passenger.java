@@ -0,0 +1,24 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+
+/**
+ * 群控仿真中的一位乘客（一次目的层呼梯）
+ */
+final class Passenger {
+
+    final int origin;
+    final int destination;
+    final long requestedAtMillis;
+    // 呼梯时生效的调度算法，指标归属到该算法
+    final DispatchAlgorithm algorithm;
+    long boardedAtMillis;
+    DispatchCar assignedCar;
+
+    Passenger(int origin, int destination, long requestedAtMillis, DispatchAlgorithm algorithm) {
+        this.origin = origin;
+        this.destination = destination;
+        this.requestedAtMillis = requestedAtMillis;
+        this.algorithm = algorithm;
+    }
+}
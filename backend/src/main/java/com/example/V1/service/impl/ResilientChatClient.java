@@ -0,0 +1,362 @@
+package com.example.V1.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大模型调用的统一入口，所有业务代码经由这里调用 ChatModel：
+ * 舱壁（max-concurrent）限制同时在途的调用数，一次调用（含重试）不超过 timeout-ms；
+ * 超时和下游错误按带抖动的指数退避重试，重试次数受重试预算约束（成功调用积累预算，下游持续失败时很快停止重试）；
+ * 熔断器打开期间直接抛出 {@link LlmCallException}，调用方据此退回本地/默认结果。
+ * Spring AI 自带的重试应关闭（spring.ai.retry.max-attempts=1），避免两层重试叠加
+ */
+@Slf4j
+@Component
+public class ResilientChatClient {
+
+    @Autowired
+    private ChatModel chatModel;
+
+    @Value("${ai.client.max-concurrent:6}")
+    private int maxConcurrent;
+
+    @Value("${ai.client.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    @Value("${ai.client.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${ai.client.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${ai.client.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${ai.client.retry-max-backoff-ms:8000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${ai.client.retry-budget-ratio:0.2}")
+    private double retryBudgetRatio;
+
+    @Value("${ai.client.circuit.window-size:20}")
+    private int circuitWindowSize;
+
+    @Value("${ai.client.circuit.min-calls:5}")
+    private int circuitMinCalls;
+
+    @Value("${ai.client.circuit.failure-rate-threshold:0.5}")
+    private double circuitFailureRate;
+
+    @Value("${ai.client.circuit.open-ms:30000}")
+    private long circuitOpenMs;
+
+    @Value("${ai.client.circuit.half-open-calls:1}")
+    private int circuitHalfOpenCalls;
+
+    // 重试预算上限
+    private static final double RETRY_BUDGET_MAX = 10.0;
+
+    private Semaphore bulkhead;
+    private ThreadPoolExecutor callers;
+    private CircuitBreaker circuitBreaker;
+    private double retryBudget = RETRY_BUDGET_MAX;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder circuitRejected = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retryBudgetExhausted = new LongAdder();
+
+    /**
+     * 调用失败的原因
+     */
+    public enum Failure {
+        // 熔断器打开，未调用
+        CIRCUIT_OPEN,
+        // 舱壁已满，未调用
+        REJECTED,
+        // 超过调用期限
+        TIMEOUT,
+        // 下游返回错误
+        ERROR
+    }
+
+    /**
+     * 大模型不可用或调用失败
+     */
+    public static class LlmCallException extends RuntimeException {
+        private final Failure failure;
+
+        public LlmCallException(Failure failure, String message, Throwable cause) {
+            super(message, cause);
+            this.failure = failure;
+        }
+
+        public Failure getFailure() {
+            return failure;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrent);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 舱壁保证在途调用不超过 maxConcurrent，线程池不会积压
+        callers = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "llm-call-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        callers.allowCoreThreadTimeOut(true);
+        circuitBreaker = new CircuitBreaker("llm", circuitWindowSize, circuitMinCalls, circuitFailureRate,
+                circuitOpenMs, circuitHalfOpenCalls);
+        log.info("大模型客户端已启动: 最大并发 {}, 调用期限 {}ms, 最多重试 {} 次", maxConcurrent, timeoutMs, maxRetries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * 同步调用，必要时重试，总耗时不超过 timeout-ms
+     * @throws LlmCallException 熔断、舱壁已满、超时或重试后仍失败
+     */
+    public String call(String prompt) {
+        calls.increment();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                String response = attempt(prompt, deadline);
+                successes.increment();
+                earnRetryBudget();
+                return response;
+            } catch (LlmCallException e) {
+                boolean retryable = e.getFailure() == Failure.TIMEOUT || e.getFailure() == Failure.ERROR;
+                if (!retryable || attempt >= maxRetries || e.getCause() instanceof NonTransientAiException) {
+                    throw e;
+                }
+                long backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMillis(attempt));
+                if (System.nanoTime() + backoffNanos >= deadline) {
+                    throw e;
+                }
+                if (!spendRetryBudget()) {
+                    retryBudgetExhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                log.info("大模型调用失败 ({})，{}ms 后第 {} 次重试", e.getFailure(),
+                        TimeUnit.NANOSECONDS.toMillis(backoffNanos), attempt + 1);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 流式调用：同样受舱壁和熔断器约束，超过 timeout-ms 未收到下一个片段视为超时；不重试
+     */
+    public Flux<String> stream(String prompt) {
+        return Flux.defer(() -> {
+            calls.increment();
+            if (!bulkhead.tryAcquire()) {
+                bulkheadRejected.increment();
+                return Flux.error(new LlmCallException(Failure.REJECTED, "大模型并发调用已满", null));
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                bulkhead.release();
+                circuitRejected.increment();
+                return Flux.error(new LlmCallException(Failure.CIRCUIT_OPEN, "大模型暂不可用（熔断中）", null));
+            }
+            AtomicBoolean settled = new AtomicBoolean();
+            return chatModel.stream(prompt)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .doOnComplete(() -> {
+                        if (settled.compareAndSet(false, true)) {
+                            successes.increment();
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (settled.compareAndSet(false, true)) {
+                            if (e instanceof TimeoutException) {
+                                timeouts.increment();
+                            } else {
+                                errors.increment();
+                            }
+                            circuitBreaker.onFailure();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (settled.compareAndSet(false, true)) {
+                            circuitBreaker.onIgnored();
+                        }
+                    })
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * 熔断器打开时为 false，调用方可提前跳过大模型
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("calls", calls.sum());
+        stats.put("successes", successes.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("errors", errors.sum());
+        stats.put("bulkheadRejected", bulkheadRejected.sum());
+        stats.put("circuitRejected", circuitRejected.sum());
+        stats.put("retries", retries.sum());
+        stats.put("retryBudgetExhausted", retryBudgetExhausted.sum());
+        stats.put("inFlight", maxConcurrent - bulkhead.availablePermits());
+        stats.put("maxConcurrent", maxConcurrent);
+        synchronized (this) {
+            stats.put("retryBudget", Math.round(retryBudget * 100) / 100.0);
+        }
+        stats.put("circuit", circuitBreaker.getStats());
+        return stats;
+    }
+
+    /**
+     * 一次调用：先过熔断器和舱壁，再在调用线程池上执行，等待不超过剩余期限。
+     * 超时后调用线程上的请求不会立即停止，舱壁许可在请求真正结束时才归还；
+     * 任务还没开始就被取消时不会再执行，许可由调用方归还（started 保证只归还一次）
+     */
+    private String attempt(String prompt, long deadline) {
+        if (deadline - System.nanoTime() <= 0) {
+            // 期限已过，不再占用熔断器和舱壁
+            timeouts.increment();
+            throw new LlmCallException(Failure.TIMEOUT, "大模型调用超时 (" + timeoutMs + "ms)", null);
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            circuitRejected.increment();
+            throw new LlmCallException(Failure.CIRCUIT_OPEN, "大模型暂不可用（熔断中）", null);
+        }
+        boolean acquired;
+        try {
+            long waitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs), deadline - System.nanoTime());
+            acquired = bulkhead.tryAcquire(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onIgnored();
+            throw new LlmCallException(Failure.REJECTED, "等待大模型调用许可时被中断", e);
+        }
+        if (!acquired) {
+            circuitBreaker.onIgnored();
+            bulkheadRejected.increment();
+            throw new LlmCallException(Failure.REJECTED, "大模型并发调用已满", null);
+        }
+
+        AtomicBoolean started = new AtomicBoolean();
+        Future<String> future;
+        try {
+            future = callers.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    // 调用方已放弃并归还了许可
+                    return null;
+                }
+                try {
+                    return chatModel.call(prompt);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.onIgnored();
+            throw new LlmCallException(Failure.REJECTED, "大模型调用线程池已关闭", e);
+        }
+
+        try {
+            String response = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
+            return response;
+        } catch (TimeoutException e) {
+            cancel(future, started);
+            timeouts.increment();
+            circuitBreaker.onFailure();
+            throw new LlmCallException(Failure.TIMEOUT, "大模型调用超时 (" + timeoutMs + "ms)", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            errors.increment();
+            if (cause instanceof NonTransientAiException) {
+                // 请求本身有误（如4xx），不代表下游不可用
+                circuitBreaker.onIgnored();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            throw new LlmCallException(Failure.ERROR, "大模型调用失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            cancel(future, started);
+            Thread.currentThread().interrupt();
+            circuitBreaker.onIgnored();
+            throw new LlmCallException(Failure.ERROR, "大模型调用被中断", e);
+        }
+    }
+
+    /**
+     * 取消一次调用：任务尚未开始时由调用方归还舱壁许可，已开始的任务在结束时自行归还
+     */
+    private void cancel(Future<String> future, AtomicBoolean started) {
+        if (future.cancel(true) && started.compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 全抖动指数退避：[0, min(上限, 基数 * 2^attempt)) 内随机
+     */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(retryMaxBackoffMs, retryBackoffMs << Math.min(attempt, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap);
+    }
+
+    private synchronized void earnRetryBudget() {
+        retryBudget = Math.min(RETRY_BUDGET_MAX, retryBudget + retryBudgetRatio);
+    }
+
+    private synchronized boolean spendRetryBudget() {
+        if (retryBudget < 1.0) {
+            return false;
+        }
+        retryBudget -= 1.0;
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.V1.service.impl;
+
+/**
+ * 仿真时钟
+ * 在线仿真使用系统时钟；离线批量仿真使用可手动推进的虚拟时钟，使运行可复现且不受真实时间限制
+ */
+public interface SimulationClock {
+
+    SimulationClock SYSTEM = System::currentTimeMillis;
+
+    long currentTimeMillis();
+
+    /**
+     * 虚拟时钟，只由驱动仿真的线程推进
+     */
+    final class Virtual implements SimulationClock {
+
+        private long nowMillis;
+
+        /**
+         * @param startMillis 起始时间，必须大于0（电梯以0表示门计时未开始）
+         */
+        public Virtual(long startMillis) {
+            if (startMillis <= 0) {
+                throw new IllegalArgumentException("虚拟时钟起始时间必须大于0: " + startMillis);
+            }
+            this.nowMillis = startMillis;
+        }
+
+        public void advance(long millis) {
+            nowMillis += millis;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return nowMillis;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.commont.Result;
+import com.example.V1.entity.AnomalyRule;
+import com.example.V1.entity.DataETable;
+import com.example.V1.service.IDataETableService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端流式异常检测
+ * 每个（电梯, 系统, 参数）是一条序列，启动时按 max-series 预分配基本类型数组保存各序列的 EWMA 均值/方差、
+ * 样本数和最近一次上报，每个采样只做常数次算术，不产生对象分配。
+ * 参数在 anomaly-rules.json 中有规则时按正常/警告/严重区间判定；无论有无规则，
+ * 预热后偏离 EWMA 基线超过 z-threshold 个标准差也判为异常（至少为警告）。
+ * 同一序列在 dedup-window-ms 内只上报一次，等级升高时立即上报；上报的异常放入有界队列，
+ * 由后台线程批量写入 data_e_table 并提交AI分析，检测线程不做数据库IO
+ */
+@Slf4j
+@Component
+public class StreamingAnomalyDetector {
+
+    static final int NORMAL = 0;
+    static final int WARNING = 1;
+    static final int CRITICAL = 2;
+
+    // 序列锁分段数，同一序列的更新串行执行
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private AnomalyRuleClassifier ruleClassifier;
+
+    @Autowired
+    private IDataETableService dataETableService;
+
+    @Value("${detector.enabled:true}")
+    private boolean enabled;
+
+    @Value("${detector.max-series:65536}")
+    private int maxSeries;
+
+    @Value("${detector.ewma-alpha:0.05}")
+    private double alpha;
+
+    @Value("${detector.z-threshold:5}")
+    private double zThreshold;
+
+    @Value("${detector.min-std-ratio:0.01}")
+    private double minStdRatio;
+
+    @Value("${detector.warmup-samples:50}")
+    private int warmupSamples;
+
+    @Value("${detector.dedup-window-ms:60000}")
+    private long dedupWindowMs;
+
+    @Value("${detector.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${detector.flush-batch:500}")
+    private int flushBatch;
+
+    // 序列键 -> 序列号，序列号是下列数组的下标
+    private final Map<String, Integer> seriesIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    // 序列描述，注册时写入
+    private String[] elevatorIds;
+    private String[] systemNames;
+    private String[] parameters;
+    private String[] units;
+
+    // 区间规则，hasRule 为 false 时只做 z 分数检测
+    private boolean[] hasRule;
+    private boolean[] upward;
+    private double[] normalLow;
+    private double[] normalHigh;
+    private double[] warningLow;
+    private double[] warningHigh;
+    private double[] criticalLow;
+    private double[] criticalHigh;
+
+    // 在线统计状态
+    private double[] mean;
+    private double[] variance;
+    private int[] samples;
+    private int[] emittedLevel;
+    private long[] emittedAt;
+
+    private BlockingQueue<DataETable> pending;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder sampleCount = new LongAdder();
+    private final LongAdder rangeDetected = new LongAdder();
+    private final LongAdder zDetected = new LongAdder();
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder queueDropped = new LongAdder();
+    private final LongAdder seriesRejected = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        allocate();
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "anomaly-detector-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("流式异常检测已启动: 最多 {} 条序列, alpha={}, z阈值={}, 去重窗口={}ms", maxSeries, alpha, zThreshold, dedupWindowMs);
+    }
+
+    /**
+     * 按 max-series 预分配序列状态，不启动写入线程
+     */
+    void allocate() {
+        int n = Math.max(1, maxSeries);
+        elevatorIds = new String[n];
+        systemNames = new String[n];
+        parameters = new String[n];
+        units = new String[n];
+        hasRule = new boolean[n];
+        upward = new boolean[n];
+        normalLow = new double[n];
+        normalHigh = new double[n];
+        warningLow = new double[n];
+        warningHigh = new double[n];
+        criticalLow = new double[n];
+        criticalHigh = new double[n];
+        mean = new double[n];
+        variance = new double[n];
+        samples = new int[n];
+        emittedLevel = new int[n];
+        emittedAt = new long[n];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        pending = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(5000);
+        }
+        flush();
+    }
+
+    /**
+     * 取得序列号，首次出现时注册并绑定区间规则。调用方应缓存序列号，热路径直接用 {@link #offer(int, double, long)}
+     * @return 序列号；检测关闭或序列数已达 max-series 时返回 -1，该序列的采样将被忽略
+     */
+    public int series(String elevatorId, String systemName, String parameter) {
+        if (!enabled) {
+            return -1;
+        }
+        String key = elevatorId + '\u0001' + systemName + '\u0001' + parameter;
+        Integer index = seriesIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        // 被拒绝的序列不放入映射（映射函数返回 null），超出上限的键不会无限累积
+        index = seriesIndex.computeIfAbsent(key, k -> {
+            int registered = register(elevatorId, systemName, parameter);
+            return registered < 0 ? null : registered;
+        });
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 按名称上报一条采样
+     */
+    public void offer(String elevatorId, String systemName, String parameter, double value, long timeMillis) {
+        offer(series(elevatorId, systemName, parameter), value, timeMillis);
+    }
+
+    /**
+     * 上报一条采样：更新该序列的 EWMA 基线，判定异常等级，需要上报时放入写入队列
+     * @return 本次采样的异常等级（0 正常、1 警告、2 严重），序列号无效时为 0
+     */
+    public int offer(int series, double value, long timeMillis) {
+        if (series < 0 || Double.isNaN(value)) {
+            return NORMAL;
+        }
+        sampleCount.increment();
+        int rangeLevel = rangeLevel(series, value);
+        int level;
+        boolean emit = false;
+        synchronized (locks[series & (LOCK_STRIPES - 1)]) {
+            // 先按更新前的基线计算 z 分数，再把本次采样计入基线
+            int n = samples[series];
+            double m = mean[series];
+            // 长时间不变的序列方差趋近 0，按均值比例设下限，避免一有微小变化就判为异常
+            double std = Math.max(Math.sqrt(variance[series]), minStdRatio * Math.abs(m));
+            boolean zAnomaly = n >= warmupSamples && std > 1e-9 && Math.abs(value - m) > zThreshold * std;
+            if (n == 0) {
+                mean[series] = value;
+                variance[series] = 0;
+            } else {
+                double newMean = m + alpha * (value - m);
+                variance[series] = Math.max(0, (1 - alpha) * (variance[series] + alpha * (value - m) * (value - newMean)));
+                mean[series] = newMean;
+            }
+            if (n < warmupSamples) {
+                samples[series] = n + 1;
+            }
+
+            level = zAnomaly ? Math.max(rangeLevel, WARNING) : rangeLevel;
+            if (level > NORMAL) {
+                // 同等级的重复异常在去重窗口内只上报一次
+                if (level > emittedLevel[series] || timeMillis - emittedAt[series] >= dedupWindowMs) {
+                    emittedLevel[series] = level;
+                    emittedAt[series] = timeMillis;
+                    emit = true;
+                }
+            } else if (timeMillis - emittedAt[series] >= dedupWindowMs) {
+                emittedLevel[series] = NORMAL;
+            }
+        }
+        if (level > NORMAL) {
+            if (level > rangeLevel) {
+                zDetected.increment();
+            } else {
+                rangeDetected.increment();
+            }
+            if (emit) {
+                enqueue(series, value, timeMillis);
+            } else {
+                suppressed.increment();
+            }
+        }
+        return level;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("series", seriesCount.get());
+        stats.put("maxSeries", maxSeries);
+        stats.put("samples", sampleCount.sum());
+        stats.put("rangeDetected", rangeDetected.sum());
+        stats.put("zDetected", zDetected.sum());
+        stats.put("emitted", emitted.sum());
+        stats.put("suppressed", suppressed.sum());
+        stats.put("queued", pending == null ? 0 : pending.size());
+        stats.put("queueDropped", queueDropped.sum());
+        stats.put("seriesRejected", seriesRejected.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        return stats;
+    }
+
+    private int register(String elevatorId, String systemName, String parameter) {
+        int index;
+        do {
+            index = seriesCount.get();
+            if (index >= maxSeries) {
+                // 被拒绝的序列每次查找都会走到这里，只在第一次告警
+                if (seriesRejected.sum() == 0) {
+                    log.warn("流式异常检测序列数已达上限 {}，之后的新序列将被忽略: {}/{}/{}",
+                            maxSeries, elevatorId, systemName, parameter);
+                }
+                seriesRejected.increment();
+                return -1;
+            }
+        } while (!seriesCount.compareAndSet(index, index + 1));
+        elevatorIds[index] = elevatorId;
+        systemNames[index] = systemName;
+        parameters[index] = parameter;
+        AnomalyRule rule = ruleClassifier.findRule(systemName, parameter, null);
+        if (rule != null) {
+            hasRule[index] = true;
+            units[index] = rule.getUnit() == null ? "" : rule.getUnit();
+            double[] normal = rule.getNormal();
+            double[] critical = rule.getCritical();
+            normalLow[index] = Math.min(normal[0], normal[1]);
+            normalHigh[index] = Math.max(normal[0], normal[1]);
+            warningLow[index] = Math.min(rule.getWarning()[0], rule.getWarning()[1]);
+            warningHigh[index] = Math.max(rule.getWarning()[0], rule.getWarning()[1]);
+            criticalLow[index] = Math.min(critical[0], critical[1]);
+            criticalHigh[index] = Math.max(critical[0], critical[1]);
+            upward[index] = critical[0] + critical[1] > normal[0] + normal[1];
+        } else {
+            units[index] = "";
+        }
+        return index;
+    }
+
+    /**
+     * 区间判定（规则字段注册后不再修改，无需加锁）：严重区间或超出严重区间远离正常的一端为严重，警告区间或偏出正常区间为警告
+     */
+    private int rangeLevel(int s, double v) {
+        if (!hasRule[s]) {
+            return NORMAL;
+        }
+        if ((v >= criticalLow[s] && v <= criticalHigh[s]) || (upward[s] ? v > criticalHigh[s] : v < criticalLow[s])) {
+            return CRITICAL;
+        }
+        if ((v >= warningLow[s] && v <= warningHigh[s]) || v < normalLow[s] || v > normalHigh[s]) {
+            return WARNING;
+        }
+        return NORMAL;
+    }
+
+    private void enqueue(int series, double value, long timeMillis) {
+        DataETable data = new DataETable();
+        data.setCreateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault()));
+        data.setSystemName(systemNames[series]);
+        // 与前端上报一致：子设备名称写参数名，异常名称写电梯编号
+        data.setSystemSqName(parameters[series]);
+        data.setEName(elevatorIds[series]);
+        data.setEData(format(value) + units[series]);
+        if (pending.offer(data)) {
+            emitted.increment();
+        } else {
+            queueDropped.increment();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                DataETable first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<DataETable> batch = new ArrayList<>(flushBatch);
+                batch.add(first);
+                pending.drainTo(batch, flushBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("流式异常检测写入失败", e);
+            }
+        }
+    }
+
+    /**
+     * 把队列中剩余的异常全部写入
+     */
+    void flush() {
+        List<DataETable> batch = new ArrayList<>();
+        while (pending.drainTo(batch, Math.max(1, flushBatch)) > 0) {
+            write(batch);
+            batch = new ArrayList<>();
+        }
+    }
+
+    private void write(List<DataETable> batch) {
+        Result<Map<String, Object>> result = dataETableService.createBatch(batch.iterator(), true);
+        if (Integer.valueOf(200).equals(result.getCode())) {
+            flushed.add(batch.size());
+        } else {
+            flushFailures.add(batch.size());
+            log.warn("流式检测到的 {} 条异常写入失败: {}", batch.size(), result.getMessage());
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? String.valueOf((long) value)
+                : String.valueOf(Math.round(value * 1000) / 1000.0);
+    }
+}
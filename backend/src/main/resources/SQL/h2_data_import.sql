@@ -14,7 +14,11 @@ CREATE TABLE IF NOT EXISTS data_e_table (
   system_name VARCHAR(255) NOT NULL,
   system_sq_name VARCHAR(255) NOT NULL,
   e_name VARCHAR(255) NOT NULL,
-  e_data VARCHAR(255) NOT NULL
+  e_data VARCHAR(255) NOT NULL,
+  last_seen TIMESTAMP,
+  occurrences INTEGER DEFAULT 1,
+  min_value DOUBLE,
+  max_value DOUBLE
 );
 
 -- 清空并重新插入数据到data_e_table
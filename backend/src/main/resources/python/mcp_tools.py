@@ -181,12 +181,13 @@ def analyze_anomaly_patterns(system_name=None, days_back=30, severity_filter=Non
             'data': []
         })
 
-def calculate_equipment_health_score(elevator_id=None):
+def calculate_equipment_health_score(elevator_id=None, detailed_analysis=True):
     """
     计算设备健康评分
     
     Args:
         elevator_id: 电梯ID (可选，不指定则计算所有电梯)
+        detailed_analysis: 是否包含风险组件、各系统评分和最近维护时间
     
     Returns:
         JSON格式的健康评分结果
@@ -195,7 +196,11 @@ def calculate_equipment_health_score(elevator_id=None):
         print("🏥 计算设备健康评分...")
         print("   电梯ID: " + str(elevator_id))
         
-        # 模拟健康评分计算 (实际项目中会基于真实数据计算)
+        # 由Java健康评分引擎按异常、AI结论和维护记录计算
+        if 'healthScoreEngine' in globals():
+            return healthScoreEngine.getToolResultJson(elevator_id, bool(detailed_analysis))
+        
+        # 未注入引擎时（如单独运行脚本）返回示例评分
         health_scores = []
         
         if elevator_id:
@@ -252,6 +257,9 @@ def get_comprehensive_system_status():
     """
     获取综合系统状态
     
+    注意：这里返回的是固定的示例数据；后端注册的同名Java工具（ElevatorMcpTools）
+    基于仿真电梯、健康评分和异常记录生成实际状态
+    
     Returns:
         JSON格式的系统状态概览
     """
@@ -0,0 +1,33 @@
+package com.example.V1.Handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ElevatorBinaryCodecTests {
+
+    private static int encode(ByteBuffer buf, byte[] idBytes) {
+        return ElevatorBinaryCodec.encodeState(buf, idBytes, 7, 3.5, 8, 15,
+                (byte) 0, (byte) 1, (byte) 0, (byte) 0, (byte) 0, 1.2, 450, 1000, 25.3);
+    }
+
+    @Test
+    void longestIdStillFitsLengthField() {
+        byte[] idBytes = "梯".repeat(85).getBytes(StandardCharsets.UTF_8);
+        assertEquals(255, idBytes.length);
+        ByteBuffer buf = ByteBuffer.allocate(ElevatorBinaryCodec.frameLength(idBytes));
+        assertEquals(buf.capacity(), encode(buf, idBytes));
+        assertEquals(255, buf.get(6) & 0xFF);
+    }
+
+    @Test
+    void idsLongerThanLengthFieldAreRejected() {
+        byte[] idBytes = "EL-".repeat(86).getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> ElevatorBinaryCodec.frameLength(idBytes));
+        assertThrows(IllegalArgumentException.class, () -> encode(ByteBuffer.allocate(1024), idBytes));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.service.impl.StreamingAnomalyDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式异常检测吞吐：1000台电梯 × 曳引系统4个参数的采样轮流送入检测器，取值在正常区间附近波动，
+ * 偶有越限（去重后异步写入内存H2）。分别测缓存序列号和按名称查找序列两种调用方式，以及4个并发上报线程
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnomalyDetectorBenchmark {
+
+    private static final String[] PARAMETERS = {"电机温度", "轴承温度", "振动速度", "电流"};
+    private static final double[] BASE = {60, 70, 2.0, 18.5};
+    private static final double[] NOISE = {3, 3, 0.3, 0.5};
+    private static final int ELEVATORS = 1000;
+    private static final int SAMPLES = 1 << 16;
+
+    private ConfigurableApplicationContext context;
+    private StreamingAnomalyDetector detector;
+    private String[] elevatorIds;
+    private int[] handles;
+    private double[] values;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("detector-bench", "--detector.simulator=false");
+        detector = context.getBean(StreamingAnomalyDetector.class);
+        elevatorIds = new String[ELEVATORS];
+        handles = new int[ELEVATORS * PARAMETERS.length];
+        for (int e = 0; e < ELEVATORS; e++) {
+            elevatorIds[e] = String.format("EL-%04d", e);
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                handles[e * PARAMETERS.length + p] = detector.series(elevatorIds[e], "曳引系统", PARAMETERS[p]);
+            }
+        }
+        Random random = new Random(42);
+        values = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int p = i % PARAMETERS.length;
+            values[i] = BASE[p] + random.nextGaussian() * NOISE[p];
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int offerByHandle(Cursor cursor) {
+        int i = cursor.next++ & (SAMPLES - 1);
+        return detector.offer(handles[i % handles.length], values[i], i);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int offerByHandle4(Cursor cursor) {
+        int i = cursor.next++ & (SAMPLES - 1);
+        return detector.offer(handles[i % handles.length], values[i], i);
+    }
+
+    @Benchmark
+    public void offerByName(Cursor cursor) {
+        int i = cursor.next++ & (SAMPLES - 1);
+        int series = i % handles.length;
+        detector.offer(elevatorIds[series / PARAMETERS.length], "曳引系统", PARAMETERS[series % PARAMETERS.length],
+                values[i], i);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.commont.Result;
+import com.example.V1.entity.DataETable;
+import com.example.V1.service.IDataETableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异常数据入库基准：经 DataETableServiceImpl.create 完成ID生成、字段填充和插入
+ * 启动完整Spring上下文（见 EmbeddedApplication）；分别测单线程和64个并发写入。
+ * 写入的是同一条异常，episodes=true 时除第一条外都并入异常事件（重复异常风暴），false 时逐条插入
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnomalyIngestBenchmark {
+
+    @Param({"false", "true"})
+    public boolean episodes;
+
+    private ConfigurableApplicationContext context;
+    private IDataETableService dataETableService;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedApplication.start("ingest-bench", "--ingest.episode.enabled=" + episodes);
+        dataETableService = context.getBean(IDataETableService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Result<String> create() {
+        return dataETableService.create(newAnomaly());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Result<String> createConcurrent() {
+        return dataETableService.create(newAnomaly());
+    }
+
+    private static DataETable newAnomaly() {
+        return new DataETable()
+                .setSystemName("曳引系统")
+                .setSystemSqName("曳引机")
+                .setEName("电机温度过高")
+                .setEData("95.3");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.Handler.FrameProtocol;
+import com.example.V1.service.impl.Elevator;
+import com.example.V1.service.impl.SimulationClock;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态帧编码基准：同一台运行中电梯的当前状态分别经 ElevatorStateWriter（JSON_FULL）和 ElevatorBinaryCodec（BINARY）编码，
+ * 主指标为每帧编码耗时（ns/op）。辅助指标 bytes、frames 为测量期间编码的总字节数和总帧数
+ * （JMH 对事件计数按轮次求和），两者之比即每帧字节数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ElevatorFrameCodecBenchmark {
+
+    @Param({"JSON_FULL", "BINARY"})
+    public FrameProtocol protocol;
+
+    private Elevator elevator;
+
+    /**
+     * 编码的字节数和帧数，每轮清零
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class FrameBytes {
+        public long bytes;
+        public long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            frames = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        elevator = new Elevator("EL-001", null, SimulationClock.SYSTEM, new Random(42));
+    }
+
+    /**
+     * 每轮推进若干节拍，编码的楼层、速度等数值随之变化
+     */
+    @Setup(Level.Iteration)
+    public void advance() {
+        for (int i = 0; i < 20; i++) {
+            elevator.tick(0.15);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(FrameBytes counters) {
+        byte[] frame = elevator.encodeFrame(protocol);
+        counters.bytes += frame.length;
+        counters.frames++;
+        return frame;
+    }
+}
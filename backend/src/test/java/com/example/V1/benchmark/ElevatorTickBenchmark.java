@@ -0,0 +1,66 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.Handler.ElevatorOutboundDispatcher;
+import com.example.V1.Handler.FrameProtocol;
+import com.example.V1.service.impl.Elevator;
+import com.example.V1.service.impl.SimulationClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仿真节拍基准：单台电梯推进一个节拍（运动仿真）及随后的状态发布（按协议序列化并投递到出站通道）
+ * subscribers=0 时只测运动仿真；发送线程只计数，不做网络IO
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ElevatorTickBenchmark {
+
+    @Param({"JSON_FULL", "JSON_DELTA", "BINARY"})
+    public FrameProtocol protocol;
+
+    @Param({"0", "1", "100"})
+    public int subscribers;
+
+    private ElevatorOutboundDispatcher dispatcher;
+    private Elevator elevator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dispatcher = new ElevatorOutboundDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "sendTimeLimitMs", 2000L);
+        dispatcher.start();
+        elevator = new Elevator("EL-001", null, SimulationClock.SYSTEM, new Random(42));
+        for (int i = 0; i < subscribers; i++) {
+            elevator.addSubscriber(dispatcher.open(new NoopWebSocketSession("bench-" + i)), protocol);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Benchmark
+    public void tick() {
+        elevator.tick(0.15);
+    }
+}
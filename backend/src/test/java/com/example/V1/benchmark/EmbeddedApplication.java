@@ -0,0 +1,39 @@
+package com.example.V1.benchmark;
+
+import com.example.NewElevatorApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 为基准和压测启动完整的应用：随机HTTP端口、内存H2库（由 H2Initializer 按 SQL/h2_data_import.sql 建表），
+ * 关闭SQL日志和热重启；需在 backend 目录下运行。应用内置的H2 TCP服务仍会监听9092端口，运行前先停止本地应用
+ */
+final class EmbeddedApplication {
+
+    private EmbeddedApplication() {
+    }
+
+    /**
+     * @param database  内存库名称，同一进程内不同用途使用不同名称
+     * @param extraArgs 额外的 --key=value 配置
+     */
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--spring.devtools.restart.enabled=false",
+                "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(extraArgs));
+        return new SpringApplication(NewElevatorApplication.class).run(args.toArray(new String[0]));
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.config.SQLiteIdentifierGenerator;
+import com.example.V1.entity.DataETable;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * id分配争用基准：64个并发写入线程取id
+ * segment 为号段分配器（step 可调）；maxPlusOne 为此前每行执行一次 SELECT MAX(id) 的方式，仅作对照
+ * （对照组不插入数据，MAX(id) 不变，只衡量每行一次查询的开销，并发下它还会发出重复id）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class IdAllocatorBenchmark {
+
+    @Param({"100", "1000"})
+    public int step;
+
+    private final DataETable entity = new DataETable();
+    private JdbcDataSource dataSource;
+    private SQLiteIdentifierGenerator generator;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:id-bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection conn = dataSource.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS data_e_table (id INT PRIMARY KEY)");
+        }
+        generator = new SQLiteIdentifierGenerator();
+        ReflectionTestUtils.setField(generator, "dataSource", dataSource);
+        ReflectionTestUtils.setField(generator, "step", step);
+    }
+
+    @Benchmark
+    public Number segment() {
+        return generator.nextId(entity);
+    }
+
+    @Benchmark
+    public long maxPlusOne() throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT MAX(id) FROM data_e_table");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) + 1 : 1;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.config.JythonToolPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.python.util.PythonInterpreter;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP工具调用吞吐：解释器池直接调用预解析的工具函数，对照改造前的单个共享解释器（set 参数 + eval 拼接的源码）。
+ * 共享解释器并发调用会互相覆盖全局变量，对照组加锁串行执行；分别测1、8、32个并发调用方
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JythonToolBenchmark {
+
+    private static final String TOOL = "calculate_equipment_health_score";
+    private static final Map<String, Object> PARAMETERS = Map.of("elevator_id", "EL-001");
+
+    private JythonToolPool pool;
+    private PythonInterpreter shared;
+
+    @Setup
+    public void setUp() throws Exception {
+        String source;
+        try (InputStream is = new ClassPathResource("python/mcp_tools.py").getInputStream()) {
+            source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        // 工具函数会打印日志，基准中丢弃输出
+        pool = new JythonToolPool(8, 60_000, source, "mcp_tools.py", Map.of(), List.of(TOOL),
+                OutputStream.nullOutputStream());
+        shared = new PythonInterpreter();
+        shared.setOut(OutputStream.nullOutputStream());
+        shared.exec(source);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        shared.close();
+    }
+
+    @Benchmark
+    public String pooled() throws Exception {
+        return pool.call(TOOL, PARAMETERS);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String pooled8() throws Exception {
+        return pool.call(TOOL, PARAMETERS);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String pooled32() throws Exception {
+        return pool.call(TOOL, PARAMETERS);
+    }
+
+    @Benchmark
+    public String sharedEval() {
+        return evalOnShared();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String sharedEval8() {
+        return evalOnShared();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String sharedEval32() {
+        return evalOnShared();
+    }
+
+    private String evalOnShared() {
+        synchronized (shared) {
+            StringBuilder functionCall = new StringBuilder(TOOL + "(");
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : PARAMETERS.entrySet()) {
+                shared.set(entry.getKey(), entry.getValue());
+                if (!first) {
+                    functionCall.append(", ");
+                }
+                functionCall.append(entry.getKey()).append("=").append(entry.getKey());
+                first = false;
+            }
+            functionCall.append(")");
+            return shared.eval(functionCall.toString()).toString();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.V1.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发延迟直方图：定宽桶（0.1ms），超出上限的样本记入最后一个桶，最大值单独精确记录
+ * 记录过程无锁、不分配对象，可在WebSocket接收线程上直接调用
+ */
+final class LatencyHistogram {
+
+    private static final long BUCKET_NANOS = 100_000;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param maxMillis 可区分的最大延迟
+     */
+    LatencyHistogram(int maxMillis) {
+        this.buckets = new AtomicLongArray((int) (maxMillis * 1_000_000L / BUCKET_NANOS) + 1);
+    }
+
+    void record(long nanos) {
+        int index = (int) Math.min(buckets.length() - 1, Math.max(0, nanos) / BUCKET_NANOS);
+        buckets.incrementAndGet(index);
+        count.increment();
+        maxNanos.accumulate(nanos);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return 百分位延迟（毫秒，取所在桶的上界）
+     */
+    double percentileMillis(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return (i + 1) * BUCKET_NANOS / 1_000_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count());
+        map.put("p50Ms", percentileMillis(50));
+        map.put("p90Ms", percentileMillis(90));
+        map.put("p99Ms", percentileMillis(99));
+        map.put("p999Ms", percentileMillis(99.9));
+        map.put("maxMs", Math.round(maxMillis() * 10.0) / 10.0);
+        return map;
+    }
+}
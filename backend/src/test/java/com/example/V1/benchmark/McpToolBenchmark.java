@@ -0,0 +1,87 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.config.JythonToolPool;
+import com.example.V1.mcp.McpToolRegistry;
+import com.example.V1.service.IDataETableService;
+import com.example.V1.service.IMaintainTableService;
+import com.example.V1.service.impl.HealthScoreEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP工具单次调用延迟：Java工具（McpToolRegistry 直接调用服务层）对照 Jython 解释器池执行 mcp_tools.py。
+ * 启动完整Spring上下文（见 EmbeddedApplication），两边查询同一个内存H2库
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class McpToolBenchmark {
+
+    private static final Map<String, Object> HEALTH_PARAMETERS = Map.of("elevator_id", "EL-001");
+    private static final Map<String, Object> PATTERN_PARAMETERS = Map.of("days_back", 3650);
+
+    private ConfigurableApplicationContext context;
+    private McpToolRegistry registry;
+    private JythonToolPool pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = EmbeddedApplication.start("mcp-bench");
+        registry = context.getBean(McpToolRegistry.class);
+        String source;
+        try (InputStream is = new ClassPathResource("python/mcp_tools.py").getInputStream()) {
+            source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        pool = new JythonToolPool(1, 60_000, source, "mcp_tools.py",
+                Map.of("dataETableService", context.getBean(IDataETableService.class),
+                        "maintainTableService", context.getBean(IMaintainTableService.class),
+                        "healthScoreEngine", context.getBean(HealthScoreEngine.class)),
+                registry.getToolNames(), OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Object javaHealthScore() throws Exception {
+        return registry.call("calculate_equipment_health_score", HEALTH_PARAMETERS);
+    }
+
+    @Benchmark
+    public Object jythonHealthScore() throws Exception {
+        return pool.call("calculate_equipment_health_score", HEALTH_PARAMETERS);
+    }
+
+    @Benchmark
+    public Object javaAnomalyPatterns() throws Exception {
+        return registry.call("analyze_anomaly_patterns", PATTERN_PARAMETERS);
+    }
+
+    @Benchmark
+    public Object jythonAnomalyPatterns() throws Exception {
+        return pool.call("analyze_anomaly_patterns", PATTERN_PARAMETERS);
+    }
+}
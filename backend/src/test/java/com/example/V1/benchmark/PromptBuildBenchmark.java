@@ -0,0 +1,87 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.Dto.DataETableForAiDTO;
+import com.example.V1.config.BuildPromptWithKnowleConfig;
+import com.example.V1.config.KnowledgeIndex;
+import com.example.V1.config.KnowledgeLoader;
+import com.example.V1.entity.PromptKnowledge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI分析前置步骤基准：加载知识库、拼装提示词；运行时只检索常驻索引，load* 两项作为改造前的对照
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PromptBuildBenchmark {
+
+    private final BuildPromptWithKnowleConfig promptBuilder = new BuildPromptWithKnowleConfig();
+    private List<PromptKnowledge> knowledgeList;
+    private KnowledgeIndex knowledgeIndex;
+    private DataETableForAiDTO data;
+    private List<DataETableForAiDTO> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        knowledgeList = KnowledgeLoader.loadKnowledgeFromJson();
+        knowledgeIndex = KnowledgeIndex.build(knowledgeList);
+        data = new DataETableForAiDTO();
+        data.setSystemName("曳引系统");
+        data.setSystemSqName("曳引机");
+        data.setEName("电机温度过高");
+        data.setESqName("95.3");
+        batch = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            batch.add(data);
+        }
+    }
+
+    @Benchmark
+    public List<PromptKnowledge> loadKnowledge() throws Exception {
+        return KnowledgeLoader.loadKnowledgeFromJson();
+    }
+
+    @Benchmark
+    public String buildPrompt() throws Exception {
+        return promptBuilder.buildPromptWithKnowledge(knowledgeList, data);
+    }
+
+    @Benchmark
+    public String loadKnowledgeAndBuildPrompt() throws Exception {
+        return promptBuilder.buildPromptWithKnowledge(KnowledgeLoader.loadKnowledgeFromJson(), data);
+    }
+
+    @Benchmark
+    public List<PromptKnowledge> searchKnowledge() {
+        return knowledgeIndex.search(data.getSystemName() + " " + data.getSystemSqName() + " " + data.getEName(), 10);
+    }
+
+    @Benchmark
+    public String searchKnowledgeAndBuildPrompt() throws Exception {
+        return promptBuilder.buildPromptWithKnowledge(searchKnowledge(), data);
+    }
+
+    /**
+     * 8条异常合并为一个提示词，与逐条构建8次对比
+     */
+    @Benchmark
+    public String buildBatchPrompt() throws Exception {
+        return promptBuilder.buildBatchPromptWithKnowledge(searchKnowledge(), batch);
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.V1.benchmark;
+
+import com.example.V1.Handler.ElevatorBinaryCodec;
+import com.example.V1.Handler.ElevatorOutboundDispatcher;
+import com.example.V1.Handler.FrameProtocol;
+import com.example.V1.service.impl.ElevatorTickEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * /ws/elevator/status 压测与长稳（soak）工具
+ * 默认在进程内启动完整应用（见 EmbeddedApplication），按设定速率建立大量状态订阅连接，
+ * 并以设定的总速率随机向各连接发送 GOTO_FLOOR / TOGGLE_DOOR 指令；每个报告周期输出一行，结束时输出JSON汇总：
+ * <ul>
+ *     <li>帧间隔：同一连接相邻两帧的到达间隔，理想值为节拍间隔，反映推送抖动</li>
+ *     <li>指令延迟：发出 GOTO_FLOOR 到该连接收到 targetFloor 等于目标层的帧</li>
+ *     <li>丢帧：服务端已发出但客户端未收到的帧数（仅进程内模式），以及增量/二进制协议的帧序号缺口（含服务端合并的帧）</li>
+ *     <li>堆内存与线程数：进程内模式下包含服务端和压测客户端两部分</li>
+ * </ul>
+ * 命令行运行（test classpath，backend 目录下），参数形如 key=value，见 Settings：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.V1.benchmark.StatusSocketSoakHarness
+ *     -Dexec.args="connections=5000 elevators=500 protocol=JSON_DELTA commandsPerSecond=200 durationSeconds=3600"
+ */
+public class StatusSocketSoakHarness {
+
+    private static final String STATUS_PATH = "/ws/elevator/status/";
+    private static final int HISTOGRAM_MAX_MILLIS = 10_000;
+    // 超过该时长仍未在帧中体现的指令记为未确认
+    private static final long COMMAND_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Probe> probes = new CopyOnWriteArrayList<>();
+
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder seqGaps = new LongAdder();
+    private final LongAdder commandsSent = new LongAdder();
+    private final LongAdder commandsUnacknowledged = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder closedByServer = new LongAdder();
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    private final LatencyHistogram frameIntervalTotal = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+    private final LatencyHistogram commandLatencyTotal = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+    // 报告周期内的直方图，每次输出后替换
+    private volatile LatencyHistogram frameInterval = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+    private volatile LatencyHistogram commandLatency = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private long peakHeapBytes = 0;
+
+    private ConfigurableApplicationContext context;
+
+    public StatusSocketSoakHarness(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * 运行压测并返回汇总
+     */
+    public Map<String, Object> run() throws Exception {
+        String baseUrl = settings.url;
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            context = EmbeddedApplication.start("soak");
+            baseUrl = "ws://localhost:" + EmbeddedApplication.port(context);
+        }
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "soak-harness");
+            t.setDaemon(true);
+            return t;
+        });
+        long startNanos = System.nanoTime();
+        try {
+            connectAll(client, baseUrl);
+            System.out.printf("已建立 %d/%d 个连接，耗时 %.1fs，失败 %d%n", openConnections.get(), settings.connections,
+                    (System.nanoTime() - startNanos) / 1e9, connectFailures.sum());
+
+            long soakStart = System.nanoTime();
+            if (settings.commandsPerSecond > 0) {
+                long periodNanos = Math.max(1, (long) (1e9 / settings.commandsPerSecond));
+                scheduler.scheduleAtFixedRate(this::sendRandomCommand, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+            }
+            scheduler.scheduleAtFixedRate(() -> report(soakStart),
+                    settings.reportIntervalSeconds, settings.reportIntervalSeconds, TimeUnit.SECONDS);
+            TimeUnit.SECONDS.sleep(settings.durationSeconds);
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            return summary(soakStart);
+        } finally {
+            scheduler.shutdownNow();
+            for (Probe probe : probes) {
+                probe.closeQuietly();
+            }
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * 按设定速率逐个建立连接，连接均匀分布到各电梯
+     */
+    private void connectAll(StandardWebSocketClient client, String baseUrl) throws InterruptedException {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        String subprotocol = subprotocolOf(settings.protocol);
+        headers.setSecWebSocketProtocol(subprotocol);
+        long intervalNanos = settings.connectRatePerSecond > 0 ? (long) (1e9 / settings.connectRatePerSecond) : 0;
+        List<CompletableFuture<WebSocketSession>> pending = new ArrayList<>();
+        long next = System.nanoTime();
+        for (int i = 0; i < settings.connections; i++) {
+            String elevatorId = "LOAD-" + (i % settings.elevators);
+            Probe probe = new Probe(elevatorId);
+            pending.add(client.execute(probe, headers, URI.create(baseUrl + STATUS_PATH + elevatorId))
+                    .whenComplete((session, error) -> {
+                        if (error != null) {
+                            connectFailures.increment();
+                        }
+                    }));
+            next += intervalNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        for (CompletableFuture<WebSocketSession> future : pending) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (Exception ignored) {
+                // 已在 whenComplete 中计入失败
+            }
+        }
+    }
+
+    private void sendRandomCommand() {
+        int size = probes.size();
+        if (size == 0) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Probe probe = probes.get(random.nextInt(size));
+        try {
+            if (random.nextDouble() < settings.toggleDoorRatio) {
+                probe.send("TOGGLE_DOOR", 0);
+            } else {
+                probe.sendGoto(random.nextInt(settings.floorCount) + 1);
+            }
+            commandsSent.increment();
+        } catch (Exception e) {
+            // 连接已被关闭，由 afterConnectionClosed 统计
+        }
+    }
+
+    private void report(long soakStart) {
+        LatencyHistogram intervals = frameInterval;
+        LatencyHistogram commands = commandLatency;
+        frameInterval = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+        commandLatency = new LatencyHistogram(HISTOGRAM_MAX_MILLIS);
+
+        long heap = memoryBean.getHeapMemoryUsage().getUsed();
+        peakHeapBytes = Math.max(peakHeapBytes, heap);
+        System.out.printf("[%5ds] 连接=%d 帧=%d 帧间隔p50/p99=%.1f/%.1fms 指令=%d 指令延迟p50/p99/max=%.1f/%.1f/%.1fms "
+                        + "序号缺口=%d 堆=%dMB 线程=%d%s%n",
+                (System.nanoTime() - soakStart) / 1_000_000_000L, openConnections.get(), framesReceived.sum(),
+                intervals.percentileMillis(50), intervals.percentileMillis(99), commands.count(),
+                commands.percentileMillis(50), commands.percentileMillis(99), commands.maxMillis(),
+                seqGaps.sum(), heap >> 20, threadBean.getThreadCount(), serverLine());
+    }
+
+    private String serverLine() {
+        if (context == null) {
+            return "";
+        }
+        Map<String, Object> outbound = context.getBean(ElevatorOutboundDispatcher.class).getStats();
+        Map<String, Object> tick = context.getBean(ElevatorTickEngine.class).getStats();
+        return String.format(" | 服务端 发送=%s 合并=%s 丢弃=%s 慢连接关闭=%s 节拍最大延迟=%sus",
+                outbound.get("sentFrames"), outbound.get("coalescedFrames"), outbound.get("droppedFrames"),
+                outbound.get("slowSessionsClosed"), tick.get("maxLagMicros"));
+    }
+
+    private Map<String, Object> summary(long soakStart) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("protocol", settings.protocol.name());
+        report.put("connectionsRequested", settings.connections);
+        report.put("connectionsOpen", openConnections.get());
+        report.put("connectFailures", connectFailures.sum());
+        report.put("closedByServer", closedByServer.sum());
+        report.put("elevators", settings.elevators);
+        report.put("durationSeconds", Math.round((System.nanoTime() - soakStart) / 1e9));
+        report.put("framesReceived", framesReceived.sum());
+        report.put("seqGaps", seqGaps.sum());
+        report.put("frameInterval", frameIntervalTotal.toMap());
+        report.put("commandsSent", commandsSent.sum());
+        report.put("commandsUnacknowledged", commandsUnacknowledged.sum());
+        report.put("commandLatency", commandLatencyTotal.toMap());
+        report.put("heapUsedMb", memoryBean.getHeapMemoryUsage().getUsed() >> 20);
+        report.put("peakHeapUsedMb", peakHeapBytes >> 20);
+        report.put("threads", threadBean.getThreadCount());
+        report.put("peakThreads", threadBean.getPeakThreadCount());
+        if (context != null) {
+            Map<String, Object> outbound = context.getBean(ElevatorOutboundDispatcher.class).getStats();
+            long sent = (Long) outbound.get("sentFrames");
+            report.put("server", outbound);
+            report.put("serverTick", context.getBean(ElevatorTickEngine.class).getStats());
+            // 收尾时仍在途的少量帧也会计入
+            report.put("framesLostInTransit", Math.max(0, sent - framesReceived.sum()));
+        }
+        return report;
+    }
+
+    private static String subprotocolOf(FrameProtocol protocol) {
+        switch (protocol) {
+            case BINARY:
+                return FrameProtocol.SUBPROTOCOL_BINARY;
+            case JSON_DELTA:
+                return FrameProtocol.SUBPROTOCOL_DELTA;
+            default:
+                return FrameProtocol.SUBPROTOCOL_JSON;
+        }
+    }
+
+    /**
+     * 从JSON帧中读取整数字段，不存在时返回-1；帧由服务端手写序列化，字段格式固定，无需完整解析
+     */
+    private static long longField(String payload, String field) {
+        int at = payload.indexOf(field);
+        if (at < 0) {
+            return -1;
+        }
+        int i = at + field.length();
+        long value = 0;
+        boolean digits = false;
+        while (i < payload.length()) {
+            char c = payload.charAt(i++);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            digits = true;
+        }
+        return digits ? value : -1;
+    }
+
+    /**
+     * 单个订阅连接：统计到达帧、帧序号缺口，并确认本连接发出的 GOTO_FLOOR 指令
+     */
+    private final class Probe extends AbstractWebSocketHandler {
+
+        private final String elevatorId;
+        private volatile WebSocketSession session;
+        private long lastFrameNanos = 0;
+        private long lastSeq = -1;
+        // 等待确认的目标层及发出时间，0 表示没有
+        private volatile int pendingFloor = 0;
+        private volatile long pendingSinceNanos = 0;
+        private volatile boolean closing = false;
+
+        private Probe(String elevatorId) {
+            this.elevatorId = elevatorId;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) {
+            this.session = session;
+            openConnections.incrementAndGet();
+            probes.add(this);
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            String payload = message.getPayload();
+            onFrame(longField(payload, "\"seq\":"), longField(payload, "\"targetFloor\":"));
+        }
+
+        @Override
+        protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+            ByteBuffer buf = message.getPayload();
+            if (buf.remaining() < ElevatorBinaryCodec.FIXED_LENGTH || buf.get(1) != ElevatorBinaryCodec.FRAME_STATE) {
+                return;
+            }
+            int base = buf.position();
+            long seq = buf.getInt(base + 2) & 0xFFFFFFFFL;
+            int idLength = buf.get(base + 6) & 0xFF;
+            int targetFloor = buf.get(base + 11 + idLength) & 0xFF;
+            onFrame(seq, targetFloor);
+        }
+
+        private void onFrame(long seq, long targetFloor) {
+            long now = System.nanoTime();
+            framesReceived.increment();
+            if (lastFrameNanos != 0) {
+                long interval = now - lastFrameNanos;
+                frameInterval.record(interval);
+                frameIntervalTotal.record(interval);
+            }
+            lastFrameNanos = now;
+
+            // 完整状态帧不带序号；同一序号可能重复推送（状态未变化）
+            if (seq >= 0) {
+                if (lastSeq >= 0 && seq > lastSeq + 1) {
+                    seqGaps.add(seq - lastSeq - 1);
+                }
+                lastSeq = seq;
+            }
+
+            int floor = pendingFloor;
+            if (floor != 0 && targetFloor == floor) {
+                long latency = now - pendingSinceNanos;
+                pendingFloor = 0;
+                commandLatency.record(latency);
+                commandLatencyTotal.record(latency);
+            }
+        }
+
+        void sendGoto(int floor) throws Exception {
+            if (pendingFloor != 0) {
+                // 上一条指令尚未体现在帧中（可能已被其他连接的指令覆盖）
+                commandsUnacknowledged.increment();
+            }
+            pendingSinceNanos = System.nanoTime();
+            pendingFloor = floor;
+            send("GOTO_FLOOR", floor);
+        }
+
+        void send(String command, int floor) throws Exception {
+            WebSocketSession current = session;
+            if (current == null || !current.isOpen()) {
+                return;
+            }
+            if (pendingFloor != 0 && System.nanoTime() - pendingSinceNanos > COMMAND_TIMEOUT_NANOS) {
+                pendingFloor = 0;
+                commandsUnacknowledged.increment();
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("elevatorId", elevatorId);
+            body.put("command", command);
+            body.put("floor", floor);
+            // 指令只由调度线程发送，无需对会话加锁
+            current.sendMessage(new TextMessage(objectMapper.writeValueAsString(body)));
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+            probes.remove(this);
+            openConnections.decrementAndGet();
+            if (!closing) {
+                closedByServer.increment();
+            }
+        }
+
+        void closeQuietly() {
+            closing = true;
+            WebSocketSession current = session;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (Exception ignored) {
+                    // 结束阶段忽略关闭失败
+                }
+            }
+        }
+    }
+
+    /**
+     * 压测参数
+     */
+    public static class Settings {
+        // 目标服务地址，例如 ws://host:8080；为空时在进程内启动应用
+        public String url = "";
+        public int connections = 1000;
+        // 连接均匀分布到的电梯数
+        public int elevators = 100;
+        public FrameProtocol protocol = FrameProtocol.JSON_FULL;
+        public double connectRatePerSecond = 200;
+        // 所有连接合计的指令速率
+        public double commandsPerSecond = 50;
+        public double toggleDoorRatio = 0.2;
+        public int floorCount = 15;
+        public long durationSeconds = 300;
+        public long reportIntervalSeconds = 10;
+    }
+
+    /**
+     * 命令行入口，参数形如 key=value，对应 Settings 的字段
+     */
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "url":
+                    settings.url = value;
+                    break;
+                case "connections":
+                    settings.connections = Integer.parseInt(value);
+                    break;
+                case "elevators":
+                    settings.elevators = Integer.parseInt(value);
+                    break;
+                case "protocol":
+                    settings.protocol = FrameProtocol.valueOf(value);
+                    break;
+                case "connectRatePerSecond":
+                    settings.connectRatePerSecond = Double.parseDouble(value);
+                    break;
+                case "commandsPerSecond":
+                    settings.commandsPerSecond = Double.parseDouble(value);
+                    break;
+                case "toggleDoorRatio":
+                    settings.toggleDoorRatio = Double.parseDouble(value);
+                    break;
+                case "floorCount":
+                    settings.floorCount = Integer.parseInt(value);
+                    break;
+                case "durationSeconds":
+                    settings.durationSeconds = Long.parseLong(value);
+                    break;
+                case "reportIntervalSeconds":
+                    settings.reportIntervalSeconds = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+        Map<String, Object> report = new StatusSocketSoakHarness(settings).run();
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        System.exit(0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.V1.config;
+
+import com.example.V1.Dto.DataETableForAiDTO;
+import com.example.V1.entity.PromptKnowledge;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildPromptWithKnowleConfigTests {
+
+    private static final List<String> ECHO_FIELDS = List.of("systemName", "systemSqName", "eName", "eData");
+
+    private static DataETableForAiDTO data(String eName, String eData) {
+        DataETableForAiDTO data = new DataETableForAiDTO();
+        data.setSystemName("曳引系统");
+        data.setSystemSqName("曳引机");
+        data.setEName(eName);
+        data.setESqName(eData);
+        return data;
+    }
+
+    private static List<PromptKnowledge> knowledge() {
+        PromptKnowledge k = new PromptKnowledge();
+        k.setPrompt("曳引机的电机温度检测为95.3，是否正常？");
+        k.setCompletion("-");
+        return List.of(k);
+    }
+
+    @Test
+    void batchItemsUseTheFieldNamesTheModelMustEcho() throws Exception {
+        String prompt = new BuildPromptWithKnowleConfig().buildBatchPromptWithKnowledge(knowledge(),
+                List.of(data("电机温度过高", "95°C"), data("振动过大", "4.5mm/s")));
+
+        assertTrue(prompt.contains("1. {\"systemName\":\"曳引系统\",\"systemSqName\":\"曳引机\","
+                + "\"eName\":\"电机温度过高\",\"eData\":\"95°C\"}"), prompt);
+        assertFalse(prompt.contains("\"ename\""), prompt);
+        assertFalse(prompt.contains("\"esqName\""), prompt);
+
+        // 每条异常的字段正是输出格式中要求原样回显的字段
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> items = new ArrayList<>();
+        for (String line : prompt.split("\n")) {
+            if (line.matches("\\d+\\. \\{.*")) {
+                items.add(mapper.readTree(line.substring(line.indexOf('{'))));
+            }
+        }
+        assertEquals(2, items.size());
+        for (JsonNode item : items) {
+            List<String> fields = new ArrayList<>();
+            item.fieldNames().forEachRemaining(fields::add);
+            assertEquals(ECHO_FIELDS, fields);
+        }
+        for (String field : ECHO_FIELDS) {
+            assertTrue(prompt.contains("\"" + field + "\": \"与第1条异常相同\""), field);
+        }
+        assertEquals("4.5mm/s", items.get(1).get("eData").asText());
+    }
+
+    @Test
+    void singlePromptUsesTheSameFieldNames() throws Exception {
+        String prompt = new BuildPromptWithKnowleConfig().buildPromptWithKnowledge(knowledge(), data("电机温度过高", "95°C"));
+
+        assertTrue(prompt.contains("{\"systemName\":\"曳引系统\",\"systemSqName\":\"曳引机\","
+                + "\"eName\":\"电机温度过高\",\"eData\":\"95°C\"}"), prompt);
+        assertFalse(prompt.contains("\"esqName\""), prompt);
+    }
+}
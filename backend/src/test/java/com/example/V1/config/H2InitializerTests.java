@@ -0,0 +1,45 @@
+package com.example.V1.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class H2InitializerTests {
+
+    @Test
+    void stripsCommentLinesBeforeEachStatement() {
+        assertEquals("CREATE TABLE t (id INT)",
+                H2Initializer.stripLeadingComments("\n-- 说明\n-- 第二行\nCREATE TABLE t (id INT)"));
+        assertEquals("", H2Initializer.stripLeadingComments("-- 只有注释"));
+    }
+
+    @Test
+    void freshLowerCaseDatabaseIsCreatedOnceFromScript() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        // 与 application.yml 相同的模式：表名按小写保存
+        dataSource.setURL("jdbc:h2:mem:init-" + System.nanoTime()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        H2Initializer initializer = new H2Initializer();
+        ReflectionTestUtils.setField(initializer, "jdbcTemplate", jdbcTemplate);
+
+        initializer.run();
+        int rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM data_e_table", Integer.class);
+        assertTrue(rows > 0);
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                + " WHERE TABLE_SCHEMA = 'public'"
+                + " AND TABLE_NAME IN ('data_e_table', 'ai_table', 'users', 'maintain_table')", Integer.class));
+        // 新建的库同样补上异常事件合并的累计列
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_NAME = 'data_e_table'"
+                + " AND COLUMN_NAME IN ('last_seen', 'occurrences', 'min_value', 'max_value')", Integer.class));
+
+        // 再次启动识别出已有表结构，不重复导入
+        initializer.run();
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM data_e_table", Integer.class));
+    }
+}
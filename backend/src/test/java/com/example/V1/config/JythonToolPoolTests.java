@@ -0,0 +1,34 @@
+package com.example.V1.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JythonToolPoolTests {
+
+    @Test
+    void loadsToolScriptWithEncodingDeclaration() throws Exception {
+        String source;
+        try (InputStream is = new ClassPathResource("python/mcp_tools.py").getInputStream()) {
+            source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(source.startsWith("# -*- coding: utf-8 -*-"));
+
+        try (JythonToolPool pool = new JythonToolPool(2, 1_000, source, "mcp_tools.py", Map.of(),
+                List.of("get_comprehensive_system_status"), OutputStream.nullOutputStream())) {
+            String result = pool.call("get_comprehensive_system_status", Map.of());
+            assertTrue(result.startsWith("{") && result.contains("\"success\": true"), result);
+            assertThrows(IllegalArgumentException.class, () -> pool.call("no_such_tool", Map.of()));
+            assertEquals(2L, pool.getStats().get("calls"));
+        }
+    }
+}
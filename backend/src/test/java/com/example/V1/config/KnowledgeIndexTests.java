@@ -0,0 +1,45 @@
+package com.example.V1.config;
+
+import com.example.V1.entity.PromptKnowledge;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnowledgeIndexTests {
+
+    private static PromptKnowledge knowledge(String prompt) {
+        PromptKnowledge k = new PromptKnowledge();
+        k.setPrompt(prompt);
+        k.setCompletion("-");
+        return k;
+    }
+
+    private final KnowledgeIndex index = KnowledgeIndex.build(List.of(
+            knowledge("曳引钢丝绳的断丝数检测为99.9，是否正常？"),
+            knowledge("导靴的导靴磨损量检测为70.3，是否正常？"),
+            knowledge("导靴的导靴磨损量检测为12.5，是否正常？"),
+            knowledge("曳引机的电机温度检测为95.3，是否正常？"),
+            knowledge("导靴的振动值检测为3.1，是否正常？")));
+
+    @Test
+    void mostRelevantEntryRanksFirst() {
+        List<PromptKnowledge> result = index.search("曳引系统 曳引机 电机温度过高", 3);
+        assertEquals("曳引机的电机温度检测为95.3，是否正常？", result.get(0).getPrompt());
+    }
+
+    @Test
+    void sameTemplateWithDifferentValuesIsReturnedOnce() {
+        List<PromptKnowledge> result = index.search("导靴 导靴磨损量", 5);
+        assertEquals("导靴的导靴磨损量检测为70.3，是否正常？", result.get(0).getPrompt());
+        assertEquals(1, result.stream().filter(k -> k.getPrompt().contains("磨损量")).count());
+        assertTrue(result.stream().anyMatch(k -> k.getPrompt().contains("振动值")));
+    }
+
+    @Test
+    void unrelatedQueryFallsBackToLeadingEntries() {
+        assertEquals(index.all().subList(0, 2), index.search("xyz", 2));
+    }
+}
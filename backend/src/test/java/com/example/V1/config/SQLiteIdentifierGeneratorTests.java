@@ -0,0 +1,122 @@
+package com.example.V1.config;
+
+import com.example.V1.entity.DataETable;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SQLiteIdentifierGeneratorTests {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ids-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection conn = dataSource.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE data_e_table (id INT PRIMARY KEY)");
+            st.execute("INSERT INTO data_e_table (id) VALUES (41)");
+        }
+    }
+
+    private SQLiteIdentifierGenerator newGenerator(int step) {
+        SQLiteIdentifierGenerator generator = new SQLiteIdentifierGenerator();
+        ReflectionTestUtils.setField(generator, "dataSource", dataSource);
+        ReflectionTestUtils.setField(generator, "step", step);
+        return generator;
+    }
+
+    @Test
+    void continuesAboveExistingRowsAndPersistedHighWater() {
+        SQLiteIdentifierGenerator first = newGenerator(100);
+        assertEquals(42L, first.nextId(new DataETable()).longValue());
+        assertEquals(43L, first.nextId(new DataETable()).longValue());
+        assertEquals(44L, first.reserve(DataETable.class, 10));
+        assertEquals(54L, first.nextId(new DataETable()).longValue());
+
+        // 超过一个号段的批量单独预留，不打断当前号段
+        long bulk = first.reserve(DataETable.class, 500);
+        assertEquals(142L, bulk);
+        assertEquals(55L, first.nextId(new DataETable()).longValue());
+
+        // 重启后从持久化的高水位之后继续，上一段未用完的id作废
+        SQLiteIdentifierGenerator restarted = newGenerator(100);
+        assertEquals(642L, restarted.nextId(new DataETable()).longValue());
+    }
+
+    @Test
+    void sixtyFourWritersNeverReceiveTheSameId() throws Exception {
+        SQLiteIdentifierGenerator generator = newGenerator(1000);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 64; w++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        long id = generator.nextId(new DataETable()).longValue();
+                        assertTrue(seen.add(id), "重复的id: " + id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(64 * 5_000, seen.size());
+    }
+
+    @Test
+    void concurrentFirstUseOfBulkAndSegmentReservationsDoesNotOverlap() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            setUp();
+            // 两个实例共享同一个库，实例之间靠主键冲突后重试
+            SQLiteIdentifierGenerator[] instances = {newGenerator(10), newGenerator(10)};
+            Set<Long> seen = ConcurrentHashMap.newKeySet();
+            CyclicBarrier start = new CyclicBarrier(16);
+            ExecutorService pool = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < 16; w++) {
+                    // 一半线程走超过号段的单独预留，一半线程触发号段加载，都是 id_segment 中该表的第一次写入
+                    boolean bulk = w % 2 == 0;
+                    SQLiteIdentifierGenerator generator = instances[w / 2 % 2];
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        int count = bulk ? 25 : 1;
+                        long first = bulk ? generator.reserve(DataETable.class, count)
+                                : generator.nextId(new DataETable()).longValue();
+                        for (long id = first; id < first + count; id++) {
+                            assertTrue(seen.add(id), "重复的id: " + id);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            assertEquals(8 * 25 + 8, seen.size());
+            assertTrue(seen.stream().allMatch(id -> id > 41));
+        }
+    }
+}
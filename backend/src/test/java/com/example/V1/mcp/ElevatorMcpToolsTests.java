@@ -0,0 +1,167 @@
+package com.example.V1.mcp;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.example.V1.Dto.ElevatorCommand;
+import com.example.V1.entity.AiTable;
+import com.example.V1.entity.DataETable;
+import com.example.V1.service.impl.AiTableServiceImpl;
+import com.example.V1.service.impl.DataETableServiceImpl;
+import com.example.V1.service.impl.Elevator;
+import com.example.V1.service.impl.ElevatorRegistry;
+import com.example.V1.service.impl.HealthScoreEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElevatorMcpToolsTests {
+
+    /**
+     * 最近的异常记录按时间倒序返回，不经过数据库
+     */
+    private static final class RecentDataETableService extends DataETableServiceImpl {
+        private final List<DataETable> recent = new ArrayList<>();
+
+        @Override
+        public long count(Wrapper<DataETable> queryWrapper) {
+            return recent.size();
+        }
+
+        @Override
+        public List<DataETable> list(Wrapper<DataETable> queryWrapper) {
+            return recent;
+        }
+    }
+
+    private static final class FixedAiTableService extends AiTableServiceImpl {
+        private final List<AiTable> results = new ArrayList<>();
+
+        @Override
+        public List<AiTable> list(Wrapper<AiTable> queryWrapper) {
+            return results;
+        }
+    }
+
+    private RecentDataETableService dataETableService;
+    private FixedAiTableService aiTableService;
+    private HealthScoreEngine healthScoreEngine;
+    private Map<String, Elevator> elevators;
+    private ElevatorMcpTools tools;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        dataETableService = new RecentDataETableService();
+        aiTableService = new FixedAiTableService();
+
+        healthScoreEngine = new HealthScoreEngine();
+        ReflectionTestUtils.setField(healthScoreEngine, "halfLifeHours", 720.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "penaltyScale", 60.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "criticalWeight", 10.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "warningWeight", 4.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "pendingWeight", 2.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "resolvedFactor", 0.2);
+        ReflectionTestUtils.setField(healthScoreEngine, "slowResolutionHours", 72.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "defaultElevator", "EL-001");
+
+        ElevatorRegistry registry = new ElevatorRegistry();
+        elevators = (Map<String, Elevator>) ReflectionTestUtils.getField(registry, "elevators");
+
+        tools = new ElevatorMcpTools();
+        ReflectionTestUtils.setField(tools, "dataETableService", dataETableService);
+        ReflectionTestUtils.setField(tools, "aiTableService", aiTableService);
+        ReflectionTestUtils.setField(tools, "healthScoreEngine", healthScoreEngine);
+        ReflectionTestUtils.setField(tools, "elevatorRegistry", registry);
+    }
+
+    private DataETable anomaly(int id, String elevatorId, String systemName, String systemSqName, Integer aiCode) {
+        DataETable data = new DataETable()
+                .setSystemName(systemName)
+                .setSystemSqName(systemSqName)
+                .setEName(elevatorId)
+                .setEData("95°C")
+                .setCreateTime(LocalDateTime.now().minusMinutes(id));
+        data.setId(id);
+        dataETableService.recent.add(data);
+        healthScoreEngine.recordAnomaly(data);
+        if (aiCode != null) {
+            AiTable ai = new AiTable();
+            ai.setEId(id);
+            ai.setAiCode(aiCode);
+            aiTableService.results.add(ai);
+            healthScoreEngine.recordSeverity(id, aiCode);
+        }
+        return data;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statusIsBuiltFromSimulationHealthAndRecentAnomalies() {
+        elevators.put("EL-001", new Elevator("EL-001", null));
+        Elevator halted = new Elevator("EL-002", null);
+        ElevatorCommand stop = new ElevatorCommand();
+        stop.setCommand("EMERGENCY_STOP");
+        halted.handleCommand(stop);
+        elevators.put("EL-002", halted);
+
+        anomaly(1, "EL-002", "曳引系统", "曳引机", 1);
+        anomaly(2, "EL-002", "曳引系统", "制动器", 1);
+        anomaly(3, "EL-002", "曳引系统", "钢丝绳", 1);
+        anomaly(4, "EL-002", "曳引系统", "曳引机", 1);
+        anomaly(5, "EL-001", "门系统", "门机", null);
+
+        Map<String, Object> status = (Map<String, Object>) tools.getComprehensiveSystemStatus(true, true).get("data");
+
+        assertNotEquals("2025-01-14 10:46:00", status.get("timestamp"));
+        assertEquals("存在故障", status.get("overall_status"));
+        Map<String, Integer> counts = (Map<String, Integer>) status.get("elevators");
+        assertEquals(2, counts.get("total"));
+        assertEquals(1, counts.get("idle"));
+        assertEquals(1, counts.get("fault"));
+        assertEquals(0, counts.get("running"));
+        assertEquals(0, counts.get("maintenance"));
+        assertEquals(5L, status.get("anomalies_24h"));
+        assertEquals(2, ((Map<String, Object>) status.get("health")).get("total_elevators"));
+
+        List<Map<String, Object>> alerts = (List<Map<String, Object>>) status.get("recent_alerts");
+        assertEquals(5, alerts.size());
+        assertEquals("critical", alerts.get(0).get("level"));
+        assertEquals("曳引系统/曳引机 EL-002: 95°C", alerts.get(0).get("message"));
+        assertEquals("pending", alerts.get(4).get("level"));
+
+        // 评分最低的电梯排在最前，只有待处理问题的电梯也列出
+        List<Map<String, Object>> priorities = (List<Map<String, Object>>) status.get("maintenance_priorities");
+        assertEquals(2, priorities.size());
+        assertEquals("EL-002", priorities.get(0).get("elevator"));
+        assertTrue((Double) priorities.get(0).get("health_score") < 80);
+        assertEquals(4, priorities.get(0).get("open_issues"));
+        assertEquals("EL-001", priorities.get(1).get("elevator"));
+
+        List<String> recommendations = (List<String>) status.get("recommendations");
+        assertTrue(recommendations.get(0).startsWith("EL-002 处于故障"), recommendations.toString());
+        assertTrue(recommendations.stream().anyMatch(r -> r.startsWith("EL-002 健康评分")), recommendations.toString());
+        assertFalse(recommendations.stream().anyMatch(r -> r.startsWith("EL-001")), recommendations.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void emptySystemReportsNoElevatorsOrAlerts() {
+        Map<String, Object> status = (Map<String, Object>) tools.getComprehensiveSystemStatus(false, true).get("data");
+
+        assertEquals("优秀", status.get("overall_status"));
+        assertEquals(0, ((Map<String, Integer>) status.get("elevators")).get("total"));
+        assertEquals(0L, status.get("anomalies_24h"));
+        assertTrue(((List<Object>) status.get("recent_alerts")).isEmpty());
+        assertFalse(status.containsKey("maintenance_priorities"));
+        assertEquals(List.of("各电梯运行正常，按计划执行定期保养"), status.get("recommendations"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.V1.mcp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpToolRegistryTests {
+
+    @McpToolProvider
+    static class SampleTools {
+        @McpTool(name = "echo", description = "回显")
+        public String echo(@McpParam(name = "text", description = "文本", required = true) String text,
+                           @McpParam(name = "times", description = "次数", defaultValue = "2") Integer times,
+                           @McpParam(name = "upper", description = "大写") Boolean upper) {
+            String result = text.repeat(times);
+            return Boolean.TRUE.equals(upper) ? result.toUpperCase() : result;
+        }
+    }
+
+    private McpToolRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(SampleTools.class);
+        context.refresh();
+        registry = new McpToolRegistry();
+        ReflectionTestUtils.setField(registry, "applicationContext", context);
+        registry.init();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generatesSchemaFromSignature() {
+        Map<String, Object> schema = (Map<String, Object>) registry.getToolSchemas().get("echo");
+        assertEquals("回显", schema.get("description"));
+        Map<String, Map<String, Object>> parameters = (Map<String, Map<String, Object>>) schema.get("parameters");
+        assertEquals("string", parameters.get("text").get("type"));
+        assertEquals(true, parameters.get("text").get("required"));
+        assertEquals("integer", parameters.get("times").get("type"));
+        assertFalse(parameters.get("times").containsKey("required"));
+        assertEquals("boolean", parameters.get("upper").get("type"));
+    }
+
+    @Test
+    void appliesDefaultsAndConvertsArguments() throws Exception {
+        assertEquals("abab", registry.call("echo", Map.of("text", "ab")));
+        assertEquals("ABABAB", registry.call("echo", Map.of("text", "ab", "times", "3", "upper", true)));
+    }
+
+    @Test
+    void rejectsInvalidCalls() {
+        assertThrows(IllegalArgumentException.class, () -> registry.call("missing", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> registry.call("echo", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> registry.call("echo", Map.of("text", "a", "other", 1)));
+        assertThrows(IllegalArgumentException.class, () -> registry.call("echo", Map.of("text", "a", "times", "x")));
+        assertTrue(registry.getToolNames().contains("echo"));
+    }
+}
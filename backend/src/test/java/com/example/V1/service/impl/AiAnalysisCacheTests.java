@@ -0,0 +1,78 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AiAnalysisCacheTests {
+
+    private AiAnalysisCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AiAnalysisCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "valueBand", 0.05);
+        // 不注入mapper，只测内存层
+        ReflectionTestUtils.setField(cache, "persistent", false);
+    }
+
+    private static DataETable anomaly(String eName, String eData) {
+        DataETable data = new DataETable();
+        data.setSystemName("曳引系统");
+        data.setSystemSqName("曳引机");
+        data.setEName(eName);
+        data.setEData(eData);
+        return data;
+    }
+
+    @Test
+    void nearbyValuesShareSignature() {
+        assertEquals(cache.signature(anomaly("温度过高", "90°C")), cache.signature(anomaly(" 温度过高 ", "90.5°C")));
+        assertNotEquals(cache.signature(anomaly("温度过高", "90°C")), cache.signature(anomaly("温度过高", "120°C")));
+        assertNotEquals(cache.signature(anomaly("温度过高", "90°C")), cache.signature(anomaly("温度过高", "90%")));
+        assertNotEquals(cache.signature(anomaly("温度过高", "90°C")), cache.signature(anomaly("振动过大", "90°C")));
+    }
+
+    @Test
+    void hitAfterPutAndMissOtherwise() {
+        assertNull(cache.get(anomaly("温度过高", "90°C")));
+        cache.put(anomaly("温度过高", "90°C"), 1, "曳引机过热", "严重故障", "停梯检查");
+
+        AiAnalysisCache.Entry entry = cache.getIfPresent(anomaly("温度过高", "90.5°C"));
+        assertNotNull(entry);
+        assertEquals(1, entry.getCode());
+        assertEquals("停梯检查", entry.getSuggestion());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cache.put(anomaly("a", "1"), 0, "a", "警告", "-");
+        cache.put(anomaly("b", "1"), 0, "b", "警告", "-");
+        cache.getIfPresent(anomaly("a", "1"));
+        cache.put(anomaly("c", "1"), 0, "c", "警告", "-");
+
+        assertNotNull(cache.getIfPresent(anomaly("a", "1")));
+        assertNull(cache.getIfPresent(anomaly("b", "1")));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void expiredEntryIsDropped() {
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 0L);
+        cache.put(anomaly("温度过高", "90°C"), 1, "曳引机过热", "严重故障", "停梯检查");
+
+        assertNull(cache.getIfPresent(anomaly("温度过高", "90°C")));
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.V1.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.example.V1.Dto.AiAnalysisStatusDTO;
+import com.example.V1.Dto.AnalysisStatus;
+import com.example.V1.Handler.AiAnalysisSocketHandler;
+import com.example.V1.config.KnowledgeBase;
+import com.example.V1.entity.AiTable;
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiAnalysisPipelineTests {
+
+    private static final String CRITICAL = "{\"aiCode\":1,\"aiResult\":\"曳引机过热\",\"建议\":\"停梯检查\"}";
+
+    /**
+     * 本地桩模型：按提示词返回固定应答，可用 block 挂起调用
+     */
+    private static final class StubChatClient extends ResilientChatClient {
+        private final List<String> prompts = new CopyOnWriteArrayList<>();
+        private volatile Function<String, String> reply = prompt -> CRITICAL;
+        private volatile CountDownLatch block;
+
+        @Override
+        public String call(String prompt) {
+            prompts.add(prompt);
+            CountDownLatch latch = block;
+            try {
+                if (latch != null) {
+                    latch.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+            return reply.apply(prompt);
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of("calls", prompts.size());
+        }
+    }
+
+    /**
+     * 内存中的 ai_table
+     */
+    private static final class StubAiTableService extends AiTableServiceImpl {
+        private final List<AiTable> rows = new CopyOnWriteArrayList<>();
+        private volatile AiTable lookup;
+
+        @Override
+        public boolean save(AiTable entity) {
+            rows.add(entity);
+            return true;
+        }
+
+        @Override
+        public AiTable getOne(Wrapper<AiTable> queryWrapper, boolean throwEx) {
+            return lookup;
+        }
+    }
+
+    private StubChatClient chatClient;
+    private StubAiTableService aiTableService;
+    private AiAnalysisPipeline pipeline;
+    private int nextId;
+
+    @BeforeEach
+    void setUp() {
+        chatClient = new StubChatClient();
+        aiTableService = new StubAiTableService();
+        pipeline = newPipeline(1, 8, 1, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        CountDownLatch block = chatClient.block;
+        if (block != null) {
+            block.countDown();
+        }
+        pipeline.stop();
+    }
+
+    private AiAnalysisPipeline newPipeline(int workerThreads, int queueCapacity, int batchMaxSize, long batchWindowMs) {
+        AiAnalysisCache cache = new AiAnalysisCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "valueBand", 0.05);
+        ReflectionTestUtils.setField(cache, "persistent", false);
+
+        AnomalyRuleClassifier classifier = new AnomalyRuleClassifier();
+        ReflectionTestUtils.setField(classifier, "enabled", false);
+
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        ReflectionTestUtils.setField(knowledgeBase, "topK", 10);
+
+        AiAnalysisPipeline pipeline = new AiAnalysisPipeline();
+        ReflectionTestUtils.setField(pipeline, "chatClient", chatClient);
+        ReflectionTestUtils.setField(pipeline, "aiTableService", aiTableService);
+        ReflectionTestUtils.setField(pipeline, "analysisSocketHandler", new AiAnalysisSocketHandler());
+        ReflectionTestUtils.setField(pipeline, "analysisCache", cache);
+        ReflectionTestUtils.setField(pipeline, "knowledgeBase", knowledgeBase);
+        ReflectionTestUtils.setField(pipeline, "ruleClassifier", classifier);
+        ReflectionTestUtils.setField(pipeline, "healthScoreEngine", new HealthScoreEngine());
+        ReflectionTestUtils.setField(pipeline, "workerThreads", workerThreads);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(pipeline, "statusRetention", 100);
+        ReflectionTestUtils.setField(pipeline, "batchMaxSize", batchMaxSize);
+        ReflectionTestUtils.setField(pipeline, "batchWindowMs", batchWindowMs);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private DataETable anomaly(String eName, String eData) {
+        DataETable data = new DataETable();
+        data.setId(++nextId);
+        data.setSystemName("曳引系统");
+        data.setSystemSqName("曳引机");
+        data.setEName(eName);
+        data.setEData(eData);
+        return data;
+    }
+
+    private AiAnalysisStatusDTO awaitStatus(DataETable data, AnalysisStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        AiAnalysisStatusDTO status = pipeline.getStatus(data.getId());
+        while ((status == null || status.getStatus() != expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = pipeline.getStatus(data.getId());
+        }
+        assertEquals(expected, status == null ? null : status.getStatus(), "mtDataId=" + data.getId());
+        return status;
+    }
+
+    private static boolean isBatch(String prompt) {
+        return prompt.contains("JSON数组");
+    }
+
+    /**
+     * 单条提示词按其中的异常名称作答，便于区分结论来自哪次调用
+     */
+    private static String single(String prompt, String... eNames) {
+        for (String eName : eNames) {
+            if (prompt.contains(eName)) {
+                return "{\"aiCode\":0,\"aiResult\":\"单独分析:" + eName + "\",\"建议\":\"上报\"}";
+            }
+        }
+        return "无法判断";
+    }
+
+    private static String element(int index, DataETable echo, String aiResult) {
+        return "{\"index\":" + index + ",\"systemName\":\"" + echo.getSystemName()
+                + "\",\"systemSqName\":\"" + echo.getSystemSqName() + "\",\"eName\":\"" + echo.getEName()
+                + "\",\"eData\":\"" + echo.getEData() + "\",\"aiCode\":1,\"aiResult\":\"" + aiResult
+                + "\",\"建议\":\"停梯检查\"}";
+    }
+
+    /**
+     * 让唯一的工作线程先忙于一条异常，随后提交的异常在队列中攒成批
+     */
+    private void queueBehindBusyWorker(DataETable... batch) throws InterruptedException {
+        chatClient.block = new CountDownLatch(1);
+        DataETable busy = anomaly("占用工作线程", "1");
+        pipeline.submit(busy);
+        awaitStatus(busy, AnalysisStatus.RUNNING);
+        for (DataETable data : batch) {
+            pipeline.submit(data);
+        }
+        CountDownLatch block = chatClient.block;
+        chatClient.block = null;
+        block.countDown();
+    }
+
+    @Test
+    void statusMovesFromQueuedThroughRunningToDone() throws Exception {
+        chatClient.block = new CountDownLatch(1);
+        DataETable first = anomaly("电机温度过高", "95°C");
+        DataETable second = anomaly("振动过大", "4.5mm/s");
+
+        assertEquals(AnalysisStatus.QUEUED, pipeline.submit(first).getStatus());
+        awaitStatus(first, AnalysisStatus.RUNNING);
+        // 唯一的工作线程被占用，第二条留在队列中
+        assertEquals(AnalysisStatus.QUEUED, pipeline.submit(second).getStatus());
+        assertEquals(AnalysisStatus.QUEUED, pipeline.getStatus(second.getId()).getStatus());
+
+        chatClient.block.countDown();
+        AiAnalysisStatusDTO done = awaitStatus(first, AnalysisStatus.DONE);
+        assertEquals(1, done.getAiCode());
+        assertEquals("曳引机过热", done.getAiResult());
+        assertEquals("停梯检查", done.getSuggestion());
+        assertEquals("电机温度过高", done.getEName());
+        awaitStatus(second, AnalysisStatus.DONE);
+        assertEquals(2, aiTableService.rows.size());
+        assertEquals(first.getId(), aiTableService.rows.get(0).getEId());
+    }
+
+    @Test
+    void unparsableReplyIsRecordedAsFailed() throws Exception {
+        chatClient.reply = prompt -> "模型暂时无法回答";
+        DataETable data = anomaly("电机温度过高", "95°C");
+        pipeline.submit(data);
+
+        AiAnalysisStatusDTO failed = awaitStatus(data, AnalysisStatus.FAILED);
+        assertEquals(0, failed.getAiCode());
+        assertEquals(1L, pipeline.getStats().get("failed"));
+        // 失败也保存，分析记录不丢
+        assertEquals(1, aiTableService.rows.size());
+    }
+
+    @Test
+    void fullQueueRejectsWithoutBlocking() throws Exception {
+        pipeline.stop();
+        pipeline = newPipeline(1, 1, 1, 0);
+        chatClient.block = new CountDownLatch(1);
+        DataETable running = anomaly("电机温度过高", "95°C");
+        pipeline.submit(running);
+        awaitStatus(running, AnalysisStatus.RUNNING);
+
+        assertEquals(AnalysisStatus.QUEUED, pipeline.submit(anomaly("振动过大", "4.5mm/s")).getStatus());
+        DataETable overflow = anomaly("电流过大", "25A");
+        AiAnalysisStatusDTO rejected = pipeline.submit(overflow);
+        assertEquals(AnalysisStatus.REJECTED, rejected.getStatus());
+        assertEquals(AnalysisStatus.REJECTED, pipeline.getStatus(overflow.getId()).getStatus());
+        assertEquals(1L, pipeline.getStats().get("rejected"));
+    }
+
+    @Test
+    void repeatedSignatureIsServedFromCache() throws Exception {
+        DataETable first = anomaly("电机温度过高", "95°C");
+        pipeline.submit(first);
+        awaitStatus(first, AnalysisStatus.DONE);
+
+        AiAnalysisStatusDTO cached = pipeline.submit(anomaly("电机温度过高", "95°C"));
+        assertEquals(AnalysisStatus.DONE, cached.getStatus());
+        assertEquals(1, cached.getAiCode());
+        assertEquals(1, chatClient.prompts.size());
+    }
+
+    @Test
+    void statusFallsBackToAiTableAndIsNullWhenUnknown() {
+        assertNull(pipeline.getStatus(404));
+
+        AiTable saved = new AiTable();
+        saved.setEId(404);
+        saved.setAiCode(0);
+        saved.setAiResult("导轨轻微偏差");
+        saved.setAiSeverity("警告");
+        aiTableService.lookup = saved;
+        AiAnalysisStatusDTO status = pipeline.getStatus(404);
+        assertEquals(AnalysisStatus.DONE, status.getStatus());
+        assertEquals("导轨轻微偏差", status.getAiResult());
+        assertTrue(status.getStatus().isFinished());
+    }
+
+    @Test
+    void shuffledBatchIndicesAreReanalyzedIndividually() throws Exception {
+        pipeline.stop();
+        pipeline = newPipeline(1, 8, 4, 0);
+        DataETable temperature = anomaly("电机温度过高", "95°C");
+        DataETable vibration = anomaly("振动过大", "4.5mm/s");
+        // 批量结果的序号互换：第1条回显的是第2条异常
+        chatClient.reply = prompt -> isBatch(prompt)
+                ? "[" + element(1, vibration, "错位结论") + "," + element(2, temperature, "错位结论") + "]"
+                : single(prompt, "电机温度过高", "振动过大", "占用工作线程");
+        queueBehindBusyWorker(temperature, vibration);
+
+        assertEquals("单独分析:电机温度过高", awaitStatus(temperature, AnalysisStatus.DONE).getAiResult());
+        assertEquals("单独分析:振动过大", awaitStatus(vibration, AnalysisStatus.DONE).getAiResult());
+        assertEquals(2L, pipeline.getStats().get("batchMismatches"));
+        // 缓存里是单独分析的结论，而不是错位的结论
+        DataETable repeat = anomaly("振动过大", "4.5mm/s");
+        assertEquals("单独分析:振动过大", pipeline.submit(repeat).getAiResult());
+    }
+
+    @Test
+    void missingBatchEntryIsReanalyzedIndividually() throws Exception {
+        pipeline.stop();
+        pipeline = newPipeline(1, 8, 4, 0);
+        DataETable temperature = anomaly("电机温度过高", "95°C");
+        DataETable vibration = anomaly("振动过大", "4.5mm/s");
+        chatClient.reply = prompt -> isBatch(prompt)
+                ? "[" + element(1, temperature, "批量结论") + "]"
+                : single(prompt, "振动过大", "占用工作线程");
+        queueBehindBusyWorker(temperature, vibration);
+
+        assertEquals("批量结论", awaitStatus(temperature, AnalysisStatus.DONE).getAiResult());
+        assertEquals("单独分析:振动过大", awaitStatus(vibration, AnalysisStatus.DONE).getAiResult());
+        // 占用工作线程的一条、一次批量、缺失条目补的一次
+        assertEquals(3, chatClient.prompts.size());
+        assertEquals(0L, pipeline.getStats().get("batchMismatches"));
+    }
+
+    @Test
+    void queuedAnomaliesAreSplitIntoBatchesOfMaxSize() throws Exception {
+        pipeline.stop();
+        pipeline = newPipeline(1, 8, 2, 0);
+        DataETable temperature = anomaly("电机温度过高", "95°C");
+        DataETable vibration = anomaly("振动过大", "4.5mm/s");
+        DataETable current = anomaly("电流过大", "25A");
+        chatClient.reply = prompt -> isBatch(prompt)
+                ? "[" + element(1, temperature, "批量结论") + "," + element(2, vibration, "批量结论") + "]"
+                : single(prompt, "电流过大", "占用工作线程");
+        queueBehindBusyWorker(temperature, vibration, current);
+
+        assertEquals("批量结论", awaitStatus(temperature, AnalysisStatus.DONE).getAiResult());
+        assertEquals("批量结论", awaitStatus(vibration, AnalysisStatus.DONE).getAiResult());
+        assertEquals("单独分析:电流过大", awaitStatus(current, AnalysisStatus.DONE).getAiResult());
+        assertEquals(3L, pipeline.getStats().get("batches"));
+        assertEquals(3L, pipeline.getStats().get("modelCalls"));
+        String batchPrompt = chatClient.prompts.get(1);
+        assertTrue(isBatch(batchPrompt) && batchPrompt.contains("振动过大") && !batchPrompt.contains("电流过大"));
+    }
+
+    @Test
+    void unavailableModelFailsTheWholeBatchWithoutCaching() throws Exception {
+        pipeline.stop();
+        pipeline = newPipeline(1, 8, 4, 0);
+        DataETable temperature = anomaly("电机温度过高", "95°C");
+        DataETable vibration = anomaly("振动过大", "4.5mm/s");
+        chatClient.reply = prompt -> {
+            if (isBatch(prompt)) {
+                throw new ResilientChatClient.LlmCallException(ResilientChatClient.Failure.CIRCUIT_OPEN, "熔断", null);
+            }
+            return single(prompt, "占用工作线程");
+        };
+        queueBehindBusyWorker(temperature, vibration);
+
+        // 规则未启用，无法降级判定
+        awaitStatus(temperature, AnalysisStatus.FAILED);
+        awaitStatus(vibration, AnalysisStatus.FAILED);
+        assertEquals(2, chatClient.prompts.size());
+        assertEquals(AnalysisStatus.QUEUED, pipeline.submit(anomaly("振动过大", "4.5mm/s")).getStatus());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyEpisodeWindowTests {
+
+    private AnomalyEpisodeWindow window;
+    private int nextId;
+
+    @BeforeEach
+    void setUp() {
+        AnomalyRuleClassifier classifier = new AnomalyRuleClassifier();
+        ReflectionTestUtils.setField(classifier, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(classifier, "enabled", true);
+        ReflectionTestUtils.setField(classifier, "location", "classpath:anomaly-rules.json");
+        ReflectionTestUtils.setField(classifier, "minConfidence", 0.8);
+        classifier.init();
+
+        window = new AnomalyEpisodeWindow();
+        ReflectionTestUtils.setField(window, "ruleClassifier", classifier);
+        ReflectionTestUtils.setField(window, "enabled", true);
+        ReflectionTestUtils.setField(window, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(window, "maxDurationMs", 3_600_000L);
+        ReflectionTestUtils.setField(window, "maxOpen", 2);
+    }
+
+    private static DataETable anomaly(String eName, String eData) {
+        return new DataETable()
+                .setSystemName("电气控制系统")
+                .setSystemSqName("电源")
+                .setEName(eName)
+                .setEData(eData);
+    }
+
+    private DataETable save(DataETable data) {
+        data.setId(++nextId);
+        window.complete(data, true);
+        return data;
+    }
+
+    @Test
+    void repeatsWithinWindowMergeIntoFirstRecord() {
+        DataETable first = anomaly("电压波动", "15%");
+        assertNull(window.admit(first, 0));
+        save(first);
+
+        AnomalyEpisodeWindow.Episode episode = window.admit(anomaly("电压波动", "15%"), 29_000);
+        assertNotNull(episode);
+        assertSame(episode, window.admit(anomaly("电压波动", "12%"), 58_000));
+        assertEquals(first.getId(), episode.getId());
+        assertEquals(3, episode.getOccurrences());
+
+        List<Object[]> rows = window.collectUpdates(59_000);
+        assertEquals(1, rows.size());
+        Object[] row = rows.get(0);
+        assertEquals(3, row[1]);
+        assertEquals(12.0, row[2]);
+        assertEquals(15.0, row[3]);
+        assertEquals(first.getId(), row[4]);
+        // 没有新的重复记录时不再回写
+        assertTrue(window.collectUpdates(60_000).isEmpty());
+    }
+
+    @Test
+    void windowSlidesAndThenClosesEpisode() {
+        DataETable first = save(nullAdmitted(anomaly("电压波动", "15%"), 0));
+        // 每次出现都把窗口往后推
+        for (long t = 50_000; t <= 200_000; t += 50_000) {
+            assertEquals(first.getId(), window.admit(anomaly("电压波动", "15%"), t).getId());
+        }
+        // 超过窗口后再出现是新事件
+        DataETable next = anomaly("电压波动", "15%");
+        assertNull(window.admit(next, 261_000));
+        save(next);
+        // 关闭的事件仍回写最后的累计值
+        List<Object[]> rows = window.collectUpdates(262_000);
+        assertEquals(1, rows.size());
+        assertEquals(5, rows.get(0)[1]);
+        assertEquals(1L, window.getStats().get("closed"));
+    }
+
+    @Test
+    void escalationOpensNewEpisode() {
+        save(nullAdmitted(motorTemperature("90°C"), 0));
+        assertNotNull(window.admit(motorTemperature("95°C"), 1_000));
+        // 从警告区间升到严重区间，需要重新入库和分析
+        assertNull(window.admit(motorTemperature("130°C"), 2_000));
+    }
+
+    private static DataETable motorTemperature(String eData) {
+        return anomaly("电机温度", eData).setSystemName("曳引系统").setSystemSqName("曳引机");
+    }
+
+    @Test
+    void failedInsertReleasesClaimAndOpenCountIsBounded() {
+        DataETable failed = nullAdmitted(anomaly("电压波动", "15%"), 0);
+        window.complete(failed, false);
+        assertNull(window.admit(anomaly("电压波动", "15%"), 1_000));
+
+        assertNull(window.admit(anomaly("导轨垂直度偏差", "0.8"), 1_000));
+        // 已跟踪 max-open 个事件，第三个签名不再跟踪，照常入库
+        assertNull(window.admit(anomaly("接触器", "1"), 1_000));
+        assertNull(window.admit(anomaly("接触器", "1"), 1_001));
+        assertEquals(2L, window.getStats().get("untracked"));
+    }
+
+    @Test
+    void concurrentRepeatIsInsertedUntrackedWithoutWaiting() throws Exception {
+        DataETable first = nullAdmitted(anomaly("电压波动", "15%"), 0);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // 首条记录尚未提交，其他线程的重复记录立即返回，作为未跟踪记录入库
+            DataETable repeat = anomaly("电压波动", "16%");
+            Future<AnomalyEpisodeWindow.Episode> other = pool.submit(() -> {
+                AnomalyEpisodeWindow.Episode episode = window.admit(repeat, 5);
+                repeat.setId(100);
+                window.complete(repeat, true);
+                return episode;
+            });
+            assertNull(other.get(1, TimeUnit.SECONDS));
+            assertEquals(1L, window.getStats().get("contended"));
+            assertEquals(0L, window.getStats().get("opened"));
+
+            // 未跟踪记录的 complete 不影响首条记录的占有
+            save(first);
+            AnomalyEpisodeWindow.Episode episode = window.admit(anomaly("电压波动", "17%"), 10);
+            assertEquals(first.getId(), episode.getId());
+            assertEquals(2, episode.getOccurrences());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private DataETable nullAdmitted(DataETable data, long now) {
+        assertNull(window.admit(data, now));
+        return data;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnomalyRuleClassifierTests {
+
+    private AnomalyRuleClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new AnomalyRuleClassifier();
+        ReflectionTestUtils.setField(classifier, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(classifier, "enabled", true);
+        ReflectionTestUtils.setField(classifier, "location", "classpath:anomaly-rules.json");
+        ReflectionTestUtils.setField(classifier, "minConfidence", 0.8);
+        classifier.init();
+    }
+
+    private static DataETable anomaly(String systemSqName, String eName, String eData) {
+        DataETable data = new DataETable();
+        data.setSystemName("测试系统");
+        data.setSystemSqName(systemSqName);
+        data.setEName(eName);
+        data.setEData(eData);
+        return data;
+    }
+
+    @Test
+    void warningRangeIsClassifiedAsWarning() {
+        AnomalyRuleClassifier.Verdict verdict = classifier.classify(anomaly("曳引机", "电机温度", "90°C"));
+        assertNotNull(verdict);
+        assertEquals(0, verdict.getCode());
+        assertEquals("警告", verdict.getSeverity());
+        assertTrue(verdict.getMessage().startsWith("【规则判定】"));
+    }
+
+    @Test
+    void criticalRangeAndBeyondAreCritical() {
+        assertEquals(1, classifier.classify(anomaly("曳引机", "电机温度", "110°C")).getCode());
+        assertEquals(1, classifier.classify(anomaly("曳引机", "电机温度", "150°C")).getCode());
+        // 制动力矩越小越危险
+        assertEquals(1, classifier.classify(anomaly("制动器", "制动力矩", "220")).getCode());
+        assertEquals(0, classifier.classify(anomaly("制动器", "制动力矩", "280")).getCode());
+    }
+
+    @Test
+    void parameterNameIsFoundInSubsystemField() {
+        // DataCollectionService 上报时参数名在 systemSqName，eName 为电梯编号
+        assertNotNull(classifier.classify(anomaly("开关门时间", "elevator-1", "5.0")));
+    }
+
+    @Test
+    void sharedParameterNameUsesTheRuleOfTheReportingComponent() {
+        DataETable traction = anomaly("曳引机", "电流", "22A").setSystemName("曳引系统");
+        DataETable door = anomaly("门机", "电流", "5.8A").setSystemName("门系统");
+        assertEquals(0, classifier.classify(traction).getCode());
+        assertTrue(classifier.classify(traction).getMessage().contains("曳引机"));
+        assertEquals(0, classifier.classify(door).getCode());
+        assertTrue(classifier.classify(door).getMessage().contains("门机"));
+        // 同样的22A对门机已经远超严重区间，不能套用曳引机的警告阈值
+        AnomalyRuleClassifier.Verdict overload = classifier.classify(anomaly("门机", "电流", "22A").setSystemName("门系统"));
+        assertEquals(1, overload.getCode());
+        assertTrue(overload.getMessage().contains("门机"));
+        // 只有系统时按系统区分
+        assertEquals("曳引机", classifier.findRule("曳引系统", "电流", null).getComponent());
+        assertEquals("门机", classifier.findRule("门系统", "电流", null).getComponent());
+    }
+
+    @Test
+    void nameOnlyMatchNeedsAnUnambiguousNameAndCompatibleUnit() {
+        // 通用参数名对应多个部件，又没有上下文时不猜
+        assertNull(classifier.findRule(null, "电流", null));
+        assertEquals("曳引机", classifier.findRule(null, "电机温度", null).getComponent());
+        // 上下文指向其他部件时不按名称单独匹配
+        assertNull(classifier.findRule("门系统 门机", "电机温度", null));
+        assertNull(classifier.classify(anomaly("门机", "电机温度", "95°C").setSystemName("门系统")));
+        // 单位与规则不一致
+        assertNull(classifier.findRule(null, "电机温度", "mm"));
+        assertNull(classifier.classify(anomaly("曳引机", "电机温度", "95mm")));
+        assertNotNull(classifier.findRule(null, "电机温度", "℃"));
+        // 最长的参数名没有合适的规则时不退回到更短的参数名
+        assertNull(classifier.findRule("曳引系统", "门机电流", "mm"));
+    }
+
+    @Test
+    void escalatesWhenNoRuleOrLowConfidence() {
+        assertNull(classifier.classify(anomaly("未知部件", "未知参数", "1.0")));
+        assertNull(classifier.classify(anomaly("电源", "电压波动", "-15%")));
+        // 紧挨着警告/严重分界
+        assertNull(classifier.classify(anomaly("曳引机", "电机温度", "100.2°C")));
+        assertEquals(1L, classifier.getStats().get("noRule"));
+        assertEquals(1L, classifier.getStats().get("outOfRange"));
+        assertEquals(1L, classifier.getStats().get("lowConfidence"));
+    }
+}
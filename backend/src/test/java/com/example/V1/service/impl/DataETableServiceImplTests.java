@@ -0,0 +1,339 @@
+package com.example.V1.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.example.V1.Dto.AiAnalysisStatusDTO;
+import com.example.V1.Dto.AnalysisStatus;
+import com.example.V1.commont.Result;
+import com.example.V1.config.MyMetaObjectHandler;
+import com.example.V1.config.SQLiteIdentifierGenerator;
+import com.example.V1.entity.DataETable;
+import com.example.V1.mapper.DataETableMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataETableServiceImplTests {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private AnomalyEpisodeWindow episodeWindow;
+    private DataETableServiceImpl service;
+
+    /**
+     * saveBatch 改为在同一数据源上直接执行 JDBC 批量插入，事务由 DataSourceTransactionManager 管理
+     */
+    private final class JdbcDataETableService extends DataETableServiceImpl {
+        @Override
+        public boolean saveBatch(Collection<DataETable> entityList, int batchSize) {
+            List<Object[]> rows = new ArrayList<>(entityList.size());
+            for (DataETable data : entityList) {
+                rows.add(new Object[]{data.getId(), data.getSystemName(), data.getSystemSqName(),
+                        data.getEName(), data.getEData(), data.getOccurrences()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO data_e_table (id, system_name, system_sq_name, e_name, e_data,"
+                    + " occurrences) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            return true;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:batch-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE data_e_table (id INT PRIMARY KEY, system_name VARCHAR(64) NOT NULL,"
+                + " system_sq_name VARCHAR(64) NOT NULL, e_name VARCHAR(64) NOT NULL, e_data VARCHAR(64),"
+                + " occurrences INT, create_time TIMESTAMP, last_seen TIMESTAMP, min_value DOUBLE, max_value DOUBLE)");
+
+        SQLiteIdentifierGenerator identifierGenerator = new SQLiteIdentifierGenerator();
+        ReflectionTestUtils.setField(identifierGenerator, "dataSource", dataSource);
+        ReflectionTestUtils.setField(identifierGenerator, "step", 100);
+
+        AnomalyRuleClassifier classifier = new AnomalyRuleClassifier();
+        ReflectionTestUtils.setField(classifier, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(classifier, "enabled", true);
+        ReflectionTestUtils.setField(classifier, "location", "classpath:anomaly-rules.json");
+        ReflectionTestUtils.setField(classifier, "minConfidence", 0.8);
+        classifier.init();
+
+        episodeWindow = new AnomalyEpisodeWindow();
+        ReflectionTestUtils.setField(episodeWindow, "ruleClassifier", classifier);
+        ReflectionTestUtils.setField(episodeWindow, "enabled", true);
+        ReflectionTestUtils.setField(episodeWindow, "windowMs", 60_000L);
+        ReflectionTestUtils.setField(episodeWindow, "maxDurationMs", 3_600_000L);
+        ReflectionTestUtils.setField(episodeWindow, "maxOpen", 100);
+
+        HealthScoreEngine healthScoreEngine = new HealthScoreEngine();
+        ReflectionTestUtils.setField(healthScoreEngine, "halfLifeHours", 720.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "penaltyScale", 60.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "criticalWeight", 10.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "warningWeight", 4.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "pendingWeight", 2.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "resolvedFactor", 0.2);
+        ReflectionTestUtils.setField(healthScoreEngine, "slowResolutionHours", 72.0);
+        ReflectionTestUtils.setField(healthScoreEngine, "defaultElevator", "EL-001");
+
+        service = new JdbcDataETableService();
+        ReflectionTestUtils.setField(service, "identifierGenerator", identifierGenerator);
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(service, "episodeWindow", episodeWindow);
+        ReflectionTestUtils.setField(service, "healthScoreEngine", healthScoreEngine);
+        // 每条记录一组，失败前已有组插入，验证整体回滚
+        ReflectionTestUtils.setField(service, "jdbcBatchSize", 1);
+        ReflectionTestUtils.setField(service, "maxBatchRecords", 10);
+    }
+
+    /**
+     * 不替换 saveBatch 的服务：数据访问走真实的 MyBatis-Plus 映射器和 SqlSessionFactory，
+     * 与 DataSourceTransactionManager 共用同一数据源，批量插入加入 createBatch 的事务
+     */
+    private DataETableServiceImpl mybatisService(List<DataETable> submitted) throws Exception {
+        SQLiteIdentifierGenerator identifierGenerator =
+                (SQLiteIdentifierGenerator) ReflectionTestUtils.getField(service, "identifierGenerator");
+        GlobalConfig globalConfig = new GlobalConfig();
+        globalConfig.setMetaObjectHandler(new MyMetaObjectHandler());
+        globalConfig.setIdentifierGenerator(identifierGenerator);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(new MybatisConfiguration());
+        factoryBean.setGlobalConfig(globalConfig);
+        SqlSessionTemplate sqlSessionTemplate = new SqlSessionTemplate(factoryBean.getObject());
+        sqlSessionTemplate.getConfiguration().addMapper(DataETableMapper.class);
+        DataETableMapper mapper = sqlSessionTemplate.getMapper(DataETableMapper.class);
+
+        AiAnalysisPipeline pipeline = new AiAnalysisPipeline() {
+            @Override
+            public AiAnalysisStatusDTO submit(DataETable data) {
+                submitted.add(data);
+                AiAnalysisStatusDTO status = new AiAnalysisStatusDTO();
+                status.setMtDataId(data.getId());
+                status.setStatus(AnalysisStatus.QUEUED);
+                return status;
+            }
+        };
+
+        DataETableServiceImpl mybatis = new DataETableServiceImpl();
+        ReflectionTestUtils.setField(mybatis, "baseMapper", mapper);
+        ReflectionTestUtils.setField(mybatis, "dataETableMapper", mapper);
+        ReflectionTestUtils.setField(mybatis, "aiAnalysisPipeline", pipeline);
+        for (String field : List.of("identifierGenerator", "transactionTemplate", "episodeWindow", "healthScoreEngine",
+                "maxBatchRecords")) {
+            ReflectionTestUtils.setField(mybatis, field, ReflectionTestUtils.getField(service, field));
+        }
+        // 两条一组：第一组先提交给数据库，第二组在组内第二条失败
+        ReflectionTestUtils.setField(mybatis, "jdbcBatchSize", 2);
+        return mybatis;
+    }
+
+    private static DataETable anomaly(String eName, String eData) {
+        return new DataETable()
+                .setSystemName("电气控制系统")
+                .setSystemSqName("电源")
+                .setEName(eName)
+                .setEData(eData);
+    }
+
+    /**
+     * 两个批次在同一屏障上交替推进：都读完并占有第一条后才读第二条，都处理完第二条后才结束读取、提交事务，
+     * 第二条读到的一定是对方尚未提交的事件
+     */
+    private static Iterator<DataETable> overlapping(DataETable first, DataETable second, CyclicBarrier barrier) {
+        return new Iterator<>() {
+            private int read;
+            private boolean drained;
+
+            @Override
+            public boolean hasNext() {
+                if (read < 2) {
+                    return true;
+                }
+                if (!drained) {
+                    drained = true;
+                    await(barrier);
+                }
+                return false;
+            }
+
+            @Override
+            public DataETable next() {
+                if (read++ == 0) {
+                    return first;
+                }
+                await(barrier);
+                return second;
+            }
+        };
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("批次未按预期交替推进", e);
+        }
+    }
+
+    private int rowCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM data_e_table", Integer.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchInsertsRecordsWithContiguousIds() {
+        Result<Map<String, Object>> result = service.createBatch(List.of(
+                anomaly("电压波动", "15%"),
+                anomaly("导轨垂直度偏差", "0.8"),
+                // 与第一条同一异常事件，只累计次数
+                anomaly("电压波动", "16%")).iterator(), false);
+
+        assertEquals(200, result.getCode());
+        assertEquals(2, result.getData().get("count"));
+        assertEquals(1, result.getData().get("merged"));
+        List<Integer> ids = (List<Integer>) result.getData().get("ids");
+        assertEquals(ids.get(0) + 1, ids.get(1));
+        assertEquals(2, rowCount());
+    }
+
+    @Test
+    void badRecordRollsBackWholeBatch() {
+        Result<Map<String, Object>> result = service.createBatch(List.of(
+                anomaly("电压波动", "15%"),
+                anomaly("导轨垂直度偏差", "0.8"),
+                // e_name 非空约束
+                anomaly(null, "1")).iterator(), false);
+
+        assertNotEquals(200, result.getCode());
+        assertTrue(result.getMessage().contains("回滚"), result.getMessage());
+        assertEquals(0, rowCount());
+        // 回滚的记录放弃了事件占有，再次出现时照常入库
+        assertNull(episodeWindow.admit(anomaly("电压波动", "15%")));
+        assertEquals(0L, episodeWindow.getStats().get("opened"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mybatisPlusSaveBatchFailingMidBatchRollsBackAndSubmitsNothing() throws Exception {
+        List<DataETable> submitted = new CopyOnWriteArrayList<>();
+        DataETableServiceImpl mybatis = mybatisService(submitted);
+
+        Result<Map<String, Object>> ok = mybatis.createBatch(List.of(
+                anomaly("电压波动", "15%"),
+                anomaly("导轨垂直度偏差", "0.8"),
+                anomaly("触点电压降", "80mV")).iterator(), true);
+        assertEquals(200, ok.getCode(), ok.getMessage());
+        assertEquals(3, rowCount());
+        assertEquals(3, submitted.size());
+        assertEquals(ok.getData().get("ids"), jdbcTemplate.queryForList(
+                "SELECT id FROM data_e_table ORDER BY id", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM data_e_table WHERE create_time IS NOT NULL", Integer.class));
+        jdbcTemplate.update("DELETE FROM data_e_table");
+        submitted.clear();
+
+        Result<Map<String, Object>> failed = mybatis.createBatch(List.of(
+                anomaly("控制响应时间", "0.8s"),
+                anomaly("电流负载", "22A"),
+                anomaly("导靴磨损量", "2.5mm"),
+                // e_name 非空约束，在第二组的 JDBC 批量执行中失败
+                anomaly(null, "1"),
+                anomaly("制动间隙", "1.2mm")).iterator(), true);
+
+        assertNotEquals(200, failed.getCode());
+        assertTrue(failed.getMessage().contains("回滚"), failed.getMessage());
+        assertEquals(0, rowCount());
+        assertTrue(submitted.isEmpty(), "回滚的记录不应提交AI分析");
+        assertNull(episodeWindow.admit(anomaly("控制响应时间", "0.8s")));
+    }
+
+    @Test
+    void tooManyRecordsAreRejectedBeforeCommit() {
+        List<DataETable> records = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            records.add(anomaly("参数" + i, String.valueOf(i)));
+        }
+        Result<Map<String, Object>> result = service.createBatch(records.iterator(), false);
+
+        assertNotEquals(200, result.getCode());
+        assertTrue(result.getMessage().contains("10"), result.getMessage());
+        assertEquals(0, rowCount());
+    }
+
+    @Test
+    void overlappingBatchesDoNotWaitForEachOthersClaims() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Result<Map<String, Object>>> a = pool.submit(() -> service.createBatch(overlapping(
+                    anomaly("电压波动", "15%"), anomaly("导轨垂直度偏差", "0.8"), barrier), false));
+            Future<Result<Map<String, Object>>> b = pool.submit(() -> service.createBatch(overlapping(
+                    anomaly("导轨垂直度偏差", "0.8"), anomaly("电压波动", "16%"), barrier), false));
+            // 第二条的首条记录在对方未提交的事务中，不等待对方提交，作为未跟踪记录照常入库
+            Result<Map<String, Object>> resultA = a.get(2, TimeUnit.SECONDS);
+            Result<Map<String, Object>> resultB = b.get(2, TimeUnit.SECONDS);
+            assertEquals(200, resultA.getCode(), resultA.getMessage());
+            assertEquals(200, resultB.getCode(), resultB.getMessage());
+            assertEquals(2, resultA.getData().get("count"));
+            assertEquals(2, resultB.getData().get("count"));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(4, rowCount());
+        assertEquals(2L, episodeWindow.getStats().get("contended"));
+        assertEquals(2L, episodeWindow.getStats().get("opened"));
+        // 两个批次提交后各自的事件已开放，之后的重复记录照常合并
+        assertNotNull(episodeWindow.admit(anomaly("电压波动", "15%")));
+        assertNotNull(episodeWindow.admit(anomaly("导轨垂直度偏差", "0.8")));
+    }
+
+    @Test
+    void ndjsonRecordsAreReadLazily() throws Exception {
+        String ndjson = "{\"systemName\":\"曳引系统\",\"systemSqName\":\"曳引机\",\"eName\":\"电机温度\",\"eData\":\"95°C\"}\n"
+                + "{\"systemName\":\"门系统\",\"systemSqName\":\"门机\",\"eName\":\"开门时间\",\"eData\":\"6s\"}\n";
+        Iterator<DataETable> records = new ObjectMapper().findAndRegisterModules().readerFor(DataETable.class).readValues(ndjson);
+        Result<Map<String, Object>> result = service.createBatch(records, false);
+
+        assertEquals(200, result.getCode());
+        assertEquals(2, result.getData().get("count"));
+        assertEquals("门机", jdbcTemplate.queryForObject(
+                "SELECT system_sq_name FROM data_e_table WHERE e_name = '开门时间'", String.class));
+    }
+
+    @Test
+    void malformedNdjsonLineRollsBackEarlierLines() throws Exception {
+        String ndjson = "{\"systemName\":\"曳引系统\",\"systemSqName\":\"曳引机\",\"eName\":\"电机温度\",\"eData\":\"95°C\"}\n"
+                + "{\"systemName\":\"门系统\",\"eName\":\n";
+        Iterator<DataETable> records = new ObjectMapper().findAndRegisterModules().readerFor(DataETable.class).readValues(ndjson);
+        Result<Map<String, Object>> result = service.createBatch(records, false);
+
+        assertNotEquals(200, result.getCode());
+        assertEquals(0, rowCount());
+    }
+}
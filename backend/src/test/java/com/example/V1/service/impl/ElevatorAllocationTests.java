@@ -0,0 +1,93 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DoorStatus;
+import com.example.V1.Dto.ElevatorDirection;
+import com.example.V1.Dto.ElevatorStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElevatorAllocationTests {
+
+    // 测量本身（MXBean 调用）可能有少量分配，留出余量
+    private static final long ALLOCATION_SLACK_BYTES = 4096;
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void tickAllocatesNothing() {
+        Elevator elevator = new Elevator("EL-001", null);
+        for (int i = 0; i < 200_000; i++) {
+            elevator.tick(0.15);
+        }
+
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) {
+            elevator.tick(0.15);
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < ALLOCATION_SLACK_BYTES, "100万个节拍分配了 " + allocated + " 字节");
+    }
+
+    @Test
+    void stateWriterAllocatesNothingAndWritesValidJson() throws Exception {
+        ElevatorStateWriter writer = new ElevatorStateWriter("\"EL-001\"".getBytes());
+        ElevatorState state = new ElevatorState();
+        state.currentFloor = 1.195;
+        state.targetFloor = 7;
+        state.status = ElevatorStatus.RUNNING;
+        state.direction = ElevatorDirection.UP;
+        state.doorStatus = DoorStatus.CLOSED;
+        state.speed = 0.8;
+        state.loadWeight = 512;
+        state.temperature = -1.5;
+        ElevatorState baseline = ElevatorState.emptyBaseline();
+        int changes = state.diffInto(baseline);
+
+        for (int i = 0; i < 100_000; i++) {
+            writer.writeFull(state, 15, 1000);
+            writer.writeSnapshot(i, state, 15, 1000);
+            writer.writeDelta(i, state, changes);
+        }
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            writer.writeFull(state, 15, 1000);
+            writer.writeSnapshot(i, state, 15, 1000);
+            writer.writeDelta(i, state, changes);
+        }
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < ALLOCATION_SLACK_BYTES, "30万次编码分配了 " + allocated + " 字节");
+
+        ObjectMapper mapper = new ObjectMapper();
+        writer.writeSnapshot(42, state, 15, 1000);
+        JsonNode snapshot = mapper.readTree(writer.toBytes());
+        assertEquals("snapshot", snapshot.get("type").asText());
+        assertEquals(42, snapshot.get("seq").asLong());
+        assertEquals("EL-001", snapshot.get("id").asText());
+        assertEquals(1.195, snapshot.get("currentFloor").asDouble());
+        assertEquals(7, snapshot.get("targetFloor").asInt());
+        assertEquals("运行中", snapshot.get("status").asText());
+        assertEquals("上行", snapshot.get("direction").asText());
+        assertEquals("关闭", snapshot.get("doorStatus").asText());
+        assertEquals(512.0, snapshot.get("loadWeight").asDouble());
+        assertEquals(-1.5, snapshot.get("temperature").asDouble());
+        assertEquals("正常", snapshot.get("maintenanceStatus").asText());
+        assertEquals(15, snapshot.get("floorCount").asInt());
+
+        // 基线已推进，只改动速度时增量帧只包含 speed
+        state.speed = 0.5;
+        writer.writeDelta(43, state, state.diffInto(baseline));
+        JsonNode delta = mapper.readTree(writer.toBytes());
+        assertEquals("delta", delta.get("type").asText());
+        assertEquals(0.5, delta.get("speed").asDouble());
+        assertFalse(delta.has("currentFloor"));
+        assertEquals(3, delta.size());
+    }
+}
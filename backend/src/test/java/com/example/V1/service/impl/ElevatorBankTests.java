@@ -0,0 +1,88 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.TrafficProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElevatorBankTests {
+
+    private ElevatorBank newBank(DispatchAlgorithm algorithm, double arrivalRatePerMinute) {
+        return new ElevatorBank(15, algorithm, TrafficProfile.INTER_FLOOR, arrivalRatePerMinute, 300_000, new Random(7));
+    }
+
+    @Test
+    void etaAssignsCallToClosestCarAndDeliversPassenger() {
+        ElevatorBank bank = newBank(DispatchAlgorithm.ETA, 0);
+        DispatchCar lobbyCar = bank.join(new Elevator("EL-A", null), 15);
+        DispatchCar upperCar = bank.join(new Elevator("EL-B", null), 15);
+        upperCar.position = 10.0;
+
+        Passenger passenger = bank.call(10, 3);
+        assertSame(upperCar, passenger.assignedCar);
+        assertEquals(10, upperCar.target);
+        assertEquals(0, lobbyCar.target);
+
+        bank.step(5.0);
+        assertEquals(1, bank.arrive(upperCar, 10));
+        assertEquals(3, upperCar.target);
+
+        upperCar.position = 3.0;
+        bank.step(10.0);
+        assertEquals(0, bank.arrive(upperCar, 3));
+        assertEquals(0, upperCar.target);
+
+        Map<String, Object> eta = metricsOf(bank, DispatchAlgorithm.ETA);
+        assertEquals(1L, eta.get("deliveredPassengers"));
+        assertEquals(5.0, eta.get("avgWaitSeconds"));
+        assertEquals(15.0, eta.get("avgJourneySeconds"));
+    }
+
+    @Test
+    void carLeavingBankHandsItsCallsToRemainingCars() {
+        ElevatorBank bank = newBank(DispatchAlgorithm.NEAREST_CAR, 0);
+        DispatchCar first = bank.join(new Elevator("EL-A", null), 15);
+        DispatchCar second = bank.join(new Elevator("EL-B", null), 15);
+        second.position = 12.0;
+
+        Passenger passenger = bank.call(2, 9);
+        assertSame(first, passenger.assignedCar);
+
+        bank.leave(first);
+        bank.step(0.15);
+        assertSame(second, passenger.assignedCar);
+        assertEquals(2, second.target);
+    }
+
+    @Test
+    void metricsAreKeptPerAlgorithm() {
+        ElevatorBank bank = newBank(DispatchAlgorithm.RANDOM, 600);
+        bank.join(new Elevator("EL-A", null), 15);
+        for (int i = 0; i < 100; i++) {
+            bank.step(0.15);
+        }
+        bank.setAlgorithm(DispatchAlgorithm.ETA);
+        for (int i = 0; i < 100; i++) {
+            bank.step(0.15);
+        }
+
+        Map<String, Object> random = metricsOf(bank, DispatchAlgorithm.RANDOM);
+        Map<String, Object> eta = metricsOf(bank, DispatchAlgorithm.ETA);
+        assertTrue((Long) random.get("generatedPassengers") > 0, "随机算法区间未产生乘客: " + random);
+        assertTrue((Long) eta.get("generatedPassengers") > 0, "ETA算法区间未产生乘客: " + eta);
+        assertEquals(15L, random.get("activeSeconds"));
+        assertEquals(15L, eta.get("activeSeconds"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> metricsOf(ElevatorBank bank, DispatchAlgorithm algorithm) {
+        Map<String, Object> algorithms = (Map<String, Object>) bank.getStats().get("algorithms");
+        return (Map<String, Object>) algorithms.get(algorithm.name());
+    }
+}
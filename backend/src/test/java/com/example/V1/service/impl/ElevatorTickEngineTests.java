@@ -0,0 +1,68 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.DispatchAlgorithm;
+import com.example.V1.Dto.TrafficProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElevatorTickEngineTests {
+
+    /**
+     * 等待节拍数达到 ticks，最多等待 timeoutMs；节拍耗时交给 ElevatorTickBenchmark 衡量，这里只验证节拍推进
+     */
+    private static Map<String, Object> awaitTicks(ElevatorTickEngine engine, long ticks, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        Map<String, Object> stats = engine.getStats();
+        while ((Long) stats.get("tickCount") < ticks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            stats = engine.getStats();
+        }
+        return stats;
+    }
+
+    @Test
+    void ticksTenThousandElevatorsOnSharedPool() throws Exception {
+        ElevatorTickEngine engine = new ElevatorTickEngine(50, 4, 256);
+        engine.start();
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                new Elevator("EL-" + i, engine).start();
+            }
+
+            Map<String, Object> stats = awaitTicks(engine, 10, 30_000);
+            assertEquals(10_000, stats.get("registeredElevators"));
+            long tickCount = (Long) stats.get("tickCount");
+            assertTrue(tickCount >= 10, "节拍未推进: " + stats);
+            assertTrue((Long) stats.get("maxTickDurationMicros") >= (Long) stats.get("lastTickDurationMicros"), "统计不一致: " + stats);
+            assertTrue((Long) stats.get("maxLagMicros") >= (Long) stats.get("lastLagMicros"), "统计不一致: " + stats);
+            assertTrue((Long) stats.get("overrunCount") <= tickCount, "统计不一致: " + stats);
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void failedTicksAreStillCounted() throws Exception {
+        ElevatorTickEngine engine = new ElevatorTickEngine(20, 1, 256);
+        engine.registerBank(new ElevatorBank(15, DispatchAlgorithm.NEAREST_CAR, TrafficProfile.INTER_FLOOR, 0, 300_000, new Random(7)) {
+            @Override
+            public void step(double dtSeconds) {
+                throw new IllegalStateException("梯组推进失败");
+            }
+        });
+        engine.start();
+        try {
+            Map<String, Object> stats = awaitTicks(engine, 5, 30_000);
+            assertTrue((Long) stats.get("tickCount") >= 5, "出错的节拍未计数: " + stats);
+            // 出错节拍没有耗时统计
+            assertEquals(0L, stats.get("lastTickDurationMicros"));
+        } finally {
+            engine.stop();
+        }
+    }
+}
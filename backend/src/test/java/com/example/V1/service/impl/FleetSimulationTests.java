@@ -0,0 +1,36 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.Dto.FleetScenarioDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FleetSimulationTests {
+
+    private FleetScenarioDTO scenario(long seed) {
+        return new FleetScenarioDTO()
+                .setBanks(2)
+                .setHours(2)
+                .setSpeedup(0)
+                .setSeed(seed)
+                .setThreads(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sameSeedReproducesIdenticalMetrics() throws Exception {
+        Map<String, Object> first = new FleetSimulation(scenario(42)).run();
+        Map<String, Object> second = new FleetSimulation(scenario(42)).run();
+        Map<String, Object> other = new FleetSimulation(scenario(43)).run();
+
+        assertEquals(first.get("algorithms"), second.get("algorithms"));
+        assertNotEquals(first.get("algorithms"), other.get("algorithms"));
+
+        Map<String, Object> eta = ((Map<String, Map<String, Object>>) first.get("algorithms")).get("ETA");
+        assertTrue((Long) eta.get("deliveredPassengers") > 0, "仿真未送达任何乘客: " + eta);
+    }
+}
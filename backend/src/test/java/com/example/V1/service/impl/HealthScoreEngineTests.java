@@ -0,0 +1,160 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HealthScoreEngineTests {
+
+    private HealthScoreEngine engine;
+    private int nextId;
+
+    @BeforeEach
+    void setUp() {
+        engine = new HealthScoreEngine();
+        ReflectionTestUtils.setField(engine, "halfLifeHours", 720.0);
+        ReflectionTestUtils.setField(engine, "penaltyScale", 60.0);
+        ReflectionTestUtils.setField(engine, "criticalWeight", 10.0);
+        ReflectionTestUtils.setField(engine, "warningWeight", 4.0);
+        ReflectionTestUtils.setField(engine, "pendingWeight", 2.0);
+        ReflectionTestUtils.setField(engine, "resolvedFactor", 0.2);
+        ReflectionTestUtils.setField(engine, "slowResolutionHours", 72.0);
+        ReflectionTestUtils.setField(engine, "defaultElevator", "EL-001");
+    }
+
+    private DataETable anomaly(String elevatorId, String systemName, String component, LocalDateTime time) {
+        DataETable data = new DataETable();
+        data.setId(++nextId);
+        data.setEName(elevatorId);
+        data.setSystemName(systemName);
+        data.setSystemSqName(component);
+        data.setCreateTime(time);
+        engine.recordAnomaly(data);
+        return data;
+    }
+
+    @Test
+    void unknownElevatorIsHealthy() {
+        assertEquals(100.0, engine.getScore("EL-404"));
+        assertEquals("优秀", engine.getReport("EL-404", true).get("status"));
+    }
+
+    @Test
+    void severityAndSystemWeightLowerTheScore() {
+        DataETable traction = anomaly("EL-002", "曳引系统", "曳引机", LocalDateTime.now());
+        double pending = engine.getScore("EL-002");
+        assertEquals(100 * Math.exp(-2 * 1.5 / 60), pending, 0.01);
+
+        engine.recordSeverity(traction.getId(), 1);
+        double critical = engine.getScore("EL-002");
+        assertEquals(100 * Math.exp(-10 * 1.5 / 60), critical, 0.01);
+
+        // 同样严重程度的门系统异常扣分更少
+        DataETable door = anomaly("EL-003", "门系统", "门机", LocalDateTime.now());
+        engine.recordSeverity(door.getId(), 1);
+        assertTrue(engine.getScore("EL-003") > critical);
+    }
+
+    @Test
+    void olderAnomaliesDecay() {
+        DataETable recent = anomaly("EL-001", "电气控制系统", "电源", LocalDateTime.now());
+        DataETable old = anomaly("EL-002", "电气控制系统", "电源", LocalDateTime.now().minusDays(30));
+        engine.recordSeverity(recent.getId(), 1);
+        engine.recordSeverity(old.getId(), 1);
+        // 一个半衰期前的异常只计一半扣分
+        assertEquals(100 * Math.exp(-10 * 1.2 / 2 / 60), engine.getScore("EL-002"), 0.05);
+        assertTrue(engine.getScore("EL-002") > engine.getScore("EL-001"));
+    }
+
+    @Test
+    void maintenanceKeepsOnlyResidualPenalty() {
+        LocalDateTime time = LocalDateTime.now().minusHours(1);
+        DataETable fast = anomaly("EL-001", "曳引系统", "曳引机", time);
+        DataETable slow = anomaly("EL-002", "曳引系统", "曳引机", time.minusDays(3));
+        engine.recordSeverity(fast.getId(), 1);
+        engine.recordSeverity(slow.getId(), 1);
+
+        engine.recordMaintenance(fast.getId(), "待处理", time);
+        assertEquals(1, engine.getReport("EL-001", false).get("open_issues"));
+
+        engine.recordMaintenance(fast.getId(), HealthScoreEngine.RESOLVED_STATUS, time);
+        engine.recordMaintenance(slow.getId(), HealthScoreEngine.RESOLVED_STATUS, time);
+        assertEquals(100 * Math.exp(-15 * 0.2 / 60), engine.getScore("EL-001"), 0.05);
+        assertEquals(0, engine.getReport("EL-001", false).get("open_issues"));
+        // 拖了三天才处理的异常保留两倍扣分
+        double slowPenalty = 15 * 0.4 * Math.pow(2, -73 / 720.0);
+        assertEquals(100 * Math.exp(-slowPenalty / 60), engine.getScore("EL-002"), 0.05);
+
+        // AI结论晚于维护到达时保持维护后的比例
+        engine.recordSeverity(fast.getId(), 0);
+        assertEquals(100 * Math.exp(-4 * 1.5 * 0.2 / 60), engine.getScore("EL-001"), 0.05);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportListsRiskiestComponents() {
+        for (int i = 0; i < 3; i++) {
+            engine.recordSeverity(anomaly("EL-001", "曳引系统", "曳引机", LocalDateTime.now()).getId(), 1);
+        }
+        engine.recordSeverity(anomaly("EL-001", "门系统", "门机", LocalDateTime.now()).getId(), 0);
+        // 电梯编号之外的异常名称归到默认电梯
+        anomaly("电压波动", "电气控制系统", "电源", LocalDateTime.now());
+
+        Map<String, Object> report = engine.getReport("EL-001", true);
+        assertEquals(5, report.get("anomaly_count"));
+        List<String> risks = (List<String>) report.get("risk_factors");
+        assertEquals(List.of("曳引系统/曳引机", "门系统/门机", "电气控制系统/电源"), risks);
+        assertEquals(List.of("EL-001"), engine.getElevatorIds());
+
+        Map<String, Object> result = engine.getToolResult(null, false);
+        Map<String, Object> summary = (Map<String, Object>) result.get("summary");
+        assertEquals(1, summary.get("total_elevators"));
+        assertEquals(report.get("health_score"), summary.get("average_health_score"));
+    }
+
+    @Test
+    void decayedAnomaliesAreDroppedFromMemory() {
+        ReflectionTestUtils.setField(engine, "pruneBelow", 0.01);
+        LocalDateTime now = LocalDateTime.now();
+        // 一年前（十二个多半衰期）的严重故障，最多只剩约 0.003 分
+        DataETable old = anomaly("EL-001", "曳引系统", "曳引机", now.minusDays(365));
+        DataETable recent = anomaly("EL-001", "曳引系统", "曳引机", now.minusDays(1));
+        engine.recordSeverity(old.getId(), 1);
+        double before = engine.getScore("EL-001");
+
+        assertEquals(1, engine.prune(System.currentTimeMillis()));
+        assertEquals(1, engine.getStats().get("trackedAnomalies"));
+        assertEquals(1L, engine.getStats().get("prunedAnomalies"));
+        assertEquals(before, engine.getScore("EL-001"), 0.01);
+        Map<String, Object> report = engine.getReport("EL-001", false);
+        assertEquals(2, report.get("anomaly_count"));
+        assertEquals(1, report.get("open_issues"));
+
+        // 丢弃后到达的维护记录不再重复减少未处理数
+        engine.recordMaintenance(old.getId(), HealthScoreEngine.RESOLVED_STATUS, now);
+        assertEquals(1, engine.getReport("EL-001", false).get("open_issues"));
+        engine.recordMaintenance(recent.getId(), HealthScoreEngine.RESOLVED_STATUS, now);
+        assertEquals(0, engine.getReport("EL-001", false).get("open_issues"));
+        assertEquals(0, engine.prune(System.currentTimeMillis()));
+    }
+
+    @Test
+    void decayedSumSurvivesLongGaps() {
+        HealthScoreEngine.DecayedSum sum = new HealthScoreEngine.DecayedSum(1000, 0);
+        sum.add(0, 8);
+        assertEquals(4, sum.at(1000), 1e-9);
+        // 相隔上百个半衰期也不会溢出
+        sum.add(200_000, 6);
+        assertEquals(3, sum.at(201_000), 1e-9);
+        sum.add(200_000, -6);
+        assertEquals(0, sum.at(201_000), 1e-9);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.V1.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LifespanAnalysisServiceTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * 记录发送的事件和注册的回调，不依赖 Servlet 容器
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> data = new ArrayList<>();
+        private volatile boolean broken;
+        private boolean completed;
+        private Runnable completionCallback;
+        private Runnable timeoutCallback;
+        private Consumer<Throwable> errorCallback;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder text = new StringBuilder();
+            for (DataWithMediaType part : builder.build()) {
+                text.append(part.getData());
+            }
+            // event:<name>\ndata:<json>\n\n
+            String frame = text.toString();
+            names.add(frame.substring("event:".length(), frame.indexOf('\n')));
+            data.add(frame.substring(frame.indexOf("data:") + "data:".length()).trim());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void onCompletion(Runnable callback) {
+            completionCallback = callback;
+        }
+
+        @Override
+        public void onTimeout(Runnable callback) {
+            timeoutCallback = callback;
+        }
+
+        @Override
+        public void onError(Consumer<Throwable> callback) {
+            errorCallback = callback;
+        }
+    }
+
+    private Flux<String> reply;
+    private boolean promptFails;
+    private LifespanAnalysisService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LifespanAnalysisService() {
+            @Override
+            public String buildPrompt() throws JsonProcessingException {
+                if (promptFails) {
+                    throw new IllegalStateException("数据库不可用");
+                }
+                return "寿命预测提示词";
+            }
+        };
+        ReflectionTestUtils.setField(service, "chatClient", new ResilientChatClient() {
+            @Override
+            public Flux<String> stream(String prompt) {
+                return reply;
+            }
+        });
+    }
+
+    private JsonNode data(RecordingEmitter emitter, int index) throws IOException {
+        return mapper.readTree(emitter.data.get(index));
+    }
+
+    @Test
+    void tokensAreForwardedThenParsedResultCompletesTheStream() throws Exception {
+        reply = Flux.just("```json\n{\"main\":\"剩余寿命约3年\",", "\"message\":\"曳引机\\n磨损\"}\n```");
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.stream(emitter);
+
+        assertEquals(List.of("start", "token", "token", "result"), emitter.names);
+        assertEquals("寿命预测提示词".length(), data(emitter, 0).get("promptLength").asInt());
+        // 增量文本中的换行在JSON中转义，不会拆开SSE帧
+        assertEquals("\"message\":\"曳引机\\n磨损\"}\n```", data(emitter, 2).get("text").asText());
+        assertEquals("剩余寿命约3年", data(emitter, 3).get("main").asText());
+        assertEquals("曳引机\n磨损", data(emitter, 3).get("message").asText());
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void nonJsonReplyIsSentAsRawMessage() throws Exception {
+        reply = Flux.just("无法给出结构化结论");
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.stream(emitter);
+
+        JsonNode result = data(emitter, 2);
+        assertEquals("寿命分析完成(原始格式)", result.get("main").asText());
+        assertEquals("无法给出结构化结论", result.get("message").asText());
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void modelErrorSendsErrorEventAndCompletes() throws Exception {
+        reply = Flux.concat(Flux.just("{\"main\":"), Flux.error(new IllegalStateException("连接被重置")));
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.stream(emitter);
+
+        assertEquals(List.of("start", "token", "error"), emitter.names);
+        assertTrue(data(emitter, 2).get("message").asText().contains("连接被重置"));
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void promptFailureSendsErrorWithoutCallingModel() throws Exception {
+        promptFails = true;
+        AtomicBoolean subscribed = new AtomicBoolean();
+        reply = Flux.<String>never().doOnSubscribe(s -> subscribed.set(true));
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.stream(emitter);
+
+        assertEquals(List.of("error"), emitter.names);
+        assertTrue(data(emitter, 0).get("message").asText().contains("数据库不可用"));
+        assertTrue(emitter.completed);
+        assertFalse(subscribed.get());
+    }
+
+    @Test
+    void clientDisconnectCancelsModelSubscription() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        reply = tokens.asFlux().doOnCancel(() -> cancelled.set(true));
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.stream(emitter);
+
+        tokens.tryEmitNext("{\"main\":");
+        assertFalse(cancelled.get());
+        // 客户端断开后下一次发送失败
+        emitter.broken = true;
+        tokens.tryEmitNext("\"剩余寿命约3年\"");
+        assertTrue(cancelled.get());
+        assertFalse(emitter.completed);
+    }
+
+    @Test
+    void completionTimeoutAndErrorCallbacksCancelModelSubscription() {
+        for (int callback = 0; callback < 3; callback++) {
+            AtomicBoolean cancelled = new AtomicBoolean();
+            reply = Flux.<String>never().doOnCancel(() -> cancelled.set(true));
+            RecordingEmitter emitter = new RecordingEmitter();
+            service.stream(emitter);
+            assertFalse(cancelled.get());
+
+            if (callback == 0) {
+                emitter.completionCallback.run();
+            } else if (callback == 1) {
+                emitter.timeoutCallback.run();
+                // 超时后结束响应
+                assertTrue(emitter.completed);
+            } else {
+                emitter.errorCallback.accept(new IOException("Broken pipe"));
+            }
+            assertTrue(cancelled.get(), "callback " + callback);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.mapper.DataETableMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LifespanPredictionServiceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    // 范围（ALL 或系统名称）-> 当前异常条数
+    private final Map<String, Long> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger modelCalls = new AtomicInteger();
+    private final List<LifespanPredictionService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:lifespan-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        rows.put(LifespanPredictionService.SCOPE_ALL, 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(LifespanPredictionService::shutdown);
+    }
+
+    /**
+     * 只实现寿命预测用到的两个查询
+     */
+    private DataETableMapper mapper() {
+        return (DataETableMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataETableMapper.class}, (proxy, method, args) -> {
+                    if ("countRows".equals(method.getName())) {
+                        String systemName = (String) args[0];
+                        return rows.getOrDefault(systemName == null ? LifespanPredictionService.SCOPE_ALL : systemName, 0L);
+                    }
+                    if ("selectSystemNames".equals(method.getName())) {
+                        List<String> systems = new ArrayList<>(rows.keySet());
+                        systems.remove(LifespanPredictionService.SCOPE_ALL);
+                        return systems;
+                    }
+                    if ("toString".equals(method.getName())) {
+                        return "DataETableMapper stub";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private LifespanPredictionService newService() {
+        LifespanAnalysisService analysis = new LifespanAnalysisService() {
+            @Override
+            public Map<String, String> analyze(String systemName) {
+                modelCalls.incrementAndGet();
+                return Map.of("main", "剩余寿命约3年", "message", systemName == null ? "全部系统" : systemName);
+            }
+        };
+        LifespanPredictionService service = new LifespanPredictionService();
+        ReflectionTestUtils.setField(service, "lifespanAnalysisService", analysis);
+        ReflectionTestUtils.setField(service, "dataETableMapper", mapper());
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "refreshMinNewRows", 10);
+        ReflectionTestUtils.setField(service, "precompute", true);
+        service.init();
+        services.add(service);
+        return service;
+    }
+
+    @Test
+    void refreshNeedsDataOrEnoughNewRows() {
+        LifespanPredictionService.Prediction existing = new LifespanPredictionService.Prediction(
+                LifespanPredictionService.SCOPE_ALL, "main", "message", LocalDateTime.now(), 5);
+        assertFalse(LifespanPredictionService.needsRefresh(null, 0, 10));
+        assertTrue(LifespanPredictionService.needsRefresh(null, 1, 10));
+        assertFalse(LifespanPredictionService.needsRefresh(existing, 9, 10));
+        assertTrue(LifespanPredictionService.needsRefresh(existing, 10, 10));
+    }
+
+    @Test
+    void newAnomaliesAreCountedFromRowsRegardlessOfIds() throws Exception {
+        rows.put(LifespanPredictionService.SCOPE_ALL, 5L);
+        LifespanPredictionService service = newService();
+        assertEquals(0L, service.getPrediction(null).get("newAnomalies"));
+        assertEquals(1, modelCalls.get());
+
+        // 批量入库的整段大id先提交、较小的id后提交，都按行数计入
+        rows.put(LifespanPredictionService.SCOPE_ALL, 7L);
+        Map<String, Object> view = service.getPrediction(null);
+        assertEquals(2L, view.get("newAnomalies"));
+        assertEquals(false, view.get("stale"));
+
+        rows.put(LifespanPredictionService.SCOPE_ALL, 15L);
+        assertEquals(true, service.getPrediction(null).get("stale"));
+        // 删除过异常时不为负
+        rows.put(LifespanPredictionService.SCOPE_ALL, 3L);
+        assertEquals(0L, service.getPrediction(null).get("newAnomalies"));
+        assertEquals(1, modelCalls.get());
+    }
+
+    @Test
+    void unknownSystemIsRejectedWithoutCallingModel() throws Exception {
+        rows.put("曳引系统", 3L);
+        LifespanPredictionService service = newService();
+
+        assertThrows(IllegalArgumentException.class, () -> service.getPrediction("门系统"));
+        assertThrows(IllegalArgumentException.class, () -> service.requestRefresh("曳引"));
+        assertEquals(0, modelCalls.get());
+        assertEquals(0, service.getStats().get("scopes"));
+
+        assertEquals("曳引系统", service.getPrediction(" 曳引系统 ").get("scope"));
+        assertEquals(1, modelCalls.get());
+    }
+
+    @Test
+    void savedPredictionsSurviveRestartAndOldWatermarksAreDropped() throws Exception {
+        // 旧版按id水位保存的表
+        jdbcTemplate.execute("CREATE TABLE lifespan_prediction (scope VARCHAR(255) PRIMARY KEY, main TEXT,"
+                + " message TEXT, generated_at VARCHAR(255) NOT NULL, last_data_id BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO lifespan_prediction VALUES ('ALL', 'm', 'msg', ?, 641)",
+                LocalDateTime.now().toString());
+        rows.put(LifespanPredictionService.SCOPE_ALL, 12L);
+
+        LifespanPredictionService upgraded = newService();
+        assertEquals(0, upgraded.getStats().get("scopes"));
+        upgraded.getPrediction(null);
+        assertEquals(1, modelCalls.get());
+
+        LifespanPredictionService restarted = newService();
+        rows.put(LifespanPredictionService.SCOPE_ALL, 14L);
+        assertEquals(2L, restarted.getPrediction(null).get("newAnomalies"));
+        assertEquals(1, modelCalls.get());
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.V1.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientChatClientTests {
+
+    /**
+     * 本地桩模型：前 failures 次调用抛异常，每次调用耗时 delayMs
+     */
+    private static final class StubChatModel implements ChatModel {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int failures;
+        private volatile long delayMs;
+        private volatile CountDownLatch block;
+
+        @Override
+        public String call(String message) {
+            int n = calls.incrementAndGet();
+            try {
+                if (block != null) {
+                    block.await();
+                }
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+            if (n <= failures) {
+                throw new IllegalStateException("503 Service Unavailable");
+            }
+            return "{\"echo\":\"" + message + "\"}";
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * 本地桩 OpenAI 接口：前 failures 次请求返回 failureStatus，block 不为空时先挂起请求
+     */
+    private static final class StubOpenAiServer {
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int failures;
+        private volatile int failureStatus = 503;
+        private volatile CountDownLatch block;
+
+        StubOpenAiServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v1/chat/completions", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            int n = requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                if (block != null) {
+                    block.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (n <= failures) {
+                respond(exchange, failureStatus, "{\"error\":{\"message\":\"stub " + failureStatus
+                        + "\",\"type\":\"stub_error\"}}");
+            } else {
+                respond(exchange, 200, "{\"id\":\"chatcmpl-" + n + "\",\"object\":\"chat.completion\",\"created\":1,"
+                        + "\"model\":\"deepseek-chat\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+                        + "\"content\":\"{\\\"code\\\":0}\"},\"finish_reason\":\"stop\"}],"
+                        + "\"usage\":{\"prompt_tokens\":1,\"completion_tokens\":1,\"total_tokens\":2}}");
+            }
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * 与生产配置一致：OpenAiChatModel 自身不重试（spring.ai.retry.max-attempts: 1）
+         */
+        OpenAiChatModel chatModel() {
+            OpenAiApi api = OpenAiApi.builder()
+                    .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                    .apiKey("sk-test")
+                    .build();
+            return OpenAiChatModel.builder()
+                    .openAiApi(api)
+                    .defaultOptions(OpenAiChatOptions.builder().model("deepseek-chat").build())
+                    .retryTemplate(RetryTemplate.builder().maxAttempts(1).build())
+                    .build();
+        }
+
+        void stop() {
+            if (block != null) {
+                block.countDown();
+            }
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    private StubChatModel model;
+    private ResilientChatClient client;
+    private StubOpenAiServer openAi;
+
+    @BeforeEach
+    void setUp() {
+        model = new StubChatModel();
+        client = new ResilientChatClient();
+        ReflectionTestUtils.setField(client, "chatModel", model);
+        ReflectionTestUtils.setField(client, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMs", 50L);
+        ReflectionTestUtils.setField(client, "timeoutMs", 2000L);
+        ReflectionTestUtils.setField(client, "maxRetries", 2);
+        ReflectionTestUtils.setField(client, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(client, "retryMaxBackoffMs", 20L);
+        ReflectionTestUtils.setField(client, "retryBudgetRatio", 0.2);
+        ReflectionTestUtils.setField(client, "circuitWindowSize", 4);
+        ReflectionTestUtils.setField(client, "circuitMinCalls", 4);
+        ReflectionTestUtils.setField(client, "circuitFailureRate", 0.5);
+        ReflectionTestUtils.setField(client, "circuitOpenMs", 200L);
+        ReflectionTestUtils.setField(client, "circuitHalfOpenCalls", 1);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        if (openAi != null) {
+            openAi.stop();
+        }
+    }
+
+    private void useOpenAiStub() throws IOException {
+        openAi = new StubOpenAiServer();
+        ReflectionTestUtils.setField(client, "chatModel", openAi.chatModel());
+    }
+
+    @Test
+    void retriesTransientErrors() {
+        model.failures = 2;
+        assertEquals("{\"echo\":\"ping\"}", client.call("ping"));
+        assertEquals(3, model.calls.get());
+        assertEquals(2L, client.getStats().get("retries"));
+    }
+
+    @Test
+    void callIsBoundedByDeadline() {
+        ReflectionTestUtils.setField(client, "timeoutMs", 100L);
+        model.delayMs = 1000;
+        long start = System.nanoTime();
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("slow"));
+        assertEquals(ResilientChatClient.Failure.TIMEOUT, e.getFailure());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    }
+
+    @Test
+    void bulkheadRejectsWhenFull() throws Exception {
+        model.block = new CountDownLatch(1);
+        Thread first = new Thread(() -> client.call("a"));
+        Thread second = new Thread(() -> client.call("b"));
+        first.start();
+        second.start();
+        while (model.calls.get() < 2) {
+            Thread.sleep(5);
+        }
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("c"));
+        assertEquals(ResilientChatClient.Failure.REJECTED, e.getFailure());
+        model.block.countDown();
+        first.join();
+        second.join();
+        assertEquals(0, client.getStats().get("inFlight"));
+    }
+
+    @Test
+    void permitIsReturnedWhenCallIsCancelledBeforeStarting() throws Exception {
+        ReflectionTestUtils.setField(client, "timeoutMs", 100L);
+        ReflectionTestUtils.setField(client, "maxRetries", 0);
+        // 调用线程全部被占用，提交的调用只能排队，超时取消时还没开始
+        ThreadPoolExecutor callers = (ThreadPoolExecutor) ReflectionTestUtils.getField(client, "callers");
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            callers.execute(() -> {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        busy.await();
+
+        for (int i = 0; i < 3; i++) {
+            ResilientChatClient.LlmCallException e =
+                    assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("queued"));
+            assertEquals(ResilientChatClient.Failure.TIMEOUT, e.getFailure());
+            assertEquals(0, client.getStats().get("inFlight"));
+        }
+        release.countDown();
+        // 取消的调用不会在线程空出后再执行
+        Thread.sleep(50);
+        assertEquals(0, model.calls.get());
+        assertEquals(0, client.getStats().get("inFlight"));
+        assertEquals("{\"echo\":\"ok\"}", client.call("ok"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void circuitOpensThenRecovers() throws Exception {
+        ReflectionTestUtils.setField(client, "maxRetries", 0);
+        model.failures = 4;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("x"));
+        }
+        assertFalse(client.isAvailable());
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("x"));
+        assertEquals(ResilientChatClient.Failure.CIRCUIT_OPEN, e.getFailure());
+        assertEquals(4, model.calls.get());
+
+        Thread.sleep(250);
+        assertEquals("{\"echo\":\"y\"}", client.call("y"));
+        assertTrue(client.isAvailable());
+        Map<String, Object> circuit = (Map<String, Object>) client.getStats().get("circuit");
+        Map<String, Long> transitions = (Map<String, Long>) circuit.get("transitions");
+        assertEquals(1L, transitions.get("CLOSED->OPEN"));
+        assertEquals(1L, transitions.get("OPEN->HALF_OPEN"));
+        assertEquals(1L, transitions.get("HALF_OPEN->CLOSED"));
+    }
+
+    @Test
+    void openAiModelRetriesServerErrorsButNotClientErrors() throws Exception {
+        useOpenAiStub();
+        openAi.failures = 2;
+        assertEquals("{\"code\":0}", client.call("ping"));
+        assertEquals(3, openAi.requests.get());
+        assertEquals(2L, client.getStats().get("retries"));
+
+        // 4xx 是请求本身的问题：不重试，也不计入熔断失败率
+        openAi.requests.set(0);
+        openAi.failures = 1;
+        openAi.failureStatus = 400;
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("bad"));
+        assertEquals(ResilientChatClient.Failure.ERROR, e.getFailure());
+        assertTrue(e.getCause() instanceof NonTransientAiException, String.valueOf(e.getCause()));
+        assertEquals(1, openAi.requests.get());
+        assertEquals(2L, client.getStats().get("retries"));
+        assertTrue(client.isAvailable());
+    }
+
+    @Test
+    void openAiModelTimesOutOnSlowResponses() throws Exception {
+        useOpenAiStub();
+        ReflectionTestUtils.setField(client, "timeoutMs", 300L);
+        openAi.block = new CountDownLatch(1);
+        long start = System.nanoTime();
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("slow"));
+        assertEquals(ResilientChatClient.Failure.TIMEOUT, e.getFailure());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1L, client.getStats().get("timeouts"));
+
+        // 超时的请求仍占着许可，直到 HTTP 请求真正结束
+        assertEquals(1, client.getStats().get("inFlight"));
+        openAi.block.countDown();
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((int) client.getStats().get("inFlight") > 0 && System.nanoTime() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.getStats().get("inFlight"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void openAiModelServerErrorsOpenTheCircuit() throws Exception {
+        useOpenAiStub();
+        ReflectionTestUtils.setField(client, "maxRetries", 0);
+        openAi.failures = 4;
+        openAi.failureStatus = 500;
+        for (int i = 0; i < 4; i++) {
+            ResilientChatClient.LlmCallException e =
+                    assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("x"));
+            assertEquals(ResilientChatClient.Failure.ERROR, e.getFailure());
+        }
+        assertFalse(client.isAvailable());
+        ResilientChatClient.LlmCallException e =
+                assertThrows(ResilientChatClient.LlmCallException.class, () -> client.call("x"));
+        assertEquals(ResilientChatClient.Failure.CIRCUIT_OPEN, e.getFailure());
+        // 熔断期间请求不会发到下游
+        assertEquals(4, openAi.requests.get());
+
+        Thread.sleep(250);
+        assertEquals("{\"code\":0}", client.call("y"));
+        Map<String, Object> circuit = (Map<String, Object>) client.getStats().get("circuit");
+        Map<String, Long> transitions = (Map<String, Long>) circuit.get("transitions");
+        assertEquals(1L, transitions.get("CLOSED->OPEN"));
+        assertEquals(1L, transitions.get("OPEN->HALF_OPEN"));
+        assertEquals(1L, transitions.get("HALF_OPEN->CLOSED"));
+    }
+}
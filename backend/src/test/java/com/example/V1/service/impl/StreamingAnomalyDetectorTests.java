@@ -0,0 +1,119 @@
+package com.example.V1.service.impl;
+
+import com.example.V1.entity.DataETable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingAnomalyDetectorTests {
+
+    private StreamingAnomalyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        AnomalyRuleClassifier classifier = new AnomalyRuleClassifier();
+        ReflectionTestUtils.setField(classifier, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(classifier, "enabled", true);
+        ReflectionTestUtils.setField(classifier, "location", "classpath:anomaly-rules.json");
+        ReflectionTestUtils.setField(classifier, "minConfidence", 0.8);
+        classifier.init();
+
+        detector = new StreamingAnomalyDetector();
+        ReflectionTestUtils.setField(detector, "ruleClassifier", classifier);
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "maxSeries", 4);
+        ReflectionTestUtils.setField(detector, "alpha", 0.05);
+        ReflectionTestUtils.setField(detector, "zThreshold", 5.0);
+        ReflectionTestUtils.setField(detector, "minStdRatio", 0.01);
+        ReflectionTestUtils.setField(detector, "warmupSamples", 50);
+        ReflectionTestUtils.setField(detector, "dedupWindowMs", 60_000L);
+        ReflectionTestUtils.setField(detector, "queueCapacity", 100);
+        ReflectionTestUtils.setField(detector, "flushBatch", 10);
+        detector.allocate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DataETable> drain() {
+        Queue<DataETable> pending = (Queue<DataETable>) ReflectionTestUtils.getField(detector, "pending");
+        List<DataETable> drained = new ArrayList<>(pending);
+        pending.clear();
+        return drained;
+    }
+
+    @Test
+    void rangeRulesFromParameterSpecs() {
+        int motor = detector.series("EL-001", "曳引系统", "电机温度");
+        assertEquals(StreamingAnomalyDetector.NORMAL, detector.offer(motor, 60, 0));
+        assertEquals(StreamingAnomalyDetector.WARNING, detector.offer(motor, 90, 1));
+        assertEquals(StreamingAnomalyDetector.CRITICAL, detector.offer(motor, 130, 2));
+
+        List<DataETable> emitted = drain();
+        assertEquals(2, emitted.size());
+        DataETable critical = emitted.get(1);
+        assertEquals("EL-001", critical.getEName());
+        assertEquals("曳引系统", critical.getSystemName());
+        assertEquals("电机温度", critical.getSystemSqName());
+        assertEquals("130°C", critical.getEData());
+    }
+
+    @Test
+    void repeatsAreSuppressedWithinWindow() {
+        int motor = detector.series("EL-001", "曳引系统", "电机温度");
+        for (int i = 0; i < 100; i++) {
+            detector.offer(motor, 90, i * 100L);
+        }
+        assertEquals(1, drain().size());
+        // 等级升高立即上报，同等级要等去重窗口过去
+        detector.offer(motor, 110, 10_000);
+        detector.offer(motor, 90, 20_000);
+        assertEquals(1, drain().size());
+        detector.offer(motor, 90, 80_000);
+        assertEquals(1, drain().size());
+        assertEquals(100L, detector.getStats().get("suppressed"));
+    }
+
+    @Test
+    void ewmaBaselineFlagsOutliersWithoutRule() {
+        int load = detector.series("EL-002", "轿厢", "载重");
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(StreamingAnomalyDetector.NORMAL, detector.offer(load, 500 + random.nextGaussian(), i));
+        }
+        assertTrue(drain().isEmpty());
+        assertEquals(StreamingAnomalyDetector.WARNING, detector.offer(load, 560, 1000));
+        assertEquals(1, drain().size());
+    }
+
+    @Test
+    void seriesAreBoundedByMaxSeries() {
+        int first = detector.series("EL-001", "门系统", "开关门时间");
+        assertEquals(first, detector.series("EL-001", "门系统", "开关门时间"));
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(-1, detector.series("EL-00" + i, "门系统", "触点电阻"));
+        }
+        int rejected = detector.series("EL-009", "门系统", "触点电阻");
+        assertEquals(-1, rejected);
+        assertEquals(StreamingAnomalyDetector.NORMAL, detector.offer(rejected, 1e9, 0));
+        assertEquals(1L, detector.getStats().get("seriesRejected"));
+
+        // 大量被拒绝的新序列既不占用映射也不推高序列计数
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(-1, detector.series("EL-" + i, "曳引系统", "振动"));
+        }
+        Map<?, ?> seriesIndex = (Map<?, ?>) ReflectionTestUtils.getField(detector, "seriesIndex");
+        assertEquals(4, seriesIndex.size());
+        assertEquals(4, detector.getStats().get("series"));
+        assertEquals(1001L, detector.getStats().get("seriesRejected"));
+    }
+}
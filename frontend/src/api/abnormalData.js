@@ -5,7 +5,7 @@ import request from '../utils/request';
  */
 export default {
   /**
-   * 添加异常数据（AI分析）
+   * 添加异常数据（入库后立即返回，AI分析异步进行，结果用 getAnalysisStatus 查询）
    */
   addAbnormalData(data) {
     const requestData = {
@@ -33,6 +33,21 @@ export default {
     return request.post('/data-etable/create', requestData);
   },
 
+  /**
+   * 批量创建异常数据，一次请求、一个事务内入库，返回分配的 ids
+   * @param {Array} list - 异常数据数组
+   * @param {boolean} analyze - 是否在入库后逐条进入AI分析队列
+   */
+  batchCreateAbnormalData(list, analyze = false) {
+    const requestData = list.map(data => ({
+      systemName: data.systemName || '未知系统',
+      systemSqName: data.systemSqName || '未知组件',
+      eName: data.eName || '未知异常',
+      eData: data.eData || '0'
+    }));
+    return request.post('/data-etable/batch-create', requestData, { params: { analyze } });
+  },
+
   /**
    * 分页查询异常数据
    */
@@ -60,6 +75,13 @@ export default {
     return request.post('/data-etable/gain-data', requestData);
   },
 
+  /**
+   * 查询异常数据的AI分析状态（gain-data 入库后异步分析）
+   */
+  getAnalysisStatus(mtDataId) {
+    return request.get(`/data-etable/analysis-status/${mtDataId}`);
+  },
+
   /**
    * 获取模拟的AI分析结果
    */
@@ -320,6 +320,48 @@ export default {
       });
   },
 
+  /**
+   * 流式AI寿命预测（SSE），大模型生成的内容边生成边回调
+   * @param {Object} handlers
+   * @param {Function} [handlers.onToken] - 每收到一段增量文本调用，参数为 (片段, 已收到的全文)
+   * @param {Function} handlers.onResult - 分析完成，参数为 {main, message}
+   * @param {Function} handlers.onError - 出错，参数为 Error；尚未收到任何内容时可回退到非流式接口
+   * @returns {Function} 调用后关闭连接
+   */
+  streamLifetimeAnalysis({ onToken, onResult, onError }) {
+    const source = new EventSource(`${config.API_BASE_URL}/data-etable/lifetime-analysis/stream`);
+    let text = '';
+    let finished = false;
+
+    source.addEventListener('token', (event) => {
+      const chunk = JSON.parse(event.data).text || '';
+      text += chunk;
+      if (onToken) {
+        onToken(chunk, text);
+      }
+    });
+    source.addEventListener('result', (event) => {
+      finished = true;
+      source.close();
+      onResult(JSON.parse(event.data));
+    });
+    // 服务端主动发送的 error 事件带有 data，连接失败时浏览器触发的 error 事件没有
+    source.addEventListener('error', (event) => {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      source.close();
+      const message = event.data ? JSON.parse(event.data).message : '寿命预测流式连接中断';
+      onError(Object.assign(new Error(message), { received: text }));
+    });
+
+    return () => {
+      finished = true;
+      source.close();
+    };
+  },
+
   /**
    * 获取MCP寿命分析信息 (新接口)
    * @returns {Promise<Object>}
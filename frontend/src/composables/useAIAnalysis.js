@@ -37,6 +37,28 @@ const getSysIdByName = (systemName) => {
   return systemMap[systemName] || 'sys-001';
 };
 
+// 后端AI分析异步执行，gain-data 只返回 mtDataId，按此间隔轮询分析状态
+const ANALYSIS_POLL_INTERVAL_MS = 1000;
+const ANALYSIS_POLL_TIMEOUT_MS = 120000;
+const ANALYSIS_FINISHED = ['DONE', 'FAILED', 'REJECTED'];
+
+/**
+ * 轮询异常数据的AI分析状态，直到分析结束（完成、失败或被拒绝）
+ * @returns {Promise<Object>} 分析状态：status、statusLabel、aiCode、aiResult、建议
+ */
+const waitForAnalysis = async (mtDataId) => {
+  const deadline = Date.now() + ANALYSIS_POLL_TIMEOUT_MS;
+  while (Date.now() < deadline) {
+    const response = await abnormalDataApi.getAnalysisStatus(mtDataId);
+    const status = response && response.data ? response.data.data : null;
+    if (status && ANALYSIS_FINISHED.includes(status.status)) {
+      return status;
+    }
+    await new Promise(resolve => setTimeout(resolve, ANALYSIS_POLL_INTERVAL_MS));
+  }
+  throw new Error('云端AI分析超时');
+};
+
 export function useAIAnalysis(stopElevator) {
   // AI通知相关状态
   const centerAIResult = ref({
@@ -696,10 +718,29 @@ export function useAIAnalysis(stopElevator) {
       }
 
       // 处理后端分析结果
-      const resultData = (backendResponse.data && typeof backendResponse.data.data === 'string')
+      let resultData = (backendResponse.data && typeof backendResponse.data.data === 'string')
         ? JSON.parse(backendResponse.data.data)
         : backendResponse.data;
 
+      // 只有命中分析缓存或规则时才随入库结果返回结论，否则等待异步分析结束
+      if (resultData.aiCode === undefined && resultData.mtDataId !== undefined) {
+        centerAIResult.value = {
+          ...centerAIResult.value,
+          summary: `异常数据已入库（#${resultData.mtDataId}），等待云端AI分析结果...`
+        };
+        const analysis = await waitForAnalysis(resultData.mtDataId);
+        if (analysis.status !== 'DONE') {
+          throw new Error(analysis.aiResult || analysis.statusLabel || '云端AI分析未完成');
+        }
+        resultData = {
+          ...resultData,
+          aiCode: analysis.aiCode,
+          aiResult: analysis.aiResult,
+          aiSeverity: analysis.aiSeverity,
+          建议: analysis.建议
+        };
+      }
+
       // 更新深度分析结果
       deepAnalysisResult.value = {
         status: 'completed',
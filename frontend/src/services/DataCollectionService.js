@@ -493,20 +493,17 @@ class DataCollectionService {
       console.log('准备发送异常数据:', dataToSend);
       
       try {
-        // 将异常数据格式化为后端API接受的格式
-        for (const anomaly of dataToSend) {
-          // 根据不同系统类型构造异常数据对象
-          const abnormalData = {
-            systemName: anomaly.systemName,
-            systemSqName: anomaly.type === 'parameter' ? anomaly.paramName : anomaly.faultCode || '未知',
-            eName: this.elevatorId || '智云梯',
-            eData: anomaly.type === 'parameter' ? anomaly.paramValue : anomaly.faultCode || 0
-          };
-          
-          // 调用API发送异常数据
-          const response = await abnormalDataApi.addAbnormalData(abnormalData);
-          console.log(`成功发送异常数据:`, response.data);
-        }
+        // 将异常数据格式化为后端API接受的格式，根据不同系统类型构造异常数据对象
+        const abnormalDataList = dataToSend.map(anomaly => ({
+          systemName: anomaly.systemName,
+          systemSqName: anomaly.type === 'parameter' ? anomaly.paramName : anomaly.faultCode || '未知',
+          eName: this.elevatorId || '智云梯',
+          eData: anomaly.type === 'parameter' ? anomaly.paramValue : anomaly.faultCode || 0
+        }));
+
+        // 一次请求批量入库，入库后由后端异步进行AI分析
+        const response = await abnormalDataApi.batchCreateAbnormalData(abnormalDataList, true);
+        console.log(`成功发送异常数据 ${abnormalDataList.length} 条:`, response.data);
       } catch (apiError) {
         console.error('API调用失败，但不影响应用继续运行:', apiError);
         // 模拟成功响应，不将数据放回队列，避免队列无限增长
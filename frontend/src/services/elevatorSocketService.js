@@ -16,6 +16,10 @@ class ElevatorSocketService {
   constructor() {
     this.socket = null;
     this.messageListener = null;
+    // 增量协议下客户端维护的完整状态及最近一次应用的帧序号
+    this.state = null;
+    this.lastSeq = -1;
+    this.resyncPending = false;
   }
 
   /**
@@ -30,9 +34,12 @@ class ElevatorSocketService {
       return;
     }
 
-    const url = `${WEBSOCKET_URL}/status/${elevatorId}`;
+    const url = `${WEBSOCKET_URL}/status/${elevatorId}?protocol=delta`;
     this.socket = new WebSocket(url);
     this.messageListener = onMessageCallback;
+    this.state = null;
+    this.lastSeq = -1;
+    this.resyncPending = false;
 
     this.socket.onopen = () => {
       console.log(`WebSocket connected to ${url}`);
@@ -40,8 +47,8 @@ class ElevatorSocketService {
 
     this.socket.onmessage = (event) => {
       try {
-        const data = JSON.parse(event.data);
-        if (this.messageListener) {
+        const data = this.applyFrame(JSON.parse(event.data));
+        if (data && this.messageListener) {
           this.messageListener(data);
         }
       } catch (error) {
@@ -59,6 +66,37 @@ class ElevatorSocketService {
     };
   }
 
+  /**
+   * 将快照/增量帧合并为完整状态；序号不连续时请求服务端重同步
+   * @param {object} frame - 服务端推送的帧
+   * @returns {object|null} 合并后的完整状态，等待重同步时返回null
+   */
+  applyFrame(frame) {
+    if (frame.type === 'snapshot') {
+      const { type, seq, ...state } = frame;
+      this.state = state;
+      this.lastSeq = seq;
+      this.resyncPending = false;
+      return { ...this.state };
+    }
+    if (frame.type === 'delta') {
+      if (!this.state || frame.seq !== this.lastSeq + 1) {
+        // 丢帧或尚未收到快照，丢弃增量并请求完整快照（等待期间只请求一次）
+        if (!this.resyncPending) {
+          this.resyncPending = true;
+          this.sendCommand({ command: 'RESYNC' });
+        }
+        return null;
+      }
+      const { type, seq, ...changes } = frame;
+      Object.assign(this.state, changes);
+      this.lastSeq = seq;
+      return { ...this.state };
+    }
+    // 旧的全量协议
+    return frame;
+  }
+
   /**
    * 发送通用指令到服务器
    * @param {object} commandPayload - 要发送的指令负载
@@ -136,6 +174,9 @@ class ElevatorSocketService {
       this.socket.close();
       this.socket = null;
       this.messageListener = null;
+      this.state = null;
+      this.lastSeq = -1;
+      this.resyncPending = false;
     }
   }
 }